@@ -0,0 +1,83 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.java.cfg.CFG;
+import org.sonar.java.cfg.LiveVariables;
+import org.sonar.java.model.JParserConfig;
+import org.sonar.plugins.java.api.tree.MethodTree;
+
+/**
+ * Construction of the control flow graph and computation of the live variables, per method of the corpus.
+ * Each invocation handles the next method, so that the score is the average over all the methods of the corpus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CfgBenchmark {
+
+  private List<MethodTree> methods;
+  private List<CFG> cfgs;
+  private int next;
+
+  @Setup
+  public void setup() {
+    JParserConfig config = Corpus.parserConfig();
+    methods = Corpus.files().stream()
+      .flatMap(file -> Corpus.methods(Corpus.parse(config, file)).stream())
+      .collect(Collectors.toList());
+    cfgs = methods.stream()
+      .map(CFG::build)
+      .collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public CFG build() {
+    return CFG.build(methods.get(nextIndex()));
+  }
+
+  @Benchmark
+  public LiveVariables liveVariables() {
+    return LiveVariables.analyze(cfgs.get(nextIndex()));
+  }
+
+  private int nextIndex() {
+    int index = next;
+    next = (next + 1) % methods.size();
+    return index;
+  }
+
+}
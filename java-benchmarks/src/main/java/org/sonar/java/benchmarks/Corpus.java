@@ -0,0 +1,162 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.internal.SonarRuntimeImpl;
+import org.sonar.api.utils.Version;
+import org.sonar.java.SonarComponents;
+import org.sonar.java.model.JParser;
+import org.sonar.java.model.JParserConfig;
+import org.sonar.java.model.JavaTree;
+import org.sonar.java.model.JavaVersionImpl;
+import org.sonar.plugins.java.api.JavaVersion;
+import org.sonar.plugins.java.api.tree.BaseTreeVisitor;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+/**
+ * Fixed set of source files the benchmarks are run against, read from the sources of this repository. The root of the
+ * repository is the working directory, unless specified with the {@value #ROOT_PROPERTY} system property: compare
+ * measures taken on the same checkout of the corpus.
+ * Types are resolved against the classpath of the benchmark itself, which contains the dependencies of the corpus.
+ */
+public final class Corpus {
+
+  public static final String JAVA_VERSION = "11";
+
+  public static final String ROOT_PROPERTY = "sonar.java.benchmarks.root";
+
+  private static final String[] FILE_PATHS = {
+    "java-frontend/src/main/java/org/sonar/java/cfg/CFG.java",
+    "java-symbolic-execution/src/main/java/org/sonar/java/se/ExplodedGraphWalker.java",
+    "java-frontend/src/main/java/org/sonar/java/model/JParser.java",
+    "java-checks-test-sources/src/main/java/checks/regex/RedosCheck.java",
+    "java-checks-test-sources/src/main/java/checks/regex/UnusedGroupNamesCheck.java"
+  };
+
+  private Corpus() {
+    // Utility class
+  }
+
+  public static List<SourceFile> files() {
+    Path root = Paths.get(System.getProperty(ROOT_PROPERTY, "."));
+    return Stream.of(FILE_PATHS)
+      .map(root::resolve)
+      .map(SourceFile::load)
+      .collect(Collectors.toList());
+  }
+
+  public static JavaVersion javaVersion() {
+    return new JavaVersionImpl(Integer.parseInt(JAVA_VERSION));
+  }
+
+  public static List<File> classpath() {
+    return Stream.of(System.getProperty("java.class.path").split(File.pathSeparator))
+      .filter(path -> !path.isEmpty())
+      .map(File::new)
+      .collect(Collectors.toList());
+  }
+
+  public static JParserConfig parserConfig() {
+    return JParserConfig.Mode.FILE_BY_FILE.create(JAVA_VERSION, classpath());
+  }
+
+  public static JavaTree.CompilationUnitTreeImpl parse(JParserConfig config, SourceFile file) {
+    return JParser.parse(config.astParser(), JAVA_VERSION, file.name(), file.source());
+  }
+
+  /**
+   * Components of a SonarLint analysis: issues are collected by the scanner contexts, and no symbol table is saved.
+   */
+  public static SonarComponents sonarComponents() {
+    SensorContextTester context = SensorContextTester.create(new File("."))
+      .setRuntime(SonarRuntimeImpl.forSonarLint(Version.create(6, 7)));
+    SonarComponents sonarComponents = new SonarComponents(null, context.fileSystem(), null, null, null);
+    sonarComponents.setSensorContext(context);
+    return sonarComponents;
+  }
+
+  /**
+   * @return methods and constructors of the given tree which have a body, in their order of declaration
+   */
+  public static List<MethodTree> methods(Tree tree) {
+    List<MethodTree> methods = new ArrayList<>();
+    tree.accept(new BaseTreeVisitor() {
+      @Override
+      public void visitMethod(MethodTree methodTree) {
+        if (methodTree.block() != null) {
+          methods.add(methodTree);
+        }
+        super.visitMethod(methodTree);
+      }
+    });
+    return methods;
+  }
+
+  public static final class SourceFile {
+
+    private final String name;
+    private final String source;
+    private final InputFile inputFile;
+
+    private SourceFile(String name, String source) {
+      this.name = name;
+      this.source = source;
+      this.inputFile = new TestInputFileBuilder("corpus", name)
+        .setContents(source)
+        .setCharset(StandardCharsets.UTF_8)
+        .setLanguage("java")
+        .build();
+    }
+
+    private static SourceFile load(Path path) {
+      try {
+        return new SourceFile(path.getFileName().toString(), new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to read corpus file: " + path.toAbsolutePath(), e);
+      }
+    }
+
+    public String name() {
+      return name;
+    }
+
+    public String source() {
+      return source;
+    }
+
+    public InputFile inputFile() {
+      return inputFile;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.java.model.JParserConfig;
+import org.sonar.java.regex.JavaAnalyzerRegexSource;
+import org.sonar.plugins.java.api.tree.BaseTreeVisitor;
+import org.sonar.plugins.java.api.tree.ExpressionTree;
+import org.sonar.plugins.java.api.tree.LiteralTree;
+import org.sonar.plugins.java.api.tree.MethodInvocationTree;
+import org.sonar.plugins.java.api.tree.Tree;
+import org.sonarsource.analyzer.commons.regex.RegexParser;
+import org.sonarsource.analyzer.commons.regex.ast.FlagSet;
+
+/**
+ * Parsing of the string literals of the corpus which are given as regular expressions to the methods of the JDK.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegexParserBenchmark {
+
+  private static final Set<String> REGEX_METHODS = new HashSet<>(Arrays.asList("compile", "matches", "replaceAll", "replaceFirst", "split"));
+
+  private final List<LiteralTree> regexes = new ArrayList<>();
+
+  @Setup
+  public void setup() {
+    JParserConfig config = Corpus.parserConfig();
+    for (Corpus.SourceFile file : Corpus.files()) {
+      Corpus.parse(config, file).accept(new BaseTreeVisitor() {
+        @Override
+        public void visitMethodInvocation(MethodInvocationTree tree) {
+          String name = tree.symbol().name();
+          if (REGEX_METHODS.contains(name) && !tree.arguments().isEmpty()) {
+            ExpressionTree regex = tree.arguments().get(0);
+            if (regex.is(Tree.Kind.STRING_LITERAL)) {
+              regexes.add((LiteralTree) regex);
+            }
+          }
+          super.visitMethodInvocation(tree);
+        }
+      });
+    }
+  }
+
+  @Benchmark
+  public void parse(Blackhole blackhole) {
+    for (LiteralTree regex : regexes) {
+      blackhole.consume(new RegexParser(new JavaAnalyzerRegexSource(Collections.singletonList(regex)), new FlagSet(0)).parse());
+    }
+  }
+
+}
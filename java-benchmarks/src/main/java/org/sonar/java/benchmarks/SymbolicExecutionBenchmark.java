@@ -0,0 +1,98 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.java.SonarComponents;
+import org.sonar.java.model.JParserConfig;
+import org.sonar.java.model.JavaTree;
+import org.sonar.java.se.SymbolicExecutionVisitor;
+import org.sonar.java.se.checks.SECheck;
+import org.sonar.java.testing.JavaFileScannerContextForTests;
+import org.sonar.plugins.java.api.tree.MethodTree;
+
+/**
+ * Symbolic execution of each method of the corpus, with all the symbolic execution checks of the check list.
+ * Each invocation executes the next method with an empty behavior cache, so that the score is the average cost of
+ * a method over the corpus, including the cost of the methods it calls and which are defined in the same file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SymbolicExecutionBenchmark {
+
+  private final List<Method> methods = new ArrayList<>();
+  private List<SECheck> seChecks;
+  private SonarComponents sonarComponents;
+  private int next;
+
+  @Setup
+  public void setup() {
+    seChecks = VisitorsBridgeBenchmark.seChecks(VisitorsBridgeBenchmark.checks());
+    sonarComponents = Corpus.sonarComponents();
+    JParserConfig config = Corpus.parserConfig();
+    for (Corpus.SourceFile file : Corpus.files()) {
+      JavaTree.CompilationUnitTreeImpl tree = Corpus.parse(config, file);
+      Corpus.methods(tree).forEach(methodTree -> methods.add(new Method(file, tree, methodTree)));
+    }
+  }
+
+  @Benchmark
+  public SymbolicExecutionVisitor execute() {
+    Method method = methods.get(next);
+    next = (next + 1) % methods.size();
+
+    SymbolicExecutionVisitor visitor = new SymbolicExecutionVisitor(seChecks);
+    // a new context for each execution, so that reported issues do not accumulate
+    visitor.setContext(new JavaFileScannerContextForTests(method.tree, method.file.inputFile(), method.tree.sema, sonarComponents,
+      Corpus.javaVersion(), true, false));
+    visitor.behaviorCache.setFileContext(visitor);
+    visitor.execute(method.methodTree);
+    return visitor;
+  }
+
+  private static final class Method {
+    private final Corpus.SourceFile file;
+    private final JavaTree.CompilationUnitTreeImpl tree;
+    private final MethodTree methodTree;
+
+    private Method(Corpus.SourceFile file, JavaTree.CompilationUnitTreeImpl tree, MethodTree methodTree) {
+      this.file = file;
+      this.tree = tree;
+      this.methodTree = methodTree;
+    }
+  }
+
+}
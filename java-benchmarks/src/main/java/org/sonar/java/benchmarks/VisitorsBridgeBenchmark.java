@@ -0,0 +1,109 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.java.checks.CheckList;
+import org.sonar.java.model.JParserConfig;
+import org.sonar.java.model.JavaTree;
+import org.sonar.java.se.SymbolicExecutionVisitor;
+import org.sonar.java.se.checks.SECheck;
+import org.sonar.java.testing.VisitorsBridgeForTests;
+import org.sonar.plugins.java.api.JavaCheck;
+
+/**
+ * Execution of all the main checks of {@link CheckList} on the already parsed corpus, as done by the sensor.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VisitorsBridgeBenchmark {
+
+  private List<Corpus.SourceFile> files;
+  private List<JavaTree.CompilationUnitTreeImpl> trees;
+  private VisitorsBridgeForTests visitorsBridge;
+
+  @Setup
+  public void setup() {
+    files = Corpus.files();
+    JParserConfig config = Corpus.parserConfig();
+    trees = files.stream()
+      .map(file -> Corpus.parse(config, file))
+      .collect(Collectors.toList());
+    visitorsBridge = new VisitorsBridgeForTests(checks(), Corpus.classpath(), Corpus.sonarComponents());
+    visitorsBridge.setJavaVersion(Corpus.javaVersion());
+  }
+
+  @Benchmark
+  public void visitFile() {
+    for (int i = 0; i < files.size(); i++) {
+      visitorsBridge.setCurrentFile(files.get(i).inputFile());
+      visitorsBridge.visitFile(trees.get(i));
+    }
+  }
+
+  /**
+   * @return instances of the main checks, with the symbolic execution inserted before the first symbolic execution check
+   */
+  static List<JavaCheck> checks() {
+    List<JavaCheck> checks = new ArrayList<>();
+    for (Class<? extends JavaCheck> checkClass : CheckList.getJavaChecks()) {
+      checks.add(newInstance(checkClass));
+    }
+    List<SECheck> seChecks = seChecks(checks);
+    if (!seChecks.isEmpty()) {
+      checks.add(checks.indexOf(seChecks.get(0)), new SymbolicExecutionVisitor(seChecks));
+    }
+    return checks;
+  }
+
+  static List<SECheck> seChecks(List<JavaCheck> checks) {
+    return checks.stream()
+      .filter(SECheck.class::isInstance)
+      .map(SECheck.class::cast)
+      .collect(Collectors.toList());
+  }
+
+  private static JavaCheck newInstance(Class<? extends JavaCheck> checkClass) {
+    try {
+      return checkClass.getDeclaredConstructor().newInstance();
+    } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
+      throw new IllegalStateException("Unable to instantiate " + checkClass.getName(), e);
+    }
+  }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.IPackageBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.java.benchmarks.Corpus;
+
+/**
+ * Stages of the parsing of the corpus: ECJ alone, ECJ followed by the conversion into a SonarJava tree, the conversion
+ * alone, and the creation of the symbols of the semantic model.
+ * Lives in the package of {@link JParser} in order to reach the stages which are not part of the public API.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JParserBenchmark {
+
+  private List<Corpus.SourceFile> files;
+  private JParserConfig config;
+  private List<CompilationUnit> compilationUnits;
+  private List<List<IBinding>> bindings;
+
+  @Setup
+  public void setup() {
+    files = Corpus.files();
+    config = Corpus.parserConfig();
+    compilationUnits = files.stream()
+      .map(this::ecjParse)
+      .collect(Collectors.toList());
+    bindings = compilationUnits.stream()
+      .map(JParserBenchmark::bindings)
+      .collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public void ecj(Blackhole blackhole) {
+    for (Corpus.SourceFile file : files) {
+      blackhole.consume(ecjParse(file));
+    }
+  }
+
+  @Benchmark
+  public void parse(Blackhole blackhole) {
+    for (Corpus.SourceFile file : files) {
+      blackhole.consume(Corpus.parse(config, file));
+    }
+  }
+
+  @Benchmark
+  public void convert(Blackhole blackhole) {
+    for (int i = 0; i < files.size(); i++) {
+      Corpus.SourceFile file = files.get(i);
+      blackhole.consume(JParser.convert(Corpus.JAVA_VERSION, file.name(), file.source(), compilationUnits.get(i)));
+    }
+  }
+
+  @Benchmark
+  public void symbols(Blackhole blackhole) {
+    for (int i = 0; i < compilationUnits.size(); i++) {
+      JSema sema = new JSema(compilationUnits.get(i).getAST());
+      for (IBinding binding : bindings.get(i)) {
+        blackhole.consume(symbol(sema, binding));
+      }
+    }
+  }
+
+  private CompilationUnit ecjParse(Corpus.SourceFile file) {
+    ASTParser astParser = config.astParser();
+    astParser.setUnitName(file.name());
+    astParser.setSource(file.source().toCharArray());
+    return (CompilationUnit) astParser.createAST(null);
+  }
+
+  private static Object symbol(JSema sema, IBinding binding) {
+    switch (binding.getKind()) {
+      case IBinding.PACKAGE:
+        return sema.packageSymbol((IPackageBinding) binding);
+      case IBinding.TYPE:
+        return sema.typeSymbol((ITypeBinding) binding);
+      case IBinding.METHOD:
+        return sema.methodSymbol((IMethodBinding) binding);
+      case IBinding.VARIABLE:
+        return sema.variableSymbol((IVariableBinding) binding);
+      default:
+        return binding;
+    }
+  }
+
+  /**
+   * @return bindings of all the names of the given compilation unit, as the converter resolves them
+   */
+  private static List<IBinding> bindings(CompilationUnit compilationUnit) {
+    List<IBinding> result = new ArrayList<>();
+    compilationUnit.accept(new ASTVisitor() {
+      @Override
+      public boolean visit(SimpleName node) {
+        IBinding binding = node.resolveBinding();
+        if (binding != null) {
+          result.add(binding);
+        }
+        return true;
+      }
+    });
+    return result;
+  }
+
+}
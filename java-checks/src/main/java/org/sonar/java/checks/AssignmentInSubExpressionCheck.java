@@ -20,12 +20,10 @@
 package org.sonar.java.checks;
 
 import org.sonar.check.Rule;
+import org.sonar.java.ast.visitors.FusableTreeVisitor;
 import org.sonar.java.model.ExpressionUtils;
-import org.sonar.plugins.java.api.JavaFileScanner;
-import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.tree.AnnotationTree;
 import org.sonar.plugins.java.api.tree.AssignmentExpressionTree;
-import org.sonar.plugins.java.api.tree.BaseTreeVisitor;
 import org.sonar.plugins.java.api.tree.BinaryExpressionTree;
 import org.sonar.plugins.java.api.tree.ExpressionStatementTree;
 import org.sonar.plugins.java.api.tree.ExpressionTree;
@@ -40,7 +38,7 @@ import org.sonarsource.analyzer.commons.annotations.DeprecatedRuleKey;
 
 @DeprecatedRuleKey(ruleKey = "AssignmentInSubExpressionCheck", repositoryKey = "squid")
 @Rule(key = "S1121")
-public class AssignmentInSubExpressionCheck extends BaseTreeVisitor implements JavaFileScanner {
+public class AssignmentInSubExpressionCheck extends FusableTreeVisitor {
 
   private static final Kind[] ASSIGNMENT_EXPRESSIONS = new Kind[]{
     Kind.AND_ASSIGNMENT,
@@ -56,15 +54,6 @@ public class AssignmentInSubExpressionCheck extends BaseTreeVisitor implements J
     Kind.UNSIGNED_RIGHT_SHIFT_ASSIGNMENT,
     Kind.XOR_ASSIGNMENT};
 
-  private JavaFileScannerContext context;
-
-  @Override
-  public void scanFile(JavaFileScannerContext context) {
-    this.context = context;
-
-    scan(context.getTree());
-  }
-
   @Override
   public void visitAnnotation(AnnotationTree annotationTree) {
     //skip scanning of annotation : assignment in annotation is normal behaviour
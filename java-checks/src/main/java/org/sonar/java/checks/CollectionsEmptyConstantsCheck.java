@@ -20,10 +20,8 @@
 package org.sonar.java.checks;
 
 import org.sonar.check.Rule;
+import org.sonar.java.ast.visitors.FusableTreeVisitor;
 import org.sonarsource.analyzer.commons.collections.MapBuilder;
-import org.sonar.plugins.java.api.JavaFileScanner;
-import org.sonar.plugins.java.api.JavaFileScannerContext;
-import org.sonar.plugins.java.api.tree.BaseTreeVisitor;
 import org.sonar.plugins.java.api.tree.IdentifierTree;
 import org.sonar.plugins.java.api.tree.MemberSelectExpressionTree;
 import org.sonar.plugins.java.api.tree.Tree.Kind;
@@ -31,7 +29,7 @@ import org.sonar.plugins.java.api.tree.Tree.Kind;
 import java.util.Map;
 
 @Rule(key = "S1596")
-public class CollectionsEmptyConstantsCheck extends BaseTreeVisitor implements JavaFileScanner {
+public class CollectionsEmptyConstantsCheck extends FusableTreeVisitor {
 
   private static final Map<String, String> IDENTIFIER_REPLACEMENT = MapBuilder.<String, String>newMap()
     .put("EMPTY_LIST", "emptyList()")
@@ -39,14 +37,6 @@ public class CollectionsEmptyConstantsCheck extends BaseTreeVisitor implements J
     .put("EMPTY_SET", "emptySet()")
     .build();
 
-  private JavaFileScannerContext context;
-
-  @Override
-  public void scanFile(JavaFileScannerContext context) {
-    this.context = context;
-    scan(context.getTree());
-  }
-
   @Override
   public void visitMemberSelectExpression(MemberSelectExpressionTree tree) {
     super.visitMemberSelectExpression(tree);
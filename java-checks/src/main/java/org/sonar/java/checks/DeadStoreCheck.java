@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Set;
 import org.sonar.check.Rule;
 import org.sonar.java.cfg.CFG;
+import org.sonar.java.cfg.DataflowCache;
 import org.sonar.java.cfg.LiveVariables;
 import org.sonar.java.cfg.VariableReadExtractor;
 import org.sonar.java.checks.helpers.UnresolvedIdentifiersVisitor;
@@ -79,7 +80,7 @@ public class DeadStoreCheck extends IssuableSubscriptionVisitor {
 
     Symbol.MethodSymbol methodSymbol = methodTree.symbol();
     CFG cfg = (CFG) methodTree.cfg();
-    LiveVariables liveVariables = LiveVariables.analyze(cfg);
+    LiveVariables liveVariables = DataflowCache.of(context).liveVariables(cfg);
     // Liveness analysis provides information only for block boundaries, so we should do analysis between elements within blocks
     for (CFG.Block block : cfg.blocks()) {
       checkElements(block, liveVariables.getOut(block), methodSymbol);
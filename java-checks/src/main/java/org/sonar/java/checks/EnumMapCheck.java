@@ -21,15 +21,13 @@ package org.sonar.java.checks;
 
 import java.util.List;
 import org.sonar.check.Rule;
+import org.sonar.java.ast.visitors.FusableTreeVisitor;
 import org.sonar.java.checks.helpers.MethodTreeUtils;
 import org.sonar.java.model.ExpressionUtils;
-import org.sonar.plugins.java.api.JavaFileScanner;
-import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.semantic.MethodMatchers;
 import org.sonar.plugins.java.api.semantic.Symbol;
 import org.sonar.plugins.java.api.semantic.Type;
 import org.sonar.plugins.java.api.tree.AssignmentExpressionTree;
-import org.sonar.plugins.java.api.tree.BaseTreeVisitor;
 import org.sonar.plugins.java.api.tree.ExpressionTree;
 import org.sonar.plugins.java.api.tree.IdentifierTree;
 import org.sonar.plugins.java.api.tree.NewClassTree;
@@ -37,17 +35,10 @@ import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.plugins.java.api.tree.VariableTree;
 
 @Rule(key = "S1640")
-public class EnumMapCheck extends BaseTreeVisitor implements JavaFileScanner {
-  private JavaFileScannerContext context;
+public class EnumMapCheck extends FusableTreeVisitor {
   private static final String JAVA_UTIL_MAP = "java.util.Map";
   private static final MethodMatchers mapPut = MethodMatchers.create().ofTypes(JAVA_UTIL_MAP).names("put").withAnyParameters().build();
 
-  @Override
-  public void scanFile(final JavaFileScannerContext context) {
-    this.context = context;
-    scan(context.getTree());
-  }
-
   @Override
   public void visitVariable(VariableTree tree) {
     if (tree.type().symbolType().isSubtypeOf(JAVA_UTIL_MAP)) {
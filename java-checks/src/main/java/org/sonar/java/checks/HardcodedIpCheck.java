@@ -26,15 +26,13 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.check.Rule;
+import org.sonar.java.ast.visitors.FusableTreeVisitor;
 import org.sonar.java.model.LiteralUtils;
-import org.sonar.plugins.java.api.JavaFileScanner;
-import org.sonar.plugins.java.api.JavaFileScannerContext;
-import org.sonar.plugins.java.api.tree.BaseTreeVisitor;
 import org.sonar.plugins.java.api.tree.LiteralTree;
 import org.sonar.plugins.java.api.tree.Tree;
 
 @Rule(key = "S1313")
-public class HardcodedIpCheck extends BaseTreeVisitor implements JavaFileScanner {
+public class HardcodedIpCheck extends FusableTreeVisitor {
   private static final String PROTOCOL_URL = "([^\\d.]*/)";
   private static final String PORT_URL = "(:\\d{1,5})?";
   private static final String PATH_URL = "((?![\\d.]))(/.*)?";
@@ -58,14 +56,6 @@ public class HardcodedIpCheck extends BaseTreeVisitor implements JavaFileScanner
 
   private static final String MESSAGE = "Make sure using this hardcoded IP address is safe here.";
 
-  private JavaFileScannerContext context;
-
-  @Override
-  public void scanFile(final JavaFileScannerContext context) {
-    this.context = context;
-    scan(context.getTree());
-  }
-
   @Override
   public void visitLiteral(LiteralTree tree) {
     if (tree.is(Tree.Kind.STRING_LITERAL)) {
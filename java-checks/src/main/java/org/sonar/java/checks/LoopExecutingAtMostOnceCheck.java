@@ -24,6 +24,7 @@ import java.util.Arrays;
 import java.util.List;
 import org.sonar.check.Rule;
 import org.sonar.java.cfg.CFG;
+import org.sonar.java.cfg.DataflowCache;
 import org.sonar.java.model.ExpressionUtils;
 import org.sonar.java.model.LiteralUtils;
 import org.sonar.plugins.java.api.IssuableSubscriptionVisitor;
@@ -141,7 +142,7 @@ public class LoopExecutingAtMostOnceCheck extends IssuableSubscriptionVisitor {
     return false;
   }
 
-  private static boolean executeUnconditionnally(Tree loopTree) {
+  private boolean executeUnconditionnally(Tree loopTree) {
     CFG cfg = getCFG(loopTree);
     CFG.Block loopBlock = getLoopBlock(cfg, loopTree);
     // we cannot find a path in the CFG that goes twice through this instruction.
@@ -218,7 +219,7 @@ public class LoopExecutingAtMostOnceCheck extends IssuableSubscriptionVisitor {
     }
   }
 
-  private static CFG getCFG(Tree loop) {
+  private CFG getCFG(Tree loop) {
     Tree currentTree = loop;
     do {
       currentTree = currentTree.parent();
@@ -231,7 +232,7 @@ public class LoopExecutingAtMostOnceCheck extends IssuableSubscriptionVisitor {
       case LAMBDA_EXPRESSION:
         return (CFG) ((LambdaExpressionTree) currentTree).cfg();
       default:
-        return CFG.buildCFG(((BlockTree) currentTree).body());
+        return DataflowCache.of(context).cfg(((BlockTree) currentTree).body(), false);
     }
   }
 }
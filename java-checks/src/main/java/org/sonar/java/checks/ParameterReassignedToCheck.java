@@ -21,6 +21,7 @@ package org.sonar.java.checks;
 
 import org.sonar.check.Rule;
 import org.sonar.java.cfg.CFG;
+import org.sonar.java.cfg.DataflowCache;
 import org.sonar.java.cfg.LiveVariables;
 import org.sonar.plugins.java.api.JavaFileScanner;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
@@ -63,7 +64,7 @@ public class ParameterReassignedToCheck extends BaseTreeVisitor implements JavaF
       return;
     }
     CFG cfg = (CFG) tree.cfg();
-    LiveVariables analyze = LiveVariables.analyze(cfg);
+    LiveVariables analyze = DataflowCache.of(context).liveVariables(cfg);
     Set<Symbol> live = analyze.getIn(cfg.entryBlock());
     for (VariableTree parameterTree : tree.parameters()) {
       if(!live.contains(parameterTree.symbol())) {
@@ -80,12 +81,12 @@ public class ParameterReassignedToCheck extends BaseTreeVisitor implements JavaF
 
   @Override
   public void visitCatch(CatchTree tree) {
-    CFG cfg = CFG.buildCFG(tree.block().body(), true);
+    CFG cfg = DataflowCache.of(context).cfg(tree.block().body(), true);
     Symbol variable = tree.parameter().symbol();
     boolean liveVar = true;
     if(variable.owner().isMethodSymbol()) {
       cfg.setMethodSymbol((Symbol.MethodSymbol) variable.owner());
-      LiveVariables analyze = LiveVariables.analyze(cfg);
+      LiveVariables analyze = DataflowCache.of(context).liveVariables(cfg);
       Set<Symbol> live = analyze.getIn(cfg.entryBlock());
       liveVar = live.contains(variable);
     }
@@ -100,12 +101,12 @@ public class ParameterReassignedToCheck extends BaseTreeVisitor implements JavaF
 
   @Override
   public void visitForEachStatement(ForEachStatement tree) {
-    CFG cfg = CFG.buildCFG(Collections.singletonList(tree), true);
+    CFG cfg = DataflowCache.of(context).cfg(Collections.singletonList(tree), true);
     Symbol variable = tree.variable().symbol();
     boolean liveVar = true;
     if(variable.owner().isMethodSymbol()) {
       cfg.setMethodSymbol((Symbol.MethodSymbol) variable.owner());
-      LiveVariables analyze = LiveVariables.analyze(cfg);
+      LiveVariables analyze = DataflowCache.of(context).liveVariables(cfg);
       Set<Symbol> live = analyze.getOut(cfg.reversedBlocks().get(1));
       liveVar = live.contains(variable);
     }
@@ -20,13 +20,11 @@
 package org.sonar.java.checks;
 
 import org.sonar.check.Rule;
+import org.sonar.java.ast.visitors.FusableTreeVisitor;
 import org.sonar.java.model.JUtils;
-import org.sonar.plugins.java.api.JavaFileScanner;
-import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.semantic.MethodMatchers;
 import org.sonar.plugins.java.api.semantic.Type;
 import org.sonar.plugins.java.api.tree.AnnotationTree;
-import org.sonar.plugins.java.api.tree.BaseTreeVisitor;
 import org.sonar.plugins.java.api.tree.ExpressionTree;
 import org.sonar.plugins.java.api.tree.MemberSelectExpressionTree;
 import org.sonar.plugins.java.api.tree.MethodInvocationTree;
@@ -34,7 +32,7 @@ import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.plugins.java.api.tree.Tree.Kind;
 
 @Rule(key = "S2131")
-public class PrimitiveTypeBoxingWithToStringCheck extends BaseTreeVisitor implements JavaFileScanner {
+public class PrimitiveTypeBoxingWithToStringCheck extends FusableTreeVisitor {
 
   private static final MethodMatchers TO_STRING_MATCHERS = MethodMatchers.create().ofSubTypes(
     "java.lang.Byte",
@@ -49,14 +47,6 @@ public class PrimitiveTypeBoxingWithToStringCheck extends BaseTreeVisitor implem
     .addWithoutParametersMatcher()
     .build();
 
-  private JavaFileScannerContext context;
-
-  @Override
-  public void scanFile(JavaFileScannerContext context) {
-    this.context = context;
-    scan(context.getTree());
-  }
-
   @Override
   public void visitMethodInvocation(MethodInvocationTree tree) {
     if (TO_STRING_MATCHERS.matches(tree)) {
@@ -69,7 +59,6 @@ public class PrimitiveTypeBoxingWithToStringCheck extends BaseTreeVisitor implem
     super.visitMethodInvocation(tree);
   }
 
-
   private void createIssue(Tree reportingTree, String wrapperName) {
     context.reportIssue(this, reportingTree, "Use \"" + wrapperName + ".toString\" instead.");
   }
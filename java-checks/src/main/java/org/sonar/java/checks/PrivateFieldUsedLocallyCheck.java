@@ -21,6 +21,7 @@ package org.sonar.java.checks;
 
 import org.sonar.check.Rule;
 import org.sonar.java.cfg.CFG;
+import org.sonar.java.cfg.DataflowCache;
 import org.sonar.java.cfg.LiveVariables;
 import org.sonar.java.model.ExpressionUtils;
 import org.sonar.plugins.java.api.IssuableSubscriptionVisitor;
@@ -85,9 +86,9 @@ public class PrivateFieldUsedLocallyCheck extends IssuableSubscriptionVisitor {
     }
   }
 
-  private static boolean isLiveInMethodEntry(Symbol privateFieldSymbol, MethodTree methodTree) {
+  private boolean isLiveInMethodEntry(Symbol privateFieldSymbol, MethodTree methodTree) {
     CFG cfg = (CFG) methodTree.cfg();
-    LiveVariables liveVariables = LiveVariables.analyzeWithFields(cfg);
+    LiveVariables liveVariables = DataflowCache.of(context).liveVariablesWithFields(cfg);
     return liveVariables.getIn(cfg.entryBlock()).contains(privateFieldSymbol);
   }
 
@@ -22,6 +22,7 @@ package org.sonar.java.checks;
 import org.sonar.check.Rule;
 import org.sonar.java.JavaVersionAwareVisitor;
 import org.sonar.java.cfg.CFG;
+import org.sonar.java.cfg.DataflowCache;
 import org.sonar.plugins.java.api.IssuableSubscriptionVisitor;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.JavaVersion;
@@ -73,14 +74,14 @@ public class TryWithResourcesCheck extends IssuableSubscriptionVisitor implement
     }
   }
 
-  private static boolean isFollowedByTryWithFinally(Tree tree) {
+  private boolean isFollowedByTryWithFinally(Tree tree) {
     Tree blockParent = tree.parent();
     while (blockParent != null && !blockParent.is(Tree.Kind.BLOCK)) {
       blockParent = blockParent.parent();
     }
 
     if (blockParent != null) {
-      CFG cfg = CFG.buildCFG(Collections.singletonList(blockParent), true);
+      CFG cfg = DataflowCache.of(context).cfg(Collections.singletonList(blockParent), true);
       if (!cfg.blocks().isEmpty()) {
         return newFollowedByTryStatement(cfg.blocks().get(0));
       }
@@ -151,19 +151,40 @@ public abstract class AbstractRegexCheck extends IssuableSubscriptionVisitor imp
   }
 
   protected void onMethodInvocationFound(MethodInvocationTree mit) {
-    ExpressionTree regexExpression = getRegexLiteralExpression(mit);
-    if (regexExpression != null) {
-      FlagSet flags = getFlags(mit);
-      if (!flags.contains(Pattern.LITERAL)) {
-        getLiterals(regexExpression)
-          .map(literals -> regexForLiterals(flags, literals))
-          .ifPresent(result -> checkRegex(result, mit));
+    regexForUseSite(mit).ifPresent(result -> checkRegex(result, mit));
+  }
+
+  /**
+   * The regex of a use site is the same for all the regex checks, so it is only looked for once per file.
+   */
+  private Optional<RegexParseResult> regexForUseSite(ExpressionTree methodInvocationOrAnnotation) {
+    return regexContext.regexForUseSite(methodInvocationOrAnnotation, this::findRegex);
+  }
+
+  private Optional<RegexParseResult> findRegex(ExpressionTree methodInvocationOrAnnotation) {
+    ExpressionTree regexExpression = regexLiteralExpression(methodInvocationOrAnnotation);
+    if (regexExpression == null) {
+      return Optional.empty();
+    }
+    FlagSet flags;
+    if (methodInvocationOrAnnotation.is(Tree.Kind.METHOD_INVOCATION)) {
+      flags = getFlags((MethodInvocationTree) methodInvocationOrAnnotation);
+      if (flags.contains(Pattern.LITERAL)) {
+        return Optional.empty();
       }
+    } else {
+      flags = getFlags((AnnotationTree) methodInvocationOrAnnotation);
     }
+    return getLiterals(regexExpression).map(literals -> regexForLiterals(flags, literals));
   }
 
   @Nullable
   protected ExpressionTree getRegexLiteralExpression(ExpressionTree methodInvocationOrAnnotation) {
+    return regexLiteralExpression(methodInvocationOrAnnotation);
+  }
+
+  @Nullable
+  private static ExpressionTree regexLiteralExpression(ExpressionTree methodInvocationOrAnnotation) {
     if (methodInvocationOrAnnotation.is(Tree.Kind.METHOD_INVOCATION)) {
       MethodInvocationTree mit = (MethodInvocationTree) methodInvocationOrAnnotation;
       int regexIndex = REGEX_ON_THE_SECOND_ARGUMENT_METHODS.matches(mit) ? 1 : 0;
@@ -181,12 +202,7 @@ public abstract class AbstractRegexCheck extends IssuableSubscriptionVisitor imp
   }
 
   protected void onAnnotationFound(AnnotationTree annotation) {
-    ExpressionTree regexExpression = getRegexLiteralExpression(annotation);
-    if (regexExpression != null) {
-      getLiterals(regexExpression)
-        .map(literals -> regexForLiterals(getFlags(annotation), literals))
-        .ifPresent(result -> checkRegex(result, annotation));
-    }
+    regexForUseSite(annotation).ifPresent(result -> checkRegex(result, annotation));
   }
 
   private static class AnnotationFlagsVisitor extends BaseTreeVisitor {
@@ -34,6 +34,7 @@ import org.sonar.java.checks.helpers.IntersectAutomataChecker;
 import org.sonar.java.checks.helpers.RegexReachabilityChecker;
 import org.sonar.java.checks.helpers.SimplifiedRegexCharacterClass;
 import org.sonar.java.checks.helpers.SubAutomaton;
+import org.sonar.java.regex.RegexAnalysisCache;
 import org.sonarsource.analyzer.commons.regex.RegexParseResult;
 import org.sonarsource.analyzer.commons.regex.ast.AtomicGroupTree;
 import org.sonarsource.analyzer.commons.regex.ast.AutomatonState;
@@ -76,6 +77,11 @@ public class RedosCheck extends AbstractRegexCheckTrackingMatchType {
   private boolean regexContainsBackReference;
   private BacktrackingType foundBacktrackingType;
 
+  /**
+   * The verdict only depends on the regex and the way it is matched, so it is reused for equal regexes of other files.
+   */
+  private final RegexAnalysisCache<Verdict> verdicts = new RegexAnalysisCache<>("RedosVerdict");
+
   private final RegexReachabilityChecker reachabilityChecker = new RegexReachabilityChecker(false);
   private final IntersectAutomataChecker intersectionChecker = new IntersectAutomataChecker(false);
 
@@ -93,14 +99,24 @@ public class RedosCheck extends AbstractRegexCheckTrackingMatchType {
     NO_ISSUE
   }
 
+  private static final class Verdict {
+    private final BacktrackingType backtrackingType;
+    private final boolean containsBackReference;
+
+    private Verdict(BacktrackingType backtrackingType, boolean containsBackReference) {
+      this.backtrackingType = backtrackingType;
+      this.containsBackReference = containsBackReference;
+    }
+  }
+
   private boolean isJava9OrHigher() {
     return context.getJavaVersion().isNotSet() || context.getJavaVersion().asInt() >= 9;
   }
   
-  private Optional<String> message() {
-    boolean canBeOptimized = !regexContainsBackReference;
+  private Optional<String> message(Verdict verdict) {
+    boolean canBeOptimized = !verdict.containsBackReference;
     boolean optimized = isJava9OrHigher() && canBeOptimized;
-    switch (foundBacktrackingType) {
+    switch (verdict.backtrackingType) {
       case ALWAYS_EXPONENTIAL:
         return Optional.of(String.format(MESSAGE, EXP, ""));
       case QUADRATIC_WHEN_OPTIMIZED:
@@ -126,6 +142,13 @@ public class RedosCheck extends AbstractRegexCheckTrackingMatchType {
     if (regexForLiterals.getResult().getText().length() > MAX_REGEX_LENGTH) {
       return;
     }
+    Verdict verdict = verdicts.computeIfAbsent(regexForLiterals, matchType, () -> analyze(regexForLiterals, matchType));
+    message(verdict).ifPresent(message ->
+      reportIssue(methodOrAnnotationName(methodInvocationOrAnnotation), message, null, Collections.emptyList())
+    );
+  }
+
+  private Verdict analyze(RegexParseResult regexForLiterals, MatchType matchType) {
     regexContainsBackReference = false;
     foundBacktrackingType = BacktrackingType.NO_ISSUE;
     reachabilityChecker.clearCache();
@@ -134,9 +157,7 @@ public class RedosCheck extends AbstractRegexCheckTrackingMatchType {
     boolean isUsedForPartialMatch = matchType == MatchType.PARTIAL || matchType == MatchType.BOTH;
     RedosFinder visitor = new RedosFinder(regexForLiterals.getStartState(), regexForLiterals.getFinalState(), isUsedForFullMatch, isUsedForPartialMatch);
     visitor.visit(regexForLiterals);
-    message().ifPresent(message ->
-      reportIssue(methodOrAnnotationName(methodInvocationOrAnnotation), message, null, Collections.emptyList())
-    );
+    return new Verdict(foundBacktrackingType, regexContainsBackReference);
   }
 
   private void addBacktracking(BacktrackingType newBacktrackingType) {
@@ -19,8 +19,19 @@
  */
 package org.eclipse.jdt.core.dom;
 
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import javax.annotation.Nullable;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
 import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.eclipse.jdt.internal.compiler.batch.FileSystem.Classpath;
+import org.eclipse.jdt.internal.compiler.batch.Main;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
 import org.eclipse.jdt.internal.compiler.env.IBinaryAnnotation;
 import org.eclipse.jdt.internal.compiler.env.IBinaryType;
 import org.eclipse.jdt.internal.compiler.env.NameEnvironmentAnswer;
@@ -29,6 +40,9 @@ import org.eclipse.jdt.internal.compiler.lookup.BinaryTypeBinding;
 import org.eclipse.jdt.internal.compiler.lookup.LookupEnvironment;
 import org.eclipse.jdt.internal.compiler.lookup.ReferenceBinding;
 import org.eclipse.jdt.internal.compiler.lookup.TypeConstants;
+import org.eclipse.jdt.internal.core.BasicCompilationUnit;
+import org.eclipse.jdt.internal.core.CancelableProblemFactory;
+import org.eclipse.jdt.internal.core.DefaultWorkingCopyOwner;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
@@ -45,6 +59,106 @@ public final class ASTUtils {
     ast.getBindingResolver().lookupEnvironment().mayTolerateMissingType = true;
   }
 
+  /**
+   * Equivalent of {@link ASTParser#createAST(org.eclipse.core.runtime.IProgressMonitor)} for a compilation unit with bindings and
+   * bindings recovery enabled, but using the given name environment instead of creating a new one from the classpath.
+   */
+  public static CompilationUnit createAST(SharedNameEnvironment environment, Map<String, String> options, String unitName, char[] source) {
+    org.eclipse.jdt.internal.compiler.env.ICompilationUnit sourceUnit = new BasicCompilationUnit(source, null, unitName, (IJavaElement) null);
+    int flags = org.eclipse.jdt.core.ICompilationUnit.ENABLE_BINDINGS_RECOVERY;
+    CompilationUnitDeclaration unit = null;
+    try {
+      CompilerOptions compilerOptions = CompilationUnitResolver.getCompilerOptions(options, false);
+      compilerOptions.ignoreMethodBodies = false;
+      CompilationUnitResolver resolver = new CompilationUnitResolver(
+        environment,
+        CompilationUnitResolver.getHandlingPolicy(),
+        compilerOptions,
+        CompilationUnitResolver.getRequestor(),
+        new CancelableProblemFactory(null),
+        null,
+        false);
+      unit = resolver.resolve(null, sourceUnit, true, true, true);
+      if (resolver.hasCompilationAborted) {
+        // the bindings could not be resolved due to missing types in name environment, see CompilationUnitResolver#resolve
+        CompilationUnitDeclaration unitDeclaration = CompilationUnitResolver.parse(sourceUnit, null, options, flags);
+        if (unit != null) {
+          int problemCount = unit.compilationResult.problemCount;
+          if (problemCount != 0) {
+            unitDeclaration.compilationResult.problems = new CategorizedProblem[problemCount];
+            System.arraycopy(unit.compilationResult.problems, 0, unitDeclaration.compilationResult.problems, 0, problemCount);
+            unitDeclaration.compilationResult.problemCount = problemCount;
+          }
+        } else if (resolver.abortProblem != null) {
+          unitDeclaration.compilationResult.problemCount = 1;
+          unitDeclaration.compilationResult.problems = new CategorizedProblem[] {resolver.abortProblem};
+        }
+        unit = unitDeclaration;
+      }
+      return CompilationUnitResolver.convert(
+        unit,
+        source,
+        AST.JLS_Latest,
+        options,
+        true,
+        DefaultWorkingCopyOwner.PRIMARY,
+        new DefaultBindingResolver.BindingTables(),
+        flags,
+        null,
+        false);
+    } finally {
+      if (unit != null) {
+        unit.cleanUp();
+      }
+    }
+  }
+
+  /**
+   * Equivalent of {@link ASTParser#createASTs(String[], String[], String[], FileASTRequestor, IProgressMonitor)} with bindings and
+   * bindings recovery enabled, but reusing the classpath entries of the given name environment instead of creating new ones from
+   * the classpath: the classpath is only processed once, and the packages of indexed jars are not listed again, whatever the number
+   * of batches of files.
+   * <p>
+   * Each call still creates its own lookup environment, which (with all the bindings of the batch) can be garbage collected as soon
+   * as the trees of the batch are not referenced anymore.
+   * <p>
+   * Types which are neither declared by the files of the batch nor found in the classpath are looked up in the source files of the
+   * given source directories, so that files of the batch can refer to the types declared by the files of other batches.
+   */
+  public static void createASTs(SharedNameEnvironment environment, List<String> sourcepathEntries, @Nullable String sourcepathEncoding,
+    Map<String, String> options, String[] sourceFilePaths, String[] encodings, FileASTRequestor requestor, IProgressMonitor monitor) {
+    List<Classpath> classpath = new ArrayList<>(environment.classpathEntries());
+    // after the classpath entries: when the project classes are compiled, their binaries are preferred to their sources
+    classpath.addAll(sourcepath(sourcepathEntries, sourcepathEncoding));
+    CompilationUnitResolver.resolve(
+      sourceFilePaths,
+      encodings,
+      new String[0],
+      requestor,
+      AST.JLS_Latest,
+      options,
+      classpath,
+      org.eclipse.jdt.core.ICompilationUnit.ENABLE_BINDINGS_RECOVERY,
+      monitor);
+  }
+
+  private static List<Classpath> sourcepath(List<String> sourcepathEntries, @Nullable String encoding) {
+    ArrayList<Classpath> sourcepath = new ArrayList<>();
+    if (sourcepathEntries.isEmpty()) {
+      return sourcepath;
+    }
+    Main main = new Main(new PrintWriter(System.out), new PrintWriter(System.err), false, null, null);
+    for (String entry : sourcepathEntries) {
+      try {
+        main.processPathEntries(Main.DEFAULT_SIZE_CLASSPATH, sourcepath, entry, encoding, true, false);
+      } catch (IllegalArgumentException e) {
+        // entry ignored, its types are unknown
+        LOG.debug(String.format("Invalid source directory '%s': %s", entry, e.getMessage()));
+      }
+    }
+    return sourcepath;
+  }
+
   public static void cleanupEnvironment(AST ast) {
     ast.getBindingResolver().lookupEnvironment().nameEnvironment.cleanup();
   }
@@ -0,0 +1,118 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.eclipse.jdt.core.dom;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.internal.compiler.batch.ClasspathJar;
+import org.eclipse.jdt.internal.compiler.env.NameEnvironmentAnswer;
+import org.sonar.java.classpath.ClasspathIndex;
+
+/**
+ * Jar of the classpath whose packages are taken from a {@link ClasspathIndex} when the jar did not change since it was indexed.
+ * The jar itself is only opened once a type or a compilation unit is requested from one of its packages.
+ */
+class IndexedClasspathJar extends ClasspathJar {
+
+  private final ClasspathIndex index;
+
+  IndexedClasspathJar(File file, ClasspathIndex index) {
+    super(file, true, null, null);
+    this.index = index;
+  }
+
+  @Override
+  public void initialize() throws IOException {
+    if (index.packages(file) == null) {
+      super.initialize();
+    }
+  }
+
+  @Override
+  public synchronized char[][] getModulesDeclaringPackage(String qualifiedPackageName, String moduleName) {
+    if (packageCache == null) {
+      Set<String> indexedPackages = index.packages(file);
+      if (indexedPackages != null) {
+        packageCache = new HashSet<>(indexedPackages);
+      } else if (openZipFile()) {
+        char[][] modules = super.getModulesDeclaringPackage(qualifiedPackageName, moduleName);
+        index.put(file, packageCache);
+        return modules;
+      } else {
+        return null;
+      }
+    }
+    return super.getModulesDeclaringPackage(qualifiedPackageName, moduleName);
+  }
+
+  @Override
+  public NameEnvironmentAnswer findClass(char[] typeName, String qualifiedPackageName, String moduleName, String qualifiedBinaryFileName, boolean asBinaryOnly) {
+    if (!isPackage(qualifiedPackageName, moduleName) || !openZipFile()) {
+      return null;
+    }
+    return super.findClass(typeName, qualifiedPackageName, moduleName, qualifiedBinaryFileName, asBinaryOnly);
+  }
+
+  @Override
+  public boolean hasCompilationUnit(String qualifiedPackageName, String moduleName) {
+    return isPackage(qualifiedPackageName, moduleName) && openZipFile() && super.hasCompilationUnit(qualifiedPackageName, moduleName);
+  }
+
+  @Override
+  public char[][][] findTypeNames(String qualifiedPackageName, String moduleName) {
+    if (!isPackage(qualifiedPackageName, moduleName) || !openZipFile()) {
+      return null;
+    }
+    return super.findTypeNames(qualifiedPackageName, moduleName);
+  }
+
+  @Override
+  public boolean hasAnnotationFileFor(String qualifiedTypeName) {
+    return openZipFile() && super.hasAnnotationFileFor(qualifiedTypeName);
+  }
+
+  @Override
+  public char[][] listPackages() {
+    if (!openZipFile()) {
+      return CharOperation.NO_CHAR_CHAR;
+    }
+    return super.listPackages();
+  }
+
+  boolean isOpened() {
+    return zipFile != null;
+  }
+
+  /**
+   * Broken jars are ignored, as ECJ does when they can not be opened while creating the name environment.
+   */
+  private boolean openZipFile() {
+    try {
+      super.initialize();
+      return true;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+}
@@ -0,0 +1,278 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.eclipse.jdt.core.dom;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.internal.compiler.batch.ClasspathJar;
+import org.eclipse.jdt.internal.compiler.batch.FileSystem.Classpath;
+import org.eclipse.jdt.internal.compiler.batch.Main;
+import org.eclipse.jdt.internal.compiler.env.AccessRestriction;
+import org.eclipse.jdt.internal.compiler.env.IBinaryType;
+import org.eclipse.jdt.internal.compiler.env.IModule;
+import org.eclipse.jdt.internal.compiler.env.IModuleAwareNameEnvironment;
+import org.eclipse.jdt.internal.compiler.env.NameEnvironmentAnswer;
+import org.eclipse.jdt.internal.compiler.util.Util;
+import org.sonar.java.classpath.ClasspathIndex;
+
+/**
+ * Name environment built once for a given classpath, and shared by all the files parsed with it.
+ * Binary types (and missing types) are cached by qualified name, so that jar indexes are not re-opened
+ * and types like {@code java.lang.Object} are not re-read for every file.
+ * <p>
+ * {@link #cleanup()} is called by ECJ and by {@link ASTUtils#cleanupEnvironment(AST)} at the end of each file,
+ * it does not release anything: jars are only released when calling {@link #close()}.
+ * <p>
+ * The underlying ECJ name environment is not thread-safe, all accesses are synchronized.
+ */
+public final class SharedNameEnvironment implements IModuleAwareNameEnvironment, AutoCloseable {
+
+  /**
+   * Maximum number of answers kept in each cache, least recently used ones are evicted first.
+   */
+  static final int MAX_CACHED_ENTRIES = 20_000;
+
+  private static final Object NOT_FOUND = new Object();
+
+  private final Classpath[] entries;
+  private final NameEnvironmentWithProgress delegate;
+  @Nullable
+  private final ClasspathIndex classpathIndex;
+  private final Map<String, Object> types;
+  private final Map<String, Object> packages;
+
+  private SharedNameEnvironment(Classpath[] entries, @Nullable ClasspathIndex classpathIndex, int maxCachedEntries) {
+    this.entries = entries;
+    this.delegate = new NameEnvironmentWithProgress(entries, null, null);
+    this.classpathIndex = classpathIndex;
+    this.types = new LruCache<>(maxCachedEntries);
+    this.packages = new LruCache<>(maxCachedEntries);
+  }
+
+  /**
+   * Mirrors the environment created by {@link ASTParser#setEnvironment(String[], String[], String[], boolean)}.
+   *
+   * When a classpath index is provided, the packages of the jars are read from it instead of listing the content of each jar,
+   * and the index is saved back when closing the environment.
+   *
+   * @throws IllegalStateException if the classpath is invalid
+   */
+  public static SharedNameEnvironment create(String[] classpath, boolean includeRunningVMBootclasspath, @Nullable ClasspathIndex classpathIndex) {
+    return create(classpath, includeRunningVMBootclasspath, classpathIndex, MAX_CACHED_ENTRIES);
+  }
+
+  static SharedNameEnvironment create(String[] classpath, boolean includeRunningVMBootclasspath, @Nullable ClasspathIndex classpathIndex, int maxCachedEntries) {
+    Main main = new Main(new PrintWriter(System.out), new PrintWriter(System.err), false, null, null);
+    ArrayList<Classpath> allClasspaths = new ArrayList<>();
+    try {
+      if (includeRunningVMBootclasspath) {
+        Util.collectRunningVMBootclasspath(allClasspaths);
+      }
+      for (String entry : classpath) {
+        main.processPathEntries(Main.DEFAULT_SIZE_CLASSPATH, allClasspaths, entry, null, false, false);
+      }
+    } catch (IllegalArgumentException e) {
+      throw new IllegalStateException("invalid environment settings", e);
+    }
+    List<?> pendingErrors = main.pendingErrors;
+    if (pendingErrors != null && !pendingErrors.isEmpty()) {
+      throw new IllegalStateException("invalid environment settings");
+    }
+    Classpath[] entries = allClasspaths.stream()
+      .map(entry -> indexed(entry, classpathIndex))
+      .toArray(Classpath[]::new);
+    return new SharedNameEnvironment(entries, classpathIndex, maxCachedEntries);
+  }
+
+  private static Classpath indexed(Classpath entry, @Nullable ClasspathIndex classpathIndex) {
+    // only plain jars, the JDK image (jrt), multi-release jars and jmods are kept as they are
+    if (classpathIndex == null || entry.getClass() != ClasspathJar.class) {
+      return entry;
+    }
+    return new IndexedClasspathJar(new File(entry.getPath()), classpathIndex);
+  }
+
+  @Override
+  public synchronized NameEnvironmentAnswer findType(char[][] compoundTypeName) {
+    return cachedType(key(compoundTypeName, null), () -> delegate.findType(compoundTypeName));
+  }
+
+  @Override
+  public synchronized NameEnvironmentAnswer findType(char[] typeName, char[][] packageName) {
+    // can also find secondary types, so not sharing the same cache key as findType(char[][])
+    return cachedType("/" + key(CharOperation.arrayConcat(packageName, typeName), null), () -> delegate.findType(typeName, packageName));
+  }
+
+  @Override
+  public synchronized NameEnvironmentAnswer findType(char[][] compoundName, char[] moduleName) {
+    return cachedType(key(compoundName, moduleName), () -> delegate.findType(compoundName, moduleName));
+  }
+
+  @Override
+  public synchronized NameEnvironmentAnswer findType(char[] typeName, char[][] packageName, char[] moduleName) {
+    return cachedType(key(CharOperation.arrayConcat(packageName, typeName), moduleName), () -> delegate.findType(typeName, packageName, moduleName));
+  }
+
+  @Override
+  public synchronized boolean isPackage(char[][] parentPackageName, char[] packageName) {
+    return delegate.isPackage(parentPackageName, packageName);
+  }
+
+  @Override
+  public synchronized char[][] getModulesDeclaringPackage(char[][] packageName, char[] moduleName) {
+    String key = key(packageName, moduleName);
+    Object modules = packages.get(key);
+    if (modules == null) {
+      char[][] answer = delegate.getModulesDeclaringPackage(packageName, moduleName);
+      modules = answer == null ? NOT_FOUND : answer;
+      packages.put(key, modules);
+    }
+    return modules == NOT_FOUND ? null : (char[][]) modules;
+  }
+
+  @Override
+  public synchronized boolean hasCompilationUnit(char[][] qualifiedPackageName, char[] moduleName, boolean checkCUs) {
+    return delegate.hasCompilationUnit(qualifiedPackageName, moduleName, checkCUs);
+  }
+
+  @Override
+  public synchronized IModule getModule(char[] moduleName) {
+    return delegate.getModule(moduleName);
+  }
+
+  @Override
+  public synchronized char[][] getAllAutomaticModules() {
+    return delegate.getAllAutomaticModules();
+  }
+
+  @Override
+  public synchronized char[][] listPackages(char[] moduleName) {
+    return delegate.listPackages(moduleName);
+  }
+
+  /**
+   * Intentionally does nothing: the environment outlives the compilation of a single file.
+   */
+  @Override
+  public void cleanup() {
+    // see close()
+  }
+
+  /**
+   * Releases the cached answers and the underlying jars, and saves the classpath index.
+   */
+  @Override
+  public synchronized void close() {
+    types.clear();
+    packages.clear();
+    delegate.cleanup();
+    if (classpathIndex != null) {
+      classpathIndex.save();
+    }
+  }
+
+  /**
+   * Entries of the classpath, already opened and listed, which can be used to create other name environments.
+   * They stay valid until {@link #close()} is called.
+   */
+  List<Classpath> classpathEntries() {
+    return Arrays.asList(entries);
+  }
+
+  int cachedTypesCount() {
+    return types.size();
+  }
+
+  @Nullable
+  private NameEnvironmentAnswer cachedType(String key, AnswerSupplier lookup) {
+    Object cached = types.get(key);
+    if (cached != null) {
+      return cached == NOT_FOUND ? null : ((BinaryTypeAnswer) cached).newAnswer();
+    }
+    NameEnvironmentAnswer answer = lookup.get();
+    if (answer == null) {
+      types.put(key, NOT_FOUND);
+    } else if (answer.isBinaryType()) {
+      // only binary types can be shared between files
+      types.put(key, new BinaryTypeAnswer(answer));
+    }
+    return answer;
+  }
+
+  private static String key(char[][] compoundName, @Nullable char[] moduleName) {
+    String name = CharOperation.toString(compoundName);
+    if (moduleName == null) {
+      return name;
+    }
+    // special module names (ANY, UNNAMED, ...) are all empty, and only distinguishable by identity
+    LookupStrategy strategy = LookupStrategy.get(moduleName);
+    String module = strategy == LookupStrategy.Named ? String.valueOf(moduleName) : ("<" + strategy + ">");
+    return name + '@' + module;
+  }
+
+  /**
+   * Answers are updated by the lookup environment of each file (see {@link NameEnvironmentAnswer#moduleBinding}),
+   * so only the read binary type is shared, and a new answer is created for every lookup.
+   */
+  private static class BinaryTypeAnswer {
+    private final IBinaryType binaryType;
+    private final AccessRestriction accessRestriction;
+    private final char[] moduleName;
+
+    BinaryTypeAnswer(NameEnvironmentAnswer answer) {
+      this.binaryType = answer.getBinaryType();
+      this.accessRestriction = answer.getAccessRestriction();
+      this.moduleName = answer.moduleName();
+    }
+
+    NameEnvironmentAnswer newAnswer() {
+      return new NameEnvironmentAnswer(binaryType, accessRestriction, moduleName);
+    }
+  }
+
+  @FunctionalInterface
+  private interface AnswerSupplier {
+    @Nullable
+    NameEnvironmentAnswer get();
+  }
+
+  private static class LruCache<K, V> extends LinkedHashMap<K, V> {
+    private static final long serialVersionUID = 1L;
+    private final int maxSize;
+
+    LruCache(int maxSize) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+      return size() > maxSize;
+    }
+  }
+
+}
@@ -108,6 +108,10 @@ public class ExecutionTimeReport {
     report("Slowest analyzed files (batch mode enabled):");
   }
 
+  public void reportAsParallel() {
+    report("Slowest analyzed files (parallel mode enabled):");
+  }
+
   public void report() {
     report("Slowest analyzed files:");
   }
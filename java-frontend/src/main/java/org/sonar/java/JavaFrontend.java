@@ -24,12 +24,15 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
@@ -37,6 +40,8 @@ import org.sonar.java.annotations.VisibleForTesting;
 import org.sonar.java.ast.JavaAstScanner;
 import org.sonar.java.ast.visitors.FileLinesVisitor;
 import org.sonar.java.ast.visitors.SyntaxHighlighterVisitor;
+import org.sonar.java.caching.AnalysisFingerprint;
+import org.sonar.java.caching.FileResultCache;
 import org.sonar.java.collections.CollectionUtils;
 import org.sonarsource.analyzer.commons.collections.ListUtils;
 import org.sonar.java.filters.SonarJavaIssueFilter;
@@ -58,6 +63,10 @@ public class JavaFrontend {
   private final JavaAstScanner astScanner;
   private final JavaAstScanner astScannerForTests;
   private final JavaAstScanner astScannerForGeneratedFiles;
+  private final VisitorsBridge visitorsBridge;
+  private final VisitorsBridge visitorsBridgeForTests;
+  private final List<JavaCheck> checks;
+  private final List<JavaCheck> testChecks;
 
   public JavaFrontend(JavaVersion javaVersion, @Nullable SonarComponents sonarComponents, @Nullable Measurer measurer,
                      JavaResourceLocator javaResourceLocator, @Nullable SonarJavaIssueFilter postAnalysisIssueFilter, JavaCheck... visitors) {
@@ -79,6 +88,8 @@ public class JavaFrontend {
     List<File> classpath = new ArrayList<>();
     List<File> testClasspath = new ArrayList<>();
     List<JavaCheck> jspCodeVisitors = new ArrayList<>();
+    checks = Arrays.asList(visitors);
+    testChecks = new ArrayList<>();
     List<File> jspClasspath = new ArrayList<>();
     boolean inAndroidContext = false;
     if (sonarComponents != null) {
@@ -89,7 +100,8 @@ public class JavaFrontend {
       classpath = sonarComponents.getJavaClasspath();
       testClasspath = sonarComponents.getJavaTestClasspath();
       jspClasspath = sonarComponents.getJspClasspath();
-      testCodeVisitors.addAll(sonarComponents.testChecks());
+      testChecks.addAll(sonarComponents.testChecks());
+      testCodeVisitors.addAll(testChecks);
       jspCodeVisitors = sonarComponents.jspChecks();
       inAndroidContext = sonarComponents.inAndroidContext();
     }
@@ -98,11 +110,13 @@ public class JavaFrontend {
 
     //AstScanner for main files
     astScanner = new JavaAstScanner(sonarComponents);
-    astScanner.setVisitorBridge(createVisitorBridge(codeVisitors, classpath, javaVersion, sonarComponents, inAndroidContext));
+    visitorsBridge = createVisitorBridge(codeVisitors, classpath, javaVersion, sonarComponents, inAndroidContext);
+    astScanner.setVisitorBridge(visitorsBridge);
 
     //AstScanner for test files
     astScannerForTests = new JavaAstScanner(sonarComponents);
-    astScannerForTests.setVisitorBridge(createVisitorBridge(testCodeVisitors, testClasspath, javaVersion, sonarComponents, inAndroidContext));
+    visitorsBridgeForTests = createVisitorBridge(testCodeVisitors, testClasspath, javaVersion, sonarComponents, inAndroidContext);
+    astScannerForTests.setVisitorBridge(visitorsBridgeForTests);
 
     //AstScanner for generated files
     astScannerForGeneratedFiles = new JavaAstScanner(sonarComponents);
@@ -123,16 +137,59 @@ public class JavaFrontend {
   }
 
   public void scan(Iterable<InputFile> sourceFiles, Iterable<InputFile> testFiles, Iterable<? extends InputFile> generatedFiles) {
-    if (isBatchModeEnabled()) {
-      // generated files are intentionally ignored in batch mode
-      scanAsBatch(sourceFiles, testFiles);
-    } else {
-      scanAndMeasureTask(sourceFiles, astScanner::scan, "Main");
-      scanAndMeasureTask(testFiles, astScannerForTests::scan, "Test");
-      scanAndMeasureTask(generatedFiles, astScannerForGeneratedFiles::scan, "Generated");
+    Map<String, FileResultCache> resultCaches = useResultCaches(sourceFiles, testFiles);
+    try {
+      if (isBatchModeEnabled()) {
+        // generated files are intentionally ignored in batch mode
+        scanAsBatch(sourceFiles, testFiles);
+      } else {
+        scanAndMeasureTask(sourceFiles, astScanner::scan, "Main");
+        scanAndMeasureTask(testFiles, astScannerForTests::scan, "Test");
+        scanAndMeasureTask(generatedFiles, astScannerForGeneratedFiles::scan, "Generated");
+      }
+    } finally {
+      resultCaches.forEach((descriptor, resultCache) -> {
+        resultCache.save();
+        LOG.info(String.format("Incremental analysis: issues of %d \"%s\" source files reused from the cache.", resultCache.reusedFiles(), descriptor));
+      });
     }
   }
 
+  /**
+   * Checks are not executed on files which did not change since the previous analysis, their issues are taken from the cache instead.
+   * Checks needing all the files ({@link EndOfAnalysisCheck}) are always executed.
+   */
+  private Map<String, FileResultCache> useResultCaches(Iterable<InputFile> sourceFiles, Iterable<InputFile> testFiles) {
+    Map<String, FileResultCache> resultCaches = new LinkedHashMap<>();
+    if (sonarComponents != null && !sonarComponents.isSonarLintContext() && sonarComponents.isIncrementalAnalysisEnabled()) {
+      File workDir = sonarComponents.workDir();
+      // in batch mode, files are parsed with the sources of the other files, which they can depend on
+      List<InputFile> otherSources = new ArrayList<>();
+      if (isBatchModeEnabled()) {
+        sourceFiles.forEach(otherSources::add);
+        testFiles.forEach(otherSources::add);
+      }
+      resultCaches.put("Main", useResultCache(workDir, "main", visitorsBridge, checks, otherSources));
+      resultCaches.put("Test", useResultCache(workDir, "test", visitorsBridgeForTests, testChecks, otherSources));
+    }
+    return resultCaches;
+  }
+
+  private FileResultCache useResultCache(File workDir, String name, VisitorsBridge bridge, List<JavaCheck> visitors, List<InputFile> otherSources) {
+    List<JavaCheck> cacheableVisitors = visitors.stream()
+      .filter(visitor -> !(visitor instanceof EndOfAnalysisCheck))
+      .collect(Collectors.toList());
+    AnalysisFingerprint fingerprint = new AnalysisFingerprint()
+      .add(String.valueOf(JavaFrontend.class.getPackage().getImplementationVersion()))
+      .add(javaVersion.toString())
+      .addClasspath(bridge.getClasspath())
+      .addSources(otherSources);
+    cacheableVisitors.forEach(visitor -> fingerprint.addCheck(visitor, sonarComponents.getRuleKey(visitor).map(RuleKey::toString).orElse("")));
+    FileResultCache resultCache = FileResultCache.load(workDir, name, fingerprint.value());
+    bridge.setResultCache(resultCache, cacheableVisitors);
+    return resultCache;
+  }
+
   private void scanAsBatch(Iterable<InputFile>... sourceFiles) {
     try {
       List<InputFile> allFiles = new ArrayList<>();
@@ -140,6 +197,7 @@ public class JavaFrontend {
       try {
         JParserConfig.Mode.BATCH
           .create(JParserConfig.effectiveJavaVersion(javaVersion), globalClasspath)
+          .withBatchSize(sonarComponents.batchSize())
           .parse(allFiles, this::analysisCancelled, this::scanAsBatchCallback);
       } finally {
         astScanner.endOfAnalysis();
@@ -161,7 +219,7 @@ public class JavaFrontend {
     JavaAstScanner scanner = inputFile.type() == InputFile.Type.TEST ? astScannerForTests : astScanner;
     Duration duration = PerformanceMeasure.start(inputFile.type() == InputFile.Type.TEST ? "Test" : "Main");
     scanner.simpleScan(inputFile, result, ast -> {
-      // Do nothing. In batch mode, can not clean the ast as it will be used in later processing.
+      // Do nothing. In batch mode, the environment is shared by all the files of the batch, and released with the batch.
     });
     duration.stop();
   }
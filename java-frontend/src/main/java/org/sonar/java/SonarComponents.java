@@ -36,6 +36,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.SonarProduct;
 import org.sonar.api.batch.ScannerSide;
@@ -58,6 +59,7 @@ import org.sonar.api.utils.log.Loggers;
 import org.sonar.java.annotations.VisibleForTesting;
 import org.sonar.java.classpath.ClasspathForMain;
 import org.sonar.java.classpath.ClasspathForTest;
+import org.sonar.java.classpath.ClasspathIndex;
 import org.sonar.java.model.LineUtils;
 import org.sonar.java.reporting.AnalyzerMessage;
 import org.sonar.java.reporting.JavaIssue;
@@ -76,6 +78,19 @@ public class SonarComponents {
 
   public static final String FAIL_ON_EXCEPTION_KEY = "sonar.internal.analysis.failFast";
   public static final String SONAR_BATCH_MODE_KEY = "sonar.java.internal.batchMode";
+  public static final String SONAR_BATCH_SIZE_KEY = "sonar.java.internal.batchSize";
+  public static final String SONAR_PARALLEL_MODE_KEY = "sonar.java.internal.parallelMode";
+  public static final String SONAR_INCREMENTAL_ANALYSIS_KEY = "sonar.java.internal.incrementalAnalysis";
+  public static final String SONAR_SE_PROJECT_BEHAVIORS_KEY = "sonar.java.internal.symbolicExecution.projectBehaviors";
+  public static final String SONAR_SE_STATE_SUBSUMPTION_KEY = "sonar.java.internal.symbolicExecution.stateSubsumption";
+  public static final String SONAR_SE_EXPLORATION_STRATEGY_KEY = "sonar.java.internal.symbolicExecution.explorationStrategy";
+  public static final String SONAR_SE_METHOD_TIME_LIMIT_KEY = "sonar.java.internal.symbolicExecution.methodTimeLimit";
+  public static final String SONAR_SE_FILE_STEP_LIMIT_KEY = "sonar.java.internal.symbolicExecution.fileStepLimit";
+  public static final String SONAR_SE_FILE_TIME_LIMIT_KEY = "sonar.java.internal.symbolicExecution.fileTimeLimit";
+  public static final String SONAR_SE_BUDGET_REALLOCATION_KEY = "sonar.java.internal.symbolicExecution.budgetReallocation";
+  public static final String PERFORMANCE_MEASURE_KEY = "sonar.java.performance.measure";
+  public static final String PERFORMANCE_MEASURE_SAMPLING_RATE_KEY = "sonar.java.performance.measure.samplingRate";
+  private static final int DEFAULT_PERFORMANCE_MEASURE_SAMPLING_RATE = 100;
 
   private static final Version SONARLINT_6_3 = Version.parse("6.3");
 
@@ -95,6 +110,10 @@ public class SonarComponents {
   private final List<Checks<JavaCheck>> allChecks;
   private SensorContext context;
   private Method methodSetQuickFixAvailable;
+  @Nullable
+  private ClasspathIndex classpathIndex;
+  @Nullable
+  private IssueListener issueListener;
 
   public SonarComponents(FileLinesContextFactory fileLinesContextFactory, FileSystem fs,
                          ClasspathForMain javaClasspath, ClasspathForTest javaTestClasspath,
@@ -163,6 +182,18 @@ public class SonarComponents {
     this.context = context;
   }
 
+  /**
+   * Index of the classpath jars, shared by the parsing of main and test files, and persisted between analyses when loaded from the work directory.
+   */
+  public void setClasspathIndex(@Nullable ClasspathIndex classpathIndex) {
+    this.classpathIndex = classpathIndex;
+  }
+
+  @CheckForNull
+  public ClasspathIndex classpathIndex() {
+    return classpathIndex;
+  }
+
   public FileLinesContext fileLinesContextFor(InputFile inputFile) {
     return fileLinesContextFactory.createFor(inputFile);
   }
@@ -254,11 +285,39 @@ public class SonarComponents {
       .findFirst();
   }
 
+  public Optional<JavaCheck> getCheck(RuleKey ruleKey) {
+    return allChecks.stream()
+      .map(sonarChecks -> sonarChecks.of(ruleKey))
+      .filter(Objects::nonNull)
+      .findFirst();
+  }
+
+  /**
+   * @param issueListener notified of every issue reported through {@link #reportIssue(AnalyzerMessage)} or through
+   * {@link org.sonar.java.reporting.InternalJavaIssueBuilder}, before it is saved
+   */
+  public void setIssueListener(@Nullable IssueListener issueListener) {
+    this.issueListener = issueListener;
+  }
+
+  @CheckForNull
+  public IssueListener issueListener() {
+    return issueListener;
+  }
+
   public void addIssue(InputComponent inputComponent, JavaCheck check, int line, String message, @Nullable Integer cost) {
     reportIssue(new AnalyzerMessage(check, inputComponent, line, message, cost != null ? cost.intValue() : 0));
   }
 
   public void reportIssue(AnalyzerMessage analyzerMessage) {
+    reportIssue(analyzerMessage, false);
+  }
+
+  /**
+   * @param quickFixAvailable the issue is flagged as having quick fixes, only used to report again issues which were raised
+   * with quick fixes by a previous analysis
+   */
+  public void reportIssue(AnalyzerMessage analyzerMessage, boolean quickFixAvailable) {
     JavaCheck check = analyzerMessage.getCheck();
     Objects.requireNonNull(check);
     Objects.requireNonNull(analyzerMessage.getMessage());
@@ -267,13 +326,20 @@ public class SonarComponents {
       if (inputComponent == null) {
         return;
       }
+      if (issueListener != null) {
+        issueListener.onIssue(key, analyzerMessage, quickFixAvailable);
+      }
       Double cost = analyzerMessage.getCost();
-      reportIssue(analyzerMessage, key, inputComponent, cost);
+      reportIssue(analyzerMessage, key, inputComponent, cost, quickFixAvailable);
     });
   }
 
   @VisibleForTesting
   void reportIssue(AnalyzerMessage analyzerMessage, RuleKey key, InputComponent fileOrProject, @Nullable Double cost) {
+    reportIssue(analyzerMessage, key, fileOrProject, cost, false);
+  }
+
+  private void reportIssue(AnalyzerMessage analyzerMessage, RuleKey key, InputComponent fileOrProject, @Nullable Double cost, boolean quickFixAvailable) {
     Objects.requireNonNull(context);
     JavaIssue issue = JavaIssue.create(context, key, cost);
     AnalyzerMessage.TextSpan textSpan = analyzerMessage.primaryLocation();
@@ -289,6 +355,9 @@ public class SonarComponents {
     if (!analyzerMessage.flows.isEmpty()) {
       issue.addFlow((InputFile) analyzerMessage.getInputComponent(), analyzerMessage.flows);
     }
+    if (quickFixAvailable && methodSetQuickFixAvailable != null) {
+      issue.setQuickFixAvailable(methodSetQuickFixAvailable);
+    }
     issue.save();
   }
 
@@ -341,6 +410,84 @@ public class SonarComponents {
     return context.config().getBoolean(SONAR_BATCH_MODE_KEY).orElse(false);
   }
 
+  /**
+   * Maximum number of files parsed together in batch mode, all the files are parsed in a single batch when not positive.
+   */
+  public int batchSize() {
+    return context.config().getInt(SONAR_BATCH_SIZE_KEY).orElse(0);
+  }
+
+  public boolean isParallelModeEnabled() {
+    return context.config().getBoolean(SONAR_PARALLEL_MODE_KEY).orElse(false);
+  }
+
+  /**
+   * When performance measure is enabled, only one out of this number of calls to each subscription visitor is measured.
+   * Returns 0 when performance measure is disabled.
+   */
+  public int performanceMeasureSamplingRate() {
+    if (context == null || !context.config().getBoolean(PERFORMANCE_MEASURE_KEY).orElse(false)) {
+      return 0;
+    }
+    return Math.max(1, context.config().getInt(PERFORMANCE_MEASURE_SAMPLING_RATE_KEY).orElse(DEFAULT_PERFORMANCE_MEASURE_SAMPLING_RATE));
+  }
+
+  public boolean isIncrementalAnalysisEnabled() {
+    return context.config().getBoolean(SONAR_INCREMENTAL_ANALYSIS_KEY).orElse(false);
+  }
+
+  /**
+   * When enabled, the behaviors of the methods computed by the symbolic execution of a file are used when analyzing the
+   * other files of the project, and persisted in the work directory for the next analysis.
+   */
+  public boolean isSymbolicExecutionProjectBehaviorsEnabled() {
+    return context.config().getBoolean(SONAR_SE_PROJECT_BEHAVIORS_KEY).orElse(false);
+  }
+
+  /**
+   * When enabled, the symbolic execution does not explore a state when a less constrained state was already explored at the
+   * same program point.
+   */
+  public boolean isSymbolicExecutionStateSubsumptionEnabled() {
+    return context.config().getBoolean(SONAR_SE_STATE_SUBSUMPTION_KEY).orElse(false);
+  }
+
+  /**
+   * Name of the order in which the symbolic execution explores the states of a method: "depth_first" (default),
+   * "breadth_first" or "coverage_guided".
+   */
+  public Optional<String> symbolicExecutionExplorationStrategy() {
+    return context.config().get(SONAR_SE_EXPLORATION_STRATEGY_KEY);
+  }
+
+  /**
+   * @return time in milliseconds given to the symbolic execution of each method, 0 when there is no limit
+   */
+  public long symbolicExecutionMethodTimeLimit() {
+    return context.config().getLong(SONAR_SE_METHOD_TIME_LIMIT_KEY).orElse(0L);
+  }
+
+  /**
+   * @return steps given to the symbolic execution of the methods of a file altogether, 0 when there is no limit
+   */
+  public long symbolicExecutionFileStepLimit() {
+    return context.config().getLong(SONAR_SE_FILE_STEP_LIMIT_KEY).orElse(0L);
+  }
+
+  /**
+   * @return time in milliseconds given to the symbolic execution of the methods of a file altogether, 0 when there is no limit
+   */
+  public long symbolicExecutionFileTimeLimit() {
+    return context.config().getLong(SONAR_SE_FILE_TIME_LIMIT_KEY).orElse(0L);
+  }
+
+  /**
+   * When enabled, the steps and time not used by the symbolic execution of a method can be used by the next methods of the file.
+   */
+  public boolean isSymbolicExecutionBudgetReallocationEnabled() {
+    return context.config().getBoolean(SONAR_SE_BUDGET_REALLOCATION_KEY).orElse(false);
+  }
+
   public File workDir() {
     ProjectDefinition current = projectDefinition;
     if(current == null) {
@@ -392,4 +539,13 @@ public class SonarComponents {
   public SensorContext context() {
     return context;
   }
+
+  /**
+   * Notified of the issues raised on the analyzed components.
+   */
+  @FunctionalInterface
+  public interface IssueListener {
+    void onIssue(RuleKey ruleKey, AnalyzerMessage message, boolean quickFixAvailable);
+  }
+
 }
@@ -72,8 +72,9 @@ public class JavaAstScanner {
       }).collect(Collectors.toList());
 
     try {
-      JParserConfig.Mode.FILE_BY_FILE
+      parserMode()
         .create(JParserConfig.effectiveJavaVersion(javaVersion), visitor.getClasspath())
+        .withClasspathIndex(sonarComponents != null ? sonarComponents.classpathIndex() : null)
         .parse(filesNames,
           this::analysisCancelled,
           (i, r) -> simpleScan(i, r, JavaAstScanner::cleanUpAst));
@@ -82,6 +83,13 @@ public class JavaAstScanner {
     }
   }
 
+  private JParserConfig.Mode parserMode() {
+    if (sonarComponents != null && sonarComponents.isParallelModeEnabled()) {
+      return JParserConfig.Mode.PARALLEL_FILE_BY_FILE;
+    }
+    return JParserConfig.Mode.FILE_BY_FILE;
+  }
+
   public void endOfAnalysis() {
     visitor.endOfAnalysis();
     logUndefinedTypes();
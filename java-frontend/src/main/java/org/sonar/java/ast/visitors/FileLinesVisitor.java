@@ -29,6 +29,7 @@ import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.FileLinesContext;
 import org.sonar.java.SonarComponents;
 import org.sonar.java.cfg.CFG;
+import org.sonar.java.cfg.DataflowCache;
 import org.sonar.java.model.ModifiersUtils;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.tree.BlockTree;
@@ -132,7 +133,7 @@ public class FileLinesVisitor extends SubscriptionVisitor {
       default:
         // Do nothing particular
     }
-    computeExecutableLines(trees);
+    computeExecutableLines(tree, trees);
   }
 
   private List<? extends Tree> visitVariable(VariableTree variableTree) {
@@ -168,12 +169,12 @@ public class FileLinesVisitor extends SubscriptionVisitor {
     return Collections.emptyList();
   }
 
-  private void computeExecutableLines(List<? extends Tree> trees) {
+  private void computeExecutableLines(Tree tree, List<? extends Tree> trees) {
     if(trees.isEmpty()) {
       return;
     }
     // rely on cfg to get every instructions and get most of the token.
-    CFG cfg = CFG.buildCFG(trees);
+    CFG cfg = cfg(tree, trees);
     cfg.blocks()
       .stream()
       .flatMap(b->b.elements().stream())
@@ -193,6 +194,19 @@ public class FileLinesVisitor extends SubscriptionVisitor {
       );
   }
 
+  /**
+   * Methods and lambdas keep their CFG, which is then shared with the checks.
+   */
+  private CFG cfg(Tree tree, List<? extends Tree> trees) {
+    if (tree.is(METHOD, CONSTRUCTOR)) {
+      return (CFG) ((MethodTree) tree).cfg();
+    }
+    if (tree.is(LAMBDA_EXPRESSION)) {
+      return (CFG) ((LambdaExpressionTree) tree).cfg();
+    }
+    return DataflowCache.of(context).cfg(trees, false);
+  }
+
   @Override
   public void visitToken(SyntaxToken syntaxToken) {
     linesOfCode.add(syntaxToken.range().start().line());
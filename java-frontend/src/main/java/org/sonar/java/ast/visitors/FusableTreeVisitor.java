@@ -0,0 +1,56 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.ast.visitors;
+
+import org.sonar.plugins.java.api.JavaFileScanner;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.tree.BaseTreeVisitor;
+
+/**
+ * {@link BaseTreeVisitor} scanning the whole compilation unit of each file.
+ * <p>
+ * As long as {@link #scanFile(JavaFileScannerContext)} and the {@code scan} methods are not overridden, such visitors are executed
+ * together, in a single walk of the tree: each visitor only takes over the walk of the subtrees whose visit method it overrides.
+ * Visitors overriding the visit of compilation units, classes, methods or blocks, which would take over the walk of almost the whole
+ * file, or which do not respect these conditions, are executed with their own walk of the tree. The number of visitors sharing the
+ * walk is logged in debug.
+ * <p>
+ * Each visitor is measured separately, the shared walk itself being measured as "FusedTreeVisitors".
+ */
+public abstract class FusableTreeVisitor extends BaseTreeVisitor implements JavaFileScanner {
+
+  protected JavaFileScannerContext context;
+
+  public void setContext(JavaFileScannerContext context) {
+    this.context = context;
+  }
+
+  public void leaveFile(JavaFileScannerContext context) {
+    // default behaviour is to do nothing
+  }
+
+  @Override
+  public void scanFile(JavaFileScannerContext context) {
+    setContext(context);
+    scan(context.getTree());
+    leaveFile(context);
+  }
+
+}
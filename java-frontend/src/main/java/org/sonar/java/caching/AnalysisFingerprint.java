@@ -0,0 +1,161 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.caching;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.check.RuleProperty;
+import org.sonar.plugins.java.api.JavaCheck;
+
+/**
+ * Hash of everything, other than the content of a file, which can change the issues raised on the file.
+ */
+public final class AnalysisFingerprint {
+
+  private final MessageDigest digest;
+
+  public AnalysisFingerprint() {
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public AnalysisFingerprint add(String value) {
+    digest.update(value.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+    return this;
+  }
+
+  /**
+   * Jars are identified by their path, size and last modification date, directories by the path, size and last modification
+   * date of each file they contain. Directories usually contain the compiled classes of the project, through which a file
+   * depends on the other files: any change of them discards the whole cache.
+   */
+  public AnalysisFingerprint addClasspath(List<File> classpath) {
+    return addClasspath(classpath, true);
+  }
+
+  /**
+   * Same as {@link #addClasspath(List)}, but directories are only identified by their path. Only suitable for results which
+   * keep track of their dependencies on the files of the project themselves.
+   */
+  public AnalysisFingerprint addLibraries(List<File> classpath) {
+    return addClasspath(classpath, false);
+  }
+
+  private AnalysisFingerprint addClasspath(List<File> classpath, boolean withDirectoryContent) {
+    for (File file : classpath) {
+      add(file.getAbsolutePath());
+      if (file.isFile()) {
+        addMetadata(file);
+      } else if (withDirectoryContent && file.isDirectory()) {
+        addDirectory(file.toPath());
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Source files are identified by their path, size and last modification date. Only needed when a file is analyzed with the
+   * sources of the other files, as any change of them discards the whole cache.
+   */
+  public AnalysisFingerprint addSources(Iterable<? extends InputFile> inputFiles) {
+    for (InputFile inputFile : inputFiles) {
+      add(inputFile.uri().toString());
+      addMetadata(new File(inputFile.uri()));
+    }
+    return this;
+  }
+
+  private void addDirectory(Path directory) {
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(directory)) {
+      files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+    } catch (IOException | UncheckedIOException e) {
+      // content not known, the cache can not be used safely
+      add(String.valueOf(System.nanoTime()));
+      return;
+    }
+    for (Path path : files) {
+      add(directory.relativize(path).toString());
+      addMetadata(path.toFile());
+    }
+  }
+
+  private void addMetadata(File file) {
+    add(file.length() + ":" + file.lastModified());
+  }
+
+  /**
+   * Adds the implementation of the check, its rule and the values of its parameters.
+   */
+  public AnalysisFingerprint addCheck(JavaCheck check, String ruleKey) {
+    add(check.getClass().getName());
+    add(ruleKey);
+    for (Field field : ruleProperties(check.getClass())) {
+      add(field.getName());
+      try {
+        field.setAccessible(true);
+        add(String.valueOf(field.get(check)));
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        // value not accessible, the check can not be cached safely
+        add(String.valueOf(System.nanoTime()));
+      }
+    }
+    return this;
+  }
+
+  public String value() {
+    StringBuilder sb = new StringBuilder();
+    for (byte b : digest.digest()) {
+      sb.append(String.format("%02x", b));
+    }
+    return sb.toString();
+  }
+
+  private static List<Field> ruleProperties(Class<?> checkClass) {
+    List<Field> fields = new ArrayList<>();
+    for (Class<?> c = checkClass; c != null && c != Object.class; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        if (field.isAnnotationPresent(RuleProperty.class)) {
+          fields.add(field);
+        }
+      }
+    }
+    fields.sort(Comparator.comparing(Field::getName));
+    return fields;
+  }
+
+}
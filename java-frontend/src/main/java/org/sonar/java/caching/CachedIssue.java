@@ -0,0 +1,165 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.caching;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.java.reporting.AnalyzerMessage;
+import org.sonar.plugins.java.api.JavaCheck;
+
+/**
+ * Issue raised on a file, kept in the {@link FileResultCache} to be reported again without running the check.
+ */
+public final class CachedIssue {
+
+  private final String ruleKey;
+  private final Location primary;
+  private final int cost;
+  private final List<List<Location>> flows;
+  private final boolean quickFixAvailable;
+
+  private CachedIssue(String ruleKey, Location primary, int cost, List<List<Location>> flows, boolean quickFixAvailable) {
+    this.ruleKey = ruleKey;
+    this.primary = primary;
+    this.cost = cost;
+    this.flows = flows;
+    this.quickFixAvailable = quickFixAvailable;
+  }
+
+  /**
+   * @param quickFixAvailable the issue was flagged as having quick fixes, the quick fixes themselves are not kept
+   */
+  public static CachedIssue of(RuleKey ruleKey, AnalyzerMessage message, boolean quickFixAvailable) {
+    List<List<Location>> flows = new ArrayList<>(message.flows.size());
+    for (List<AnalyzerMessage> flow : message.flows) {
+      List<Location> locations = new ArrayList<>(flow.size());
+      flow.forEach(location -> locations.add(Location.of(location)));
+      flows.add(locations);
+    }
+    Double cost = message.getCost();
+    return new CachedIssue(ruleKey.toString(), Location.of(message), cost == null ? 0 : cost.intValue(), flows, quickFixAvailable);
+  }
+
+  public RuleKey ruleKey() {
+    return RuleKey.parse(ruleKey);
+  }
+
+  public boolean isQuickFixAvailable() {
+    return quickFixAvailable;
+  }
+
+  public AnalyzerMessage toAnalyzerMessage(JavaCheck check, InputFile inputFile) {
+    AnalyzerMessage message = new AnalyzerMessage(check, inputFile, primary.textSpan, primary.message, cost);
+    for (List<Location> flow : flows) {
+      List<AnalyzerMessage> messages = new ArrayList<>(flow.size());
+      flow.forEach(location -> messages.add(new AnalyzerMessage(check, inputFile, location.textSpan, location.message, 0)));
+      message.flows.add(messages);
+    }
+    return message;
+  }
+
+  void write(DataOutputStream out) throws IOException {
+    writeString(out, ruleKey);
+    primary.write(out);
+    out.writeInt(cost);
+    out.writeBoolean(quickFixAvailable);
+    out.writeInt(flows.size());
+    for (List<Location> flow : flows) {
+      out.writeInt(flow.size());
+      for (Location location : flow) {
+        location.write(out);
+      }
+    }
+  }
+
+  static CachedIssue read(DataInputStream in) throws IOException {
+    String ruleKey = readString(in);
+    Location primary = Location.read(in);
+    int cost = in.readInt();
+    boolean quickFixAvailable = in.readBoolean();
+    int flowCount = in.readInt();
+    List<List<Location>> flows = flowCount == 0 ? Collections.emptyList() : new ArrayList<>(flowCount);
+    for (int i = 0; i < flowCount; i++) {
+      int locationCount = in.readInt();
+      List<Location> flow = new ArrayList<>(locationCount);
+      for (int j = 0; j < locationCount; j++) {
+        flow.add(Location.read(in));
+      }
+      flows.add(flow);
+    }
+    return new CachedIssue(ruleKey, primary, cost, flows, quickFixAvailable);
+  }
+
+  static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static class Location {
+    private final String message;
+    @Nullable
+    private final AnalyzerMessage.TextSpan textSpan;
+
+    private Location(String message, @Nullable AnalyzerMessage.TextSpan textSpan) {
+      this.message = message;
+      this.textSpan = textSpan;
+    }
+
+    static Location of(AnalyzerMessage message) {
+      return new Location(message.getMessage(), message.primaryLocation());
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      writeString(out, message);
+      out.writeBoolean(textSpan != null);
+      if (textSpan != null) {
+        out.writeInt(textSpan.startLine);
+        out.writeInt(textSpan.startCharacter);
+        out.writeInt(textSpan.endLine);
+        out.writeInt(textSpan.endCharacter);
+      }
+    }
+
+    static Location read(DataInputStream in) throws IOException {
+      String message = readString(in);
+      return new Location(message, in.readBoolean() ? readTextSpan(in) : null);
+    }
+
+    private static AnalyzerMessage.TextSpan readTextSpan(DataInputStream in) throws IOException {
+      return new AnalyzerMessage.TextSpan(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+    }
+  }
+
+}
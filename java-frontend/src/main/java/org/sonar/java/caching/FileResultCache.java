@@ -0,0 +1,203 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.caching;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Issues raised by the checks on each file, persisted in the work directory between two analyses.
+ * <p>
+ * The cached issues of a file are only used when the content of the file did not change, and when the fingerprint of the
+ * analysis (analyzer version, java version, libraries, compiled classes and active rules with their parameters) is the same as the one of the
+ * analysis which created the cache. Otherwise the whole cache is discarded.
+ */
+public final class FileResultCache {
+
+  private static final Logger LOG = Loggers.get(FileResultCache.class);
+
+  private static final int MAGIC = 0x4A464352;
+  private static final int VERSION = 2;
+
+  private final Path cacheFile;
+  private final String fingerprint;
+  private final Map<String, Entry> previousEntries;
+  private final Map<String, Entry> entries = new HashMap<>();
+  private int reusedFiles = 0;
+  @Nullable
+  private InputFile hashedFile;
+  @Nullable
+  private String hash;
+
+  private FileResultCache(Path cacheFile, String fingerprint, Map<String, Entry> previousEntries) {
+    this.cacheFile = cacheFile;
+    this.fingerprint = fingerprint;
+    this.previousEntries = previousEntries;
+  }
+
+  /**
+   * @param name distinguishes the caches of the different sets of files (main, test) sharing the same work directory
+   */
+  public static FileResultCache load(File workDir, String name, String fingerprint) {
+    Path cacheFile = workDir.toPath().resolve("java-file-cache-" + name + ".bin");
+    Map<String, Entry> previousEntries = new HashMap<>();
+    if (Files.isRegularFile(cacheFile)) {
+      try (InputStream in = Files.newInputStream(cacheFile)) {
+        read(new DataInputStream(new BufferedInputStream(in)), fingerprint, previousEntries);
+      } catch (IOException | RuntimeException e) {
+        LOG.debug("Unable to read analysis cache '{}', it will be rebuilt: {}", cacheFile, e.getMessage());
+        previousEntries.clear();
+      }
+    }
+    return new FileResultCache(cacheFile, fingerprint, previousEntries);
+  }
+
+  /**
+   * @return issues raised on the file by the previous analysis, or null if the file changed or was not analyzed
+   */
+  @CheckForNull
+  public List<CachedIssue> issues(InputFile inputFile) {
+    String key = key(inputFile);
+    Entry entry = previousEntries.get(key);
+    if (entry == null || !entry.hash.equals(contentHash(inputFile))) {
+      return null;
+    }
+    entries.put(key, entry);
+    reusedFiles++;
+    return entry.issues;
+  }
+
+  public void put(InputFile inputFile, List<CachedIssue> issues) {
+    String contentHash = contentHash(inputFile);
+    if (contentHash != null) {
+      entries.put(key(inputFile), new Entry(contentHash, new ArrayList<>(issues)));
+    }
+  }
+
+  public int reusedFiles() {
+    return reusedFiles;
+  }
+
+  /**
+   * Writes the results of the files analyzed by the current analysis, results of other files are dropped.
+   */
+  public void save() {
+    try {
+      Files.createDirectories(cacheFile.getParent());
+      Path tmpFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+      try (OutputStream out = Files.newOutputStream(tmpFile)) {
+        write(out);
+      }
+      try {
+        Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      LOG.debug("Unable to write analysis cache '{}': {}", cacheFile, e.getMessage());
+    }
+  }
+
+  private static String key(InputFile inputFile) {
+    return inputFile.uri().toString();
+  }
+
+  /**
+   * The hash of the last file is kept, as the cache is usually queried and then updated for the same file.
+   */
+  @CheckForNull
+  private String contentHash(InputFile inputFile) {
+    if (inputFile != hashedFile) {
+      hashedFile = inputFile;
+      try {
+        hash = new AnalysisFingerprint().add(inputFile.contents()).value();
+      } catch (IOException e) {
+        hash = null;
+      }
+    }
+    return hash;
+  }
+
+  private static void read(DataInputStream in, String fingerprint, Map<String, Entry> entries) throws IOException {
+    if (in.readInt() != MAGIC || in.readInt() != VERSION || !CachedIssue.readString(in).equals(fingerprint)) {
+      // different format or different analysis settings
+      return;
+    }
+    int entryCount = in.readInt();
+    for (int i = 0; i < entryCount; i++) {
+      String key = CachedIssue.readString(in);
+      String hash = CachedIssue.readString(in);
+      int issueCount = in.readInt();
+      List<CachedIssue> issues = issueCount == 0 ? Collections.emptyList() : new ArrayList<>(issueCount);
+      for (int j = 0; j < issueCount; j++) {
+        issues.add(CachedIssue.read(in));
+      }
+      entries.put(key, new Entry(hash, issues));
+    }
+  }
+
+  private void write(OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    CachedIssue.writeString(data, fingerprint);
+    data.writeInt(entries.size());
+    for (Map.Entry<String, Entry> e : entries.entrySet()) {
+      CachedIssue.writeString(data, e.getKey());
+      CachedIssue.writeString(data, e.getValue().hash);
+      data.writeInt(e.getValue().issues.size());
+      for (CachedIssue issue : e.getValue().issues) {
+        issue.write(data);
+      }
+    }
+    data.flush();
+  }
+
+  private static class Entry {
+    private final String hash;
+    private final List<CachedIssue> issues;
+
+    Entry(String hash, List<CachedIssue> issues) {
+      this.hash = hash;
+      this.issues = issues;
+    }
+  }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.cfg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.Nullable;
+import org.sonar.java.model.ExpressionUtils;
+import org.sonar.java.model.SyntacticEquivalence;
+import org.sonar.plugins.java.api.semantic.Symbol;
+import org.sonar.plugins.java.api.tree.BinaryExpressionTree;
+import org.sonar.plugins.java.api.tree.ExpressionTree;
+import org.sonar.plugins.java.api.tree.LiteralTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+/**
+ * Binary expressions which have been computed along all the paths reaching the boundaries of the blocks, and whose
+ * operands have not been assigned since. Only the expressions whose operands are local variables or literals are
+ * considered, so that no other element of a block can change their value. Equivalent expressions are represented by
+ * the first of them.
+ */
+public final class AvailableExpressions extends DataflowAnalysis<ExpressionTree> {
+
+  public static final AvailableExpressions INSTANCE = new AvailableExpressions();
+
+  private AvailableExpressions() {
+    super(Direction.FORWARD, Meet.INTERSECTION);
+  }
+
+  @Override
+  protected List<ExpressionTree> facts(CFG cfg) {
+    List<ExpressionTree> representatives = new ArrayList<>();
+    Map<List<Object>, List<ExpressionTree>> representativesByKey = new HashMap<>();
+    for (CFG.Block block : cfg.blocks()) {
+      for (Tree element : block.elements()) {
+        if (isCandidate(element)) {
+          ExpressionTree expression = (ExpressionTree) element;
+          List<ExpressionTree> sameKey = representativesByKey.computeIfAbsent(key(expression), k -> new ArrayList<>());
+          if (!representative(sameKey, expression).isPresent()) {
+            sameKey.add(expression);
+            representatives.add(expression);
+          }
+        }
+      }
+    }
+    return representatives;
+  }
+
+  /**
+   * Expressions are indexed by their {@link #key(ExpressionTree)}, to find their representative, and by the variables
+   * they use, which kill them when assigned.
+   */
+  @Override
+  protected Collection<Object> keys(ExpressionTree expression) {
+    BinaryExpressionTree binary = (BinaryExpressionTree) expression;
+    List<Object> keys = new ArrayList<>(3);
+    keys.add(key(expression));
+    addIfNotNull(keys, ReachingDefinitions.localVariable(binary.leftOperand()));
+    addIfNotNull(keys, ReachingDefinitions.localVariable(binary.rightOperand()));
+    return keys;
+  }
+
+  @Override
+  protected void transfer(CFG.Block block, GenKill<ExpressionTree> genKill) {
+    for (Tree element : block.elements()) {
+      if (isCandidate(element)) {
+        ExpressionTree expression = (ExpressionTree) element;
+        representative(genKill.factsWithKey(key(expression)), expression).ifPresent(genKill::gen);
+      }
+      Symbol variable = ReachingDefinitions.definedVariable(element);
+      if (variable != null) {
+        genKill.killAll(variable);
+      }
+    }
+  }
+
+  /**
+   * Equivalent expressions have equal keys: same kind, and operands which are the same local variables or literals.
+   */
+  private static List<Object> key(ExpressionTree expression) {
+    BinaryExpressionTree binary = (BinaryExpressionTree) expression;
+    return Arrays.asList(binary.kind(), operandKey(binary.leftOperand()), operandKey(binary.rightOperand()));
+  }
+
+  private static Object operandKey(ExpressionTree operand) {
+    ExpressionTree tree = ExpressionUtils.skipParentheses(operand);
+    Symbol variable = ReachingDefinitions.localVariable(tree);
+    return variable != null ? variable : ((LiteralTree) tree).value();
+  }
+
+  private static void addIfNotNull(List<Object> keys, @Nullable Symbol variable) {
+    if (variable != null) {
+      keys.add(variable);
+    }
+  }
+
+  private static Optional<ExpressionTree> representative(List<ExpressionTree> representatives, ExpressionTree expression) {
+    return representatives.stream()
+      .filter(representative -> SyntacticEquivalence.areEquivalentIncludingSameVariables(representative, expression))
+      .findFirst();
+  }
+
+  private static boolean isCandidate(Tree element) {
+    if (!(element instanceof BinaryExpressionTree) || element.is(Tree.Kind.CONDITIONAL_AND, Tree.Kind.CONDITIONAL_OR)) {
+      return false;
+    }
+    BinaryExpressionTree binary = (BinaryExpressionTree) element;
+    return isSimpleOperand(binary.leftOperand()) && isSimpleOperand(binary.rightOperand());
+  }
+
+  private static boolean isSimpleOperand(ExpressionTree operand) {
+    ExpressionTree tree = ExpressionUtils.skipParentheses(operand);
+    return tree instanceof LiteralTree || ReachingDefinitions.localVariable(tree) != null;
+  }
+
+}
@@ -0,0 +1,356 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.cfg;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.sonar.java.Preconditions;
+
+/**
+ * Dataflow analysis over the blocks of a {@link CFG}, whose facts belong to a finite set computed for each CFG.
+ * Sets of facts are represented as bitsets: a block kills some facts and generates other ones, and the facts coming
+ * from several blocks are merged by union or intersection. The fixpoint is computed by iterating over the blocks in
+ * reverse post-order of the direction of the analysis, until no set of facts changes.
+ * Results can be shared between checks with {@link DataflowCache#dataflow(CFG, DataflowAnalysis)}.
+ *
+ * @param <E> type of the facts
+ */
+public abstract class DataflowAnalysis<E> {
+
+  public enum Direction {
+    FORWARD,
+    BACKWARD
+  }
+
+  /**
+   * How the facts flowing from several blocks are merged: a fact holds if it holds on any path (union), or on all of
+   * them (intersection).
+   */
+  public enum Meet {
+    UNION,
+    INTERSECTION
+  }
+
+  private final Direction direction;
+  private final Meet meet;
+
+  protected DataflowAnalysis(Direction direction, Meet meet) {
+    this.direction = direction;
+    this.meet = meet;
+  }
+
+  /**
+   * @return all the facts which can hold in the given CFG
+   */
+  protected abstract List<E> facts(CFG cfg);
+
+  /**
+   * @return the keys under which the given fact is indexed, so that the facts sharing a key can be killed or looked up
+   * by a block without going through all the facts, see {@link GenKill#killAll(Object)}. No key by default.
+   */
+  protected Collection<?> keys(E fact) {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Records the facts generated and killed by the given block. The effects of the elements of the block have to be
+   * applied in the direction of the analysis.
+   */
+  protected abstract void transfer(CFG.Block block, GenKill<E> genKill);
+
+  public DataflowResult<E> analyze(CFG cfg) {
+    List<CFG.Block> blocks = cfg.reversedBlocks();
+    int blockCount = blocks.size();
+    List<E> facts = facts(cfg);
+    Map<E, Integer> indexes = new HashMap<>();
+    List<E> distinctFacts = new ArrayList<>();
+    for (E fact : facts) {
+      if (!indexes.containsKey(fact)) {
+        indexes.put(fact, distinctFacts.size());
+        distinctFacts.add(fact);
+      }
+    }
+    int words = (distinctFacts.size() + 63) / 64;
+    Map<Object, long[]> masks = masks(distinctFacts, words);
+
+    long[][] gen = new long[blockCount][];
+    long[][] kill = new long[blockCount][];
+    for (int i = 0; i < blockCount; i++) {
+      GenKill<E> genKill = new GenKill<>(distinctFacts, indexes, masks, words);
+      transfer(blocks.get(i), genKill);
+      gen[i] = genKill.gen;
+      kill[i] = genKill.kill;
+    }
+
+    int[][] successors = successors(blocks);
+    int[][] predecessors = predecessors(successors);
+    boolean forward = direction == Direction.FORWARD;
+    int[][] sources = forward ? predecessors : successors;
+    int[][] targets = forward ? successors : predecessors;
+    // exit block is the first of the reversed blocks
+    int boundary = forward ? index(blocks, cfg.entryBlock()) : 0;
+
+    long[][] before = new long[blockCount][words];
+    long[][] after = new long[blockCount][words];
+    if (meet == Meet.INTERSECTION) {
+      long[] all = all(distinctFacts.size(), words);
+      for (long[] blockAfter : after) {
+        System.arraycopy(all, 0, blockAfter, 0, words);
+      }
+    }
+    int[] order = reversePostOrder(boundary, targets);
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (int index : order) {
+        // nothing is known to hold when entering the boundary block
+        if (index != boundary || meet == Meet.UNION) {
+          merge(before[index], sources[index], after);
+        }
+        long[] blockAfter = after[index];
+        long[] blockBefore = before[index];
+        for (int w = 0; w < words; w++) {
+          long newAfter = gen[index][w] | (blockBefore[w] & ~kill[index][w]);
+          if (newAfter != blockAfter[w]) {
+            blockAfter[w] = newAfter;
+            changed = true;
+          }
+        }
+      }
+    }
+    return forward
+      ? new DataflowResult<>(blocks, distinctFacts, before, after)
+      : new DataflowResult<>(blocks, distinctFacts, after, before);
+  }
+
+  /**
+   * @return for each key of the facts, the set of facts indexed under this key
+   */
+  private Map<Object, long[]> masks(List<E> facts, int words) {
+    Map<Object, long[]> result = new HashMap<>();
+    for (int index = 0; index < facts.size(); index++) {
+      for (Object key : keys(facts.get(index))) {
+        result.computeIfAbsent(key, k -> new long[words])[index >>> 6] |= 1L << index;
+      }
+    }
+    return result;
+  }
+
+  private void merge(long[] blockBefore, int[] sources, long[][] after) {
+    if (sources.length == 0) {
+      Arrays.fill(blockBefore, 0L);
+      return;
+    }
+    System.arraycopy(after[sources[0]], 0, blockBefore, 0, blockBefore.length);
+    for (int i = 1; i < sources.length; i++) {
+      long[] sourceAfter = after[sources[i]];
+      for (int w = 0; w < blockBefore.length; w++) {
+        if (meet == Meet.UNION) {
+          blockBefore[w] |= sourceAfter[w];
+        } else {
+          blockBefore[w] &= sourceAfter[w];
+        }
+      }
+    }
+  }
+
+  /**
+   * Successors of the blocks, including the blocks reached by exceptions, as indexes of the reversed blocks.
+   */
+  private static int[][] successors(List<CFG.Block> blocks) {
+    int[][] result = new int[blocks.size()][];
+    for (int i = 0; i < blocks.size(); i++) {
+      CFG.Block block = blocks.get(i);
+      result[i] = Stream.concat(block.successors().stream(), block.exceptions().stream())
+        .mapToInt(successor -> index(blocks, successor))
+        .filter(index -> index >= 0)
+        .distinct()
+        .toArray();
+    }
+    return result;
+  }
+
+  private static int[][] predecessors(int[][] successors) {
+    int[] counts = new int[successors.length];
+    for (int[] blockSuccessors : successors) {
+      for (int successor : blockSuccessors) {
+        counts[successor]++;
+      }
+    }
+    int[][] result = new int[successors.length][];
+    for (int i = 0; i < successors.length; i++) {
+      result[i] = new int[counts[i]];
+      counts[i] = 0;
+    }
+    for (int i = 0; i < successors.length; i++) {
+      for (int successor : successors[i]) {
+        result[successor][counts[successor]] = i;
+        counts[successor]++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reverse post-order of a depth-first traversal following the given edges, starting from the boundary block.
+   * Blocks which cannot be reached from the boundary block come first.
+   */
+  private static int[] reversePostOrder(int boundary, int[][] edges) {
+    int[] order = new int[edges.length];
+    boolean[] visited = new boolean[edges.length];
+    int next = depthFirst(boundary, edges, visited, order, order.length);
+    for (int i = 0; i < edges.length; i++) {
+      next = depthFirst(i, edges, visited, order, next);
+    }
+    return order;
+  }
+
+  /**
+   * Stores the blocks reached from the start block in post-order, from the end of the given order.
+   *
+   * @return position in the order of the last stored block
+   */
+  private static int depthFirst(int start, int[][] edges, boolean[] visited, int[] order, int next) {
+    if (visited[start]) {
+      return next;
+    }
+    visited[start] = true;
+    // pairs of a block and the position of the next edge to follow
+    Deque<int[]> stack = new ArrayDeque<>();
+    stack.push(new int[] {start, 0});
+    while (!stack.isEmpty()) {
+      int[] top = stack.peek();
+      int[] blockEdges = edges[top[0]];
+      if (top[1] < blockEdges.length) {
+        int target = blockEdges[top[1]];
+        top[1]++;
+        if (!visited[target]) {
+          visited[target] = true;
+          stack.push(new int[] {target, 0});
+        }
+      } else {
+        stack.pop();
+        next--;
+        order[next] = top[0];
+      }
+    }
+    return next;
+  }
+
+  static int index(List<CFG.Block> blocks, CFG.Block block) {
+    int id = block.id();
+    return id < blocks.size() && blocks.get(id) == block ? id : -1;
+  }
+
+  private static long[] all(int factCount, int words) {
+    long[] result = new long[words];
+    Arrays.fill(result, -1L);
+    if (factCount % 64 != 0) {
+      result[words - 1] = (1L << factCount) - 1;
+    }
+    return result;
+  }
+
+  /**
+   * Facts generated and killed by a block. Effects are applied in order: generating a fact cancels a previous kill of
+   * the same fact, and the other way around.
+   */
+  public static final class GenKill<E> {
+    private final List<E> facts;
+    private final Map<E, Integer> indexes;
+    private final Map<Object, long[]> masks;
+    private final long[] gen;
+    private final long[] kill;
+
+    private GenKill(List<E> facts, Map<E, Integer> indexes, Map<Object, long[]> masks, int words) {
+      this.facts = facts;
+      this.indexes = indexes;
+      this.masks = masks;
+      this.gen = new long[words];
+      this.kill = new long[words];
+    }
+
+    /**
+     * @return the facts indexed under the given key, in the order of the facts
+     * @see DataflowAnalysis#keys(Object)
+     */
+    public List<E> factsWithKey(Object key) {
+      long[] mask = masks.get(key);
+      if (mask == null) {
+        return Collections.emptyList();
+      }
+      List<E> result = new ArrayList<>();
+      for (int w = 0; w < mask.length; w++) {
+        long bits = mask[w];
+        while (bits != 0) {
+          result.add(facts.get((w << 6) + Long.numberOfTrailingZeros(bits)));
+          bits &= bits - 1;
+        }
+      }
+      return result;
+    }
+
+    public boolean isFact(E fact) {
+      return indexes.containsKey(fact);
+    }
+
+    public void gen(E fact) {
+      int index = index(fact);
+      gen[index >>> 6] |= 1L << index;
+      kill[index >>> 6] &= ~(1L << index);
+    }
+
+    public void kill(E fact) {
+      int index = index(fact);
+      kill[index >>> 6] |= 1L << index;
+      gen[index >>> 6] &= ~(1L << index);
+    }
+
+    /**
+     * Kills the facts indexed under the given key.
+     * @see DataflowAnalysis#keys(Object)
+     */
+    public void killAll(Object key) {
+      long[] mask = masks.get(key);
+      if (mask == null) {
+        return;
+      }
+      for (int w = 0; w < mask.length; w++) {
+        kill[w] |= mask[w];
+        gen[w] &= ~mask[w];
+      }
+    }
+
+    private int index(E fact) {
+      Integer index = indexes.get(fact);
+      Preconditions.checkArgument(index != null, "Unknown fact");
+      return index;
+    }
+  }
+
+}
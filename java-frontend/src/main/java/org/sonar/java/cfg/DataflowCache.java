@@ -0,0 +1,119 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.cfg;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.sonar.java.model.DefaultJavaFileScannerContext;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.tree.Tree;
+import org.sonarsource.performance.measure.PerformanceMeasure;
+
+/**
+ * Control flow graphs, live variables and results of other dataflow analyses of the file being analyzed, computed at
+ * most once whatever the number of checks asking for them. The control flow graphs of methods and lambdas are already
+ * kept by their trees, which are then the only ones to build them: this cache only holds the graphs of other lists of
+ * trees.
+ */
+public final class DataflowCache {
+
+  /**
+   * Caches of the contexts which do not provide any, kept as long as their context is used.
+   */
+  private static final Map<JavaFileScannerContext, DataflowCache> OTHER_CONTEXTS_CACHES = new WeakHashMap<>();
+
+  private final Map<List<Tree>, CFG> cfgs = new HashMap<>();
+  private final Map<List<Tree>, CFG> cfgsIgnoringBreak = new HashMap<>();
+  private final Map<CFG, LiveVariables> liveVariables = new HashMap<>();
+  private final Map<CFG, LiveVariables> liveVariablesWithFields = new HashMap<>();
+  private final Map<DataflowAnalysis<?>, Map<CFG, DataflowResult<?>>> dataflows = new HashMap<>();
+
+  /**
+   * @return the cache of the given context, shared by all the checks of the file
+   */
+  public static DataflowCache of(JavaFileScannerContext context) {
+    if (context instanceof DefaultJavaFileScannerContext) {
+      return ((DefaultJavaFileScannerContext) context).dataflowCache();
+    }
+    synchronized (OTHER_CONTEXTS_CACHES) {
+      return OTHER_CONTEXTS_CACHES.computeIfAbsent(context, c -> new DataflowCache());
+    }
+  }
+
+  /**
+   * @see CFG#buildCFG(List, boolean)
+   */
+  public CFG cfg(List<? extends Tree> trees, boolean ignoreBreak) {
+    Map<List<Tree>, CFG> cache = ignoreBreak ? cfgsIgnoringBreak : cfgs;
+    List<Tree> key = new ArrayList<>(trees);
+    CFG cfg = cache.get(key);
+    if (cfg == null) {
+      PerformanceMeasure.Duration cfgDuration = PerformanceMeasure.start("CFG");
+      cfg = CFG.buildCFG(trees, ignoreBreak);
+      cfgDuration.stop();
+      cache.put(key, cfg);
+    }
+    return cfg;
+  }
+
+  /**
+   * @see LiveVariables#analyze(CFG)
+   */
+  public LiveVariables liveVariables(CFG cfg) {
+    return liveVariables.computeIfAbsent(cfg, DataflowCache::analyze);
+  }
+
+  /**
+   * @see LiveVariables#analyzeWithFields(CFG)
+   */
+  public LiveVariables liveVariablesWithFields(CFG cfg) {
+    return liveVariablesWithFields.computeIfAbsent(cfg, DataflowCache::analyzeWithFields);
+  }
+
+  /**
+   * @return results of the given analysis, computed once per CFG for the same instance of analysis
+   * @see ReachingDefinitions#INSTANCE
+   * @see DefiniteAssignment#INSTANCE
+   * @see AvailableExpressions#INSTANCE
+   */
+  @SuppressWarnings("unchecked")
+  public <E> DataflowResult<E> dataflow(CFG cfg, DataflowAnalysis<E> analysis) {
+    return (DataflowResult<E>) dataflows.computeIfAbsent(analysis, k -> new HashMap<>())
+      .computeIfAbsent(cfg, analysis::analyze);
+  }
+
+  private static LiveVariables analyze(CFG cfg) {
+    PerformanceMeasure.Duration liveVariablesDuration = PerformanceMeasure.start("LiveVariables");
+    LiveVariables result = LiveVariables.analyze(cfg);
+    liveVariablesDuration.stop();
+    return result;
+  }
+
+  private static LiveVariables analyzeWithFields(CFG cfg) {
+    PerformanceMeasure.Duration liveVariablesDuration = PerformanceMeasure.start("LiveVariables");
+    LiveVariables result = LiveVariables.analyzeWithFields(cfg);
+    liveVariablesDuration.stop();
+    return result;
+  }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.cfg;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.sonar.java.Preconditions;
+
+/**
+ * Facts holding at the boundaries of the blocks of a CFG, as computed by a {@link DataflowAnalysis}. Whatever the
+ * direction of the analysis, "in" is the entry of a block and "out" its exit. Sets of facts are only created when asked
+ * for.
+ */
+public final class DataflowResult<E> {
+
+  private final List<CFG.Block> blocks;
+  private final List<E> facts;
+  private final long[][] in;
+  private final long[][] out;
+  private final Map<CFG.Block, Set<E>> inFacts = new HashMap<>();
+  private final Map<CFG.Block, Set<E>> outFacts = new HashMap<>();
+
+  DataflowResult(List<CFG.Block> blocks, List<E> facts, long[][] in, long[][] out) {
+    this.blocks = blocks;
+    this.facts = facts;
+    this.in = in;
+    this.out = out;
+  }
+
+  public Set<E> getIn(CFG.Block block) {
+    return facts(block, in, inFacts);
+  }
+
+  public Set<E> getOut(CFG.Block block) {
+    return facts(block, out, outFacts);
+  }
+
+  private Set<E> facts(CFG.Block block, long[][] bitsets, Map<CFG.Block, Set<E>> cache) {
+    int index = DataflowAnalysis.index(blocks, block);
+    Preconditions.checkArgument(index >= 0, "Block is not part of the analyzed CFG");
+    return cache.computeIfAbsent(block, b -> Collections.unmodifiableSet(toFacts(bitsets[index])));
+  }
+
+  private Set<E> toFacts(long[] bits) {
+    Set<E> result = new LinkedHashSet<>();
+    for (int w = 0; w < bits.length; w++) {
+      long word = bits[w];
+      while (word != 0) {
+        result.add(facts.get((w << 6) + Long.numberOfTrailingZeros(word)));
+        word &= word - 1;
+      }
+    }
+    return result;
+  }
+
+}
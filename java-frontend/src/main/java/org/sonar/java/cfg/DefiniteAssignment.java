@@ -0,0 +1,73 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.cfg;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.sonar.plugins.java.api.semantic.Symbol;
+import org.sonar.plugins.java.api.tree.AssignmentExpressionTree;
+import org.sonar.plugins.java.api.tree.Tree;
+import org.sonar.plugins.java.api.tree.VariableTree;
+
+/**
+ * Local variables declared in the CFG which are assigned at the boundaries of the blocks, along all the paths.
+ */
+public final class DefiniteAssignment extends DataflowAnalysis<Symbol> {
+
+  public static final DefiniteAssignment INSTANCE = new DefiniteAssignment();
+
+  private DefiniteAssignment() {
+    super(Direction.FORWARD, Meet.INTERSECTION);
+  }
+
+  @Override
+  protected List<Symbol> facts(CFG cfg) {
+    return cfg.blocks().stream()
+      .flatMap(block -> block.elements().stream())
+      .filter(element -> element.is(Tree.Kind.VARIABLE))
+      .map(ReachingDefinitions::definedVariable)
+      .filter(Objects::nonNull)
+      .collect(Collectors.toList());
+  }
+
+  @Override
+  protected void transfer(CFG.Block block, GenKill<Symbol> genKill) {
+    for (Tree element : block.elements()) {
+      if (element.is(Tree.Kind.VARIABLE)) {
+        Symbol variable = ReachingDefinitions.definedVariable(element);
+        if (variable != null) {
+          if (ReachingDefinitions.isInitialized((VariableTree) element)) {
+            genKill.gen(variable);
+          } else {
+            // a declaration which is executed again is a new variable
+            genKill.kill(variable);
+          }
+        }
+      } else if (element.is(Tree.Kind.ASSIGNMENT)) {
+        Symbol variable = ReachingDefinitions.localVariable(((AssignmentExpressionTree) element).variable());
+        if (variable != null && genKill.isFact(variable)) {
+          genKill.gen(variable);
+        }
+      }
+    }
+  }
+
+}
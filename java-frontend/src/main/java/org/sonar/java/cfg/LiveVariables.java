@@ -20,7 +20,6 @@
 package org.sonar.java.cfg;
 
 import org.sonarsource.analyzer.commons.collections.ListUtils;
-import org.sonarsource.analyzer.commons.collections.SetUtils;
 import org.sonar.plugins.java.api.semantic.Symbol;
 import org.sonar.plugins.java.api.tree.AssignmentExpressionTree;
 import org.sonar.plugins.java.api.tree.ExpressionTree;
@@ -35,35 +34,55 @@ import org.sonar.plugins.java.api.tree.VariableTree;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 
 import static org.sonar.java.model.JUtils.isLocalVariable;
 
+/**
+ * Backward analysis of the variables which are live at the boundaries of the blocks of a CFG.
+ * Symbols are numbered, so that the fixpoint is computed on bitsets indexed by block id. The sets of symbols returned
+ * by {@link #getIn(CFG.Block)} and {@link #getOut(CFG.Block)} are only created when asked for.
+ */
 public class LiveVariables {
 
   private final CFG cfg;
-  private final Map<CFG.Block, Set<Symbol>> out = new HashMap<>();
-  private final Map<CFG.Block, Set<Symbol>> in = new HashMap<>();
+  private final List<CFG.Block> blocks;
   private final boolean includeFields;
+  private final List<Symbol> symbols = new ArrayList<>();
+  private long[][] out;
+  private long[][] in;
+  private final Map<CFG.Block, Set<Symbol>> outSymbols = new HashMap<>();
+  private final Map<CFG.Block, Set<Symbol>> inSymbols = new HashMap<>();
 
   private LiveVariables(CFG cfg, boolean includeFields) {
     this.cfg = cfg;
+    this.blocks = cfg.reversedBlocks();
     this.includeFields = includeFields;
   }
 
   public Set<Symbol> getOut(CFG.Block block) {
-    return out.get(block);
+    return symbols(block, out, outSymbols);
   }
 
   public Set<Symbol> getIn(CFG.Block block) {
-    return in.get(block);
+    return symbols(block, in, inSymbols);
+  }
+
+  private Set<Symbol> symbols(CFG.Block block, long[][] bitsets, Map<CFG.Block, Set<Symbol>> cache) {
+    int index = index(block);
+    if (index < 0) {
+      return null;
+    }
+    return cache.computeIfAbsent(block, b -> Collections.unmodifiableSet(toSymbols(bitsets[index])));
   }
 
   /**
@@ -82,49 +101,155 @@ public class LiveVariables {
 
   private static LiveVariables analyze(CFG cfg, boolean includeFields) {
     LiveVariables liveVariables = new LiveVariables(cfg, includeFields);
+    int blockCount = liveVariables.blocks.size();
     // Generate kill/gen for each block in isolation
-    Map<CFG.Block, Set<Symbol>> kill = new HashMap<>();
-    Map<CFG.Block, Set<Symbol>> gen = new HashMap<>();
-    for (CFG.Block block : liveVariables.cfg.reversedBlocks()) {
+    List<Set<Symbol>> kill = new ArrayList<>(blockCount);
+    List<Set<Symbol>> gen = new ArrayList<>(blockCount);
+    Map<Symbol, Integer> symbolIndexes = new HashMap<>();
+    for (CFG.Block block : liveVariables.blocks) {
       Set<Symbol> blockKill = new HashSet<>();
       Set<Symbol> blockGen = new HashSet<>();
       liveVariables.processBlockElements(block, blockKill, blockGen);
-      kill.put(block, blockKill);
-      gen.put(block, blockGen);
+      kill.add(blockKill);
+      gen.add(blockGen);
+      liveVariables.addSymbols(blockKill, symbolIndexes);
+      liveVariables.addSymbols(blockGen, symbolIndexes);
+    }
+    int words = (liveVariables.symbols.size() + 63) / 64;
+    long[][] killBits = new long[blockCount][];
+    long[][] genBits = new long[blockCount][];
+    for (int i = 0; i < blockCount; i++) {
+      killBits[i] = toBits(kill.get(i), symbolIndexes, words);
+      genBits[i] = toBits(gen.get(i), symbolIndexes, words);
     }
-    liveVariables.analyzeCFG(liveVariables.in, kill, gen);
+    liveVariables.out = new long[blockCount][words];
+    liveVariables.in = new long[blockCount][words];
+    liveVariables.analyzeCFG(killBits, genBits);
     // out of exit block are empty by definition.
-    if (!liveVariables.out.get(liveVariables.cfg.reversedBlocks().get(0)).isEmpty()) {
+    if (!isEmpty(liveVariables.out[0])) {
       throw new IllegalStateException("Out of exit block should be empty");
     }
+    return liveVariables;
+  }
 
-    // Make things immutable.
-    for (Map.Entry<CFG.Block, Set<Symbol>> blockSetEntry : liveVariables.out.entrySet()) {
-      blockSetEntry.setValue(Collections.unmodifiableSet(blockSetEntry.getValue()));
+  private void analyzeCFG(long[][] kill, long[][] gen) {
+    int[] order = reversePostOrder();
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (int index : order) {
+        CFG.Block block = blocks.get(index);
+        long[] blockOut = out[index];
+        block.successors().forEach(successor -> addIn(blockOut, successor));
+        block.exceptions().forEach(exception -> addIn(blockOut, exception));
+        // in = gen and (out - kill)
+        long[] blockIn = in[index];
+        long[] blockGen = gen[index];
+        long[] blockKill = kill[index];
+        for (int w = 0; w < blockIn.length; w++) {
+          long newIn = blockGen[w] | (blockOut[w] & ~blockKill[w]);
+          if (newIn != blockIn[w]) {
+            blockIn[w] = newIn;
+            changed = true;
+          }
+        }
+      }
     }
+  }
 
-    return liveVariables;
+  private void addIn(long[] blockOut, CFG.Block successor) {
+    int index = index(successor);
+    if (index >= 0) {
+      long[] successorIn = in[index];
+      for (int w = 0; w < blockOut.length; w++) {
+        blockOut[w] |= successorIn[w];
+      }
+    }
+  }
+
+  /**
+   * Order in which the blocks are visited: reverse post-order of the reversed graph, starting from the exit block, so
+   * that blocks are mostly visited after their successors. Blocks which do not lead to the exit block come first.
+   */
+  private int[] reversePostOrder() {
+    int[] order = new int[blocks.size()];
+    int next = order.length;
+    boolean[] visited = new boolean[blocks.size()];
+    Deque<CFG.Block> stack = new ArrayDeque<>();
+    Deque<Iterator<CFG.Block>> predecessors = new ArrayDeque<>();
+    for (CFG.Block start : blocks) {
+      int startIndex = index(start);
+      if (visited[startIndex]) {
+        continue;
+      }
+      visited[startIndex] = true;
+      stack.push(start);
+      predecessors.push(start.predecessors().iterator());
+      while (!stack.isEmpty()) {
+        Iterator<CFG.Block> iterator = predecessors.peek();
+        if (iterator.hasNext()) {
+          CFG.Block predecessor = iterator.next();
+          int index = index(predecessor);
+          if (index >= 0 && !visited[index]) {
+            visited[index] = true;
+            stack.push(predecessor);
+            predecessors.push(predecessor.predecessors().iterator());
+          }
+        } else {
+          predecessors.pop();
+          next--;
+          order[next] = index(stack.pop());
+        }
+      }
+    }
+    return order;
   }
 
-  private void analyzeCFG(Map<CFG.Block, Set<Symbol>> in, Map<CFG.Block, Set<Symbol>> kill, Map<CFG.Block, Set<Symbol>> gen) {
-    Deque<CFG.Block> workList = new LinkedList<>();
-    workList.addAll(cfg.reversedBlocks());
-    while (!workList.isEmpty()) {
-      CFG.Block block = workList.removeFirst();
+  /**
+   * @return index of the given block in the bitsets, or -1 if the block is not part of the CFG
+   */
+  private int index(CFG.Block block) {
+    int id = block.id();
+    return id < blocks.size() && blocks.get(id) == block ? id : -1;
+  }
 
-      Set<Symbol> blockOut = out.computeIfAbsent(block, k -> new HashSet<>());
-      block.successors().stream().map(in::get).filter(Objects::nonNull).forEach(blockOut::addAll);
-      block.exceptions().stream().map(in::get).filter(Objects::nonNull).forEach(blockOut::addAll);
-      // in = gen and (out - kill)
-      Set<Symbol> newIn = new HashSet<>(gen.get(block));
-      newIn.addAll(SetUtils.difference(blockOut, kill.get(block)));
+  private void addSymbols(Set<Symbol> blockSymbols, Map<Symbol, Integer> symbolIndexes) {
+    for (Symbol symbol : blockSymbols) {
+      if (!symbolIndexes.containsKey(symbol)) {
+        symbolIndexes.put(symbol, symbols.size());
+        symbols.add(symbol);
+      }
+    }
+  }
 
-      if (newIn.equals(in.get(block))) {
-        continue;
+  private static long[] toBits(Set<Symbol> blockSymbols, Map<Symbol, Integer> symbolIndexes, int words) {
+    long[] bits = new long[words];
+    for (Symbol symbol : blockSymbols) {
+      int index = symbolIndexes.get(symbol);
+      bits[index >>> 6] |= 1L << index;
+    }
+    return bits;
+  }
+
+  private Set<Symbol> toSymbols(long[] bits) {
+    Set<Symbol> result = new HashSet<>();
+    for (int w = 0; w < bits.length; w++) {
+      long word = bits[w];
+      while (word != 0) {
+        result.add(symbols.get((w << 6) + Long.numberOfTrailingZeros(word)));
+        word &= word - 1;
+      }
+    }
+    return result;
+  }
+
+  private static boolean isEmpty(long[] bits) {
+    for (long word : bits) {
+      if (word != 0) {
+        return false;
       }
-      in.put(block, newIn);
-      block.predecessors().forEach(workList::addLast);
     }
+    return true;
   }
 
   private void processBlockElements(CFG.Block block, Set<Symbol> blockKill, Set<Symbol> blockGen) {
@@ -0,0 +1,122 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.cfg;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import org.sonar.java.model.ExpressionUtils;
+import org.sonar.java.model.JUtils;
+import org.sonar.plugins.java.api.semantic.Symbol;
+import org.sonar.plugins.java.api.tree.AssignmentExpressionTree;
+import org.sonar.plugins.java.api.tree.ExpressionTree;
+import org.sonar.plugins.java.api.tree.IdentifierTree;
+import org.sonar.plugins.java.api.tree.Tree;
+import org.sonar.plugins.java.api.tree.UnaryExpressionTree;
+import org.sonar.plugins.java.api.tree.VariableTree;
+
+/**
+ * Definitions of local variables which reach the boundaries of the blocks, along at least one path.
+ * Definitions are the declarations with an initializer (including variables of foreach loops and catch clauses),
+ * the assignments, and the increments and decrements of local variables.
+ */
+public final class ReachingDefinitions extends DataflowAnalysis<Tree> {
+
+  public static final ReachingDefinitions INSTANCE = new ReachingDefinitions();
+
+  private ReachingDefinitions() {
+    super(Direction.FORWARD, Meet.UNION);
+  }
+
+  @Override
+  protected List<Tree> facts(CFG cfg) {
+    return cfg.blocks().stream()
+      .flatMap(block -> block.elements().stream())
+      .filter(ReachingDefinitions::isDefinition)
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Definitions are indexed by the variable they define, which kills all of them at once.
+   */
+  @Override
+  protected Collection<Symbol> keys(Tree definition) {
+    return Collections.singletonList(definedVariable(definition));
+  }
+
+  @Override
+  protected void transfer(CFG.Block block, GenKill<Tree> genKill) {
+    for (Tree element : block.elements()) {
+      Symbol variable = definedVariable(element);
+      if (variable != null) {
+        genKill.killAll(variable);
+        if (isDefinition(element)) {
+          genKill.gen(element);
+        }
+      }
+    }
+  }
+
+  private static boolean isDefinition(Tree element) {
+    return definedVariable(element) != null && (!element.is(Tree.Kind.VARIABLE) || isInitialized((VariableTree) element));
+  }
+
+  static boolean isInitialized(VariableTree variable) {
+    Tree parent = variable.parent();
+    return variable.initializer() != null || (parent != null && parent.is(Tree.Kind.FOR_EACH_STATEMENT, Tree.Kind.CATCH));
+  }
+
+  /**
+   * @return the local variable declared, assigned, incremented or decremented by the given element of a block
+   */
+  @CheckForNull
+  static Symbol definedVariable(Tree element) {
+    switch (element.kind()) {
+      case VARIABLE:
+        Symbol symbol = ((VariableTree) element).symbol();
+        return JUtils.isLocalVariable(symbol) ? symbol : null;
+      case PREFIX_INCREMENT:
+      case PREFIX_DECREMENT:
+      case POSTFIX_INCREMENT:
+      case POSTFIX_DECREMENT:
+        return localVariable(((UnaryExpressionTree) element).expression());
+      default:
+        if (element instanceof AssignmentExpressionTree) {
+          return localVariable(((AssignmentExpressionTree) element).variable());
+        }
+        return null;
+    }
+  }
+
+  @CheckForNull
+  static Symbol localVariable(ExpressionTree expression) {
+    ExpressionTree tree = ExpressionUtils.skipParentheses(expression);
+    if (tree.is(Tree.Kind.IDENTIFIER)) {
+      Symbol symbol = ((IdentifierTree) tree).symbol();
+      if (JUtils.isLocalVariable(symbol)) {
+        return symbol;
+      }
+    }
+    return null;
+  }
+
+}
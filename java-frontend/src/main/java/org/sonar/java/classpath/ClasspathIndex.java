@@ -0,0 +1,232 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.classpath;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Packages contained in each jar of the classpath, persisted in the work directory between two analyses.
+ * <p>
+ * An entry is only used as long as the size and the last modification date of its jar did not change, so that
+ * the content of unchanged jars does not have to be listed again to know if they declare a given package.
+ */
+public final class ClasspathIndex {
+
+  private static final Logger LOG = Loggers.get(ClasspathIndex.class);
+
+  public static final String FILE_NAME = "java-classpath-index.bin";
+
+  private static final int MAGIC = 0x4A435049;
+  private static final int VERSION = 1;
+
+  @Nullable
+  private final Path indexFile;
+  private final Map<String, Entry> entries;
+  private boolean modified = false;
+
+  private ClasspathIndex(@Nullable Path indexFile, Map<String, Entry> entries) {
+    this.indexFile = indexFile;
+    this.entries = entries;
+  }
+
+  /**
+   * Index only kept in memory, never persisted.
+   */
+  public static ClasspathIndex inMemory() {
+    return new ClasspathIndex(null, new HashMap<>());
+  }
+
+  /**
+   * Loads the index stored in the given work directory, or starts an empty one if there is none or if it can not be read.
+   */
+  public static ClasspathIndex load(File workDir) {
+    Path indexFile = workDir.toPath().resolve(FILE_NAME);
+    Map<String, Entry> entries = new HashMap<>();
+    if (Files.isRegularFile(indexFile)) {
+      try {
+        read(indexFile, entries);
+      } catch (IOException | RuntimeException e) {
+        LOG.debug("Unable to read classpath index '{}', it will be rebuilt: {}", indexFile, e.getMessage());
+        entries.clear();
+      }
+    }
+    return new ClasspathIndex(indexFile, entries);
+  }
+
+  /**
+   * @return the packages of the jar, or null if the jar is not indexed or changed since it was indexed
+   */
+  @CheckForNull
+  public synchronized Set<String> packages(File jar) {
+    Entry entry = entries.get(jar.getAbsolutePath());
+    if (entry == null || !entry.isUpToDate(jar)) {
+      return null;
+    }
+    return entry.packages;
+  }
+
+  public synchronized void put(File jar, Set<String> packages) {
+    entries.put(jar.getAbsolutePath(), new Entry(jar.length(), jar.lastModified(), Collections.unmodifiableSet(new HashSet<>(packages))));
+    modified = true;
+  }
+
+  /**
+   * Writes the index back to the work directory if it has been modified. Entries of jars which do not exist anymore are dropped.
+   */
+  public synchronized void save() {
+    if (indexFile == null || !modified) {
+      return;
+    }
+    entries.keySet().removeIf(path -> !new File(path).isFile());
+    Path tmpFile = null;
+    try {
+      Files.createDirectories(indexFile.getParent());
+      tmpFile = Files.createTempFile(indexFile.getParent(), FILE_NAME, ".tmp");
+      try (OutputStream out = Files.newOutputStream(tmpFile)) {
+        write(out);
+      }
+      move(tmpFile, indexFile);
+      modified = false;
+    } catch (IOException e) {
+      LOG.warn("Unable to write classpath index '{}': {}", indexFile, e.getMessage());
+    } finally {
+      // the temporary file only remains when it could not be moved to the index file
+      deleteIfExists(tmpFile);
+    }
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  private static void deleteIfExists(@Nullable Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOG.debug("Unable to delete temporary file '{}': {}", file, e.getMessage());
+    }
+  }
+
+  private static void move(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private static void read(Path indexFile, Map<String, Entry> entries) throws IOException {
+    long fileSize = Files.size(indexFile);
+    try (DataInputStream data = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+      if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+        throw new IOException("unsupported format");
+      }
+      int entryCount = data.readInt();
+      for (int i = 0; i < entryCount; i++) {
+        String path = readString(data, fileSize);
+        long size = data.readLong();
+        long lastModified = data.readLong();
+        int packageCount = data.readInt();
+        Set<String> packages = new HashSet<>();
+        for (int j = 0; j < packageCount; j++) {
+          packages.add(readString(data, fileSize));
+        }
+        entries.put(path, new Entry(size, lastModified, Collections.unmodifiableSet(packages)));
+      }
+    } catch (EOFException e) {
+      throw new IOException("truncated file", e);
+    }
+  }
+
+  private void write(OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    data.writeInt(entries.size());
+    for (Map.Entry<String, Entry> e : entries.entrySet()) {
+      Entry entry = e.getValue();
+      writeString(data, e.getKey());
+      data.writeLong(entry.size);
+      data.writeLong(entry.lastModified);
+      data.writeInt(entry.packages.size());
+      for (String packageName : entry.packages) {
+        writeString(data, packageName);
+      }
+    }
+    data.flush();
+  }
+
+  private static String readString(DataInputStream data, long fileSize) throws IOException {
+    int length = data.readInt();
+    if (length < 0 || length > fileSize) {
+      throw new IOException("corrupted file");
+    }
+    byte[] bytes = new byte[length];
+    data.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeString(DataOutputStream data, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    data.writeInt(bytes.length);
+    data.write(bytes);
+  }
+
+  private static class Entry {
+    private final long size;
+    private final long lastModified;
+    private final Set<String> packages;
+
+    Entry(long size, long lastModified, Set<String> packages) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.packages = packages;
+    }
+
+    boolean isUpToDate(File jar) {
+      return jar.length() == size && jar.lastModified() == lastModified;
+    }
+  }
+
+}
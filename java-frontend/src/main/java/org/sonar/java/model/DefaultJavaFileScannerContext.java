@@ -32,6 +32,7 @@ import org.sonar.api.batch.fs.InputFile;
 import org.sonar.java.EndOfAnalysisCheck;
 import org.sonar.java.SonarComponents;
 import org.sonar.java.ast.visitors.ComplexityVisitor;
+import org.sonar.java.cfg.DataflowCache;
 import org.sonar.java.regex.RegexCache;
 import org.sonar.java.regex.RegexCheck;
 import org.sonar.java.regex.RegexScannerContext;
@@ -43,6 +44,7 @@ import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.JavaVersion;
 import org.sonar.plugins.java.api.SourceMap;
 import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.ExpressionTree;
 import org.sonar.plugins.java.api.tree.LiteralTree;
 import org.sonar.plugins.java.api.tree.Tree;
 import org.sonarsource.analyzer.commons.regex.RegexParseResult;
@@ -55,6 +57,7 @@ public class DefaultJavaFileScannerContext implements JavaFileScannerContext, Re
   private final SonarComponents sonarComponents;
   private final ComplexityVisitor complexityVisitor;
   private final RegexCache regexCache;
+  private final DataflowCache dataflowCache;
   private final InputFile inputFile;
   private final JavaVersion javaVersion;
   private final boolean fileParsed;
@@ -72,6 +75,7 @@ public class DefaultJavaFileScannerContext implements JavaFileScannerContext, Re
     this.sonarComponents = sonarComponents;
     this.complexityVisitor = new ComplexityVisitor();
     this.regexCache = new RegexCache();
+    this.dataflowCache = new DataflowCache();
     this.javaVersion = javaVersion;
     this.fileParsed = fileParsed;
     this.inAndroidContext = inAndroidContext;
@@ -165,11 +169,20 @@ public class DefaultJavaFileScannerContext implements JavaFileScannerContext, Re
     reportIssue(analyzerMessage);
   }
 
+  public DataflowCache dataflowCache() {
+    return dataflowCache;
+  }
+
   @Override
   public RegexParseResult regexForLiterals(FlagSet initialFlags, LiteralTree... stringLiterals) {
     return regexCache.getRegexForLiterals(initialFlags, stringLiterals);
   }
 
+  @Override
+  public Optional<RegexParseResult> regexForUseSite(ExpressionTree useSite, Function<ExpressionTree, Optional<RegexParseResult>> discovery) {
+    return regexCache.getRegexForUseSite(useSite, discovery);
+  }
+
   @Override
   public void reportIssue(JavaCheck javaCheck, Tree syntaxNode, String message, List<Location> secondary, @Nullable Integer cost) {
     List<List<Location>> flows = secondary.stream().map(Collections::singletonList).collect(Collectors.toList());
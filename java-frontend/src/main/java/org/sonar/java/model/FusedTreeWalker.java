@@ -0,0 +1,206 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.model;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.sonar.java.ast.visitors.FusableTreeVisitor;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.tree.BaseTreeVisitor;
+import org.sonar.plugins.java.api.tree.BlockTree;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.ListTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.Tree;
+import org.sonar.plugins.java.api.tree.TreeVisitor;
+
+/**
+ * Walks a tree once for several {@link FusableTreeVisitor}s.
+ * <p>
+ * The walk itself is the default one of {@link BaseTreeVisitor}. When reaching a tree whose visit method is overridden by some
+ * of the visitors, the tree is given to each of these visitors, which then walk the subtree by themselves (and can for instance
+ * skip some of its children by not calling the super method). The walk of the subtree continues for the other visitors only.
+ * Each visitor is then called exactly as it would be by its own walk of the tree, only the order of the calls between visitors
+ * differs.
+ */
+class FusedTreeWalker extends BaseTreeVisitor {
+
+  private static final List<Method> TREE_VISITOR_METHODS = Arrays.asList(TreeVisitor.class.getMethods());
+  private static final Map<Method, Integer> TREE_VISITOR_METHOD_INDEXES = new HashMap<>();
+  static {
+    for (int i = 0; i < TREE_VISITOR_METHODS.size(); i++) {
+      TREE_VISITOR_METHOD_INDEXES.put(TREE_VISITOR_METHODS.get(i), i);
+    }
+  }
+
+  private static final int UNKNOWN_METHOD = 0;
+  private static final int NO_METHOD = -1;
+  /**
+   * For each class of tree, and each kind of tree of this class, index of the visit method called by {@link Tree#accept(TreeVisitor)}
+   * plus one, {@link #NO_METHOD} when accept does not call any visit method with the tree itself (tokens, lists of trees), or
+   * {@link #UNKNOWN_METHOD} when not computed yet.
+   */
+  private static final Map<Class<?>, int[]> VISIT_METHODS = new ConcurrentHashMap<>();
+  private static final Map<Class<?>, boolean[]> OVERRIDDEN_METHODS = new ConcurrentHashMap<>();
+
+  @FunctionalInterface
+  interface Visit {
+    /**
+     * @return false if the visitor failed, it is then not called anymore for the current file
+     */
+    boolean visit(FusableTreeVisitor visitor, Tree tree);
+  }
+
+  private final FusableTreeVisitor[] visitors;
+  private final boolean[][] overriddenMethods;
+  private final boolean[] failed;
+  private final Visit visit;
+  private int[] active;
+
+  /**
+   * @param visitors visitors accepted by {@link #canBeFused(FusableTreeVisitor)}
+   */
+  FusedTreeWalker(List<FusableTreeVisitor> visitors, Visit visit) {
+    this.visitors = visitors.toArray(new FusableTreeVisitor[0]);
+    this.overriddenMethods = new boolean[this.visitors.length][];
+    this.active = new int[this.visitors.length];
+    for (int i = 0; i < this.visitors.length; i++) {
+      overriddenMethods[i] = OVERRIDDEN_METHODS.computeIfAbsent(this.visitors[i].getClass(), FusedTreeWalker::findOverriddenMethods);
+      active[i] = i;
+    }
+    this.failed = new boolean[this.visitors.length];
+    this.visit = visit;
+  }
+
+  /**
+   * Visitors replacing the walk of the whole file or the default walk of the children of trees can not share the walk.
+   * <p>
+   * Visitors overriding the visit of compilation units, classes, methods or blocks are not fused either: they would walk almost
+   * the whole file by themselves anyway, sharing the walk would save nothing.
+   */
+  static boolean canBeFused(FusableTreeVisitor visitor) {
+    Class<?> visitorClass = visitor.getClass();
+    return !declaredBelow(visitorClass, FusableTreeVisitor.class, "scanFile", JavaFileScannerContext.class)
+      && !declaredBelow(visitorClass, BaseTreeVisitor.class, "scan", Tree.class)
+      && !declaredBelow(visitorClass, BaseTreeVisitor.class, "scan", List.class)
+      && !declaredBelow(visitorClass, BaseTreeVisitor.class, "scan", ListTree.class)
+      && !declaredBelow(visitorClass, BaseTreeVisitor.class, "visitCompilationUnit", CompilationUnitTree.class)
+      && !declaredBelow(visitorClass, BaseTreeVisitor.class, "visitClass", ClassTree.class)
+      && !declaredBelow(visitorClass, BaseTreeVisitor.class, "visitMethod", MethodTree.class)
+      && !declaredBelow(visitorClass, BaseTreeVisitor.class, "visitBlock", BlockTree.class);
+  }
+
+  void walk(Tree tree) {
+    scan(tree);
+  }
+
+  @Override
+  protected void scan(@Nullable Tree tree) {
+    if (tree == null) {
+      return;
+    }
+    int method = dispatchedMethod(tree);
+    if (method == NO_METHOD) {
+      if (tree instanceof ListTree) {
+        // ListTree#accept gives the visitor to each element, without going through scan(Tree)
+        scan((List<? extends Tree>) tree);
+      }
+      return;
+    }
+    int[] parentActive = active;
+    int[] remaining = null;
+    int remainingCount = 0;
+    for (int i = 0; i < parentActive.length; i++) {
+      int visitorIndex = parentActive[i];
+      if (failed[visitorIndex]) {
+        continue;
+      }
+      if (overriddenMethods[visitorIndex][method - 1]) {
+        if (remaining == null) {
+          remaining = Arrays.copyOf(parentActive, i);
+          remainingCount = i;
+        }
+        if (!visit.visit(visitors[visitorIndex], tree)) {
+          failed[visitorIndex] = true;
+        }
+      } else if (remaining != null) {
+        remaining[remainingCount] = visitorIndex;
+        remainingCount++;
+      }
+    }
+    if (remaining == null) {
+      tree.accept(this);
+    } else if (remainingCount > 0) {
+      active = Arrays.copyOf(remaining, remainingCount);
+      tree.accept(this);
+      active = parentActive;
+    }
+  }
+
+  private static int dispatchedMethod(Tree tree) {
+    int[] methods = VISIT_METHODS.computeIfAbsent(tree.getClass(), c -> new int[Tree.Kind.values().length]);
+    int kind = tree.kind().ordinal();
+    if (methods[kind] == UNKNOWN_METHOD) {
+      Method[] called = new Method[1];
+      TreeVisitor probe = (TreeVisitor) Proxy.newProxyInstance(TreeVisitor.class.getClassLoader(), new Class<?>[] {TreeVisitor.class},
+        (proxy, calledMethod, args) -> {
+          if (called[0] == null && args != null && args.length == 1 && args[0] == tree) {
+            called[0] = calledMethod;
+          }
+          return null;
+        });
+      tree.accept(probe);
+      methods[kind] = called[0] == null ? NO_METHOD : (TREE_VISITOR_METHOD_INDEXES.get(called[0]) + 1);
+    }
+    return methods[kind];
+  }
+
+  private static boolean[] findOverriddenMethods(Class<?> visitorClass) {
+    boolean[] overridden = new boolean[TREE_VISITOR_METHODS.size()];
+    for (int i = 0; i < overridden.length; i++) {
+      Method method = TREE_VISITOR_METHODS.get(i);
+      overridden[i] = declaredBelow(visitorClass, BaseTreeVisitor.class, method.getName(), method.getParameterTypes());
+    }
+    return overridden;
+  }
+
+  /**
+   * @return true if the method is declared by the given class, or any of its superclasses up to (excluding) the given ancestor
+   */
+  private static boolean declaredBelow(Class<?> visitorClass, Class<?> ancestor, String name, Class<?>... parameterTypes) {
+    for (Class<?> c = visitorClass; c != null && c != ancestor; c = c.getSuperclass()) {
+      try {
+        c.getDeclaredMethod(name, parameterTypes);
+        return true;
+      } catch (NoSuchMethodException e) {
+        // not declared by this class
+      }
+    }
+    return false;
+  }
+
+}
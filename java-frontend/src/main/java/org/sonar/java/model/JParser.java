@@ -31,19 +31,14 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import org.eclipse.jdt.core.compiler.IProblem;
-import org.eclipse.jdt.core.compiler.InvalidInputException;
 import org.eclipse.jdt.core.dom.*;
-import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
-import org.eclipse.jdt.internal.compiler.parser.Scanner;
 import org.eclipse.jdt.internal.compiler.parser.TerminalTokens;
-import org.eclipse.jdt.internal.formatter.DefaultCodeFormatterOptions;
-import org.eclipse.jdt.internal.formatter.Token;
-import org.eclipse.jdt.internal.formatter.TokenManager;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.java.ast.parser.ArgumentListTreeImpl;
@@ -146,20 +141,35 @@ public class JParser {
    */
   public static JavaTree.CompilationUnitTreeImpl parse(ASTParser astParser, String version, String unitName, String source) {
     astParser.setUnitName(unitName);
-    astParser.setSource(source.toCharArray());
+    return parse(sourceChars -> {
+      astParser.setSource(sourceChars);
+      return (CompilationUnit) astParser.createAST(null);
+    }, version, unitName, source);
+  }
 
+  /**
+   * @param ecjParser creates the ECJ AST of the given characters of the source, possibly sharing its name environment with other files
+   * @throws RecognitionException in case of syntax errors
+   */
+  static JavaTree.CompilationUnitTreeImpl parse(Function<char[], CompilationUnit> ecjParser, String version, String unitName, String source) {
+    // the same characters are used by ECJ and to collect the tokens
+    char[] sourceChars = source.toCharArray();
     CompilationUnit astNode;
     try {
-      astNode = (CompilationUnit) astParser.createAST(null);
+      astNode = ecjParser.apply(sourceChars);
     } catch (Exception e) {
       LOG.error("ECJ: Unable to parse file", e);
       throw new RecognitionException(-1, "ECJ: Unable to parse file.", e);
     }
 
-    return convert(version, unitName, source, astNode);
+    return convert(version, unitName, source, sourceChars, astNode);
   }
 
   static JavaTree.CompilationUnitTreeImpl convert(String version, String unitName, String source, CompilationUnit astNode) {
+    return convert(version, unitName, source, source.toCharArray(), astNode);
+  }
+
+  private static JavaTree.CompilationUnitTreeImpl convert(String version, String unitName, String source, char[] sourceChars, CompilationUnit astNode) {
     List<IProblem> errors = Stream.of(astNode.getProblems()).filter(IProblem::isError).collect(Collectors.toList());
     Optional<IProblem> possibleSyntaxError = errors.stream().filter(IS_SYNTAX_ERROR).findFirst();
     if (possibleSyntaxError.isPresent()) {
@@ -180,7 +190,7 @@ public class JParser {
     converter.sema = new JSema(astNode.getAST());
     converter.sema.undefinedTypes.addAll(undefinedTypes);
     converter.compilationUnit = astNode;
-    converter.tokenManager = new TokenManager(lex(version, unitName, source.toCharArray()), source, new DefaultCodeFormatterOptions(new HashMap<>()));
+    converter.tokens = TokenTable.lex(version, unitName, source, sourceChars);
 
     JavaTree.CompilationUnitTreeImpl tree = converter.convertCompilationUnit(astNode);
     tree.sema = converter.sema;
@@ -188,17 +198,28 @@ public class JParser {
 
     ASTUtils.mayTolerateMissingType(astNode.getAST());
 
-    setParents(tree);
+    setParents(tree, new HashMap<>());
     return tree;
   }
 
-  private static void setParents(Tree node) {
+  /**
+   * Also computes the kinds of each subtree, allowing visitors to skip the subtrees not containing the kinds they subscribed to.
+   */
+  private static TreeKinds setParents(Tree node, Map<TreeKinds, TreeKinds> internedKinds) {
+    long[] kinds = TreeKinds.newWords();
+    TreeKinds.add(kinds, node.kind());
+    if (node.kind() == Tree.Kind.TOKEN && !((SyntaxToken) node).trivias().isEmpty()) {
+      TreeKinds.add(kinds, Tree.Kind.TRIVIA);
+    }
     Iterator<Tree> childrenIterator = iteratorFor(node);
     while (childrenIterator.hasNext()) {
       Tree child = childrenIterator.next();
       ((JavaTree) child).setParent(node);
-      setParents(child);
+      TreeKinds.addAll(kinds, setParents(child, internedKinds));
     }
+    TreeKinds subtreeKinds = TreeKinds.intern(kinds, internedKinds);
+    ((JavaTree) node).setSubtreeKinds(subtreeKinds);
+    return subtreeKinds;
   }
 
   private static Iterator<Tree> iteratorFor(Tree node) {
@@ -209,37 +230,9 @@ public class JParser {
     return ((JavaTree) node).getChildren().iterator();
   }
 
-  private static List<Token> lex(String version, String unitName, char[] sourceChars) {
-    List<Token> tokens = new ArrayList<>();
-    Scanner scanner = new Scanner(
-      true,
-      false,
-      false,
-      CompilerOptions.versionToJdkLevel(version),
-      null,
-      null,
-      false
-    );
-    scanner.fakeInModule = "module-info.java".equals(unitName);
-    scanner.setSource(sourceChars);
-    while (true) {
-      try {
-        int tokenType = scanner.getNextToken();
-        Token token = Token.fromCurrent(scanner, tokenType);
-        tokens.add(token);
-        if (tokenType == TerminalTokens.TokenNameEOF) {
-          break;
-        }
-      } catch (InvalidInputException e) {
-        throw new IllegalStateException(e);
-      }
-    }
-    return tokens;
-  }
-
   private CompilationUnit compilationUnit;
 
-  private TokenManager tokenManager;
+  private TokenTable tokens;
 
   private JSema sema;
 
@@ -274,8 +267,8 @@ public class JParser {
   }
 
   private int firstTokenIndexAfter(ASTNode e) {
-    int index = tokenManager.firstIndexAfter(e, ANY_TOKEN);
-    while (tokenManager.get(index).isComment()) {
+    int index = tokens.firstIndexAfter(e, ANY_TOKEN);
+    while (tokens.isComment(index)) {
       index++;
     }
     return index;
@@ -288,7 +281,7 @@ public class JParser {
     assert tokenType != ANY_TOKEN;
     do {
       tokenIndex += 1;
-    } while (tokenManager.get(tokenIndex).tokenType != tokenType);
+    } while (tokens.type(tokenIndex) != tokenType);
     return tokenIndex;
   }
 
@@ -296,38 +289,38 @@ public class JParser {
    * @param tokenType {@link TerminalTokens}
    */
   private InternalSyntaxToken firstTokenBefore(ASTNode e, int tokenType) {
-    return createSyntaxToken(tokenManager.firstIndexBefore(e, tokenType));
+    return createSyntaxToken(tokens.firstIndexBefore(e, tokenType));
   }
 
   /**
    * @param tokenType {@link TerminalTokens}
    */
   private InternalSyntaxToken firstTokenAfter(ASTNode e, int tokenType) {
-    return createSyntaxToken(tokenManager.firstIndexAfter(e, tokenType));
+    return createSyntaxToken(tokens.firstIndexAfter(e, tokenType));
   }
 
   /**
    * @param tokenType {@link TerminalTokens}
    */
   private InternalSyntaxToken firstTokenIn(ASTNode e, int tokenType) {
-    return createSyntaxToken(tokenManager.firstIndexIn(e, tokenType));
+    return createSyntaxToken(tokens.firstIndexIn(e, tokenType));
   }
 
   /**
    * @param tokenType {@link TerminalTokens}
    */
   private InternalSyntaxToken lastTokenIn(ASTNode e, int tokenType) {
-    return createSyntaxToken(tokenManager.lastIndexIn(e, tokenType));
+    return createSyntaxToken(tokens.lastIndexIn(e, tokenType));
   }
 
   private InternalSyntaxToken createSyntaxToken(int tokenIndex) {
-    Token t = tokenManager.get(tokenIndex);
-    if (t.tokenType == TerminalTokens.TokenNameEOF) {
-      if (t.originalStart == 0) {
+    int start = tokens.start(tokenIndex);
+    if (tokens.type(tokenIndex) == TerminalTokens.TokenNameEOF) {
+      if (start == 0) {
         return new InternalSyntaxToken(1, 0, "", collectComments(tokenIndex), true);
       }
-      final int position = t.originalStart - 1;
-      final char c = tokenManager.getSource().charAt(position);
+      final int position = start - 1;
+      final char c = tokens.source().charAt(position);
       int line = compilationUnit.getLineNumber(position);
       int column = compilationUnit.getColumnNumber(position);
       if (c == '\n' || c == '\r') {
@@ -339,22 +332,22 @@ public class JParser {
       return new InternalSyntaxToken(line, column, "", collectComments(tokenIndex), true);
     }
     return new InternalSyntaxToken(
-      compilationUnit.getLineNumber(t.originalStart),
-      compilationUnit.getColumnNumber(t.originalStart),
-      t.toString(tokenManager.getSource()),
+      compilationUnit.getLineNumber(start),
+      compilationUnit.getColumnNumber(start),
+      tokens.text(tokenIndex),
       collectComments(tokenIndex),
       false
     );
   }
 
   private InternalSyntaxToken createSpecialToken(int tokenIndex) {
-    Token t = tokenManager.get(tokenIndex);
-    List<SyntaxTrivia> comments = t.tokenType == TerminalTokens.TokenNameGREATER
+    List<SyntaxTrivia> comments = tokens.type(tokenIndex) == TerminalTokens.TokenNameGREATER
       ? collectComments(tokenIndex)
       : Collections.emptyList();
+    int end = tokens.end(tokenIndex);
     return new InternalSyntaxToken(
-      compilationUnit.getLineNumber(t.originalEnd),
-      compilationUnit.getColumnNumber(t.originalEnd),
+      compilationUnit.getLineNumber(end),
+      compilationUnit.getColumnNumber(end),
       ">",
       comments,
       false
@@ -363,16 +356,16 @@ public class JParser {
 
   private List<SyntaxTrivia> collectComments(int tokenIndex) {
     int commentIndex = tokenIndex;
-    while (commentIndex > 0 && tokenManager.get(commentIndex - 1).isComment()) {
+    while (commentIndex > 0 && tokens.isComment(commentIndex - 1)) {
       commentIndex--;
     }
     List<SyntaxTrivia> comments = new ArrayList<>();
     for (int i = commentIndex; i < tokenIndex; i++) {
-      Token t = tokenManager.get(i);
+      int start = tokens.start(i);
       comments.add(new InternalSyntaxTrivia(
-        t.toString(tokenManager.getSource()),
-        compilationUnit.getLineNumber(t.originalStart),
-        compilationUnit.getColumnNumber(t.originalStart)
+        tokens.text(i),
+        compilationUnit.getLineNumber(start),
+        compilationUnit.getColumnNumber(start)
       ));
     }
     return comments;
@@ -380,13 +373,11 @@ public class JParser {
 
   private void addEmptyStatementsToList(int tokenIndex, List list) {
     while (true) {
-      Token token;
       do {
         tokenIndex++;
-        token = tokenManager.get(tokenIndex);
-      } while (token.isComment());
+      } while (tokens.isComment(tokenIndex));
 
-      if (token.tokenType != TerminalTokens.TokenNameSEMICOLON) {
+      if (tokens.type(tokenIndex) != TerminalTokens.TokenNameSEMICOLON) {
         break;
       }
       list.add(new EmptyStatementTreeImpl(createSyntaxToken(tokenIndex)));
@@ -424,7 +415,7 @@ public class JParser {
       t.binding = e2.resolveBinding();
       imports.add(t);
 
-      int tokenIndex = tokenManager.lastIndexIn(e2, TerminalTokens.TokenNameSEMICOLON);
+      int tokenIndex = tokens.lastIndexIn(e2, TerminalTokens.TokenNameSEMICOLON);
       addEmptyStatementsToList(tokenIndex, imports);
     }
 
@@ -707,17 +698,17 @@ public class JParser {
     if (e.getNodeType() == ASTNode.ENUM_DECLARATION) {
       EnumDeclaration enumDeclaration = (EnumDeclaration) e;
       if (!enumDeclaration.enumConstants().isEmpty()) {
-        return tokenManager.firstIndexBefore((ASTNode) enumDeclaration.enumConstants().get(0), TerminalTokens.TokenNameLBRACE);
+        return tokens.firstIndexBefore((ASTNode) enumDeclaration.enumConstants().get(0), TerminalTokens.TokenNameLBRACE);
       }
       if (!enumDeclaration.bodyDeclarations().isEmpty()) {
-        return tokenManager.firstIndexBefore((ASTNode) e.bodyDeclarations().get(0), TerminalTokens.TokenNameLBRACE);
+        return tokens.firstIndexBefore((ASTNode) e.bodyDeclarations().get(0), TerminalTokens.TokenNameLBRACE);
       }
-      return tokenManager.lastIndexIn(e, TerminalTokens.TokenNameLBRACE);
+      return tokens.lastIndexIn(e, TerminalTokens.TokenNameLBRACE);
     }
     if (!e.bodyDeclarations().isEmpty()) {
-      return tokenManager.firstIndexBefore((ASTNode) e.bodyDeclarations().get(0), TerminalTokens.TokenNameLBRACE);
+      return tokens.firstIndexBefore((ASTNode) e.bodyDeclarations().get(0), TerminalTokens.TokenNameLBRACE);
     }
-    return tokenManager.lastIndexIn(e, TerminalTokens.TokenNameLBRACE);
+    return tokens.lastIndexIn(e, TerminalTokens.TokenNameLBRACE);
   }
 
   private void completeSuperInterfaces(AbstractTypeDeclaration e, ClassTreeImpl t) {
@@ -762,7 +753,7 @@ public class JParser {
     final int openParTokenIndex = firstTokenIndexAfter(e.getName());
     final InternalSyntaxToken openParToken;
     final InternalSyntaxToken closeParToken;
-    if (tokenManager.get(openParTokenIndex).tokenType == TerminalTokens.TokenNameLPAREN) {
+    if (tokens.type(openParTokenIndex) == TerminalTokens.TokenNameLPAREN) {
       openParToken = createSyntaxToken(openParTokenIndex);
       closeParToken = e.arguments().isEmpty()
         ? firstTokenAfter(e.getName(), TerminalTokens.TokenNameRPAREN)
@@ -791,7 +782,7 @@ public class JParser {
 
     final int separatorTokenIndex = firstTokenIndexAfter(e);
     final InternalSyntaxToken separatorToken;
-    switch (tokenManager.get(separatorTokenIndex).tokenType) {
+    switch (tokens.type(separatorTokenIndex)) {
       case TerminalTokens.TokenNameCOMMA:
       case TerminalTokens.TokenNameSEMICOLON:
         separatorToken = createSyntaxToken(separatorTokenIndex);
@@ -853,7 +844,7 @@ public class JParser {
 
   private int processTypeDeclaration(AbstractTypeDeclaration node, List<Tree> members) {
     members.add(convertTypeDeclaration(node));
-    return tokenManager.lastIndexIn(node, TerminalTokens.TokenNameRBRACE);
+    return tokens.lastIndexIn(node, TerminalTokens.TokenNameRBRACE);
   }
 
   private int processAnnotationTypeMemberDeclaration(AnnotationTypeMemberDeclaration e, List<Tree> members) {
@@ -873,7 +864,7 @@ public class JParser {
     declaration(t.methodBinding, t);
 
     members.add(t);
-    return tokenManager.lastIndexIn(e, TerminalTokens.TokenNameSEMICOLON);
+    return tokens.lastIndexIn(e, TerminalTokens.TokenNameSEMICOLON);
   }
 
   private int processInitializerDeclaration(Initializer e, List<Tree> members) {
@@ -891,7 +882,7 @@ public class JParser {
         blockTree.body(),
         (InternalSyntaxToken) blockTree.closeBraceToken()));
     }
-    return tokenManager.lastIndexIn(e, TerminalTokens.TokenNameRBRACE);
+    return tokens.lastIndexIn(e, TerminalTokens.TokenNameRBRACE);
   }
 
   private int processMethodDeclaration(MethodDeclaration e, List<Tree> members) {
@@ -940,7 +931,7 @@ public class JParser {
     declaration(t.methodBinding, t);
 
     members.add(t);
-    return tokenManager.lastIndexIn(e, body == null ? TerminalTokens.TokenNameSEMICOLON : TerminalTokens.TokenNameRBRACE);
+    return tokens.lastIndexIn(e, body == null ? TerminalTokens.TokenNameSEMICOLON : TerminalTokens.TokenNameRBRACE);
   }
 
   private int processFieldDeclaration(FieldDeclaration fieldDeclaration, List<Tree> members) {
@@ -962,7 +953,7 @@ public class JParser {
 
       members.add(t);
     }
-    return tokenManager.lastIndexIn(fieldDeclaration, TerminalTokens.TokenNameSEMICOLON);
+    return tokens.lastIndexIn(fieldDeclaration, TerminalTokens.TokenNameSEMICOLON);
   }
 
   private ArgumentListTreeImpl convertArguments(@Nullable InternalSyntaxToken openParen, List<?> list, @Nullable InternalSyntaxToken closeParen) {
@@ -983,8 +974,8 @@ public class JParser {
       return null;
     }
     ASTNode last = (ASTNode) list.get(list.size() - 1);
-    int tokenIndex = tokenManager.firstIndexAfter(last, ANY_TOKEN);
-    while (tokenManager.get(tokenIndex).isComment()) {
+    int tokenIndex = tokens.firstIndexAfter(last, ANY_TOKEN);
+    while (tokens.isComment(tokenIndex)) {
       tokenIndex++;
     }
     return convertTypeArguments(
@@ -1012,8 +1003,8 @@ public class JParser {
       return new TypeParameterListTreeImpl();
     }
     ASTNode last = (ASTNode) list.get(list.size() - 1);
-    int tokenIndex = tokenManager.firstIndexAfter(last, ANY_TOKEN);
-    while (tokenManager.get(tokenIndex).isComment()) {
+    int tokenIndex = tokens.firstIndexAfter(last, ANY_TOKEN);
+    while (tokens.isComment(tokenIndex)) {
       tokenIndex++;
     }
     TypeParameterListTreeImpl t = new TypeParameterListTreeImpl(
@@ -1277,12 +1268,12 @@ public class JParser {
     }
 
     final int firstSemicolonTokenIndex = e.initializers().isEmpty()
-      ? tokenManager.firstIndexIn(e, TerminalTokens.TokenNameSEMICOLON)
-      : tokenManager.firstIndexAfter((ASTNode) e.initializers().get(e.initializers().size() - 1), TerminalTokens.TokenNameSEMICOLON);
+      ? tokens.firstIndexIn(e, TerminalTokens.TokenNameSEMICOLON)
+      : tokens.firstIndexAfter((ASTNode) e.initializers().get(e.initializers().size() - 1), TerminalTokens.TokenNameSEMICOLON);
     Expression expression = e.getExpression();
     final int secondSemicolonTokenIndex = expression == null
       ? nextTokenIndex(firstSemicolonTokenIndex, TerminalTokens.TokenNameSEMICOLON)
-      : tokenManager.firstIndexAfter(expression, TerminalTokens.TokenNameSEMICOLON);
+      : tokens.firstIndexAfter(expression, TerminalTokens.TokenNameSEMICOLON);
 
     return new ForStatementTreeImpl(
       firstTokenIn(e, TerminalTokens.TokenNamefor),
@@ -1514,15 +1505,13 @@ public class JParser {
     if (isLast) {
       separators.add(firstTokenAfter(resource, TerminalTokens.TokenNameSEMICOLON));
     } else {
-      int tokenIndex = tokenManager.firstIndexBefore(tryStatement.getBody(), TerminalTokens.TokenNameRPAREN);
+      int tokenIndex = tokens.firstIndexBefore(tryStatement.getBody(), TerminalTokens.TokenNameRPAREN);
       while (true) {
-        Token token;
         do {
           tokenIndex--;
-          token = tokenManager.get(tokenIndex);
-        } while (token.isComment());
+        } while (tokens.isComment(tokenIndex));
 
-        if (token.tokenType != TerminalTokens.TokenNameSEMICOLON) {
+        if (tokens.type(tokenIndex) != TerminalTokens.TokenNameSEMICOLON) {
           break;
         }
         separators.add(createSyntaxToken(tokenIndex));
@@ -1845,7 +1834,7 @@ public class JParser {
       Expression o = (Expression) e.expressions().get(i);
       initializers.add(convertExpression(o));
       final int commaTokenIndex = firstTokenIndexAfter(o);
-      if (tokenManager.get(commaTokenIndex).tokenType == TerminalTokens.TokenNameCOMMA) {
+      if (tokens.type(commaTokenIndex) == TerminalTokens.TokenNameCOMMA) {
         initializers.separators().add(firstTokenAfter(o, TerminalTokens.TokenNameCOMMA));
       }
     }
@@ -2021,7 +2010,7 @@ public class JParser {
         rhs
       );
     } else {
-      final int firstDotTokenIndex = tokenManager.firstIndexAfter(e.getQualifier(), TerminalTokens.TokenNameDOT);
+      final int firstDotTokenIndex = tokens.firstIndexAfter(e.getQualifier(), TerminalTokens.TokenNameDOT);
       AbstractTypedTree qualifier = (AbstractTypedTree) convertExpression(e.getQualifier());
       KeywordSuper keywordSuper = new KeywordSuper(firstTokenAfter(e.getQualifier(), TerminalTokens.TokenNamesuper), null);
       MemberSelectExpressionTreeImpl qualifiedSuper = new MemberSelectExpressionTreeImpl(
@@ -2195,12 +2184,12 @@ public class JParser {
   }
 
   private ExpressionTree convertLiteral(NumberLiteral e) {
-    int tokenIndex = tokenManager.findIndex(e.getStartPosition(), ANY_TOKEN, true);
-    int tokenType = tokenManager.get(tokenIndex).tokenType;
+    int tokenIndex = tokens.findIndex(e.getStartPosition(), ANY_TOKEN, true);
+    int tokenType = tokens.type(tokenIndex);
     boolean unaryMinus = tokenType == TerminalTokens.TokenNameMINUS;
     if (unaryMinus) {
       tokenIndex++;
-      tokenType = tokenManager.get(tokenIndex).tokenType;
+      tokenType = tokens.type(tokenIndex);
     }
     ExpressionTree result;
     switch (tokenType) {
@@ -2378,7 +2367,7 @@ public class JParser {
   private TypeTree convertArrayType(ArrayType e) {
     @Nullable ITypeBinding elementTypeBinding = e.getElementType().resolveBinding();
     TypeTree t = convertType(e.getElementType());
-    int tokenIndex = tokenManager.firstIndexAfter(e.getElementType(), TerminalTokens.TokenNameLBRACKET);
+    int tokenIndex = tokens.firstIndexAfter(e.getElementType(), TerminalTokens.TokenNameLBRACKET);
     for (int i = 0; i < e.dimensions().size(); i++) {
       if (i > 0) {
         tokenIndex = nextTokenIndex(tokenIndex, TerminalTokens.TokenNameLBRACKET);
@@ -20,30 +20,51 @@
 package org.sonar.java.model;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import javax.annotation.Nullable;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTUtils;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.FileASTRequestor;
+import org.eclipse.jdt.core.dom.SharedNameEnvironment;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.java.ExecutionTimeReport;
 import org.sonar.java.ProgressMonitor;
+import org.sonar.java.classpath.ClasspathIndex;
 import org.sonar.plugins.java.api.JavaVersion;
 import org.sonarsource.analyzer.commons.ProgressReport;
 import org.sonarsource.performance.measure.PerformanceMeasure;
@@ -59,17 +80,41 @@ public abstract class JParserConfig {
 
   final String javaVersion;
   final List<File> classpath;
+  final Map<String, String> compilerOptions;
+  @Nullable
+  private SharedNameEnvironment sharedEnvironment;
+  @Nullable
+  private ClasspathIndex classpathIndex;
+  int batchSize;
 
   private JParserConfig(String javaVersion, List<File> classpath) {
     this.javaVersion = javaVersion;
     this.classpath = classpath;
+    this.compilerOptions = compilerOptions();
+  }
+
+  /**
+   * Index used to know the packages of the jars without listing their content, when parsing files one by one.
+   */
+  public JParserConfig withClasspathIndex(@Nullable ClasspathIndex classpathIndex) {
+    this.classpathIndex = classpathIndex;
+    return this;
+  }
+
+  /**
+   * Maximum number of files parsed together in batch mode, all the files are parsed in a single batch when not positive.
+   */
+  public JParserConfig withBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+    return this;
   }
 
   public abstract void parse(Iterable<? extends InputFile> inputFiles, BooleanSupplier isCanceled, BiConsumer<InputFile, Result> action);
 
   public enum Mode {
     BATCH(Batch::new),
-    FILE_BY_FILE(FileByFile::new);
+    FILE_BY_FILE(FileByFile::new),
+    PARALLEL_FILE_BY_FILE(ParallelFileByFile::new);
 
     private final BiFunction<String, List<File>, JParserConfig> supplier;
 
@@ -106,6 +151,16 @@ public abstract class JParserConfig {
 
   public ASTParser astParser() {
     ASTParser astParser = ASTParser.newParser(AST.JLS_Latest);
+    astParser.setCompilerOptions(compilerOptions());
+    astParser.setEnvironment(classpathEntries(), new String[] {}, new String[] {}, includeRunningVMBootclasspath());
+
+    astParser.setResolveBindings(true);
+    astParser.setBindingsRecovery(true);
+
+    return astParser;
+  }
+
+  private Map<String, String> compilerOptions() {
     Map<String, String> options = new HashMap<>();
     options.put(JavaCore.COMPILER_COMPLIANCE, javaVersion);
     options.put(JavaCore.COMPILER_SOURCE, javaVersion);
@@ -116,24 +171,61 @@ public abstract class JParserConfig {
     // enabling all supported compiler warnings
     JWarning.Type.compilerOptions()
       .forEach(option -> options.put(option, "warning"));
+    return options;
+  }
 
-    astParser.setCompilerOptions(options);
+  private String[] classpathEntries() {
+    return classpath.stream()
+      .map(File::getAbsolutePath)
+      .toArray(String[]::new);
+  }
 
-    boolean includeRunningVMBootclasspath = classpath.stream()
+  private boolean includeRunningVMBootclasspath() {
+    return classpath.stream()
       .noneMatch(f -> JRE_JARS.contains(f.getName()));
+  }
 
-    astParser.setEnvironment(classpath.stream()
-      .map(File::getAbsolutePath)
-      .toArray(String[]::new), new String[] {}, new String[] {}, includeRunningVMBootclasspath);
+  /**
+   * Same as {@link JParser#parse(ASTParser, String, String, String)} with {@link #astParser()}, but the name environment
+   * (i.e. the classpath index and the binary types read from it) is created once and shared by all the files parsed with
+   * this configuration, until {@link #closeSharedEnvironment()} is called.
+   */
+  JavaTree.CompilationUnitTreeImpl parseWithSharedEnvironment(String unitName, String source) {
+    return JParser.parse(sourceChars -> ASTUtils.createAST(sharedEnvironment(), compilerOptions, unitName, sourceChars), javaVersion, unitName, source);
+  }
 
-    astParser.setResolveBindings(true);
-    astParser.setBindingsRecovery(true);
+  synchronized SharedNameEnvironment sharedEnvironment() {
+    if (sharedEnvironment == null) {
+      // created lazily, so that an invalid classpath is reported as a parsing error of each file
+      sharedEnvironment = SharedNameEnvironment.create(classpathEntries(), includeRunningVMBootclasspath(), classpathIndex);
+    }
+    return sharedEnvironment;
+  }
 
-    return astParser;
+  synchronized void closeSharedEnvironment() {
+    if (sharedEnvironment != null) {
+      sharedEnvironment.close();
+      sharedEnvironment = null;
+    }
   }
 
+  /**
+   * Parses files with ECJ batch processing, which resolves the types of all the files of a batch together. When a batch size is
+   * configured, files are split into batches of at most this size, keeping files of the same directory (i.e. the same package,
+   * which are the most likely to depend on each other) in the same batch as much as possible.
+   * <p>
+   * The classpath entries are opened once and shared by all the batches, but each batch has its own lookup environment: the
+   * bindings of a batch, as well as its converted trees, can be garbage collected once all its files have been analyzed.
+   * Peak memory then depends on the batch size, and no more on the number of files. Types declared in files of other batches,
+   * when not found in the classpath, are read from the source directories of all the files (see {@link #sourceDirectories(List)}).
+   */
   private static class Batch extends JParserConfig {
 
+    /**
+     * Package declaration at the beginning of a line, comments are not skipped.
+     */
+    private static final Pattern PACKAGE_DECLARATION = Pattern.compile("^\\s*+package\\s++([\\p{javaJavaIdentifierPart}.\\s]+?)\\s*+;", Pattern.MULTILINE);
+
     private Batch(String javaVersion, List<File> classpath) {
       super(javaVersion, classpath);
     }
@@ -142,47 +234,208 @@ public abstract class JParserConfig {
     public void parse(Iterable<? extends InputFile> inputFiles, BooleanSupplier isCanceled, BiConsumer<InputFile, Result> action) {
       LOG.info("Using ECJ batch to parse source files.");
 
-      List<String> sourceFilePaths = new ArrayList<>();
-      List<String> encodings = new ArrayList<>();
-      Map<File, InputFile> inputs = new HashMap<>();
-      for (InputFile inputFile : inputFiles) {
-        String sourceFilePath = inputFile.absolutePath();
-        inputs.put(new File(sourceFilePath), inputFile);
-        sourceFilePaths.add(sourceFilePath);
-        encodings.add(inputFile.charset().name());
+      List<List<InputFile>> batches = batches(inputFiles, batchSize);
+      List<String> sourcepath = Collections.emptyList();
+      String sourcepathEncoding = null;
+      if (batches.size() > 1) {
+        LOG.info(String.format("Source files split into %d batches of at most %d files.", batches.size(), batchSize));
+        List<InputFile> allFiles = batches.stream().flatMap(List::stream).collect(Collectors.toList());
+        sourcepath = sourceDirectories(allFiles);
+        sourcepathEncoding = allFiles.get(0).charset().name();
       }
 
       PerformanceMeasure.Duration batchPerformance = PerformanceMeasure.start("ParseAsBatch");
       ExecutionTimeReport executionTimeReport = new ExecutionTimeReport();
       ProgressMonitor monitor = new ProgressMonitor(isCanceled);
+      monitor.beginTask("", batches.stream().mapToInt(List::size).sum());
 
       try {
-        astParser().createASTs(sourceFilePaths.toArray(new String[0]), encodings.toArray(new String[0]), new String[0], new FileASTRequestor() {
-          @Override
-          public void acceptAST(String sourceFilePath, CompilationUnit ast) {
-            PerformanceMeasure.Duration convertDuration = PerformanceMeasure.start("Convert");
-
-            InputFile inputFile = inputs.get(new File(sourceFilePath));
-            executionTimeReport.start(inputFile);
-            Result result;
-            try {
-              result = new Result(JParser.convert(javaVersion, inputFile.filename(), inputFile.contents(), ast));
-            } catch (Exception e) {
-              result = new Result(e);
-            }
-            convertDuration.stop();
-            PerformanceMeasure.Duration analyzeDuration = PerformanceMeasure.start("Analyze");
-            action.accept(inputFile, result);
-
-            executionTimeReport.end();
-            analyzeDuration.stop();
-          }
-        }, monitor);
+        for (List<InputFile> batch : batches) {
+          parse(batch, sourcepath, sourcepathEncoding, new BatchProgressMonitor(monitor), executionTimeReport, action);
+        }
       } finally {
         // ExecutionTimeReport will not include the parsing time by file when using batch mode.
         executionTimeReport.reportAsBatch();
         batchPerformance.stop();
         monitor.done();
+        closeSharedEnvironment();
+      }
+    }
+
+    private void parse(List<InputFile> batch, List<String> sourcepath, @Nullable String sourcepathEncoding, BatchProgressMonitor monitor,
+      ExecutionTimeReport executionTimeReport, BiConsumer<InputFile, Result> action) {
+      String[] sourceFilePaths = new String[batch.size()];
+      String[] encodings = new String[batch.size()];
+      Map<File, InputFile> inputs = new HashMap<>();
+      for (int i = 0; i < batch.size(); i++) {
+        InputFile inputFile = batch.get(i);
+        String sourceFilePath = inputFile.absolutePath();
+        inputs.put(new File(sourceFilePath), inputFile);
+        sourceFilePaths[i] = sourceFilePath;
+        encodings[i] = inputFile.charset().name();
+      }
+
+      ASTUtils.createASTs(sharedEnvironment(), sourcepath, sourcepathEncoding, compilerOptions, sourceFilePaths, encodings, new FileASTRequestor() {
+        @Override
+        public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+          PerformanceMeasure.Duration convertDuration = PerformanceMeasure.start("Convert");
+
+          InputFile inputFile = inputs.get(new File(sourceFilePath));
+          executionTimeReport.start(inputFile);
+          Result result;
+          try {
+            result = new Result(JParser.convert(javaVersion, inputFile.filename(), inputFile.contents(), ast));
+          } catch (Exception e) {
+            result = new Result(e);
+          }
+          convertDuration.stop();
+          PerformanceMeasure.Duration analyzeDuration = PerformanceMeasure.start("Analyze");
+          action.accept(inputFile, result);
+
+          executionTimeReport.end();
+          analyzeDuration.stop();
+          monitor.fileProcessed();
+        }
+      }, monitor);
+    }
+
+    /**
+     * Groups files by directory, directories being sorted by path so that sub-packages follow their parent package.
+     * Files of a directory are only split into several batches when the directory alone contains more files than the batch size.
+     */
+    static List<List<InputFile>> batches(Iterable<? extends InputFile> inputFiles, int batchSize) {
+      List<InputFile> allFiles = new ArrayList<>();
+      inputFiles.forEach(allFiles::add);
+      if (batchSize <= 0 || allFiles.size() <= batchSize) {
+        return Collections.singletonList(allFiles);
+      }
+      Map<String, List<InputFile>> filesByDirectory = new TreeMap<>();
+      for (InputFile inputFile : allFiles) {
+        String directory = String.valueOf(new File(inputFile.absolutePath()).getParent());
+        filesByDirectory.computeIfAbsent(directory, key -> new ArrayList<>()).add(inputFile);
+      }
+      List<List<InputFile>> batches = new ArrayList<>();
+      List<InputFile> batch = new ArrayList<>();
+      for (List<InputFile> directoryFiles : filesByDirectory.values()) {
+        if (!batch.isEmpty() && batch.size() + directoryFiles.size() > batchSize) {
+          batches.add(batch);
+          batch = new ArrayList<>();
+        }
+        for (InputFile inputFile : directoryFiles) {
+          batch.add(inputFile);
+          if (batch.size() == batchSize) {
+            batches.add(batch);
+            batch = new ArrayList<>();
+          }
+        }
+      }
+      if (!batch.isEmpty()) {
+        batches.add(batch);
+      }
+      return batches;
+    }
+
+    /**
+     * Root directories of the packages of the given files, i.e. the directory of each file without the directories of its package.
+     * Only one file of each directory is read to find its package, files of a same directory being expected in the same package.
+     */
+    static List<String> sourceDirectories(List<InputFile> inputFiles) {
+      Set<Path> visitedDirectories = new HashSet<>();
+      Set<String> sourceDirectories = new TreeSet<>();
+      for (InputFile inputFile : inputFiles) {
+        Path directory = Paths.get(inputFile.absolutePath()).getParent();
+        // package declaration of package-info files can be annotated
+        if (directory == null || "package-info.java".equals(inputFile.filename()) || !visitedDirectories.add(directory)) {
+          continue;
+        }
+        String packageName;
+        try {
+          packageName = packageName(inputFile.contents());
+        } catch (IOException e) {
+          continue;
+        }
+        Path root = directory;
+        for (String segment : reversedPackageSegments(packageName)) {
+          if (root == null || root.getFileName() == null || !segment.equals(root.getFileName().toString())) {
+            // file not in the directory of its package
+            root = null;
+            break;
+          }
+          root = root.getParent();
+        }
+        if (root != null) {
+          sourceDirectories.add(root.toString());
+        }
+      }
+      return new ArrayList<>(sourceDirectories);
+    }
+
+    static String packageName(String source) {
+      Matcher matcher = PACKAGE_DECLARATION.matcher(source);
+      return matcher.find() ? matcher.group(1).replaceAll("\\s", "") : "";
+    }
+
+    private static List<String> reversedPackageSegments(String packageName) {
+      if (packageName.isEmpty()) {
+        return Collections.emptyList();
+      }
+      List<String> segments = new ArrayList<>(Arrays.asList(packageName.split("\\.")));
+      Collections.reverse(segments);
+      return segments;
+    }
+
+    /**
+     * ECJ begins and ends a task for each batch, while the progress is reported once for all the batches.
+     */
+    private static class BatchProgressMonitor implements IProgressMonitor {
+      private final ProgressMonitor monitor;
+
+      private BatchProgressMonitor(ProgressMonitor monitor) {
+        this.monitor = monitor;
+      }
+
+      private void fileProcessed() {
+        monitor.worked(1);
+      }
+
+      @Override
+      public boolean isCanceled() {
+        return monitor.isCanceled();
+      }
+
+      @Override
+      public void beginTask(String name, int totalWork) {
+        // see ProgressMonitor#beginTask, called once for all the batches
+      }
+
+      @Override
+      public void done() {
+        // see ProgressMonitor#done, called once for all the batches
+      }
+
+      @Override
+      public void worked(int work) {
+        // see fileProcessed()
+      }
+
+      @Override
+      public void internalWorked(double work) {
+        // do nothing
+      }
+
+      @Override
+      public void setCanceled(boolean value) {
+        // do nothing
+      }
+
+      @Override
+      public void setTaskName(String name) {
+        // do nothing
+      }
+
+      @Override
+      public void subTask(String name) {
+        // do nothing
       }
     }
   }
@@ -215,7 +468,7 @@ public abstract class JParserConfig {
           Result result;
           PerformanceMeasure.Duration parseDuration = PerformanceMeasure.start("JParser");
           try {
-            result = new Result(JParser.parse(astParser(), javaVersion, inputFile.filename(), inputFile.contents()));
+            result = new Result(parseWithSharedEnvironment(inputFile.filename(), inputFile.contents()));
           } catch (Exception e) {
             result = new Result(e);
           } finally {
@@ -234,11 +487,146 @@ public abstract class JParserConfig {
         } else {
           progressReport.cancel();
         }
+        closeSharedEnvironment();
         executionTimeReport.report();
       }
     }
   }
 
+  /**
+   * Parses and converts files on a bounded pool of worker threads, while the action (i.e. the analysis of the converted tree)
+   * is still executed on the calling thread, one file at a time and in the order of the input files.
+   * Checks are stateful and not thread-safe, so keeping their execution sequential guarantees that the reported issues,
+   * the progress report and the execution time report are exactly the same as when using {@link FileByFile}.
+   */
+  private static class ParallelFileByFile extends JParserConfig {
+
+    private static final int WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    /**
+     * Maximum number of files parsed ahead of the analysis, bounding the number of trees kept in memory.
+     */
+    private static final int MAX_PENDING_FILES = 2 * WORKERS;
+
+    private ParallelFileByFile(String javaVersion, List<File> classpath) {
+      super(javaVersion, classpath);
+    }
+
+    @Override
+    public void parse(Iterable<? extends InputFile> inputFiles, BooleanSupplier isCanceled, BiConsumer<InputFile, Result> action) {
+      LOG.info(String.format("Using %d threads to parse source files.", WORKERS));
+      // PerformanceMeasure is not thread-safe: parsing is measured from this thread only, workers are not measured
+      PerformanceMeasure.Duration parallelPerformance = PerformanceMeasure.start("ParseInParallel");
+      boolean successfullyCompleted = false;
+      boolean cancelled = false;
+
+      ExecutionTimeReport executionTimeReport = new ExecutionTimeReport();
+      ProgressReport progressReport = new ProgressReport("Report about progress of Java AST analyzer", TimeUnit.SECONDS.toMillis(10));
+      List<String> filesNames = StreamSupport.stream(inputFiles.spliterator(), false)
+        .map(InputFile::toString)
+        .collect(Collectors.toList());
+      progressReport.start(filesNames);
+
+      ExecutorService executor = Executors.newFixedThreadPool(WORKERS, new ParserThreadFactory());
+      Deque<ParsingTask> pendingTasks = new ArrayDeque<>();
+      Iterator<? extends InputFile> inputFilesIterator = inputFiles.iterator();
+      try {
+        while (true) {
+          while (pendingTasks.size() < MAX_PENDING_FILES && inputFilesIterator.hasNext()) {
+            InputFile inputFile = inputFilesIterator.next();
+            pendingTasks.add(new ParsingTask(inputFile, executor.submit(() -> parse(inputFile))));
+          }
+          if (pendingTasks.isEmpty()) {
+            break;
+          }
+          if (isCanceled.getAsBoolean()) {
+            cancelled = true;
+            break;
+          }
+          ParsingTask task = pendingTasks.poll();
+          PerformanceMeasure.Duration waitDuration = PerformanceMeasure.start("JParser");
+          Result result = task.result();
+          waitDuration.stop();
+
+          // parsing time is not part of the execution time, as it overlaps with the analysis of previous files
+          executionTimeReport.start(task.inputFile);
+          action.accept(task.inputFile, result);
+          executionTimeReport.end();
+          progressReport.nextFile();
+        }
+        successfullyCompleted = !cancelled;
+      } finally {
+        pendingTasks.forEach(task -> task.future.cancel(true));
+        shutdown(executor);
+        if (successfullyCompleted) {
+          progressReport.stop();
+        } else {
+          progressReport.cancel();
+        }
+        closeSharedEnvironment();
+        executionTimeReport.reportAsParallel();
+        parallelPerformance.stop();
+      }
+    }
+
+    private static void shutdown(ExecutorService executor) {
+      executor.shutdownNow();
+      try {
+        // workers use the shared environment, wait for them before closing it
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+          LOG.warn("Timeout while waiting for parser threads to terminate.");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    private Result parse(InputFile inputFile) {
+      try {
+        return new Result(parseWithSharedEnvironment(inputFile.filename(), inputFile.contents()));
+      } catch (Exception e) {
+        return new Result(e);
+      }
+    }
+
+    private static class ParsingTask {
+      private final InputFile inputFile;
+      private final Future<Result> future;
+
+      private ParsingTask(InputFile inputFile, Future<Result> future) {
+        this.inputFile = inputFile;
+        this.future = future;
+      }
+
+      private Result result() {
+        try {
+          return future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return new Result(e);
+        } catch (ExecutionException e) {
+          // parse(InputFile) does not throw, only errors can reach this point
+          Throwable cause = e.getCause();
+          if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          return new Result(e);
+        }
+      }
+    }
+
+    private static class ParserThreadFactory implements ThreadFactory {
+      private final AtomicInteger count = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable);
+        thread.setName("Java AST parser " + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    }
+  }
+
   public static String effectiveJavaVersion(@Nullable JavaVersion javaVersion) {
     if (javaVersion == null || javaVersion.isNotSet()) {
       return JParserConfig.MAXIMUM_SUPPORTED_JAVA_VERSION;
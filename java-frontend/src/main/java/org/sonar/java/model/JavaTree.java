@@ -73,6 +73,8 @@ public abstract class JavaTree implements Tree {
 
   private List<Tree> children;
 
+  @Nullable
+  private TreeKinds subtreeKinds;
 
   @Override
   @Nullable
@@ -128,6 +130,35 @@ public abstract class JavaTree implements Tree {
     this.parent = parent;
   }
 
+  /**
+   * Kinds of this tree and of all its descendants (including {@link Kind#TRIVIA} for tokens having trivias),
+   * or null when not computed because the tree was not created by {@link JParser}.
+   */
+  @Nullable
+  TreeKinds subtreeKinds() {
+    return subtreeKinds;
+  }
+
+  void setSubtreeKinds(TreeKinds subtreeKinds) {
+    this.subtreeKinds = subtreeKinds;
+  }
+
+  /**
+   * @return false when neither this tree nor any of its descendants is of one of the given kinds, true otherwise, including
+   * when the kinds of the subtree were not computed (see {@link #subtreeKinds()})
+   */
+  public boolean mayContainAnyOf(Set<Kind> kinds) {
+    if (subtreeKinds == null) {
+      return true;
+    }
+    for (Kind kind : kinds) {
+      if (subtreeKinds.contains(kind)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Creates iterable for children of this node.
    * Note that iterable may contain {@code null} elements.
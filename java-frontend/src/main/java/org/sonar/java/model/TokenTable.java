@@ -0,0 +1,196 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.model;
+
+import java.util.Arrays;
+import org.eclipse.jdt.core.compiler.InvalidInputException;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.parser.Scanner;
+import org.eclipse.jdt.internal.compiler.parser.TerminalTokens;
+
+/**
+ * Tokens of a source file, including comments, stored as parallel arrays of token types and positions instead of one
+ * object per token. Provides the lookups of {@link org.eclipse.jdt.internal.formatter.TokenManager} used by {@link JParser}.
+ */
+final class TokenTable {
+
+  /**
+   * Rough estimation of the average number of characters per token, used to avoid growing the arrays too often.
+   */
+  private static final int CHARS_PER_TOKEN = 6;
+
+  private final String source;
+  private int[] types;
+  private int[] starts;
+  private int[] ends;
+  private int size = 0;
+
+  private TokenTable(String source, int initialCapacity) {
+    this.source = source;
+    this.types = new int[initialCapacity];
+    this.starts = new int[initialCapacity];
+    this.ends = new int[initialCapacity];
+  }
+
+  /**
+   * @param source same content as {@code sourceChars}, which is not copied
+   */
+  static TokenTable lex(String version, String unitName, String source, char[] sourceChars) {
+    TokenTable tokens = new TokenTable(source, sourceChars.length / CHARS_PER_TOKEN + 16);
+    Scanner scanner = new Scanner(
+      true,
+      false,
+      false,
+      CompilerOptions.versionToJdkLevel(version),
+      null,
+      null,
+      false
+    );
+    scanner.fakeInModule = "module-info.java".equals(unitName);
+    scanner.setSource(sourceChars);
+    while (true) {
+      try {
+        int tokenType = scanner.getNextToken();
+        int start = scanner.getCurrentTokenStartPosition();
+        int end = scanner.getCurrentTokenEndPosition();
+        if (tokenType == TerminalTokens.TokenNameCOMMENT_LINE) {
+          // line separator is not part of the comment
+          while (end > start && (sourceChars[end] == '\r' || sourceChars[end] == '\n')) {
+            end--;
+          }
+        }
+        tokens.add(tokenType, start, end);
+        if (tokenType == TerminalTokens.TokenNameEOF) {
+          break;
+        }
+      } catch (InvalidInputException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+    return tokens;
+  }
+
+  private void add(int tokenType, int start, int end) {
+    if (size == types.length) {
+      int newCapacity = size + (size >> 1) + 1;
+      types = Arrays.copyOf(types, newCapacity);
+      starts = Arrays.copyOf(starts, newCapacity);
+      ends = Arrays.copyOf(ends, newCapacity);
+    }
+    types[size] = tokenType;
+    starts[size] = start;
+    ends[size] = end;
+    size++;
+  }
+
+  int size() {
+    return size;
+  }
+
+  String source() {
+    return source;
+  }
+
+  /**
+   * @return {@link TerminalTokens} type of the token
+   */
+  int type(int index) {
+    return types[index];
+  }
+
+  /**
+   * @return position of the first character of the token
+   */
+  int start(int index) {
+    return starts[index];
+  }
+
+  /**
+   * @return position of the last character of the token
+   */
+  int end(int index) {
+    return ends[index];
+  }
+
+  boolean isComment(int index) {
+    switch (types[index]) {
+      case TerminalTokens.TokenNameCOMMENT_BLOCK:
+      case TerminalTokens.TokenNameCOMMENT_JAVADOC:
+      case TerminalTokens.TokenNameCOMMENT_LINE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  String text(int index) {
+    return source.substring(starts[index], ends[index] + 1);
+  }
+
+  /**
+   * @param tokenType {@link TerminalTokens}, or a negative value to accept any token
+   */
+  int findIndex(int positionInSource, int tokenType, boolean forward) {
+    // binary search
+    int left = 0;
+    int right = size - 1;
+    while (left < right) {
+      int index = (right + left) / 2;
+      if (starts[index] <= positionInSource && positionInSource <= ends[index]) {
+        left = index;
+        break;
+      }
+      if (ends[index] < positionInSource) {
+        left = index + 1;
+      } else {
+        right = index - 1;
+      }
+    }
+    int index = left;
+    if (!forward && starts[index] > positionInSource) {
+      index--;
+    }
+    if (forward && ends[index] < positionInSource) {
+      index++;
+    }
+    while (tokenType >= 0 && types[index] != tokenType) {
+      index += forward ? 1 : -1;
+    }
+    return index;
+  }
+
+  int firstIndexIn(ASTNode node, int tokenType) {
+    return findIndex(node.getStartPosition(), tokenType, true);
+  }
+
+  int lastIndexIn(ASTNode node, int tokenType) {
+    return findIndex(node.getStartPosition() + node.getLength() - 1, tokenType, false);
+  }
+
+  int firstIndexAfter(ASTNode node, int tokenType) {
+    return findIndex(node.getStartPosition() + node.getLength(), tokenType, true);
+  }
+
+  int firstIndexBefore(ASTNode node, int tokenType) {
+    return findIndex(node.getStartPosition() - 1, tokenType, false);
+  }
+
+}
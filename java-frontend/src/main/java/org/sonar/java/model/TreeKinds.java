@@ -0,0 +1,94 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import org.sonar.plugins.java.api.tree.Tree;
+
+/**
+ * Immutable set of tree kinds, stored as a bitset indexed by {@link Tree.Kind#ordinal()}.
+ * Used to know, without visiting them, which kinds of trees can be found in a subtree.
+ */
+final class TreeKinds {
+
+  private static final int WORDS = (Tree.Kind.values().length + 63) / 64;
+
+  private final long[] words;
+
+  private TreeKinds(long[] words) {
+    this.words = words;
+  }
+
+  static TreeKinds of(Iterable<Tree.Kind> kinds) {
+    long[] words = newWords();
+    for (Tree.Kind kind : kinds) {
+      add(words, kind);
+    }
+    return new TreeKinds(words);
+  }
+
+  static long[] newWords() {
+    return new long[WORDS];
+  }
+
+  static void add(long[] words, Tree.Kind kind) {
+    words[kind.ordinal() >>> 6] |= 1L << kind.ordinal();
+  }
+
+  static void addAll(long[] words, TreeKinds kinds) {
+    for (int i = 0; i < WORDS; i++) {
+      words[i] |= kinds.words[i];
+    }
+  }
+
+  /**
+   * Identical sets are shared between trees, so that there are only a few instances per file.
+   */
+  static TreeKinds intern(long[] words, Map<TreeKinds, TreeKinds> internedKinds) {
+    TreeKinds kinds = new TreeKinds(words);
+    TreeKinds interned = internedKinds.putIfAbsent(kinds, kinds);
+    return interned != null ? interned : kinds;
+  }
+
+  boolean contains(Tree.Kind kind) {
+    return (words[kind.ordinal() >>> 6] & (1L << kind.ordinal())) != 0;
+  }
+
+  boolean intersects(TreeKinds other) {
+    for (int i = 0; i < WORDS; i++) {
+      if ((words[i] & other.words[i]) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof TreeKinds && Arrays.equals(words, ((TreeKinds) obj).words);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(words);
+  }
+
+}
@@ -26,8 +26,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.InputFile;
@@ -43,9 +47,13 @@ import org.sonar.java.IllegalRuleParameterException;
 import org.sonar.java.JavaVersionAwareVisitor;
 import org.sonar.java.SonarComponents;
 import org.sonar.java.annotations.VisibleForTesting;
+import org.sonar.java.ast.visitors.FusableTreeVisitor;
 import org.sonar.java.ast.visitors.SonarSymbolTableVisitor;
 import org.sonar.java.ast.visitors.SubscriptionVisitor;
+import org.sonar.java.caching.CachedIssue;
+import org.sonar.java.caching.FileResultCache;
 import org.sonar.java.exceptions.ThrowableUtils;
+import org.sonar.java.regex.RegexAnalysisCache;
 import org.sonar.plugins.java.api.IssuableSubscriptionVisitor;
 import org.sonar.plugins.java.api.JavaCheck;
 import org.sonar.plugins.java.api.JavaFileScanner;
@@ -53,6 +61,7 @@ import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.JavaVersion;
 import org.sonar.plugins.java.api.tree.CompilationUnitTree;
 import org.sonar.plugins.java.api.tree.SyntaxToken;
+import org.sonar.plugins.java.api.tree.SyntaxTrivia;
 import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.plugins.java.api.tree.Tree.Kind;
 import org.sonarsource.performance.measure.PerformanceMeasure;
@@ -61,6 +70,15 @@ public class VisitorsBridge {
 
   private static final Logger LOG = Loggers.get(VisitorsBridge.class);
 
+  private static final BiConsumer<SubscriptionVisitor, Tree> VISIT_NODE = SubscriptionVisitor::visitNode;
+  private static final BiConsumer<SubscriptionVisitor, Tree> LEAVE_NODE = SubscriptionVisitor::leaveNode;
+  private static final BiConsumer<SubscriptionVisitor, Tree> VISIT_TOKEN = (visitor, tree) -> visitor.visitToken((SyntaxToken) tree);
+  private static final BiConsumer<SubscriptionVisitor, Tree> VISIT_TRIVIA = (visitor, tree) -> {
+    for (SyntaxTrivia trivia : ((SyntaxToken) tree).trivias()) {
+      visitor.visitTrivia(trivia);
+    }
+  };
+
   private final Iterable<? extends JavaCheck> visitors;
   private final List<JavaFileScanner> scanners;
   private final SonarComponents sonarComponents;
@@ -68,6 +86,17 @@ public class VisitorsBridge {
   protected JavaVersion javaVersion;
   private final List<File> classpath;
   protected boolean inAndroidContext = false;
+  @Nullable
+  private FileResultCache resultCache;
+  private Set<JavaCheck> cacheableVisitors = Collections.emptySet();
+  private boolean skipCacheableVisitors = false;
+  @Nullable
+  private JavaFileScanner currentScanner;
+  private boolean currentFileFailed = false;
+  /**
+   * Only one out of this number of calls to each subscription visitor is measured, none when 0.
+   */
+  private final int performanceMeasureSamplingRate;
 
   @VisibleForTesting
   public VisitorsBridge(JavaFileScanner visitor) {
@@ -79,12 +108,14 @@ public class VisitorsBridge {
     this.scanners = new ArrayList<>();
     this.classpath = projectClasspath;
     this.sonarComponents = sonarComponents;
+    this.performanceMeasureSamplingRate = sonarComponents != null ? sonarComponents.performanceMeasureSamplingRate() : 0;
     updateScanners();
   }
 
   private void updateScanners() {
     scanners.clear();
     IssuableSubscriptionVisitorsRunner subscriptionVisitorsRunner = null;
+    FusedTreeVisitorsRunner fusedTreeVisitorsRunner = null;
     for (Object visitor : visitors) {
       if (javaVersion != null && visitor instanceof JavaVersionAwareVisitor && !((JavaVersionAwareVisitor) visitor).isCompatibleWithJavaVersion(javaVersion)) {
         // ignore visitors not compatible with java version
@@ -94,10 +125,19 @@ public class VisitorsBridge {
           scanners.add(subscriptionVisitorsRunner);
         }
         subscriptionVisitorsRunner.add((IssuableSubscriptionVisitor) visitor);
+      } else if (visitor instanceof FusableTreeVisitor && !(visitor instanceof ExceptionHandler) && FusedTreeWalker.canBeFused((FusableTreeVisitor) visitor)) {
+        if (fusedTreeVisitorsRunner == null) {
+          fusedTreeVisitorsRunner = new FusedTreeVisitorsRunner();
+          scanners.add(fusedTreeVisitorsRunner);
+        }
+        fusedTreeVisitorsRunner.add((FusableTreeVisitor) visitor);
       } else if (visitor instanceof JavaFileScanner) {
         scanners.add((JavaFileScanner) visitor);
       }
     }
+    if (fusedTreeVisitorsRunner != null) {
+      LOG.debug(String.format("%d tree visitors executed with a single walk of the tree.", fusedTreeVisitorsRunner.fusableTreeVisitors.size()));
+    }
   }
 
   public JavaVersion getJavaVersion() {
@@ -117,6 +157,16 @@ public class VisitorsBridge {
     this.inAndroidContext = inAndroidContext;
   }
 
+  /**
+   * Issues raised by the given visitors are cached, and these visitors are not executed on the files which did not change
+   * since the cache was created: their cached issues are reported instead. Other visitors are always executed.
+   */
+  public void setResultCache(FileResultCache resultCache, Collection<? extends JavaCheck> cacheableVisitors) {
+    this.resultCache = resultCache;
+    this.cacheableVisitors = Collections.newSetFromMap(new IdentityHashMap<>());
+    this.cacheableVisitors.addAll(cacheableVisitors);
+  }
+
   public void visitFile(@Nullable Tree parsedTree) {
     PerformanceMeasure.Duration compilationUnitDuration = PerformanceMeasure.start("CompilationUnit");
     JavaTree.CompilationUnitTreeImpl tree = new JavaTree.CompilationUnitTreeImpl(null, new ArrayList<>(), new ArrayList<>(), null, null);
@@ -132,18 +182,60 @@ public class VisitorsBridge {
 
     JavaFileScannerContext javaFileScannerContext = createScannerContext(tree, tree.sema, sonarComponents, fileParsed);
 
+    List<CachedIssue> cachedIssues = resultCache != null && fileParsed ? resultCache.issues(currentFile) : null;
+    List<CachedIssue> raisedIssues = resultCache != null && fileParsed && cachedIssues == null ? recordIssues() : null;
+    skipCacheableVisitors = cachedIssues != null;
+    currentFileFailed = false;
     PerformanceMeasure.Duration scannersDuration = PerformanceMeasure.start("Scanners");
-    for (JavaFileScanner scanner : scanners) {
-      PerformanceMeasure.Duration scannerDuration = PerformanceMeasure.start(scanner);
-      try {
-        runScanner(javaFileScannerContext, scanner);
-      } catch (CheckFailureException e) {
-        interruptIfFailFast(e);
-      } finally {
-        scannerDuration.stop();
+    try {
+      for (JavaFileScanner scanner : scanners) {
+        if (skipCacheableVisitors && cacheableVisitors.contains(scanner)) {
+          continue;
+        }
+        PerformanceMeasure.Duration scannerDuration = PerformanceMeasure.start(scanner);
+        try {
+          runScanner(javaFileScannerContext, scanner);
+        } catch (CheckFailureException e) {
+          interruptIfFailFast(e);
+        } finally {
+          scannerDuration.stop();
+        }
+      }
+    } finally {
+      skipCacheableVisitors = false;
+      if (raisedIssues != null) {
+        sonarComponents.setIssueListener(null);
+      }
+      scannersDuration.stop();
+    }
+
+    if (cachedIssues != null) {
+      reportCachedIssues(cachedIssues);
+    } else if (raisedIssues != null && !currentFileFailed) {
+      resultCache.put(currentFile, raisedIssues);
+    }
+  }
+
+  private List<CachedIssue> recordIssues() {
+    List<CachedIssue> raisedIssues = new ArrayList<>();
+    sonarComponents.setIssueListener((ruleKey, message, quickFixAvailable) -> {
+      if (currentScanner != null && cacheableVisitors.contains(currentScanner)) {
+        if (message.getInputComponent() == currentFile) {
+          raisedIssues.add(CachedIssue.of(ruleKey, message, quickFixAvailable));
+        } else {
+          // issues on other components can not be reported again from the cache of this file
+          currentFileFailed = true;
+        }
       }
+    });
+    return raisedIssues;
+  }
+
+  private void reportCachedIssues(List<CachedIssue> cachedIssues) {
+    for (CachedIssue cachedIssue : cachedIssues) {
+      sonarComponents.getCheck(cachedIssue.ruleKey())
+        .ifPresent(check -> sonarComponents.reportIssue(cachedIssue.toAnalyzerMessage(check, currentFile), cachedIssue.isQuickFixAvailable()));
     }
-    scannersDuration.stop();
   }
 
   private void interruptIfFailFast(CheckFailureException e) {
@@ -153,12 +245,17 @@ public class VisitorsBridge {
   }
 
   private void runScanner(JavaFileScannerContext javaFileScannerContext, JavaFileScanner scanner) throws CheckFailureException {
-    runScanner(() -> scanner.scanFile(javaFileScannerContext), scanner);
+    runScanner(scanner, JavaFileScanner::scanFile, javaFileScannerContext);
   }
 
-  private void runScanner(Runnable action, JavaFileScanner scanner) throws CheckFailureException {
+  /**
+   * The action is given its argument, instead of capturing it, so that no lambda has to be allocated for each call.
+   */
+  private <S extends JavaFileScanner, T> void runScanner(S scanner, BiConsumer<S, T> action, T argument) throws CheckFailureException {
+    JavaFileScanner parentScanner = currentScanner;
+    currentScanner = scanner;
     try {
-      action.run();
+      action.accept(scanner, argument);
     } catch (IllegalRuleParameterException e) {
       // bad configuration of a rule parameter, we want to fail analysis fast.
       throw new AnalysisException("Bad configuration of rule parameter", e);
@@ -177,7 +274,10 @@ public class VisitorsBridge {
 
       LOG.error(message, e);
 
+      currentFileFailed = true;
       throw new CheckFailureException(message, e);
+    } finally {
+      currentScanner = parentScanner;
     }
   }
 
@@ -233,21 +333,48 @@ public class VisitorsBridge {
       .filter(EndOfAnalysisCheck.class::isInstance)
       .map(EndOfAnalysisCheck.class::cast)
       .forEach(EndOfAnalysisCheck::endOfAnalysis);
+    RegexAnalysisCache.logAllStatistics();
   }
 
+  /**
+   * Visitors are indexed by the {@link Kind#ordinal()} of the trees they subscribed to, and subtrees not containing any of
+   * these kinds (see {@link JavaTree#subtreeKinds()}) are not visited.
+   * <p>
+   * Visiting a tree is usually much faster than measuring it, so only a sample of the calls to each visitor is measured
+   * (see {@link SonarComponents#performanceMeasureSamplingRate()}). Sampled calls are reported under a separate name, e.g.
+   * "MyCheck sampled 1/100", not to be mistaken for the duration of all the calls: their durations and number of calls have to be
+   * multiplied by the sampling rate.
+   */
   private class IssuableSubscriptionVisitorsRunner implements JavaFileScanner, EndOfAnalysisCheck {
-    private EnumMap<Tree.Kind, List<SubscriptionVisitor>> checks;
-    private List<SubscriptionVisitor> subscriptionVisitors;
+    private final EnumMap<Tree.Kind, List<SubscriptionVisitor>> checks;
+    private final List<SubscriptionVisitor> subscriptionVisitors;
+    private Subscriber[][] visitorsByKind;
+    private TreeKinds subscribedKinds;
 
     IssuableSubscriptionVisitorsRunner() {
       checks = new EnumMap<>(Tree.Kind.class);
       this.subscriptionVisitors = new ArrayList<>();
+      updateVisitorsByKind();
     }
 
     private void add(SubscriptionVisitor subscriptionVisitor) {
       this.subscriptionVisitors.add(subscriptionVisitor);
       subscriptionVisitor.nodesToVisit()
         .forEach(k -> checks.computeIfAbsent(k, key -> new ArrayList<>()).add(subscriptionVisitor));
+      updateVisitorsByKind();
+    }
+
+    private void updateVisitorsByKind() {
+      // a single subscriber per visitor, whatever the number of kinds it subscribed to, so that its calls are sampled together
+      Map<SubscriptionVisitor, Subscriber> subscribers = new IdentityHashMap<>();
+      subscriptionVisitors.forEach(visitor -> subscribers.put(visitor, new Subscriber(visitor, performanceMeasureSamplingRate)));
+      visitorsByKind = new Subscriber[Tree.Kind.values().length][];
+      for (Tree.Kind kind : Tree.Kind.values()) {
+        visitorsByKind[kind.ordinal()] = checks.getOrDefault(kind, Collections.emptyList()).stream()
+          .map(subscribers::get)
+          .toArray(Subscriber[]::new);
+      }
+      subscribedKinds = TreeKinds.of(checks.keySet());
     }
 
     @Override
@@ -284,32 +411,151 @@ public class VisitorsBridge {
     }
 
     private void visit(Tree tree) throws CheckFailureException {
-      Kind kind = tree.kind();
-      List<SubscriptionVisitor> subscribed = checks.getOrDefault(kind, Collections.emptyList());
-      Consumer<SubscriptionVisitor> callback;
-      boolean isToken = (kind == Tree.Kind.TOKEN);
-      if (isToken) {
-        callback = s -> s.visitToken((SyntaxToken) tree);
-      } else {
-        callback = s -> s.visitNode(tree);
+      TreeKinds subtreeKinds = ((JavaTree) tree).subtreeKinds();
+      if (subtreeKinds != null && !subtreeKinds.intersects(subscribedKinds)) {
+        return;
       }
-      forEach(subscribed, callback);
-      if (isToken) {
-        forEach(checks.getOrDefault(Tree.Kind.TRIVIA, Collections.emptyList()), s -> ((SyntaxToken) tree).trivias().forEach(s::visitTrivia));
+      Kind kind = tree.kind();
+      Subscriber[] subscribed = visitorsByKind[kind.ordinal()];
+      if (kind == Tree.Kind.TOKEN) {
+        forEach(subscribed, VISIT_TOKEN, tree);
+        forEach(visitorsByKind[Tree.Kind.TRIVIA.ordinal()], VISIT_TRIVIA, tree);
       } else {
+        forEach(subscribed, VISIT_NODE, tree);
         visitChildren(tree);
+        forEach(subscribed, LEAVE_NODE, tree);
       }
-      if(!isToken) {
-        forEach(subscribed, s -> s.leaveNode(tree));
+    }
+
+    private void forEach(Subscriber[] subscribers, BiConsumer<SubscriptionVisitor, Tree> callback, Tree tree) throws CheckFailureException {
+      for (Subscriber subscriber : subscribers) {
+        SubscriptionVisitor visitor = subscriber.visitor;
+        if (skipCacheableVisitors && cacheableVisitors.contains(visitor)) {
+          continue;
+        }
+        if (performanceMeasureSamplingRate > 0 && subscriber.shouldMeasure(performanceMeasureSamplingRate)) {
+          PerformanceMeasure.Duration visitorDuration = subscriber.sampledMeasureName == null
+            ? PerformanceMeasure.start(visitor)
+            : PerformanceMeasure.start(subscriber.sampledMeasureName);
+          runScanner(visitor, callback, tree);
+          visitorDuration.stop();
+        } else {
+          runScanner(visitor, callback, tree);
+        }
       }
     }
 
-    private final void forEach(Collection<SubscriptionVisitor> visitors, Consumer<SubscriptionVisitor> callback) throws CheckFailureException {
+    private void forEach(Collection<SubscriptionVisitor> visitors, Consumer<SubscriptionVisitor> callback) throws CheckFailureException {
       for (SubscriptionVisitor visitor : visitors) {
+        if (skipCacheableVisitors && cacheableVisitors.contains(visitor)) {
+          continue;
+        }
         PerformanceMeasure.Duration visitorDuration = PerformanceMeasure.start(visitor);
-        runScanner(() -> callback.accept(visitor), visitor);
+        runScanner(visitor, (v, c) -> c.accept(v), callback);
         visitorDuration.stop();
       }
     }
   }
+
+  /**
+   * Executes all the {@link FusableTreeVisitor}s with a single walk of the tree, see {@link FusedTreeWalker}.
+   * <p>
+   * When performance measure is enabled, the calls to each visitor are measured under its own name, within the measure of the
+   * whole walk.
+   */
+  private class FusedTreeVisitorsRunner implements JavaFileScanner, EndOfAnalysisCheck {
+    private final List<FusableTreeVisitor> fusableTreeVisitors = new ArrayList<>();
+
+    private void add(FusableTreeVisitor visitor) {
+      fusableTreeVisitors.add(visitor);
+    }
+
+    @Override
+    public void scanFile(JavaFileScannerContext javaFileScannerContext) {
+      PerformanceMeasure.Duration fusedTreeVisitorsDuration = PerformanceMeasure.start("FusedTreeVisitors");
+      try {
+        List<FusableTreeVisitor> visitors = new ArrayList<>();
+        for (FusableTreeVisitor visitor : fusableTreeVisitors) {
+          if (!(skipCacheableVisitors && cacheableVisitors.contains(visitor)) && measure(visitor, FusableTreeVisitor::setContext, javaFileScannerContext)) {
+            visitors.add(visitor);
+          }
+        }
+        Set<FusableTreeVisitor> failedVisitors = Collections.newSetFromMap(new IdentityHashMap<>());
+        new FusedTreeWalker(visitors, (visitor, tree) -> {
+          boolean succeeded = measure(visitor, (v, t) -> t.accept(v), tree);
+          if (!succeeded) {
+            failedVisitors.add(visitor);
+          }
+          return succeeded;
+        }).walk(javaFileScannerContext.getTree());
+        for (FusableTreeVisitor visitor : visitors) {
+          if (!failedVisitors.contains(visitor)) {
+            measure(visitor, FusableTreeVisitor::leaveFile, javaFileScannerContext);
+          }
+        }
+      } finally {
+        fusedTreeVisitorsDuration.stop();
+      }
+    }
+
+    /**
+     * @return false if the visitor failed
+     */
+    private <T> boolean measure(FusableTreeVisitor visitor, BiConsumer<FusableTreeVisitor, T> action, T argument) {
+      if (performanceMeasureSamplingRate == 0) {
+        return run(visitor, action, argument);
+      }
+      PerformanceMeasure.Duration visitorDuration = PerformanceMeasure.start(visitor);
+      try {
+        return run(visitor, action, argument);
+      } finally {
+        visitorDuration.stop();
+      }
+    }
+
+    /**
+     * @return false if the visitor failed
+     */
+    private <T> boolean run(FusableTreeVisitor visitor, BiConsumer<FusableTreeVisitor, T> action, T argument) {
+      try {
+        runScanner(visitor, action, argument);
+        return true;
+      } catch (CheckFailureException e) {
+        interruptIfFailFast(e);
+        return false;
+      }
+    }
+
+    @Override
+    public void endOfAnalysis() {
+      fusableTreeVisitors.stream()
+        .filter(EndOfAnalysisCheck.class::isInstance)
+        .map(EndOfAnalysisCheck.class::cast)
+        .forEach(EndOfAnalysisCheck::endOfAnalysis);
+    }
+  }
+
+  private static final class Subscriber {
+    private final SubscriptionVisitor visitor;
+    /**
+     * Null when every call is measured.
+     */
+    @Nullable
+    private final String sampledMeasureName;
+    private int callsBeforeMeasure = 0;
+
+    private Subscriber(SubscriptionVisitor visitor, int samplingRate) {
+      this.visitor = visitor;
+      this.sampledMeasureName = samplingRate > 1 ? (visitor.getClass().getSimpleName() + " sampled 1/" + samplingRate) : null;
+    }
+
+    private boolean shouldMeasure(int samplingRate) {
+      if (callsBeforeMeasure > 0) {
+        callsBeforeMeasure--;
+        return false;
+      }
+      callsBeforeMeasure = samplingRate - 1;
+      return true;
+    }
+  }
 }
@@ -40,12 +40,17 @@ public class JavaAnalyzerRegexSource extends JavaRegexSource {
    * Maps an index of the regular expression to the TextSpan string literal that starts at the index
    */
   private final TextSpanTracker indexToTextSpan = new TextSpanTracker();
+  private final String text;
 
   public JavaAnalyzerRegexSource(List<LiteralTree> stringLiterals) {
-    super(literalsToString(stringLiterals));
+    this(stringLiterals, literalsToString(stringLiterals));
+  }
+
+  private JavaAnalyzerRegexSource(List<LiteralTree> stringLiterals, String text) {
+    super(text);
+    this.text = text;
     for (LiteralTree literal : stringLiterals) {
-      String text = getString(literal);
-      indexToTextSpan.addLiteral(literal, text.length());
+      indexToTextSpan.addLiteral(literal, getString(literal).length());
     }
   }
 
@@ -58,6 +63,13 @@ public class JavaAnalyzerRegexSource extends JavaRegexSource {
     return sb.toString();
   }
 
+  /**
+   * @return the regular expression, as the concatenation of the values of the literals
+   */
+  public String text() {
+    return text;
+  }
+
   public List<TextSpan> textSpansFor(IndexRange range) {
     List<TextSpan> result = new ArrayList<>();
     TextSpanEntry startEntry = indexToTextSpan.entryAtIndex(range.getBeginningOffset());
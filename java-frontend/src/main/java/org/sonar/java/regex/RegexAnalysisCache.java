@@ -0,0 +1,160 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.regex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.analyzer.commons.regex.RegexParseResult;
+import org.sonarsource.analyzer.commons.regex.RegexSource;
+
+/**
+ * Bounded cache of the results of an analysis of regular expressions, shared by all the files of the project.
+ * Results are keyed on the text of the regular expression, its initial flags and a variant provided by the caller
+ * (for instance the way the regular expression is matched), so that they can be reused for equal regular expressions
+ * found in other literals or other files. For this reason, cached results must not refer to the parsed trees, which
+ * remain bound to the literals they come from in order to report issues: only {@link RegexCache} may hold those.
+ * The least recently used results are evicted first. Statistics of all the caches in use are logged at the end of the
+ * analysis, see {@link #logAllStatistics()}.
+ */
+public final class RegexAnalysisCache<T> {
+
+  private static final Logger LOG = Loggers.get(RegexAnalysisCache.class);
+
+  public static final int DEFAULT_MAX_SIZE = 1_000;
+
+  private static final Set<RegexAnalysisCache<?>> CACHES = Collections.newSetFromMap(new WeakHashMap<>());
+
+  private final String name;
+  private final Map<Key, T> results;
+  private long hits = 0;
+  private long misses = 0;
+
+  /**
+   * @param name name of the cache in the logs
+   */
+  public RegexAnalysisCache(String name) {
+    this(name, DEFAULT_MAX_SIZE);
+  }
+
+  public RegexAnalysisCache(String name, int maxSize) {
+    this.name = name;
+    this.results = new LinkedHashMap<Key, T>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, T> eldest) {
+        return size() > maxSize;
+      }
+    };
+    synchronized (CACHES) {
+      CACHES.add(this);
+    }
+  }
+
+  public T computeIfAbsent(RegexParseResult regex, Object variant, Supplier<T> analysis) {
+    Key key = new Key(sourceText(regex), regex.getInitialFlags().getMask(), variant);
+    T result = results.get(key);
+    if (result != null) {
+      hits++;
+      return result;
+    }
+    result = Objects.requireNonNull(analysis.get());
+    misses++;
+    results.put(key, result);
+    return result;
+  }
+
+  public long hits() {
+    return hits;
+  }
+
+  public long misses() {
+    return misses;
+  }
+
+  public int size() {
+    return results.size();
+  }
+
+  /**
+   * Logs the hits and misses of the cache.
+   */
+  public void logStatistics() {
+    LOG.debug("{} cache: {} hits, {} misses, {} cached results", name, hits, misses, results.size());
+  }
+
+  /**
+   * Logs the hits and misses of all the caches still in use, to be called once all the files are analyzed.
+   */
+  public static void logAllStatistics() {
+    List<RegexAnalysisCache<?>> caches;
+    synchronized (CACHES) {
+      caches = new ArrayList<>(CACHES);
+    }
+    caches.forEach(RegexAnalysisCache::logStatistics);
+  }
+
+  private static String sourceText(RegexParseResult regex) {
+    RegexSource source = regex.getResult().getSource();
+    if (source instanceof JavaAnalyzerRegexSource) {
+      return ((JavaAnalyzerRegexSource) source).text();
+    }
+    return regex.getResult().getText();
+  }
+
+  private static final class Key {
+    private final String text;
+    private final int flags;
+    private final Object variant;
+    private final int hashCode;
+
+    private Key(String text, int flags, Object variant) {
+      this.text = text;
+      this.flags = flags;
+      this.variant = variant;
+      this.hashCode = Objects.hash(text, flags, variant);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return flags == other.flags && text.equals(other.text) && variant.equals(other.variant);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+}
@@ -23,6 +23,9 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import org.sonar.plugins.java.api.tree.ExpressionTree;
 import org.sonar.plugins.java.api.tree.LiteralTree;
 import org.sonarsource.analyzer.commons.regex.RegexParseResult;
 import org.sonarsource.analyzer.commons.regex.RegexParser;
@@ -31,6 +34,7 @@ import org.sonarsource.performance.measure.PerformanceMeasure;
 
 public final class RegexCache {
   private final Map<List<LiteralTree>, RegexParseResult> cache = new HashMap<>();
+  private final Map<ExpressionTree, Optional<RegexParseResult>> regexesByUseSite = new HashMap<>();
 
   public RegexParseResult getRegexForLiterals(FlagSet initialFlags, LiteralTree... stringLiterals) {
     return cache.computeIfAbsent(
@@ -43,4 +47,19 @@ public final class RegexCache {
       });
   }
 
+  /**
+   * Regexes are looked for at their use sites by every regex check: the discovery is only run by the first of them,
+   * the other ones get the same result.
+   */
+  public Optional<RegexParseResult> getRegexForUseSite(ExpressionTree useSite, Function<ExpressionTree, Optional<RegexParseResult>> discovery) {
+    Optional<RegexParseResult> result = regexesByUseSite.get(useSite);
+    if (result == null) {
+      PerformanceMeasure.Duration discoveryDuration = PerformanceMeasure.start("RegexDiscovery");
+      result = discovery.apply(useSite);
+      discoveryDuration.stop();
+      regexesByUseSite.put(useSite, result);
+    }
+    return result;
+  }
+
 }
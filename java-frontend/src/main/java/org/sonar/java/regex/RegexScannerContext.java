@@ -20,7 +20,10 @@
 package org.sonar.java.regex;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
 import javax.annotation.Nullable;
+import org.sonar.plugins.java.api.tree.ExpressionTree;
 import org.sonar.plugins.java.api.tree.LiteralTree;
 import org.sonar.plugins.java.api.tree.Tree;
 import org.sonarsource.analyzer.commons.regex.RegexParseResult;
@@ -35,4 +38,12 @@ public interface RegexScannerContext {
 
   RegexParseResult regexForLiterals(FlagSet initialFlags, LiteralTree... stringLiterals);
 
+  /**
+   * @param useSite method invocation or annotation constructing a regex
+   * @param discovery finds the regex of a use site. It is run at most once per use site of the file, whatever the
+   *                  number of checks asking for it, so it must only depend on the use site.
+   * @return the regex constructed at the given use site, if any
+   */
+  Optional<RegexParseResult> regexForUseSite(ExpressionTree useSite, Function<ExpressionTree, Optional<RegexParseResult>> discovery);
+
 }
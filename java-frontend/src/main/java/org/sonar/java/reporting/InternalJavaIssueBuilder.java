@@ -233,21 +233,29 @@ public class InternalJavaIssueBuilder implements JavaIssueBuilderExtended {
       }
     }
 
-    handleQuickFixes(ruleKeyVal, newIssue);
+    boolean quickFixAvailable = handleQuickFixes(ruleKeyVal, newIssue);
+
+    SonarComponents.IssueListener issueListener = sonarComponents.issueListener();
+    if (issueListener != null) {
+      issueListener.onIssue(ruleKeyVal, toAnalyzerMessage(), quickFixAvailable);
+    }
 
     newIssue.save();
     reported = true;
   }
 
-  private void handleQuickFixes(RuleKey ruleKey, NewIssue newIssue) {
+  /**
+   * @return true when the issue is flagged as having quick fixes
+   */
+  private boolean handleQuickFixes(RuleKey ruleKey, NewIssue newIssue) {
     if (quickFixes.isEmpty() || (!isQuickFixCompatible && methodSetQuickFixAvailable == null)) {
-      return;
+      return false;
     }
     final List<JavaQuickFix> flatQuickFixes = quickFixes.stream()
       .flatMap(s -> s.get().stream())
       .collect(Collectors.toList());
     if (flatQuickFixes.isEmpty()) {
-      return;
+      return false;
     }
     if (isQuickFixCompatible) {
       addQuickFixes(inputFile, ruleKey, flatQuickFixes, (NewSonarLintIssue) newIssue);
@@ -256,8 +264,25 @@ public class InternalJavaIssueBuilder implements JavaIssueBuilderExtended {
         methodSetQuickFixAvailable.invoke(newIssue, true);
       } catch (ReflectiveOperationException e) {
         LOG.warn("Could not call NewIssue.setQuickFixAvailable() method", e);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Same issue as the one reported, flows included and quick fixes excluded.
+   */
+  private AnalyzerMessage toAnalyzerMessage() {
+    AnalyzerMessage analyzerMessage = new AnalyzerMessage(rule, inputFile, textSpan, message, cost == null ? 0 : cost);
+    if (flows != null) {
+      for (List<JavaFileScannerContext.Location> flow : flows) {
+        analyzerMessage.flows.add(flow.stream()
+          .map(location -> new AnalyzerMessage(rule, inputFile, AnalyzerMessage.textSpanFor(location.syntaxNode), location.msg, 0))
+          .collect(Collectors.toList()));
       }
     }
+    return analyzerMessage;
   }
 
   private static void addQuickFixes(InputFile inputFile, RuleKey ruleKey, Iterable<JavaQuickFix> quickFixes, NewSonarLintIssue sonarLintIssue) {
@@ -19,6 +19,7 @@
  */
 package org.sonar.java.reporting;
 
+import java.lang.reflect.Method;
 import java.util.List;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
@@ -29,8 +30,12 @@ import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.issue.NewIssue;
 import org.sonar.api.batch.sensor.issue.NewIssueLocation;
 import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 
 public final class JavaIssue {
+  private static final Logger LOG = Loggers.get(JavaIssue.class);
+
   private final NewIssue newIssue;
 
   public JavaIssue(NewIssue newIssue) {
@@ -97,7 +102,14 @@ public final class JavaIssue {
     return file.newRange(textSpan.startLine, textSpan.startCharacter, textSpan.endLine, textSpan.endCharacter);
   }
 
-
+  public JavaIssue setQuickFixAvailable(Method methodSetQuickFixAvailable) {
+    try {
+      methodSetQuickFixAvailable.invoke(newIssue, true);
+    } catch (ReflectiveOperationException e) {
+      LOG.warn("Could not call NewIssue.setQuickFixAvailable() method", e);
+    }
+    return this;
+  }
 
   public void save() {
     newIssue.save();
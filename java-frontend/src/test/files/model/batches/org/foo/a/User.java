@@ -0,0 +1,11 @@
+package org.foo.a;
+
+import org.foo.b.Provided;
+
+class User {
+  Provided provided;
+
+  String use() {
+    return provided.value();
+  }
+}
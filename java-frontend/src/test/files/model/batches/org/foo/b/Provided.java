@@ -0,0 +1,7 @@
+package org.foo.b;
+
+public class Provided {
+  public String value() {
+    return "provided";
+  }
+}
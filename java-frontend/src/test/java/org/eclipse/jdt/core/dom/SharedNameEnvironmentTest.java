@@ -0,0 +1,166 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.eclipse.jdt.core.dom;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.internal.compiler.env.NameEnvironmentAnswer;
+import org.eclipse.jdt.internal.compiler.lookup.ModuleBinding;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.java.classpath.ClasspathIndex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SharedNameEnvironmentTest {
+
+  private static final String PROJECT_JAR = new File("src/test/files/other/project.jar").getAbsolutePath();
+
+  @Test
+  void binary_types_are_cached() {
+    SharedNameEnvironment environment = SharedNameEnvironment.create(new String[] {PROJECT_JAR}, true, null);
+    NameEnvironmentAnswer answer = environment.findType(CharOperation.splitOn('.', "org.foo.A".toCharArray()));
+    assertThat(answer).isNotNull();
+    assertThat(answer.isBinaryType()).isTrue();
+
+    environment.cleanup();
+    NameEnvironmentAnswer cachedAnswer = environment.findType(CharOperation.splitOn('.', "org.foo.A".toCharArray()));
+    assertThat(cachedAnswer).isNotSameAs(answer);
+    assertThat(cachedAnswer.getBinaryType()).isSameAs(answer.getBinaryType());
+    assertThat(environment.cachedTypesCount()).isEqualTo(1);
+    environment.close();
+    assertThat(environment.cachedTypesCount()).isZero();
+  }
+
+  @Test
+  void missing_types_are_cached() {
+    SharedNameEnvironment environment = SharedNameEnvironment.create(new String[] {PROJECT_JAR}, false, null);
+    assertThat(environment.findType("Unknown".toCharArray(), CharOperation.splitOn('.', "org.foo".toCharArray()))).isNull();
+    assertThat(environment.findType("Unknown".toCharArray(), CharOperation.splitOn('.', "org.foo".toCharArray()))).isNull();
+    assertThat(environment.cachedTypesCount()).isEqualTo(1);
+    environment.close();
+  }
+
+  @Test
+  void least_recently_used_types_are_evicted() {
+    SharedNameEnvironment environment = SharedNameEnvironment.create(new String[0], true, null, 2);
+    NameEnvironmentAnswer object = environment.findType(CharOperation.splitOn('.', "java.lang.Object".toCharArray()));
+    assertThat(object).isNotNull();
+    environment.findType(CharOperation.splitOn('.', "java.lang.String".toCharArray()));
+    environment.findType(CharOperation.splitOn('.', "java.lang.Object".toCharArray()));
+    environment.findType(CharOperation.splitOn('.', "java.lang.Integer".toCharArray()));
+    assertThat(environment.cachedTypesCount()).isEqualTo(2);
+    // still cached, as recently used
+    assertThat(environment.findType(CharOperation.splitOn('.', "java.lang.Object".toCharArray())).getBinaryType()).isSameAs(object.getBinaryType());
+    environment.close();
+  }
+
+  @Test
+  void packages_are_resolved() {
+    SharedNameEnvironment environment = SharedNameEnvironment.create(new String[] {PROJECT_JAR}, false, null);
+    char[][] foo = CharOperation.splitOn('.', "org.foo".toCharArray());
+    assertThat(environment.isPackage(new char[][] {"org".toCharArray()}, "foo".toCharArray())).isTrue();
+    assertThat(environment.getModulesDeclaringPackage(foo, ModuleBinding.ANY)).isNotNull();
+    assertThat(environment.getModulesDeclaringPackage(foo, ModuleBinding.ANY)).isNotNull();
+    assertThat(environment.getModulesDeclaringPackage(CharOperation.splitOn('.', "org.unknown".toCharArray()), ModuleBinding.ANY)).isNull();
+    assertThat(environment.hasCompilationUnit(foo, ModuleBinding.ANY, false)).isTrue();
+    assertThat(environment.getAllAutomaticModules()).isNotNull();
+    environment.close();
+  }
+
+  @Test
+  void invalid_classpath_should_fail() {
+    String[] classpath = {"unknownFile"};
+    assertThatThrownBy(() -> SharedNameEnvironment.create(classpath, false, null))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("invalid environment settings");
+  }
+
+  @Test
+  void jars_are_released_when_closed(@TempDir Path temp) throws Exception {
+    Path jar = temp.resolve("project.jar");
+    Files.copy(Path.of(PROJECT_JAR), jar);
+    SharedNameEnvironment environment = SharedNameEnvironment.create(new String[] {jar.toString()}, false, null);
+    assertThat(environment.findType(CharOperation.splitOn('.', "org.foo.A".toCharArray()))).isNotNull();
+    environment.close();
+    Files.delete(jar);
+    assertThat(jar).doesNotExist();
+  }
+
+  @Test
+  void create_ast_should_resolve_bindings() {
+    SharedNameEnvironment environment = SharedNameEnvironment.create(new String[] {PROJECT_JAR}, true, null);
+    Map<String, String> options = new HashMap<>();
+    options.put(JavaCore.COMPILER_COMPLIANCE, "11");
+    options.put(JavaCore.COMPILER_SOURCE, "11");
+    String source = "import org.foo.A; class B { A a; Unknown u; }";
+
+    CompilationUnit first = ASTUtils.createAST(environment, options, "B.java", source.toCharArray());
+    CompilationUnit second = ASTUtils.createAST(environment, options, "B.java", source.toCharArray());
+    for (CompilationUnit cu : new CompilationUnit[] {first, second}) {
+      TypeDeclaration b = (TypeDeclaration) cu.types().get(0);
+      assertThat(b.getFields()[0].getType().resolveBinding().getQualifiedName()).isEqualTo("org.foo.A");
+      assertThat(b.getFields()[1].getType().resolveBinding().isRecovered()).isTrue();
+    }
+    environment.close();
+  }
+
+  @Test
+  void indexed_jars_are_only_opened_when_declaring_requested_package(@TempDir Path temp) throws Exception {
+    ClasspathIndex index = ClasspathIndex.load(temp.toFile());
+    SharedNameEnvironment environment = SharedNameEnvironment.create(new String[] {PROJECT_JAR}, true, index);
+    assertThat(environment.findType(CharOperation.splitOn('.', "org.foo.A".toCharArray()))).isNotNull();
+    environment.close();
+    assertThat(index.packages(new File(PROJECT_JAR))).contains("org/foo");
+    assertThat(temp.resolve(ClasspathIndex.FILE_NAME)).exists();
+
+    IndexedClasspathJar jar = new IndexedClasspathJar(new File(PROJECT_JAR), ClasspathIndex.load(temp.toFile()));
+    jar.initialize();
+    assertThat(jar.isOpened()).isFalse();
+    assertThat(jar.findClass("Unknown".toCharArray(), "org/unknown", null, "org/unknown/Unknown.class", false)).isNull();
+    assertThat(jar.hasCompilationUnit("org/unknown", null)).isFalse();
+    assertThat(jar.findTypeNames("org/unknown", null)).isNull();
+    assertThat(jar.isOpened()).isFalse();
+    assertThat(jar.findClass("A".toCharArray(), "org/foo", null, "org/foo/A.class", false)).isNotNull();
+    assertThat(jar.isOpened()).isTrue();
+    jar.reset();
+  }
+
+  @Test
+  void types_are_resolved_with_indexed_jars(@TempDir Path temp) {
+    for (int i = 0; i < 2; i++) {
+      SharedNameEnvironment environment = SharedNameEnvironment.create(new String[] {PROJECT_JAR}, true, ClasspathIndex.load(temp.toFile()));
+      Map<String, String> options = new HashMap<>();
+      options.put(JavaCore.COMPILER_COMPLIANCE, "11");
+      options.put(JavaCore.COMPILER_SOURCE, "11");
+      CompilationUnit cu = ASTUtils.createAST(environment, options, "B.java", "class B extends org.foo.A { }".toCharArray());
+      TypeDeclaration b = (TypeDeclaration) cu.types().get(0);
+      assertThat(b.resolveBinding().getSuperclass().getQualifiedName()).isEqualTo("org.foo.A");
+      environment.close();
+    }
+  }
+
+}
@@ -182,6 +182,14 @@ class ExecutionTimeReportTest {
       "    f1 (50000ms, 52B)");
   }
 
+  @Test
+  void log_as_parallel() throws IOException {
+    simulateAnalysis("f1", 50_000);
+    report.reportAsParallel();
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("Slowest analyzed files (parallel mode enabled):" + NL +
+      "    f1 (50000ms, 52B)");
+  }
+
   @Test
   void log_debug_level() {
     logTester.setLevel(LoggerLevel.DEBUG);
@@ -157,6 +157,17 @@ class JavaFrontendTest {
     assertThat(testCodeIssueScannerAndFilter.scanFileInvocationCount).isZero();
   }
 
+  @Test
+  void test_parallel_file_by_file_scan() throws IOException {
+    MapSettings settings = new MapSettings();
+    settings.setProperty("sonar.java.internal.parallelMode", "true");
+    scan(settings, "class A {}", "class B { A a; }", "class C { B b; }");
+    assertThat(sensorContext.allAnalysisErrors()).isEmpty();
+    assertThat(logTester.logs(LoggerLevel.INFO)).anyMatch(log -> log.matches("Using \\d+ threads to parse source files."));
+    assertThat(mainCodeIssueScannerAndFilter.scanFileInvocationCount).isEqualTo(3);
+    assertThat(mainCodeIssueScannerAndFilter.endOfAnalysisInvocationCount).isEqualTo(1);
+  }
+
   @Test
   void test_as_batch_scan() throws IOException {
     MapSettings settings = new MapSettings();
@@ -171,6 +182,21 @@ class JavaFrontendTest {
     assertThat(testCodeIssueScannerAndFilter.scanFileInvocationCount).isZero();
   }
 
+  @Test
+  void test_as_batch_scan_with_batch_size() throws IOException {
+    MapSettings settings = new MapSettings();
+    settings.setProperty("sonar.java.internal.batchMode", "true");
+    settings.setProperty("sonar.java.internal.batchSize", "1");
+    scan(settings, "class A {}", "class B { A a; }");
+    assertThat(sensorContext.allAnalysisErrors()).isEmpty();
+    // types of files parsed in another batch are not known
+    String allLogs = String.join("\n", logTester.logs());
+    assertThat(allLogs)
+      .contains("Source files split into 2 batches of at most 1 files.")
+      .contains("A cannot be resolved to a type");
+    assertThat(mainCodeIssueScannerAndFilter.scanFileInvocationCount).isEqualTo(2);
+  }
+
   @Test
   void test_as_batch_scan_main_and_test() throws IOException {
     MapSettings settings = new MapSettings();
@@ -410,6 +410,25 @@ class SonarComponentsTest {
     assertNull(sonarComponents.getMethodSetQuickFixAvailable());
   }
 
+  @Test
+  void performance_measure_sampling_rate() {
+    SensorContextTester context = SensorContextTester.create(new File(""));
+    SonarComponents sonarComponents = new SonarComponents(null, null, null, null, null);
+    assertThat(sonarComponents.performanceMeasureSamplingRate()).isZero();
+
+    sonarComponents.setSensorContext(context);
+    assertThat(sonarComponents.performanceMeasureSamplingRate()).isZero();
+
+    context.settings().setProperty("sonar.java.performance.measure", "true");
+    assertThat(sonarComponents.performanceMeasureSamplingRate()).isEqualTo(100);
+
+    context.settings().setProperty("sonar.java.performance.measure.samplingRate", "1");
+    assertThat(sonarComponents.performanceMeasureSamplingRate()).isEqualTo(1);
+
+    context.settings().setProperty("sonar.java.performance.measure.samplingRate", "0");
+    assertThat(sonarComponents.performanceMeasureSamplingRate()).isEqualTo(1);
+  }
+
   @Test
   void readFileContentFromInputFile() throws Exception {
     // read a file containing kanji set with correct encoding and expecting proper length of read input.
@@ -0,0 +1,107 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.caching;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.check.RuleProperty;
+import org.sonar.java.TestUtils;
+import org.sonar.plugins.java.api.JavaCheck;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnalysisFingerprintTest {
+
+  @Test
+  void same_values_give_same_fingerprint() {
+    assertThat(new AnalysisFingerprint().add("a").add("b").value())
+      .hasSize(64)
+      .isEqualTo(new AnalysisFingerprint().add("a").add("b").value())
+      .isNotEqualTo(new AnalysisFingerprint().add("ab").value())
+      .isNotEqualTo(new AnalysisFingerprint().add("b").add("a").value());
+  }
+
+  @Test
+  void checks_are_identified_by_rule_and_parameters() {
+    ParameterizedCheck check = new ParameterizedCheck();
+    String initial = new AnalysisFingerprint().addCheck(check, "java:S1").value();
+    assertThat(new AnalysisFingerprint().addCheck(check, "java:S1").value()).isEqualTo(initial);
+    assertThat(new AnalysisFingerprint().addCheck(check, "java:S2").value()).isNotEqualTo(initial);
+    assertThat(new AnalysisFingerprint().addCheck(new JavaCheck() {
+    }, "java:S1").value()).isNotEqualTo(initial);
+
+    check.max = 3;
+    assertThat(new AnalysisFingerprint().addCheck(check, "java:S1").value()).isNotEqualTo(initial);
+  }
+
+  @Test
+  void jars_and_directories_are_identified_by_content_metadata(@TempDir Path tmp) throws IOException {
+    File jar = Files.write(tmp.resolve("lib.jar"), new byte[] {1, 2}).toFile();
+    File classes = Files.createDirectory(tmp.resolve("classes")).toFile();
+    String initial = new AnalysisFingerprint().addClasspath(Arrays.asList(jar, classes)).value();
+    assertThat(new AnalysisFingerprint().addClasspath(Arrays.asList(jar, classes)).value()).isEqualTo(initial);
+
+    Files.createDirectory(classes.toPath().resolve("org"));
+    Files.write(classes.toPath().resolve("org").resolve("A.class"), new byte[] {1});
+    String withClass = new AnalysisFingerprint().addClasspath(Arrays.asList(jar, classes)).value();
+    assertThat(withClass).isNotEqualTo(initial);
+
+    Files.write(classes.toPath().resolve("org").resolve("A.class"), new byte[] {1, 2});
+    assertThat(new AnalysisFingerprint().addClasspath(Arrays.asList(jar, classes)).value()).isNotEqualTo(withClass);
+
+    String beforeJarChange = new AnalysisFingerprint().addClasspath(Arrays.asList(jar, classes)).value();
+    Files.write(jar.toPath(), new byte[] {1, 2, 3});
+    assertThat(new AnalysisFingerprint().addClasspath(Arrays.asList(jar, classes)).value()).isNotEqualTo(beforeJarChange);
+    assertThat(new AnalysisFingerprint().addClasspath(Collections.singletonList(classes)).value()).isNotEqualTo(beforeJarChange);
+  }
+
+  @Test
+  void libraries_only_identify_directories_by_path(@TempDir Path tmp) throws IOException {
+    File classes = Files.createDirectory(tmp.resolve("classes")).toFile();
+    String initial = new AnalysisFingerprint().addLibraries(Collections.singletonList(classes)).value();
+    Files.write(classes.toPath().resolve("A.class"), new byte[] {1});
+    assertThat(new AnalysisFingerprint().addLibraries(Collections.singletonList(classes)).value()).isEqualTo(initial);
+  }
+
+  @Test
+  void sources_are_identified_by_content_metadata(@TempDir Path tmp) throws IOException {
+    Path source = Files.write(tmp.resolve("A.java"), "class A {}".getBytes());
+    InputFile inputFile = TestUtils.inputFile(source.toFile());
+    String initial = new AnalysisFingerprint().addSources(Collections.singletonList(inputFile)).value();
+    assertThat(new AnalysisFingerprint().addSources(Collections.singletonList(inputFile)).value()).isEqualTo(initial);
+
+    Files.write(source, "class A { }".getBytes());
+    assertThat(new AnalysisFingerprint().addSources(Collections.singletonList(inputFile)).value()).isNotEqualTo(initial);
+  }
+
+  static class ParameterizedCheck implements JavaCheck {
+    @RuleProperty(key = "max")
+    int max = 2;
+    int notAParameter = 0;
+  }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.caching;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.java.reporting.AnalyzerMessage;
+import org.sonar.plugins.java.api.JavaCheck;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileResultCacheTest {
+
+  private static final RuleKey RULE_KEY = RuleKey.of("java", "S42");
+  private static final JavaCheck CHECK = new JavaCheck() {
+  };
+
+  @TempDir
+  Path workDir;
+
+  @Test
+  void issues_are_reused_when_file_did_not_change() {
+    InputFile file = inputFile("A.java", "class A {}");
+    AnalyzerMessage message = new AnalyzerMessage(CHECK, file, new AnalyzerMessage.TextSpan(1, 0, 1, 5), "primary", 3);
+    message.flows.add(Collections.singletonList(new AnalyzerMessage(CHECK, file, new AnalyzerMessage.TextSpan(1, 6, 1, 7), "secondary", 0)));
+    AnalyzerMessage fileMessage = new AnalyzerMessage(CHECK, file, null, "on file", 0);
+
+    FileResultCache cache = FileResultCache.load(workDir.toFile(), "main", "v1");
+    assertThat(cache.issues(file)).isNull();
+    cache.put(file, Arrays.asList(CachedIssue.of(RULE_KEY, message, true), CachedIssue.of(RULE_KEY, fileMessage, false)));
+    cache.save();
+
+    cache = FileResultCache.load(workDir.toFile(), "main", "v1");
+    List<CachedIssue> issues = cache.issues(inputFile("A.java", "class A {}"));
+    assertThat(issues).hasSize(2);
+    assertThat(cache.reusedFiles()).isEqualTo(1);
+
+    assertThat(issues.get(0).ruleKey()).isEqualTo(RULE_KEY);
+    assertThat(issues.get(0).isQuickFixAvailable()).isTrue();
+    assertThat(issues.get(1).isQuickFixAvailable()).isFalse();
+    AnalyzerMessage reported = issues.get(0).toAnalyzerMessage(CHECK, file);
+    assertThat(reported.getCheck()).isSameAs(CHECK);
+    assertThat(reported.getInputComponent()).isSameAs(file);
+    assertThat(reported.getMessage()).isEqualTo("primary");
+    assertThat(reported.primaryLocation()).isEqualTo(message.primaryLocation());
+    assertThat(reported.getCost()).isEqualTo(3.0);
+    assertThat(reported.flows).hasSize(1);
+    assertThat(reported.flows.get(0)).extracting(AnalyzerMessage::getMessage).containsExactly("secondary");
+    assertThat(reported.flows.get(0).get(0).primaryLocation()).isEqualTo(new AnalyzerMessage.TextSpan(1, 6, 1, 7));
+
+    AnalyzerMessage reportedOnFile = issues.get(1).toAnalyzerMessage(CHECK, file);
+    assertThat(reportedOnFile.primaryLocation()).isNull();
+    assertThat(reportedOnFile.getCost()).isNull();
+
+    // reused entries are kept by the next save
+    cache.save();
+    assertThat(FileResultCache.load(workDir.toFile(), "main", "v1").issues(file)).hasSize(2);
+  }
+
+  @Test
+  void issues_are_not_reused_when_file_changed() {
+    FileResultCache cache = FileResultCache.load(workDir.toFile(), "main", "v1");
+    cache.put(inputFile("A.java", "class A {}"), Collections.emptyList());
+    cache.save();
+
+    cache = FileResultCache.load(workDir.toFile(), "main", "v1");
+    assertThat(cache.issues(inputFile("A.java", "class A { }"))).isNull();
+    assertThat(cache.issues(inputFile("B.java", "class A {}"))).isNull();
+    assertThat(cache.issues(inputFile("A.java", "class A {}"))).isEmpty();
+    assertThat(cache.reusedFiles()).isEqualTo(1);
+  }
+
+  @Test
+  void cache_is_discarded_when_fingerprint_changed() {
+    InputFile file = inputFile("A.java", "class A {}");
+    FileResultCache cache = FileResultCache.load(workDir.toFile(), "main", "v1");
+    cache.put(file, Collections.emptyList());
+    cache.save();
+
+    assertThat(FileResultCache.load(workDir.toFile(), "main", "v2").issues(file)).isNull();
+    assertThat(FileResultCache.load(workDir.toFile(), "test", "v1").issues(file)).isNull();
+    assertThat(FileResultCache.load(workDir.toFile(), "main", "v1").issues(file)).isEmpty();
+  }
+
+  @Test
+  void not_analyzed_files_are_dropped() {
+    InputFile fileA = inputFile("A.java", "class A {}");
+    InputFile fileB = inputFile("B.java", "class B {}");
+    FileResultCache cache = FileResultCache.load(workDir.toFile(), "main", "v1");
+    cache.put(fileA, Collections.emptyList());
+    cache.put(fileB, Collections.emptyList());
+    cache.save();
+
+    cache = FileResultCache.load(workDir.toFile(), "main", "v1");
+    assertThat(cache.issues(fileA)).isEmpty();
+    cache.save();
+
+    cache = FileResultCache.load(workDir.toFile(), "main", "v1");
+    assertThat(cache.issues(fileA)).isEmpty();
+    assertThat(cache.issues(fileB)).isNull();
+  }
+
+  @Test
+  void corrupted_cache_is_ignored() throws IOException {
+    File cacheFile = workDir.resolve("java-file-cache-main.bin").toFile();
+    InputFile file = inputFile("A.java", "class A {}");
+    FileResultCache cache = FileResultCache.load(workDir.toFile(), "main", "v1");
+    cache.put(file, Collections.singletonList(CachedIssue.of(RULE_KEY, new AnalyzerMessage(CHECK, file, 1, "message", 0), false)));
+    cache.save();
+
+    byte[] content = Files.readAllBytes(cacheFile.toPath());
+    Files.write(cacheFile.toPath(), Arrays.copyOf(content, content.length - 4));
+    assertThat(FileResultCache.load(workDir.toFile(), "main", "v1").issues(file)).isNull();
+
+    Files.write(cacheFile.toPath(), "garbage".getBytes(StandardCharsets.UTF_8));
+    assertThat(FileResultCache.load(workDir.toFile(), "main", "v1").issues(file)).isNull();
+  }
+
+  private static InputFile inputFile(String name, String content) {
+    return new TestInputFileBuilder("", name)
+      .setContents(content)
+      .setCharset(StandardCharsets.UTF_8)
+      .setLanguage("java")
+      .build();
+  }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.cfg;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.sonar.java.model.JParserTestUtils;
+import org.sonar.java.model.JUtils;
+import org.sonar.plugins.java.api.semantic.Symbol;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.IdentifierTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.Tree;
+import org.sonar.plugins.java.api.tree.VariableTree;
+import org.sonarsource.analyzer.commons.collections.ListUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DataflowAnalysisTest {
+
+  private static CFG buildCFG(String methodCode) {
+    CompilationUnitTree cut = JParserTestUtils.parse("class A { " + methodCode + " }");
+    MethodTree tree = (MethodTree) ((ClassTree) cut.types().get(0)).members().get(0);
+    return (CFG) tree.cfg();
+  }
+
+  private static CFG.Block exitBlock(CFG cfg) {
+    return cfg.reversedBlocks().get(0);
+  }
+
+  @Test
+  void reaching_definitions() {
+    CFG cfg = buildCFG("void foo(boolean b) { int x = 1; if (b) { x = 2; } foo(x); }");
+    assertThat(ReachingDefinitions.INSTANCE.analyze(cfg).getIn(exitBlock(cfg)))
+      .extracting(Tree::kind)
+      .containsExactlyInAnyOrder(Tree.Kind.VARIABLE, Tree.Kind.ASSIGNMENT);
+
+    cfg = buildCFG("void foo() { int x = 1; x = 2; int y; }");
+    assertThat(ReachingDefinitions.INSTANCE.analyze(cfg).getIn(exitBlock(cfg)))
+      .extracting(Tree::kind)
+      .containsExactly(Tree.Kind.ASSIGNMENT);
+
+    cfg = buildCFG("void foo(int n) { int i = 0; while (i < n) { i++; } }");
+    assertThat(ReachingDefinitions.INSTANCE.analyze(cfg).getIn(exitBlock(cfg)))
+      .extracting(Tree::kind)
+      .containsExactlyInAnyOrder(Tree.Kind.VARIABLE, Tree.Kind.POSTFIX_INCREMENT);
+
+    cfg = buildCFG("void foo(java.util.List<String> list) { for (String s : list) { foo(s); } }");
+    assertThat(ReachingDefinitions.INSTANCE.analyze(cfg).getIn(exitBlock(cfg)))
+      .extracting(Tree::kind)
+      .containsExactly(Tree.Kind.VARIABLE);
+  }
+
+  @Test
+  void definite_assignment() {
+    CFG cfg = buildCFG("void foo(boolean b) { int x; int y; if (b) { x = 1; y = 1; } else { x = 2; } foo(x); }");
+    assertThat(DefiniteAssignment.INSTANCE.analyze(cfg).getIn(exitBlock(cfg)))
+      .extracting(Symbol::name)
+      .containsExactly("x");
+
+    cfg = buildCFG("void foo(boolean b) { while (b) { int x; if (b) { x = 1; } } }");
+    DataflowResult<Symbol> result = DefiniteAssignment.INSTANCE.analyze(cfg);
+    assertThat(result.getIn(cfg.entryBlock())).isEmpty();
+    assertThat(result.getIn(exitBlock(cfg))).isEmpty();
+  }
+
+  @Test
+  void available_expressions() {
+    CFG cfg = buildCFG("void foo(int a, int b, boolean c) { int x = a + b; int w = x * 2; if (c) { a = 1; } foo(x); }");
+    assertThat(AvailableExpressions.INSTANCE.analyze(cfg).getIn(exitBlock(cfg)))
+      .extracting(Tree::kind)
+      .containsExactly(Tree.Kind.MULTIPLY);
+
+    cfg = buildCFG("void foo(int a, int b, boolean c) { if (c) { foo(a + b); } else { foo(a + b); } }");
+    assertThat(AvailableExpressions.INSTANCE.analyze(cfg).getIn(exitBlock(cfg)))
+      .extracting(Tree::kind)
+      .containsExactly(Tree.Kind.PLUS);
+
+    cfg = buildCFG("void foo(int a, int b) { int x = a + b + foo(); a++; }");
+    assertThat(AvailableExpressions.INSTANCE.analyze(cfg).getIn(exitBlock(cfg))).isEmpty();
+
+    // same key but not equivalent, both killed by an assignment of their right operand
+    cfg = buildCFG("void foo(int a, int b, boolean c) { foo((a) + b); if (c) { b = 1; } foo(a + b); foo(a - 1); }");
+    assertThat(AvailableExpressions.INSTANCE.analyze(cfg).getIn(exitBlock(cfg)))
+      .extracting(Tree::kind)
+      .containsExactlyInAnyOrder(Tree.Kind.PLUS, Tree.Kind.MINUS);
+  }
+
+  @Test
+  void backward_analysis() {
+    CFG cfg = buildCFG("void foo(int a, int b, int d) { int c = a; if (a > 0) { foo(b, c); } while (d > 0) { d--; } }");
+    DataflowResult<Symbol> result = new ReadVariables().analyze(cfg);
+    assertThat(result.getIn(cfg.entryBlock()))
+      .extracting(Symbol::name)
+      .containsExactlyInAnyOrder("a", "b", "d");
+    for (CFG.Block block : cfg.blocks()) {
+      assertThat(result.getIn(block)).isEqualTo(LiveVariables.analyze(cfg).getIn(block));
+    }
+    assertThat(result.getOut(exitBlock(cfg))).isEmpty();
+  }
+
+  @Test
+  void blocks_of_other_cfgs_are_rejected() {
+    CFG cfg = buildCFG("void foo() { }");
+    CFG other = buildCFG("void foo(boolean b) { if (b) { foo(); } }");
+    DataflowResult<Tree> result = ReachingDefinitions.INSTANCE.analyze(cfg);
+    CFG.Block otherBlock = other.entryBlock();
+    assertThatThrownBy(() -> result.getIn(otherBlock))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Block is not part of the analyzed CFG");
+  }
+
+  /**
+   * Local variables which are read later, when they are never assigned but when declared.
+   */
+  private static class ReadVariables extends DataflowAnalysis<Symbol> {
+
+    ReadVariables() {
+      super(Direction.BACKWARD, Meet.UNION);
+    }
+
+    @Override
+    protected List<Symbol> facts(CFG cfg) {
+      return cfg.blocks().stream()
+        .flatMap(block -> block.elements().stream())
+        .filter(element -> element.is(Tree.Kind.IDENTIFIER))
+        .map(element -> ((IdentifierTree) element).symbol())
+        .filter(JUtils::isLocalVariable)
+        .collect(Collectors.toList());
+    }
+
+    @Override
+    protected void transfer(CFG.Block block, GenKill<Symbol> genKill) {
+      for (Tree element : ListUtils.reverse(block.elements())) {
+        if (element.is(Tree.Kind.IDENTIFIER) && genKill.isFact(((IdentifierTree) element).symbol())) {
+          genKill.gen(((IdentifierTree) element).symbol());
+        } else if (element.is(Tree.Kind.VARIABLE) && genKill.isFact(((VariableTree) element).symbol())) {
+          genKill.kill(((VariableTree) element).symbol());
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.cfg;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.sonar.java.model.JParserTestUtils;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.semantic.Symbol;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.StatementTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class DataflowCacheTest {
+
+  private static MethodTree method() {
+    CompilationUnitTree cut = JParserTestUtils.parse("class A { int field; void foo(int a) { while (a > 0) { a--; break; } field = a; } }");
+    ClassTree classTree = (ClassTree) cut.types().get(0);
+    return (MethodTree) classTree.members().get(1);
+  }
+
+  @Test
+  void cfgs_are_computed_once_per_list_of_trees() {
+    List<StatementTree> body = method().block().body();
+    DataflowCache cache = new DataflowCache();
+
+    CFG cfg = cache.cfg(body, false);
+    assertThat(cache.cfg(new ArrayList<>(body), false)).isSameAs(cfg);
+    assertThat(cache.cfg(body, true))
+      .isNotSameAs(cfg)
+      .isSameAs(cache.cfg(body, true));
+    assertThat(cache.cfg(body.subList(0, 1), false)).isNotSameAs(cfg);
+  }
+
+  @Test
+  void live_variables_are_computed_once_per_cfg() {
+    CFG cfg = (CFG) method().cfg();
+    DataflowCache cache = new DataflowCache();
+
+    LiveVariables liveVariables = cache.liveVariables(cfg);
+    assertThat(cache.liveVariables(cfg)).isSameAs(liveVariables);
+    assertThat(liveVariables.getIn(cfg.entryBlock())).extracting(Symbol::name).containsExactly("a");
+
+    LiveVariables liveVariablesWithFields = cache.liveVariablesWithFields(cfg);
+    assertThat(liveVariablesWithFields).isNotSameAs(liveVariables);
+    assertThat(cache.liveVariablesWithFields(cfg)).isSameAs(liveVariablesWithFields);
+  }
+
+  @Test
+  void dataflow_results_are_computed_once_per_cfg_and_analysis() {
+    CFG cfg = (CFG) method().cfg();
+    DataflowCache cache = new DataflowCache();
+
+    DataflowResult<Tree> reachingDefinitions = cache.dataflow(cfg, ReachingDefinitions.INSTANCE);
+    assertThat(cache.dataflow(cfg, ReachingDefinitions.INSTANCE)).isSameAs(reachingDefinitions);
+    assertThat(cache.dataflow(cfg, DefiniteAssignment.INSTANCE))
+      .isNotSameAs(reachingDefinitions)
+      .isSameAs(cache.dataflow(cfg, DefiniteAssignment.INSTANCE));
+    assertThat(cache.dataflow((CFG) method().cfg(), ReachingDefinitions.INSTANCE)).isNotSameAs(reachingDefinitions);
+  }
+
+  @Test
+  void contexts_without_cache_get_their_own() {
+    JavaFileScannerContext context = mock(JavaFileScannerContext.class);
+    DataflowCache cache = DataflowCache.of(context);
+    assertThat(DataflowCache.of(context)).isSameAs(cache);
+    assertThat(DataflowCache.of(mock(JavaFileScannerContext.class))).isNotSameAs(cache);
+  }
+
+}
@@ -21,6 +21,9 @@ package org.sonar.java.cfg;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 import org.sonar.java.model.JParserTestUtils;
 import org.sonar.plugins.java.api.semantic.Symbol;
@@ -136,6 +139,18 @@ class LiveVariablesTest {
     assertFieldsByMethodEntry("void foo(int a) { B that = new B(); foo(that.field1); }");
   }
 
+  @Test
+  void test_more_variables_than_a_word() {
+    List<String> parameters = IntStream.range(0, 100).mapToObj(i -> "p" + i).collect(Collectors.toList());
+    CFG cfg = buildCFG("void foo(" + parameters.stream().map(p -> "int " + p).collect(Collectors.joining(", ")) + ") {"
+      + " int i = 0; while (i < 10) { i++; } int sum = " + String.join(" + ", parameters) + "; }");
+    LiveVariables liveVariables = LiveVariables.analyze(cfg);
+    Set<Symbol> in = liveVariables.getIn(cfg.entryBlock());
+    assertThat(in).extracting(Symbol::name).containsExactlyInAnyOrderElementsOf(parameters);
+    assertThat(liveVariables.getIn(cfg.entryBlock())).isSameAs(in);
+    assertThat(liveVariables.getOut(cfg.reversedBlocks().get(0))).isEmpty();
+  }
+
   private void assertFieldsByMethodEntry(String methodCode, String ...inEntryNames) {
     CFG cfg = buildCFG(methodCode);
     LiveVariables liveVariables = LiveVariables.analyzeWithFields(cfg);
@@ -0,0 +1,129 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.classpath;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClasspathIndexTest {
+
+  @TempDir
+  Path workDir;
+
+  @Test
+  void packages_are_persisted() throws Exception {
+    File jar = copyJar("lib.jar");
+    ClasspathIndex index = ClasspathIndex.load(workDir.toFile());
+    assertThat(index.packages(jar)).isNull();
+    index.put(jar, new HashSet<>(Arrays.asList("", "org", "org/foo")));
+    index.save();
+
+    ClasspathIndex reloaded = ClasspathIndex.load(workDir.toFile());
+    assertThat(reloaded.packages(jar)).containsExactlyInAnyOrder("", "org", "org/foo");
+  }
+
+  @Test
+  void changed_jars_are_not_up_to_date() throws Exception {
+    File jar = copyJar("lib.jar");
+    ClasspathIndex index = ClasspathIndex.load(workDir.toFile());
+    index.put(jar, new HashSet<>(Arrays.asList("org", "org/foo")));
+    assertThat(jar.setLastModified(jar.lastModified() - 10_000)).isTrue();
+    assertThat(index.packages(jar)).isNull();
+  }
+
+  @Test
+  void deleted_jars_are_dropped_when_saving() throws Exception {
+    File kept = copyJar("kept.jar");
+    File deleted = copyJar("deleted.jar");
+    ClasspathIndex index = ClasspathIndex.load(workDir.toFile());
+    index.put(kept, new HashSet<>(Arrays.asList("org", "org/foo")));
+    index.put(deleted, new HashSet<>(Arrays.asList("org", "org/foo")));
+    Files.delete(deleted.toPath());
+    index.save();
+    assertThat(ClasspathIndex.load(workDir.toFile()).size()).isEqualTo(1);
+  }
+
+  @Test
+  void corrupted_index_is_ignored() throws Exception {
+    Path indexFile = workDir.resolve(ClasspathIndex.FILE_NAME);
+    Files.write(indexFile, new byte[] {0x4A, 0x43, 0x50, 0x49, 0, 0, 0, 1, 0, 0, 0, 42});
+    assertThat(ClasspathIndex.load(workDir.toFile()).size()).isZero();
+
+    Files.write(indexFile, "not an index".getBytes());
+    assertThat(ClasspathIndex.load(workDir.toFile()).size()).isZero();
+
+    // string length larger than the file itself
+    Files.write(indexFile, new byte[] {0x4A, 0x43, 0x50, 0x49, 0, 0, 0, 1, 0, 0, 0, 1, 0x7F, 0, 0, 0});
+    assertThat(ClasspathIndex.load(workDir.toFile()).size()).isZero();
+  }
+
+  @Test
+  void loaded_index_can_be_replaced() throws Exception {
+    File jar = copyJar("lib.jar");
+    ClasspathIndex index = ClasspathIndex.load(workDir.toFile());
+    index.put(jar, new HashSet<>(Arrays.asList("org")));
+    index.save();
+
+    ClasspathIndex reloaded = ClasspathIndex.load(workDir.toFile());
+    reloaded.put(jar, new HashSet<>(Arrays.asList("org", "org/foo")));
+    reloaded.save();
+
+    assertThat(ClasspathIndex.load(workDir.toFile()).packages(jar)).containsExactlyInAnyOrder("org", "org/foo");
+  }
+
+  @Test
+  void unmodified_or_in_memory_index_is_not_saved() throws Exception {
+    ClasspathIndex.load(workDir.toFile()).save();
+    assertThat(workDir.resolve(ClasspathIndex.FILE_NAME)).doesNotExist();
+
+    ClasspathIndex index = ClasspathIndex.inMemory();
+    index.put(copyJar("lib.jar"), new HashSet<>(Arrays.asList("org", "org/foo")));
+    index.save();
+    assertThat(workDir.resolve(ClasspathIndex.FILE_NAME)).doesNotExist();
+  }
+
+  @Test
+  void temporary_file_is_deleted_when_index_can_not_be_written() throws Exception {
+    // a non-empty directory can not be replaced by the index file
+    Files.createDirectories(workDir.resolve(ClasspathIndex.FILE_NAME).resolve("child"));
+    ClasspathIndex index = ClasspathIndex.load(workDir.toFile());
+    index.put(copyJar("lib.jar"), new HashSet<>(Arrays.asList("org", "org/foo")));
+    index.save();
+    try (Stream<Path> files = Files.list(workDir)) {
+      assertThat(files.map(file -> file.getFileName().toString())).containsExactlyInAnyOrder("libs", ClasspathIndex.FILE_NAME);
+    }
+  }
+
+  private File copyJar(String name) throws Exception {
+    Path jar = workDir.resolve("libs").resolve(name);
+    Files.createDirectories(jar.getParent());
+    Files.copy(Path.of("src/test/files/other/project.jar"), jar);
+    return jar.toFile();
+  }
+
+}
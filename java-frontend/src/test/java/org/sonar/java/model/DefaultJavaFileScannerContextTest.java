@@ -33,6 +33,7 @@ import org.sonar.api.batch.fs.internal.DefaultInputDir;
 import org.sonar.java.EndOfAnalysisCheck;
 import org.sonar.java.SonarComponents;
 import org.sonar.java.TestUtils;
+import org.sonar.java.cfg.DataflowCache;
 import org.sonar.java.regex.RegexCheck;
 import org.sonar.java.regex.RegexParserTestUtils;
 import org.sonar.java.reporting.AnalyzerMessage;
@@ -99,6 +100,13 @@ class DefaultJavaFileScannerContextTest {
     assertThat(context.fileParsed()).isTrue();
   }
 
+  @Test
+  void dataflow_cache_is_shared_for_the_file() {
+    assertThat(context.dataflowCache())
+      .isNotNull()
+      .isSameAs(DataflowCache.of(context));
+  }
+
   @Test
   void get_java_version() {
     assertThat(context.getJavaVersion()).isNotNull();
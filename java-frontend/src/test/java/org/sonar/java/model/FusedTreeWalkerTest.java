@@ -0,0 +1,166 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.sonar.java.TestUtils;
+import org.sonar.java.ast.visitors.FusableTreeVisitor;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.tree.BlockTree;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.IdentifierTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FusedTreeWalkerTest {
+
+  private static final String SOURCE = "class A {\n" +
+    "  int a;\n" +
+    "  void foo(int p) { bar(p, a); }\n" +
+    "  class B { void bar(int q) { foo(q); } }\n" +
+    "}\n" +
+    "enum E { X; void baz(int r) { r++; } }";
+
+  @Test
+  void fused_walk_visits_trees_as_separate_walks() {
+    CompilationUnitTree tree = JParserTestUtils.parse(SOURCE);
+
+    List<FusableTreeVisitor> separately = Arrays.asList(new IdentifiersVisitor(), new SkippingClassBodiesVisitor(), new MethodsVisitor());
+    separately.forEach(visitor -> visitor.scanFile(context(tree)));
+
+    List<FusableTreeVisitor> fused = Arrays.asList(new IdentifiersVisitor(), new SkippingClassBodiesVisitor(), new MethodsVisitor());
+    new FusedTreeWalker(fused, (visitor, t) -> {
+      t.accept(visitor);
+      return true;
+    }).walk(tree);
+
+    for (int i = 0; i < separately.size(); i++) {
+      assertThat(((Recording) fused.get(i)).visited)
+        .isNotEmpty()
+        .isEqualTo(((Recording) separately.get(i)).visited);
+    }
+    // subtrees not visited by the visitor itself are not visited
+    assertThat(((Recording) fused.get(1)).visited).containsExactly("A", "B", "E");
+  }
+
+  @Test
+  void failed_visitors_are_not_called_anymore() {
+    CompilationUnitTree tree = JParserTestUtils.parse(SOURCE);
+    MethodsVisitor failing = new MethodsVisitor();
+    IdentifiersVisitor other = new IdentifiersVisitor();
+    new FusedTreeWalker(Arrays.asList(failing, other), (visitor, t) -> {
+      if (visitor == failing) {
+        failing.visited.add("failure");
+        return false;
+      }
+      t.accept(visitor);
+      return true;
+    }).walk(tree);
+
+    assertThat(failing.visited).containsExactly("failure");
+    assertThat(other.visited).contains("a", "p", "q", "r");
+  }
+
+  @Test
+  void visitors_replacing_the_walk_can_not_be_fused() {
+    assertThat(FusedTreeWalker.canBeFused(new IdentifiersVisitor())).isTrue();
+    assertThat(FusedTreeWalker.canBeFused(new FusableTreeVisitor() {
+      @Override
+      public void scanFile(JavaFileScannerContext context) {
+        // only visit the first type
+        scan(((CompilationUnitTree) context.getTree()).types().get(0));
+      }
+    })).isFalse();
+    assertThat(FusedTreeWalker.canBeFused(new FusableTreeVisitor() {
+      @Override
+      protected void scan(Tree tree) {
+        // never visit children
+      }
+    })).isFalse();
+  }
+
+  @Test
+  void visitors_walking_almost_the_whole_file_by_themselves_are_not_fused() {
+    assertThat(FusedTreeWalker.canBeFused(new MethodsVisitor())).isFalse();
+    assertThat(FusedTreeWalker.canBeFused(new SkippingClassBodiesVisitor())).isFalse();
+    assertThat(FusedTreeWalker.canBeFused(new FusableTreeVisitor() {
+      @Override
+      public void visitBlock(BlockTree tree) {
+        super.visitBlock(tree);
+      }
+    })).isFalse();
+    assertThat(FusedTreeWalker.canBeFused(new FusableTreeVisitor() {
+      @Override
+      public void visitCompilationUnit(CompilationUnitTree tree) {
+        super.visitCompilationUnit(tree);
+      }
+    })).isFalse();
+  }
+
+  private static JavaFileScannerContext context(CompilationUnitTree tree) {
+    return new DefaultJavaFileScannerContext(tree, TestUtils.emptyInputFile("A.java"), null, null, new JavaVersionImpl(), true, false);
+  }
+
+  private abstract static class Recording extends FusableTreeVisitor {
+    final List<String> visited = new ArrayList<>();
+  }
+
+  private static class IdentifiersVisitor extends Recording {
+    @Override
+    public void visitIdentifier(IdentifierTree tree) {
+      visited.add(tree.name());
+    }
+  }
+
+  private static class SkippingClassBodiesVisitor extends Recording {
+    @Override
+    public void visitClass(ClassTree tree) {
+      visited.add(tree.simpleName().name());
+      // only nested classes are visited
+      tree.members().stream().filter(member -> member.is(Tree.Kind.CLASS)).forEach(this::scan);
+    }
+
+    @Override
+    public void visitMethod(MethodTree tree) {
+      visited.add("unexpected method " + tree.simpleName().name());
+    }
+  }
+
+  private static class MethodsVisitor extends Recording {
+    @Override
+    public void visitMethod(MethodTree tree) {
+      visited.add("enter " + tree.simpleName().name());
+      super.visitMethod(tree);
+      visited.add("leave " + tree.simpleName().name());
+    }
+
+    @Override
+    public void visitIdentifier(IdentifierTree tree) {
+      visited.add(tree.name());
+    }
+  }
+
+}
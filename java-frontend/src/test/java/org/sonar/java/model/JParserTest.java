@@ -56,8 +56,10 @@ import org.sonar.plugins.java.api.tree.ClassTree;
 import org.sonar.plugins.java.api.tree.CompilationUnitTree;
 import org.sonar.plugins.java.api.tree.EnumConstantTree;
 import org.sonar.plugins.java.api.tree.ForStatementTree;
+import org.sonar.plugins.java.api.tree.MethodInvocationTree;
 import org.sonar.plugins.java.api.tree.MethodTree;
 import org.sonar.plugins.java.api.location.Range;
+import org.sonar.plugins.java.api.tree.ReturnStatementTree;
 import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.plugins.java.api.tree.TryStatementTree;
 import org.sonar.plugins.java.api.tree.VariableTree;
@@ -73,6 +75,7 @@ import static org.mockito.Mockito.when;
 import static org.sonar.java.model.JParserConfig.MAXIMUM_SUPPORTED_JAVA_VERSION;
 import static org.sonar.java.model.JParserConfig.Mode.BATCH;
 import static org.sonar.java.model.JParserConfig.Mode.FILE_BY_FILE;
+import static org.sonar.java.model.JParserConfig.Mode.PARALLEL_FILE_BY_FILE;
 import static org.sonar.java.model.JParserTestUtils.DEFAULT_CLASSPATH;
 import static org.sonar.java.model.JParserTestUtils.parse;
 
@@ -297,6 +300,96 @@ class JParserTest {
     assertResultsOfParsing(results, inputFilesProcessed);
   }
 
+  @Test
+  void file_by_file_should_resolve_types_of_all_files_with_shared_environment() throws Exception {
+    List<InputFile> inputFiles = Arrays.asList(TestUtils.inputFile("src/test/files/metrics/Classes.java"),
+      TestUtils.inputFile("src/test/files/metrics/Methods.java"));
+    List<JavaTree.CompilationUnitTreeImpl> trees = new ArrayList<>();
+    FILE_BY_FILE
+      .create(MAXIMUM_SUPPORTED_JAVA_VERSION, DEFAULT_CLASSPATH)
+      .parse(inputFiles, () -> false, (inputFile, result) -> {
+        try {
+          trees.add(result.get());
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+
+    assertThat(trees).hasSize(2);
+    for (JavaTree.CompilationUnitTreeImpl tree : trees) {
+      ClassTree firstClass = (ClassTree) tree.types().get(0);
+      assertThat(firstClass.symbol().superClass().is("java.lang.Object")).isTrue();
+    }
+  }
+
+  @Test
+  void test_parse_parallel_file_by_file() throws Exception {
+    List<InputFile> inputFiles = Arrays.asList(TestUtils.inputFile("src/test/files/metrics/Classes.java"),
+      TestUtils.inputFile("src/test/files/metrics/Methods.java"));
+    List<JParserConfig.Result> results = new ArrayList<>();
+    List<InputFile> inputFilesProcessed = new ArrayList<>();
+    PARALLEL_FILE_BY_FILE
+      .create(MAXIMUM_SUPPORTED_JAVA_VERSION, DEFAULT_CLASSPATH)
+      .parse(inputFiles, () -> false, (inputFile, result) -> {
+        results.add(result);
+        inputFilesProcessed.add(inputFile);
+      });
+
+    assertResultsOfParsing(results, inputFilesProcessed);
+  }
+
+  @Test
+  void parallel_file_by_file_should_preserve_order_of_files() {
+    List<InputFile> inputFiles = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      inputFiles.add(TestUtils.inputFile(i % 2 == 0 ? "src/test/files/metrics/Classes.java" : "src/test/files/metrics/Methods.java"));
+    }
+    List<InputFile> inputFilesProcessed = new ArrayList<>();
+    PARALLEL_FILE_BY_FILE
+      .create(MAXIMUM_SUPPORTED_JAVA_VERSION, DEFAULT_CLASSPATH)
+      .parse(inputFiles, () -> false, (inputFile, result) -> inputFilesProcessed.add(inputFile));
+
+    assertThat(inputFilesProcessed).containsExactlyElementsOf(inputFiles);
+  }
+
+  @Test
+  void consumer_should_receive_exceptions_thrown_during_parallel_parsing() throws Exception {
+    List<JParserConfig.Result> results = new ArrayList<>();
+    InputFile inputFile = spy(TestUtils.inputFile("src/test/files/metrics/Classes.java"));
+    when(inputFile.contents()).thenThrow(IOException.class);
+
+    PARALLEL_FILE_BY_FILE
+      .create(MAXIMUM_SUPPORTED_JAVA_VERSION, Collections.emptyList())
+      .parse(Collections.singleton(inputFile), () -> false, (i, result) -> results.add(result));
+
+    JParserConfig.Result result = results.get(0);
+    assertThrows(IOException.class, result::get);
+  }
+
+  @Test
+  void should_rethrow_when_consumer_throws_in_parallel_mode() {
+    RuntimeException expected = new RuntimeException();
+    List<InputFile> inputFiles = Collections.singletonList(TestUtils.inputFile("src/test/files/metrics/Classes.java"));
+    JParserConfig config = PARALLEL_FILE_BY_FILE.create(MAXIMUM_SUPPORTED_JAVA_VERSION, DEFAULT_CLASSPATH);
+
+    RuntimeException actual = assertThrows(RuntimeException.class, () -> config.parse(inputFiles, () -> false, (inputFile, result) -> {
+      throw expected;
+    }));
+    assertSame(expected, actual);
+  }
+
+  @Test
+  void test_is_canceled_is_called_parallel_file_by_file() {
+    List<InputFile> inputFiles = Arrays.asList(TestUtils.inputFile("src/test/files/metrics/Classes.java"),
+      TestUtils.inputFile("src/test/files/metrics/Methods.java"));
+    List<JParserConfig.Result> results = new ArrayList<>();
+    PARALLEL_FILE_BY_FILE
+      .create(MAXIMUM_SUPPORTED_JAVA_VERSION, DEFAULT_CLASSPATH)
+      .parse(inputFiles, () -> true, (inputFile, result) -> results.add(result));
+
+    assertThat(results).isEmpty();
+  }
+
   @Test
   void test_parse_as_batch() throws Exception {
     List<InputFile> inputFiles = Arrays.asList(TestUtils.inputFile("src/test/files/metrics/Classes.java"),
@@ -313,6 +406,51 @@ class JParserTest {
     assertResultsOfParsing(results, inputFilesProcessed);
   }
 
+  @Test
+  void test_parse_as_several_batches() throws Exception {
+    List<InputFile> inputFiles = Arrays.asList(TestUtils.inputFile("src/test/files/metrics/Classes.java"),
+      TestUtils.inputFile("src/test/files/metrics/Methods.java"));
+    List<JParserConfig.Result> results = new ArrayList<>();
+    List<InputFile> inputFilesProcessed = new ArrayList<>();
+    BATCH
+      .create(MAXIMUM_SUPPORTED_JAVA_VERSION, DEFAULT_CLASSPATH)
+      .withBatchSize(1)
+      .parse(inputFiles, () -> false, (inputFile, result) -> {
+        results.add(result);
+        inputFilesProcessed.add(inputFile);
+      });
+
+    assertResultsOfParsing(results, inputFilesProcessed);
+    assertThat(logTester.logs()).contains("Source files split into 2 batches of at most 1 files.");
+  }
+
+  @Test
+  void test_types_of_other_batches_are_resolved_from_sources() throws Exception {
+    List<InputFile> inputFiles = Arrays.asList(TestUtils.inputFile("src/test/files/model/batches/org/foo/a/User.java"),
+      TestUtils.inputFile("src/test/files/model/batches/org/foo/b/Provided.java"));
+    List<CompilationUnitTree> trees = new ArrayList<>();
+    BATCH
+      .create(MAXIMUM_SUPPORTED_JAVA_VERSION, Collections.emptyList())
+      .withBatchSize(1)
+      .parse(inputFiles, () -> false, (inputFile, result) -> {
+        try {
+          trees.add(result.get());
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+
+    assertThat(trees).hasSize(2);
+    ClassTree user = (ClassTree) trees.get(0).types().get(0);
+    VariableTree provided = (VariableTree) user.members().get(0);
+    assertThat(provided.type().symbolType().isUnknown()).isFalse();
+    assertThat(provided.type().symbolType().fullyQualifiedName()).isEqualTo("org.foo.b.Provided");
+    MethodTree use = (MethodTree) user.members().get(1);
+    MethodInvocationTree invocation = (MethodInvocationTree) ((ReturnStatementTree) use.block().body().get(0)).expression();
+    assertThat(invocation.symbol().isUnknown()).isFalse();
+    assertThat(invocation.symbolType().is("java.lang.String")).isTrue();
+  }
+
   private void assertResultsOfParsing(List<JParserConfig.Result> results, List<InputFile> inputFilesProcessed) throws Exception {
     assertThat(inputFilesProcessed).hasSize(2);
     assertThat(inputFilesProcessed.get(0).filename()).isEqualTo("Classes.java");
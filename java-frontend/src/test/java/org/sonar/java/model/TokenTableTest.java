@@ -0,0 +1,77 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.model;
+
+import org.eclipse.jdt.internal.compiler.parser.TerminalTokens;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenTableTest {
+
+  @Test
+  void tokens_and_comments() {
+    String source = "class A { // comment\r\n /* block */ int i; }";
+    TokenTable tokens = TokenTable.lex("11", "A.java", source, source.toCharArray());
+
+    assertThat(tokens.size()).isEqualTo(10);
+    assertThat(tokens.type(0)).isEqualTo(TerminalTokens.TokenNameclass);
+    assertThat(tokens.text(1)).isEqualTo("A");
+    // line separator is not part of line comments
+    assertThat(tokens.text(3)).isEqualTo("// comment");
+    assertThat(tokens.isComment(3)).isTrue();
+    assertThat(tokens.text(4)).isEqualTo("/* block */");
+    assertThat(tokens.isComment(4)).isTrue();
+    assertThat(tokens.isComment(5)).isFalse();
+    assertThat(tokens.type(9)).isEqualTo(TerminalTokens.TokenNameEOF);
+    assertThat(tokens.start(9)).isEqualTo(source.length());
+    assertThat(tokens.source()).isSameAs(source);
+  }
+
+  @Test
+  void find_index() {
+    String source = "class A { int i; }";
+    TokenTable tokens = TokenTable.lex("11", "A.java", source, source.toCharArray());
+
+    int intPosition = source.indexOf("int");
+    assertThat(tokens.findIndex(intPosition, -1, true)).isEqualTo(3);
+    assertThat(tokens.findIndex(intPosition + 1, -1, true)).isEqualTo(3);
+    // between two tokens
+    assertThat(tokens.findIndex(intPosition - 1, -1, true)).isEqualTo(3);
+    assertThat(tokens.findIndex(intPosition - 1, -1, false)).isEqualTo(2);
+    assertThat(tokens.findIndex(0, TerminalTokens.TokenNameSEMICOLON, true)).isEqualTo(5);
+    assertThat(tokens.findIndex(source.length() - 1, TerminalTokens.TokenNameLBRACE, false)).isEqualTo(2);
+    assertThat(tokens.start(5)).isEqualTo(source.indexOf(';'));
+    assertThat(tokens.end(3)).isEqualTo(intPosition + 2);
+  }
+
+  @Test
+  void table_grows_with_number_of_tokens() {
+    StringBuilder source = new StringBuilder("class A { void m() {");
+    for (int i = 0; i < 1_000; i++) {
+      source.append(";");
+    }
+    source.append("} }");
+    TokenTable tokens = TokenTable.lex("11", "A.java", source.toString(), source.toString().toCharArray());
+    assertThat(tokens.size()).isEqualTo(1_011);
+    assertThat(tokens.type(1_009)).isEqualTo(TerminalTokens.TokenNameRBRACE);
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import org.junit.jupiter.api.Test;
+import org.sonar.java.model.expression.IdentifierTreeImpl;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TreeKindsTest {
+
+  @Test
+  void contains_and_intersects() {
+    TreeKinds kinds = TreeKinds.of(Arrays.asList(Tree.Kind.CLASS, Tree.Kind.TRIVIA));
+    assertThat(kinds.contains(Tree.Kind.CLASS)).isTrue();
+    assertThat(kinds.contains(Tree.Kind.TRIVIA)).isTrue();
+    assertThat(kinds.contains(Tree.Kind.METHOD)).isFalse();
+
+    assertThat(kinds.intersects(TreeKinds.of(Collections.singletonList(Tree.Kind.TRIVIA)))).isTrue();
+    assertThat(kinds.intersects(TreeKinds.of(Arrays.asList(Tree.Kind.METHOD, Tree.Kind.TOKEN)))).isFalse();
+    assertThat(kinds.intersects(TreeKinds.of(Collections.emptyList()))).isFalse();
+
+    assertThat(kinds)
+      .isEqualTo(TreeKinds.of(Arrays.asList(Tree.Kind.TRIVIA, Tree.Kind.CLASS)))
+      .hasSameHashCodeAs(TreeKinds.of(Arrays.asList(Tree.Kind.TRIVIA, Tree.Kind.CLASS)))
+      .isNotEqualTo(TreeKinds.of(Collections.singletonList(Tree.Kind.CLASS)))
+      .isNotEqualTo(null);
+  }
+
+  @Test
+  void subtree_kinds_are_computed_by_parser() {
+    CompilationUnitTree cut = JParserTestUtils.parse("class A {\n  // comment\n  void foo() {}\n}\nclass B {}");
+    ClassTree classA = (ClassTree) cut.types().get(0);
+    ClassTree classB = (ClassTree) cut.types().get(1);
+    MethodTree method = (MethodTree) classA.members().get(0);
+
+    TreeKinds unitKinds = ((JavaTree) cut).subtreeKinds();
+    assertThat(unitKinds.contains(Tree.Kind.COMPILATION_UNIT)).isTrue();
+    assertThat(unitKinds.contains(Tree.Kind.METHOD)).isTrue();
+    assertThat(unitKinds.contains(Tree.Kind.TRIVIA)).isTrue();
+    assertThat(unitKinds.contains(Tree.Kind.TOKEN)).isTrue();
+
+    TreeKinds classBKinds = ((JavaTree) classB).subtreeKinds();
+    assertThat(classBKinds.contains(Tree.Kind.CLASS)).isTrue();
+    assertThat(classBKinds.contains(Tree.Kind.METHOD)).isFalse();
+    assertThat(classBKinds.contains(Tree.Kind.TRIVIA)).isFalse();
+
+    TreeKinds methodKinds = ((JavaTree) method).subtreeKinds();
+    assertThat(methodKinds.contains(Tree.Kind.METHOD)).isTrue();
+    assertThat(methodKinds.contains(Tree.Kind.TRIVIA)).isTrue();
+    assertThat(methodKinds.contains(Tree.Kind.CLASS)).isFalse();
+
+    // identical sets are shared
+    assertThat(((JavaTree) classB.openBraceToken()).subtreeKinds()).isSameAs(((JavaTree) classB.closeBraceToken()).subtreeKinds());
+  }
+
+  @Test
+  void may_contain_any_of() {
+    CompilationUnitTree cut = JParserTestUtils.parse("class A {\n  int foo(int a) { return a / 2; }\n}");
+    JavaTree method = (JavaTree) ((ClassTree) cut.types().get(0)).members().get(0);
+    assertThat(method.mayContainAnyOf(EnumSet.of(Tree.Kind.DIVIDE, Tree.Kind.NEW_CLASS))).isTrue();
+    assertThat(method.mayContainAnyOf(EnumSet.of(Tree.Kind.METHOD))).isTrue();
+    assertThat(method.mayContainAnyOf(EnumSet.of(Tree.Kind.NEW_CLASS, Tree.Kind.METHOD_INVOCATION))).isFalse();
+    assertThat(method.mayContainAnyOf(EnumSet.noneOf(Tree.Kind.class))).isFalse();
+
+    // kinds are unknown for trees which were not created by the parser
+    JavaTree identifier = new IdentifierTreeImpl(new InternalSyntaxToken(1, 0, "a", Collections.emptyList(), false));
+    assertThat(identifier.mayContainAnyOf(EnumSet.of(Tree.Kind.NEW_CLASS))).isTrue();
+  }
+
+}
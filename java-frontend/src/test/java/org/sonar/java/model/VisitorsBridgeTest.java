@@ -20,18 +20,24 @@
 package org.sonar.java.model;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 import org.assertj.core.api.Fail;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
 import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.log.LogTesterJUnit5;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.java.AnalysisException;
@@ -41,20 +47,29 @@ import org.sonar.java.JavaVersionAwareVisitor;
 import org.sonar.java.SonarComponents;
 import org.sonar.java.TestUtils;
 import org.sonar.java.ast.visitors.SubscriptionVisitor;
+import org.sonar.java.caching.FileResultCache;
+import org.sonar.java.reporting.JavaQuickFix;
+import org.sonar.java.reporting.JavaTextEdit;
 import org.sonar.plugins.java.api.IssuableSubscriptionVisitor;
 import org.sonar.plugins.java.api.JavaFileScanner;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.JavaVersion;
+import org.sonar.plugins.java.api.tree.ClassTree;
 import org.sonar.plugins.java.api.tree.CompilationUnitTree;
 import org.sonar.plugins.java.api.tree.SyntaxToken;
 import org.sonar.plugins.java.api.tree.SyntaxTrivia;
 import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.plugins.java.api.tree.Tree.Kind;
 
+import org.sonarsource.performance.measure.PerformanceMeasure;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 
 class VisitorsBridgeTest {
@@ -310,6 +325,100 @@ class VisitorsBridgeTest {
     assertThat(trace).containsExactly("RuleForAllJavaVersion", "RuleForJava15", "SubscriptionVisitorForJava10");
   }
 
+  @Test
+  void sampled_calls_of_subscription_visitors_are_measured_under_a_separate_name(@TempDir Path workDir) throws Exception {
+    Path performanceFile = workDir.resolve("performance.json");
+    assertThat(measuredVisitors(performanceFile, "3"))
+      .contains("\"IdentifierVisitor sampled 1/3\"")
+      .doesNotContain("\"IdentifierVisitor\"");
+
+    assertThat(measuredVisitors(performanceFile, "1"))
+      .contains("\"IdentifierVisitor\"")
+      .doesNotContain("sampled");
+  }
+
+  private static String measuredVisitors(Path performanceFile, String samplingRate) throws Exception {
+    SensorContextTester sensorContextTester = SensorContextTester.create(new File(""));
+    MapSettings settings = new MapSettings();
+    settings.setProperty(SonarComponents.PERFORMANCE_MEASURE_KEY, "true");
+    settings.setProperty(SonarComponents.PERFORMANCE_MEASURE_SAMPLING_RATE_KEY, samplingRate);
+    sensorContextTester.setSettings(settings);
+    SonarComponents components = new SonarComponents(null, null, null, null, null);
+    components.setSensorContext(sensorContextTester);
+
+    PerformanceMeasure.Duration root = PerformanceMeasure.reportBuilder()
+      .activate(true)
+      .toFile(performanceFile.toString())
+      .start("Root");
+    VisitorsBridge visitorsBridge = new VisitorsBridge(Collections.singletonList(new IdentifierVisitor()), new ArrayList<>(), components);
+    visitorsBridge.setCurrentFile(INPUT_FILE);
+    visitorsBridge.visitFile(COMPILATION_UNIT_TREE);
+    root.stop();
+    return new String(Files.readAllBytes(performanceFile), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void issues_of_cacheable_visitors_are_reused_on_unchanged_files(@TempDir Path workDir) {
+    IssueRaisingVisitor cacheable = new IssueRaisingVisitor();
+    IssueRaisingVisitor notCacheable = new IssueRaisingVisitor();
+    List<JavaFileScanner> visitors = Arrays.asList(cacheable, notCacheable);
+
+    SensorContextTester context = analyzeWithCache(workDir, visitors, cacheable);
+    assertThat(cacheable.visitedClasses).isEqualTo(1);
+    assertThat(notCacheable.visitedClasses).isEqualTo(1);
+    assertThat(context.allIssues()).hasSize(2);
+
+    context = analyzeWithCache(workDir, visitors, cacheable);
+    assertThat(cacheable.visitedClasses).isEqualTo(1);
+    assertThat(notCacheable.visitedClasses).isEqualTo(2);
+    assertThat(context.allIssues())
+      .extracting(issue -> issue.primaryLocation().message(), issue -> issue.primaryLocation().textRange().start().line())
+      .containsExactly(tuple("class", 1), tuple("class", 1));
+  }
+
+  @Test
+  void issues_reported_with_the_issue_builder_are_reused_on_unchanged_files(@TempDir Path workDir) {
+    QuickFixIssueRaisingVisitor cacheable = new QuickFixIssueRaisingVisitor();
+    List<JavaFileScanner> visitors = Collections.singletonList(cacheable);
+
+    SensorContextTester context = analyzeWithCache(workDir, visitors, cacheable);
+    assertThat(cacheable.visitedClasses).isEqualTo(1);
+    assertThat(context.allIssues()).hasSize(1);
+
+    context = analyzeWithCache(workDir, visitors, cacheable);
+    assertThat(cacheable.visitedClasses).isEqualTo(1);
+    assertThat(context.allIssues())
+      .extracting(issue -> issue.primaryLocation().message(), issue -> issue.primaryLocation().textRange().start().line(), issue -> issue.flows().size())
+      .containsExactly(tuple("class with quick fix", 1, 1));
+  }
+
+  @Test
+  void issues_are_not_cached_when_a_visitor_failed(@TempDir Path workDir) {
+    SV1_ThrowingNPEVisitingClass failing = new SV1_ThrowingNPEVisitingClass();
+    IssueRaisingVisitor cacheable = new IssueRaisingVisitor();
+    List<JavaFileScanner> visitors = Arrays.asList(cacheable, failing);
+
+    analyzeWithCache(workDir, visitors, cacheable, failing);
+    analyzeWithCache(workDir, visitors, cacheable, failing);
+    assertThat(cacheable.visitedClasses).isEqualTo(2);
+  }
+
+  private SensorContextTester analyzeWithCache(Path workDir, List<JavaFileScanner> visitors, JavaFileScanner... cacheableVisitors) {
+    SensorContextTester sensorContextTester = SensorContextTester.create(new File(""));
+    SonarComponents components = spy(new SonarComponents(null, null, null, null, null));
+    components.setSensorContext(sensorContextTester);
+    doReturn(Optional.of(RuleKey.of("java", "S1"))).when(components).getRuleKey(any());
+    doReturn(Optional.of(visitors.get(0))).when(components).getCheck(any());
+
+    FileResultCache cache = FileResultCache.load(workDir.toFile(), "main", "fingerprint");
+    VisitorsBridge visitorsBridge = new VisitorsBridge(visitors, new ArrayList<>(), components);
+    visitorsBridge.setResultCache(cache, Arrays.asList(cacheableVisitors));
+    visitorsBridge.setCurrentFile(INPUT_FILE);
+    visitorsBridge.visitFile(COMPILATION_UNIT_TREE);
+    cache.save();
+    return sensorContextTester;
+  }
+
   private static String ruleKeyFromErrorLog(String errorLog) {
     String newString = errorLog.substring("Unable to run check class ".length(), errorLog.indexOf(" on file"));
     if (newString.contains("SymbolicExecutionVisitor")) {
@@ -335,6 +444,50 @@ class VisitorsBridgeTest {
     return visitorsBridge;
   }
 
+  private static class IdentifierVisitor extends IssuableSubscriptionVisitor {
+    @Override
+    public List<Tree.Kind> nodesToVisit() {
+      return Collections.singletonList(Tree.Kind.IDENTIFIER);
+    }
+  }
+
+  private static class IssueRaisingVisitor extends IssuableSubscriptionVisitor {
+    private int visitedClasses = 0;
+
+    @Override
+    public List<Tree.Kind> nodesToVisit() {
+      return Collections.singletonList(Tree.Kind.CLASS);
+    }
+
+    @Override
+    public void visitNode(Tree tree) {
+      visitedClasses++;
+      reportIssue(((ClassTree) tree).simpleName(), "class");
+    }
+  }
+
+  private static class QuickFixIssueRaisingVisitor extends IssuableSubscriptionVisitor {
+    private int visitedClasses = 0;
+
+    @Override
+    public List<Tree.Kind> nodesToVisit() {
+      return Collections.singletonList(Tree.Kind.CLASS);
+    }
+
+    @Override
+    public void visitNode(Tree tree) {
+      visitedClasses++;
+      ClassTree classTree = (ClassTree) tree;
+      ((DefaultJavaFileScannerContext) context).newIssue()
+        .forRule(this)
+        .onTree(classTree.simpleName())
+        .withMessage("class with quick fix")
+        .withSecondaries(new JavaFileScannerContext.Location("keyword", classTree.declarationKeyword()))
+        .withQuickFix(() -> JavaQuickFix.newQuickFix("Remove the class").addTextEdit(JavaTextEdit.removeTree(classTree)).build())
+        .report();
+    }
+  }
+
   @org.sonar.check.Rule(key = "JFS")
   private static class JFS_ThrowingNPEJavaFileScanner implements JavaFileScanner {
     @Override
@@ -0,0 +1,128 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.regex;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.sonar.api.utils.log.LogTesterJUnit5;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.java.model.JParserTestUtils;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.LiteralTree;
+import org.sonar.plugins.java.api.tree.VariableTree;
+import org.sonarsource.analyzer.commons.regex.RegexParseResult;
+import org.sonarsource.analyzer.commons.regex.ast.FlagSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RegexAnalysisCacheTest {
+
+  @RegisterExtension
+  public LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
+  @Test
+  void equal_regexes_share_results() {
+    List<LiteralTree> literals = literals(
+      "class A {\n"
+        + "  String s0 = \"a+b\";\n"
+        + "  String s1 = \"a+b\";\n"
+        + "  String s2 = \"a*b\";\n"
+        + "}");
+    RegexCache regexCache = new RegexCache();
+    RegexParseResult s0 = regexCache.getRegexForLiterals(new FlagSet(), literals.get(0));
+    RegexParseResult s1 = regexCache.getRegexForLiterals(new FlagSet(), literals.get(1));
+    RegexParseResult s2 = regexCache.getRegexForLiterals(new FlagSet(), literals.get(2));
+
+    AtomicInteger analyses = new AtomicInteger();
+    RegexAnalysisCache<Integer> cache = new RegexAnalysisCache<>("Analysis");
+    assertThat(cache.computeIfAbsent(s0, "full", analyses::incrementAndGet)).isEqualTo(1);
+    assertThat(cache.computeIfAbsent(s1, "full", analyses::incrementAndGet)).isEqualTo(1);
+    assertThat(cache.computeIfAbsent(s2, "full", analyses::incrementAndGet)).isEqualTo(2);
+    // different variant of the same regex
+    assertThat(cache.computeIfAbsent(s0, "partial", analyses::incrementAndGet)).isEqualTo(3);
+
+    assertThat(cache.hits()).isEqualTo(1);
+    assertThat(cache.misses()).isEqualTo(3);
+    assertThat(cache.size()).isEqualTo(3);
+
+    RegexAnalysisCache.logAllStatistics();
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Analysis cache: 1 hits, 3 misses, 3 cached results");
+  }
+
+  @Test
+  void initial_flags_are_part_of_the_key() {
+    List<LiteralTree> literals = literals(
+      "class A {\n"
+        + "  String s0 = \"a+b\";\n"
+        + "  String s1 = \"a+b\";\n"
+        + "}");
+    RegexCache regexCache = new RegexCache();
+    RegexParseResult withoutFlags = regexCache.getRegexForLiterals(new FlagSet(), literals.get(0));
+    RegexParseResult caseInsensitive = regexCache.getRegexForLiterals(new FlagSet(Pattern.CASE_INSENSITIVE), literals.get(1));
+
+    RegexAnalysisCache<String> cache = new RegexAnalysisCache<>("Analysis");
+    assertThat(cache.computeIfAbsent(withoutFlags, "full", () -> "first")).isEqualTo("first");
+    assertThat(cache.computeIfAbsent(caseInsensitive, "full", () -> "second")).isEqualTo("second");
+    assertThat(cache.hits()).isZero();
+  }
+
+  @Test
+  void least_recently_used_results_are_evicted() {
+    List<LiteralTree> literals = literals(
+      "class A {\n"
+        + "  String s0 = \"a\";\n"
+        + "  String s1 = \"b\";\n"
+        + "  String s2 = \"c\";\n"
+        + "}");
+    RegexCache regexCache = new RegexCache();
+    RegexParseResult a = regexCache.getRegexForLiterals(new FlagSet(), literals.get(0));
+    RegexParseResult b = regexCache.getRegexForLiterals(new FlagSet(), literals.get(1));
+    RegexParseResult c = regexCache.getRegexForLiterals(new FlagSet(), literals.get(2));
+
+    RegexAnalysisCache<String> cache = new RegexAnalysisCache<>("Analysis", 2);
+    cache.computeIfAbsent(a, "full", () -> "a");
+    cache.computeIfAbsent(b, "full", () -> "b");
+    // "a" becomes the most recently used
+    cache.computeIfAbsent(a, "full", () -> "unexpected");
+    cache.computeIfAbsent(c, "full", () -> "c");
+    assertThat(cache.size()).isEqualTo(2);
+
+    assertThat(cache.computeIfAbsent(a, "full", () -> "unexpected")).isEqualTo("a");
+    assertThat(cache.computeIfAbsent(b, "full", () -> "b again")).isEqualTo("b again");
+    assertThat(cache.hits()).isEqualTo(2);
+    assertThat(cache.misses()).isEqualTo(4);
+  }
+
+  private static List<LiteralTree> literals(String source) {
+    CompilationUnitTree cut = JParserTestUtils.parse(source);
+    ClassTree a = (ClassTree) cut.types().get(0);
+    return a.members().stream()
+      .map(VariableTree.class::cast)
+      .map(VariableTree::initializer)
+      .map(LiteralTree.class::cast)
+      .collect(Collectors.toList());
+  }
+
+}
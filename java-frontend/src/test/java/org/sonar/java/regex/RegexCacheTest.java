@@ -20,6 +20,8 @@
 package org.sonar.java.regex;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 import org.sonar.java.model.JParserTestUtils;
 import org.sonar.plugins.java.api.tree.ClassTree;
@@ -83,4 +85,34 @@ class RegexCacheTest {
     assertThat(resultForS1S0).isSameAs(cache.getRegexForLiterals(new FlagSet(), s1, s0));
   }
 
+  @Test
+  void regex_of_a_use_site_is_discovered_once() {
+    CompilationUnitTree cut = JParserTestUtils.parse(
+      "class A {\n"
+        + "  String s0 = \"abc\";\n"
+        + "  String s1 = \"abc\";\n"
+        + "}");
+    ClassTree a = (ClassTree) cut.types().get(0);
+    List<Tree> fields = a.members();
+    LiteralTree s0 = (LiteralTree) ((VariableTree) fields.get(0)).initializer();
+    LiteralTree s1 = (LiteralTree) ((VariableTree) fields.get(1)).initializer();
+
+    RegexCache cache = new RegexCache();
+    AtomicInteger discoveries = new AtomicInteger();
+    Optional<RegexParseResult> resultForS0 = cache.getRegexForUseSite(s0, site -> {
+      discoveries.incrementAndGet();
+      return Optional.of(cache.getRegexForLiterals(new FlagSet(), (LiteralTree) site));
+    });
+    Optional<RegexParseResult> resultForS1 = cache.getRegexForUseSite(s1, site -> {
+      discoveries.incrementAndGet();
+      return Optional.empty();
+    });
+
+    assertThat(resultForS0).isPresent();
+    assertThat(resultForS1).isEmpty();
+    assertThat(cache.getRegexForUseSite(s0, site -> Optional.empty())).isSameAs(resultForS0);
+    assertThat(cache.getRegexForUseSite(s1, site -> Optional.empty())).isSameAs(resultForS1);
+    assertThat(discoveries).hasValue(2);
+  }
+
 }
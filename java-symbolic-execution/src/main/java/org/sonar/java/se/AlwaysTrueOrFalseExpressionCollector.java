@@ -22,6 +22,7 @@ package org.sonar.java.se;
 import java.util.Arrays;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -44,6 +45,18 @@ import java.util.stream.Collectors;
 
 public class AlwaysTrueOrFalseExpressionCollector {
 
+  /**
+   * Kinds of the trees whose conditions are collected.
+   */
+  public static final Set<Tree.Kind> CONDITION_KINDS = Collections.unmodifiableSet(EnumSet.of(
+    Tree.Kind.IF_STATEMENT,
+    Tree.Kind.CONDITIONAL_EXPRESSION,
+    Tree.Kind.CONDITIONAL_AND,
+    Tree.Kind.CONDITIONAL_OR,
+    Tree.Kind.FOR_STATEMENT,
+    Tree.Kind.WHILE_STATEMENT,
+    Tree.Kind.DO_STATEMENT));
+
   private final Map<Tree, Set<ExplodedGraph.Node>> falseEvaluations = new HashMap<>();
   private final Map<Tree, Set<ExplodedGraph.Node>> trueEvaluations = new HashMap<>();
 
@@ -19,6 +19,8 @@
  */
 package org.sonar.java.se;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -27,6 +29,7 @@ import org.sonar.java.Preconditions;
 import org.sonar.java.se.xproc.MethodYield;
 import org.sonar.plugins.java.api.tree.Tree;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
 import java.util.Collection;
@@ -40,6 +43,12 @@ public class ExplodedGraph {
 
   private final Map<Node, Node> nodes = new HashMap<>();
   private final Map<ProgramPoint, List<Node>> nodesByProgramPoint = new HashMap<>();
+  /**
+   * Nodes indexed by program point and {@link ProgramState#subsumptionKey()}, built on the first call to
+   * {@link #subsumingNode(ProgramPoint, ProgramState, boolean)} so that explorations without subsumption do not pay for it.
+   */
+  @Nullable
+  private Map<List<Object>, List<Node>> subsumptionCandidates;
 
   /**
    * Returns node associated with given (programPoint,programState) pair. If no node for this pair exists, it is created.
@@ -54,9 +63,41 @@ public class ExplodedGraph {
     result.isNew = true;
     nodes.put(result, result);
     nodesByProgramPoint.computeIfAbsent(programPoint, k -> new LinkedList<>()).add(result);
+    if (subsumptionCandidates != null) {
+      indexSubsumptionCandidate(result);
+    }
     return result;
   }
 
+  /**
+   * @return a node of the given program point, on a path of the same kind, whose state subsumes the given state
+   * @see ProgramState#subsumes(ProgramState)
+   */
+  @CheckForNull
+  public Node subsumingNode(ProgramPoint programPoint, ProgramState programState, boolean exitPath) {
+    if (subsumptionCandidates == null) {
+      subsumptionCandidates = new HashMap<>();
+      nodes.keySet().forEach(this::indexSubsumptionCandidate);
+    }
+    List<Node> candidates = subsumptionCandidates.getOrDefault(subsumptionKey(programPoint, programState), Collections.emptyList());
+    for (Node candidate : candidates) {
+      if (candidate.exitPath == exitPath && candidate.programState.subsumes(programState)) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  private void indexSubsumptionCandidate(Node node) {
+    if (node.programState != null) {
+      subsumptionCandidates.computeIfAbsent(subsumptionKey(node.programPoint, node.programState), k -> new ArrayList<>()).add(node);
+    }
+  }
+
+  private static List<Object> subsumptionKey(ProgramPoint programPoint, ProgramState programState) {
+    return Arrays.asList(programPoint, programState.subsumptionKey());
+  }
+
   public Map<Node, Node> nodes() {
     return nodes;
   }
@@ -23,11 +23,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -39,6 +37,7 @@ import javax.annotation.Nullable;
 import org.sonar.java.Preconditions;
 import org.sonar.java.annotations.VisibleForTesting;
 import org.sonar.java.cfg.CFG;
+import org.sonar.java.cfg.DataflowCache;
 import org.sonar.java.cfg.LiveVariables;
 import org.sonarsource.analyzer.commons.collections.ListUtils;
 import org.sonarsource.analyzer.commons.collections.SetUtils;
@@ -107,6 +106,8 @@ public class ExplodedGraphWalker {
    * Arbitrary number to limit symbolic execution.
    */
   private static final int MAX_STEPS = 16_000;
+  // number of steps between two checks of the time limit of the method, the first check being done at the first step
+  private static final int TIME_CHECK_INTERVAL = 64;
   public static final int MAX_NESTED_BOOLEAN_STATES = 10_000;
   // would correspond to 10 parameters annotated with @Nullable
   private static final int MAX_STARTING_STATES = 1_024;
@@ -136,7 +137,7 @@ public class ExplodedGraphWalker {
   private ExplodedGraph explodedGraph;
 
   @VisibleForTesting
-  Deque<ExplodedGraph.Node> workList;
+  WorkList workList;
   ExplodedGraph.Node node;
   ProgramPoint programPosition;
   ProgramState programState;
@@ -146,6 +147,7 @@ public class ExplodedGraphWalker {
   private CFG.Block exitBlock;
 
   private final Sema semanticModel;
+  private final DataflowCache dataflowCache;
   private final BehaviorCache behaviorCache;
   @VisibleForTesting
   int steps;
@@ -155,6 +157,9 @@ public class ExplodedGraphWalker {
   @Nullable
   MethodBehavior methodBehavior;
   private Set<ExplodedGraph.Node> endOfExecutionPath;
+  private SymbolicExecutionOptions options = SymbolicExecutionOptions.DEFAULT;
+  @Nullable
+  private SymbolicExecutionBudget.MethodBudget budget;
 
   public static class ExplodedGraphTooBigException extends RuntimeException {
 
@@ -191,6 +196,7 @@ public class ExplodedGraphWalker {
     this.checkerDispatcher = new CheckerDispatcher(this, checks, context);
     this.behaviorCache = behaviorCache;
     this.semanticModel = (Sema) context.getSemanticModel();
+    this.dataflowCache = DataflowCache.of(context);
   }
 
   @VisibleForTesting
@@ -201,10 +207,16 @@ public class ExplodedGraphWalker {
 
   @VisibleForTesting
   protected ExplodedGraphWalker(List<SECheck> seChecks, BehaviorCache behaviorCache, JavaFileScannerContext context) {
+    this(seChecks, behaviorCache, context, SymbolicExecutionOptions.DEFAULT);
+  }
+
+  protected ExplodedGraphWalker(List<SECheck> seChecks, BehaviorCache behaviorCache, JavaFileScannerContext context, SymbolicExecutionOptions options) {
     this.alwaysTrueOrFalseExpressionCollector = new AlwaysTrueOrFalseExpressionCollector();
     this.checkerDispatcher = new CheckerDispatcher(this, seChecks, context);
     this.behaviorCache = behaviorCache;
     this.semanticModel = (Sema) context.getSemanticModel();
+    this.dataflowCache = DataflowCache.of(context);
+    this.options = options;
   }
 
   public MethodBehavior visitMethod(MethodTree tree) {
@@ -229,14 +241,12 @@ public class ExplodedGraphWalker {
 
     checkerDispatcher.init(tree, cfg);
 
-    PerformanceMeasure.Duration liveVariablesDuration = PerformanceMeasure.start("LiveVariables.analyze");
-    liveVariables = LiveVariables.analyze(cfg);
-    liveVariablesDuration.stop();
+    liveVariables = dataflowCache.liveVariables(cfg);
 
     explodedGraph = new ExplodedGraph();
     methodTree = tree;
     constraintManager = new ConstraintManager();
-    workList = new LinkedList<>();
+    workList = WorkList.create(options.explorationStrategy());
     // Linked hashSet is required to guarantee order of yields to be generated
     endOfExecutionPath = new LinkedHashSet<>();
     programState = ProgramState.EMPTY_STATE;
@@ -244,13 +254,16 @@ public class ExplodedGraphWalker {
     for (ProgramState startingState : startingStates(tree, programState)) {
       enqueue(new ProgramPoint(cfg.entryBlock()), startingState);
     }
+    int stepLimit = budget == null ? maxSteps() : budget.stepLimit();
     while (!workList.isEmpty()) {
       steps++;
-      if (steps > maxSteps()) {
-        throwMaxSteps(tree);
+      if (steps > stepLimit) {
+        throwMaxSteps(tree, stepLimit);
       }
-      // LIFO:
-      setNode(workList.removeFirst());
+      if (budget != null && steps % TIME_CHECK_INTERVAL == 1 && budget.isOutOfTime()) {
+        throwOutOfTime(tree);
+      }
+      setNode(workList.remove());
       CFG.Block block = (CFG.Block) programPosition.block;
       if (block.successors().isEmpty()) {
         endOfExecutionPath.add(node);
@@ -313,9 +326,17 @@ public class ExplodedGraphWalker {
     throw cause;
   }
 
-  private void throwMaxSteps(MethodTree tree) {
+  private void throwMaxSteps(MethodTree tree, int stepLimit) {
     String message = String.format("reached limit of %d steps for method %s#%d in class %s",
-      maxSteps(), tree.simpleName().name(), tree.simpleName().firstToken().range().start().line(), tree.symbol().owner().name());
+      stepLimit, tree.simpleName().name(), tree.simpleName().firstToken().range().start().line(), tree.symbol().owner().name());
+    MaximumStepsReachedException cause = new MaximumStepsReachedException(message);
+    interrupted(cause);
+    throw cause;
+  }
+
+  private void throwOutOfTime(MethodTree tree) {
+    String message = String.format("reached time limit after %d steps for method %s#%d in class %s",
+      steps, tree.simpleName().name(), tree.simpleName().firstToken().range().start().line(), tree.symbol().owner().name());
     MaximumStepsReachedException cause = new MaximumStepsReachedException(message);
     interrupted(cause);
     throw cause;
@@ -1211,6 +1232,16 @@ public class ExplodedGraphWalker {
     }
     checkExplodedGraphTooBig(programState);
     ProgramState ps = programState.visitedPoint(programPoint, nbOfExecution + 1);
+    if (options.stateSubsumption()) {
+      ExplodedGraph.Node subsumingNode = explodedGraph.subsumingNode(programPoint, ps, exitPath);
+      if (subsumingNode != null) {
+        // paths from the new state are covered by the ones of an explored state
+        if (subsumingNode != node) {
+          subsumingNode.addParent(node, methodYield);
+        }
+        return;
+      }
+    }
     ExplodedGraph.Node cachedNode = explodedGraph.node(programPoint, ps);
     if (!cachedNode.isNew() && exitPath == cachedNode.exitPath) {
       // has been enqueued earlier
@@ -1219,7 +1250,7 @@ public class ExplodedGraphWalker {
     }
     cachedNode.exitPath = exitPath;
     cachedNode.addParent(node, methodYield);
-    workList.addFirst(cachedNode);
+    workList.add(cachedNode);
   }
 
   private static boolean isRestartingForEachLoop(ProgramPoint programPoint) {
@@ -1240,6 +1271,13 @@ public class ExplodedGraphWalker {
     return MAX_STEPS;
   }
 
+  /**
+   * @param budget limits of the execution of the next method, replacing the {@link #maxSteps()} of this walker
+   */
+  void setBudget(SymbolicExecutionBudget.MethodBudget budget) {
+    this.budget = budget;
+  }
+
   AlwaysTrueOrFalseExpressionCollector alwaysTrueOrFalseExpressionCollector() {
     return alwaysTrueOrFalseExpressionCollector;
   }
@@ -1253,8 +1291,14 @@ public class ExplodedGraphWalker {
 
     @VisibleForTesting
     final List<SECheck> seChecks = new ArrayList<>();
+    private final SymbolicExecutionOptions options;
 
     public ExplodedGraphWalkerFactory(List<SECheck> activeSEChecks) {
+      this(activeSEChecks, SymbolicExecutionOptions.DEFAULT);
+    }
+
+    public ExplodedGraphWalkerFactory(List<SECheck> activeSEChecks, SymbolicExecutionOptions options) {
+      this.options = options;
       List<SECheck> checks = new ArrayList<>(activeSEChecks);
 
       // This order of the mandatory SE checks is required by the ExplodedGraphWalker
@@ -1272,7 +1316,7 @@ public class ExplodedGraphWalker {
     }
 
     public ExplodedGraphWalker createWalker(BehaviorCache behaviorCache, JavaFileScannerContext context) {
-      return new ExplodedGraphWalker(seChecks, behaviorCache, context);
+      return new ExplodedGraphWalker(seChecks, behaviorCache, context, options);
     }
 
     @SuppressWarnings("unchecked")
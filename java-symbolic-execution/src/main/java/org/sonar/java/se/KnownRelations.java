@@ -0,0 +1,149 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.sonar.java.se.symbolicvalues.RelationalSymbolicValue;
+import org.sonar.java.se.symbolicvalues.SymbolicValue;
+import org.sonarsource.analyzer.commons.collections.PCollections;
+import org.sonarsource.analyzer.commons.collections.PMap;
+import org.sonarsource.analyzer.commons.collections.PSet;
+
+/**
+ * Relations known to hold in a program state, ie. the relational symbolic values constrained to TRUE, indexed by operand.
+ * <p>
+ * Instances are immutable, adding or removing a relation shares most of the structure of the original instance, so that
+ * program states derived from each other do not have to collect their relations again.
+ */
+public final class KnownRelations {
+
+  public static final KnownRelations EMPTY = new KnownRelations(PCollections.emptySet(), 0, PCollections.emptyMap());
+
+  private final PSet<RelationalSymbolicValue> relations;
+  private final int size;
+  private final PMap<SymbolicValue, PSet<RelationalSymbolicValue>> relationsByOperand;
+
+  private KnownRelations(PSet<RelationalSymbolicValue> relations, int size, PMap<SymbolicValue, PSet<RelationalSymbolicValue>> relationsByOperand) {
+    this.relations = relations;
+    this.size = size;
+    this.relationsByOperand = relationsByOperand;
+  }
+
+  public static KnownRelations of(Iterable<RelationalSymbolicValue> relations) {
+    KnownRelations result = EMPTY;
+    for (RelationalSymbolicValue relation : relations) {
+      result = result.add(relation);
+    }
+    return result;
+  }
+
+  public boolean contains(RelationalSymbolicValue relation) {
+    return relations.contains(relation);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void forEach(Consumer<RelationalSymbolicValue> action) {
+    relations.forEach(action);
+  }
+
+  /**
+   * Visits the relations having the given symbolic value as left or right operand.
+   */
+  public void forEachRelationOf(SymbolicValue operand, Consumer<RelationalSymbolicValue> action) {
+    PSet<RelationalSymbolicValue> operandRelations = relationsByOperand.get(operand);
+    if (operandRelations != null) {
+      operandRelations.forEach(action);
+    }
+  }
+
+  /**
+   * @return the symbolic values directly related to the given one by an equality, without following equalities further
+   */
+  public List<SymbolicValue> equalValues(SymbolicValue symbolicValue) {
+    PSet<RelationalSymbolicValue> operandRelations = relationsByOperand.get(symbolicValue);
+    if (operandRelations == null) {
+      return Collections.emptyList();
+    }
+    List<SymbolicValue> result = new ArrayList<>();
+    operandRelations.forEach(relation -> {
+      if (relation.isEquality()) {
+        result.add(relation.getLeftOp() == symbolicValue ? relation.getRightOp() : relation.getLeftOp());
+      }
+    });
+    return result;
+  }
+
+  public Set<RelationalSymbolicValue> toSet() {
+    Set<RelationalSymbolicValue> result = new HashSet<>();
+    relations.forEach(result::add);
+    return Collections.unmodifiableSet(result);
+  }
+
+  public KnownRelations add(RelationalSymbolicValue relation) {
+    if (relations.contains(relation)) {
+      return this;
+    }
+    SymbolicValue leftOp = relation.getLeftOp();
+    SymbolicValue rightOp = relation.getRightOp();
+    PMap<SymbolicValue, PSet<RelationalSymbolicValue>> newRelationsByOperand = addByOperand(relationsByOperand, leftOp, relation);
+    if (!leftOp.equals(rightOp)) {
+      newRelationsByOperand = addByOperand(newRelationsByOperand, rightOp, relation);
+    }
+    return new KnownRelations(relations.add(relation), size + 1, newRelationsByOperand);
+  }
+
+  public KnownRelations remove(RelationalSymbolicValue relation) {
+    if (!relations.contains(relation)) {
+      return this;
+    }
+    PMap<SymbolicValue, PSet<RelationalSymbolicValue>> newRelationsByOperand = removeByOperand(relationsByOperand, relation.getLeftOp(), relation);
+    newRelationsByOperand = removeByOperand(newRelationsByOperand, relation.getRightOp(), relation);
+    return new KnownRelations(relations.remove(relation), size - 1, newRelationsByOperand);
+  }
+
+  private static PMap<SymbolicValue, PSet<RelationalSymbolicValue>> addByOperand(PMap<SymbolicValue, PSet<RelationalSymbolicValue>> byOperand,
+    SymbolicValue operand, RelationalSymbolicValue relation) {
+    PSet<RelationalSymbolicValue> operandRelations = byOperand.get(operand);
+    return byOperand.put(operand, (operandRelations == null ? PCollections.<RelationalSymbolicValue>emptySet() : operandRelations).add(relation));
+  }
+
+  private static PMap<SymbolicValue, PSet<RelationalSymbolicValue>> removeByOperand(PMap<SymbolicValue, PSet<RelationalSymbolicValue>> byOperand,
+    SymbolicValue operand, RelationalSymbolicValue relation) {
+    PSet<RelationalSymbolicValue> operandRelations = byOperand.get(operand);
+    return operandRelations == null ? byOperand : byOperand.put(operand, operandRelations.remove(relation));
+  }
+
+  @Override
+  public String toString() {
+    return toSet().toString();
+  }
+}
@@ -23,6 +23,7 @@ import java.util.HashSet;
 import org.sonar.java.annotations.VisibleForTesting;
 import org.sonar.java.Preconditions;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -33,13 +34,13 @@ import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonarsource.analyzer.commons.collections.PCollections;
-import org.sonarsource.analyzer.commons.collections.PMap;
 import org.sonarsource.analyzer.commons.collections.PStack;
 import org.sonarsource.analyzer.commons.collections.SetUtils;
 import org.sonar.java.se.checks.CustomUnclosedResourcesCheck;
 import org.sonar.java.se.checks.LocksNotUnlockedCheck;
 import org.sonar.java.se.checks.StreamConsumedCheck;
 import org.sonar.java.se.checks.UnclosedResourcesCheck;
+import org.sonar.java.se.collections.HashTrieMap;
 import org.sonar.java.se.constraint.BooleanConstraint;
 import org.sonar.java.se.constraint.Constraint;
 import org.sonar.java.se.constraint.ConstraintManager;
@@ -57,7 +58,11 @@ public class ProgramState {
 
   private static final Set<Class<? extends Constraint>> NON_DISPOSABLE_CONSTRAINTS = SetUtils.immutableSetOf(UnclosedResourcesCheck.ResourceConstraint.class,
     CustomUnclosedResourcesCheck.CustomResourceConstraint.class, LocksNotUnlockedCheck.LockConstraint.class, StreamConsumedCheck.StreamPipelineConstraint.class);
-  private Set<RelationalSymbolicValue> knownRelations;
+  /**
+   * Computed on demand, then maintained by the program states derived from this one when they only add or remove constraints.
+   */
+  @Nullable
+  private KnownRelations knownRelations;
 
   public static class Pop {
 
@@ -124,26 +129,26 @@ public class ProgramState {
 
   private final int constraintSize;
   public static final ProgramState EMPTY_STATE = new ProgramState(
-    PCollections.emptyMap(),
-    PCollections.emptyMap(),
-    PCollections.<SymbolicValue, ConstraintsByDomain>emptyMap()
+    HashTrieMap.empty(),
+    HashTrieMap.empty(),
+    HashTrieMap.<SymbolicValue, ConstraintsByDomain>empty()
       .put(SymbolicValue.NULL_LITERAL, ConstraintsByDomain.empty().put(ObjectConstraint.NULL))
       .put(SymbolicValue.TRUE_LITERAL, ConstraintsByDomain.empty().put(BooleanConstraint.TRUE).put(ObjectConstraint.NOT_NULL))
       .put(SymbolicValue.FALSE_LITERAL, ConstraintsByDomain.empty().put(BooleanConstraint.FALSE).put(ObjectConstraint.NOT_NULL)),
-        PCollections.emptyMap(),
+        HashTrieMap.empty(),
     PCollections.emptyStack(),
     null);
 
-  private final PMap<ProgramPoint, Integer> visitedPoints;
+  private final HashTrieMap<ProgramPoint, Integer> visitedPoints;
   private final PStack<SymbolicValueSymbol> stack;
-  private final PMap<SymbolicValue, Integer> references;
+  private final HashTrieMap<SymbolicValue, Integer> references;
   private SymbolicValue exitSymbolicValue;
-  final PMap<Symbol, SymbolicValue> values;
-  final PMap<Integer, SymbolicValue> valuesByIndex;
-  final PMap<SymbolicValue, ConstraintsByDomain> constraints;
+  final HashTrieMap<Symbol, SymbolicValue> values;
+  final HashTrieMap<Integer, SymbolicValue> valuesByIndex;
+  final HashTrieMap<SymbolicValue, ConstraintsByDomain> constraints;
 
-  private ProgramState(PMap<Symbol, SymbolicValue> values,PMap<Integer, SymbolicValue> valuesByIndex, PMap<SymbolicValue, Integer> references,
-                       PMap<SymbolicValue, ConstraintsByDomain> constraints, PMap<ProgramPoint, Integer> visitedPoints,
+  private ProgramState(HashTrieMap<Symbol, SymbolicValue> values, HashTrieMap<Integer, SymbolicValue> valuesByIndex, HashTrieMap<SymbolicValue, Integer> references,
+                       HashTrieMap<SymbolicValue, ConstraintsByDomain> constraints, HashTrieMap<ProgramPoint, Integer> visitedPoints,
                        PStack<SymbolicValueSymbol> stack, SymbolicValue exitSymbolicValue) {
     this.values = values;
     this.valuesByIndex = valuesByIndex;
@@ -155,11 +160,11 @@ public class ProgramState {
     constraintSize = 3;
   }
 
-  private ProgramState(PMap<Symbol, SymbolicValue> values, PMap<SymbolicValue, Integer> references,
-                       PMap<SymbolicValue, ConstraintsByDomain> constraints, PMap<ProgramPoint, Integer> visitedPoints,
+  private ProgramState(HashTrieMap<Symbol, SymbolicValue> values, HashTrieMap<SymbolicValue, Integer> references,
+                       HashTrieMap<SymbolicValue, ConstraintsByDomain> constraints, HashTrieMap<ProgramPoint, Integer> visitedPoints,
                        PStack<SymbolicValueSymbol> stack, SymbolicValue exitSymbolicValue) {
     this.values = values;
-    this.valuesByIndex = PCollections.emptyMap();
+    this.valuesByIndex = HashTrieMap.empty();
     this.references = references;
     this.constraints = constraints;
     this.visitedPoints = visitedPoints;
@@ -177,9 +182,10 @@ public class ProgramState {
     visitedPoints = ps.visitedPoints;
     exitSymbolicValue = ps.exitSymbolicValue;
     stack = newStack;
+    knownRelations = ps.knownRelations;
   }
 
-  private ProgramState(ProgramState ps, PMap<SymbolicValue, ConstraintsByDomain> newConstraints) {
+  private ProgramState(ProgramState ps, HashTrieMap<SymbolicValue, ConstraintsByDomain> newConstraints) {
     values = ps.values;
     valuesByIndex = ps.valuesByIndex;
     references = ps.references;
@@ -264,6 +270,34 @@ public class ProgramState {
       Objects.equals(stack, that.stack);
   }
 
+  /**
+   * A state subsumes another one when both bind the same symbols to the same symbolic values, with the same stack and exit
+   * value, and when each constraint of this state is also a constraint of the other state. Being less constrained, this
+   * state reaches at least the paths the other state reaches.
+   */
+  public boolean subsumes(ProgramState other) {
+    if (this == other) {
+      return true;
+    }
+    if (!Objects.equals(values, other.values)
+      || !Objects.equals(exitSymbolicValue, other.exitSymbolicValue)
+      || !Objects.equals(stack, other.stack)) {
+      return false;
+    }
+    boolean[] subsumes = {true};
+    constraints.forEach((sv, constraintsByDomain) -> {
+      if (subsumes[0]) {
+        ConstraintsByDomain otherConstraints = other.constraints.get(sv);
+        constraintsByDomain.forEach((domain, constraint) -> {
+          if (otherConstraints == null || !constraint.equals(otherConstraints.get(domain))) {
+            subsumes[0] = false;
+          }
+        });
+      }
+    });
+    return subsumes[0];
+  }
+
   @Override
   public int hashCode() {
     if (hashCode == 0) {
@@ -277,11 +311,15 @@ public class ProgramState {
     return "{" + values.toString() + "}  {" + constraints.toString() + "}" + " { " + stack.toString() + " }";
   }
 
+  /**
+   * @return a key which is equal for any two states such that one subsumes the other, see {@link #subsumes(ProgramState)}
+   */
+  Object subsumptionKey() {
+    return Arrays.asList(values, exitSymbolicValue, peekValue());
+  }
+
   public ProgramState addConstraintTransitively(SymbolicValue symbolicValue, Constraint constraint) {
-    List<SymbolicValue> transitiveSymbolicValues = knownRelations().stream()
-      .filter(rsv -> rsv.isEquality() && (rsv.getLeftOp() == symbolicValue || rsv.getRightOp() == symbolicValue))
-      .map(rsv -> rsv.getLeftOp() == symbolicValue ? rsv.getRightOp() : rsv.getLeftOp())
-      .collect(Collectors.toList());
+    List<SymbolicValue> transitiveSymbolicValues = knownRelations().equalValues(symbolicValue);
     ProgramState ps = addConstraint(symbolicValue, constraint);
     for (SymbolicValue sv : transitiveSymbolicValues) {
       ps = ps.addConstraint(sv, constraint);
@@ -289,13 +327,13 @@ public class ProgramState {
     return ps;
   }
 
-  public Set<RelationalSymbolicValue> knownRelations() {
-    if(knownRelations == null) {
-      knownRelations = Collections.unmodifiableSet(getValuesWithConstraints(BooleanConstraint.TRUE)
+  public KnownRelations knownRelations() {
+    if (knownRelations == null) {
+      knownRelations = KnownRelations.of(getValuesWithConstraints(BooleanConstraint.TRUE)
         .stream()
         .filter(RelationalSymbolicValue.class::isInstance)
         .map(RelationalSymbolicValue.class::cast)
-        .collect(Collectors.toSet()));
+        .collect(Collectors.toList()));
     }
     return knownRelations;
   }
@@ -311,13 +349,31 @@ public class ProgramState {
   }
 
   public ProgramState addConstraints(SymbolicValue symbolicValue, ConstraintsByDomain constraintsForSV) {
-    PMap<SymbolicValue, ConstraintsByDomain> newConstraints = constraints.put(symbolicValue, constraintsForSV);
+    HashTrieMap<SymbolicValue, ConstraintsByDomain> newConstraints = constraints.put(symbolicValue, constraintsForSV);
     if (newConstraints != constraints) {
-      return new ProgramState(this, newConstraints);
+      ProgramState result = new ProgramState(this, newConstraints);
+      result.knownRelations = knownRelationsAfter(symbolicValue, constraintsForSV);
+      return result;
     }
     return this;
   }
 
+  /**
+   * @return relations known once the constraints of the given symbolic value are replaced, null when the relations of this
+   * state were not computed
+   */
+  @CheckForNull
+  private KnownRelations knownRelationsAfter(SymbolicValue symbolicValue, @Nullable ConstraintsByDomain newConstraints) {
+    if (knownRelations == null || !(symbolicValue instanceof RelationalSymbolicValue)) {
+      return knownRelations;
+    }
+    RelationalSymbolicValue relation = (RelationalSymbolicValue) symbolicValue;
+    if (newConstraints != null && newConstraints.get(BooleanConstraint.class) == BooleanConstraint.TRUE) {
+      return knownRelations.add(relation);
+    }
+    return knownRelations.remove(relation);
+  }
+
   public ProgramState removeConstraintsOnDomain(SymbolicValue sv, Class<? extends Constraint> domain) {
     ConstraintsByDomain svConstraint = constraints.get(sv);
     if(svConstraint == null) {
@@ -325,7 +381,9 @@ public class ProgramState {
     }
     ConstraintsByDomain newConstraintForSv = svConstraint.remove(domain);
     if(newConstraintForSv.isEmpty()) {
-      return new ProgramState(this, constraints.remove(sv));
+      ProgramState result = new ProgramState(this, constraints.remove(sv));
+      result.knownRelations = knownRelationsAfter(sv, null);
+      return result;
     }
     return addConstraints(sv, newConstraintForSv);
   }
@@ -341,13 +399,15 @@ public class ProgramState {
     }
     SymbolicValue oldValue = values.get(symbol);
     if (oldValue == null || oldValue != value) {
-      PMap<SymbolicValue, Integer> newReferences = references;
+      HashTrieMap<SymbolicValue, Integer> newReferences = references;
       if (oldValue != null) {
         newReferences = decreaseReference(newReferences, oldValue);
       }
       newReferences = increaseReference(newReferences, value);
-      PMap<Symbol, SymbolicValue> newValues = values.put(symbol, value);
-      return new ProgramState(newValues, newReferences, constraints, visitedPoints, stack, exitSymbolicValue);
+      HashTrieMap<Symbol, SymbolicValue> newValues = values.put(symbol, value);
+      ProgramState result = new ProgramState(newValues, newReferences, constraints, visitedPoints, stack, exitSymbolicValue);
+      result.knownRelations = knownRelations;
+      return result;
     }
     return this;
   }
@@ -356,13 +416,13 @@ public class ProgramState {
     return isField(symbol) && symbol.isVolatile();
   }
 
-  private static PMap<SymbolicValue, Integer> decreaseReference(PMap<SymbolicValue, Integer> givenReferences, SymbolicValue sv) {
+  private static HashTrieMap<SymbolicValue, Integer> decreaseReference(HashTrieMap<SymbolicValue, Integer> givenReferences, SymbolicValue sv) {
     Integer value = givenReferences.get(sv);
     Objects.requireNonNull(value);
     return givenReferences.put(sv, value - 1);
   }
 
-  private static PMap<SymbolicValue, Integer> increaseReference(PMap<SymbolicValue, Integer> givenReferences, SymbolicValue sv) {
+  private static HashTrieMap<SymbolicValue, Integer> increaseReference(HashTrieMap<SymbolicValue, Integer> givenReferences, SymbolicValue sv) {
     Integer value = givenReferences.get(sv);
     if (value == null) {
       return givenReferences.put(sv, 1);
@@ -389,9 +449,9 @@ public class ProgramState {
   public ProgramState cleanupDeadSymbols(Set<Symbol> liveVariables, Collection<SymbolicValue> protectedSymbolicValues) {
     class CleanAction implements BiConsumer<Symbol, SymbolicValue> {
       boolean newProgramState = false;
-      PMap<Symbol, SymbolicValue> newValues = values;
-      PMap<SymbolicValue, Integer> newReferences = references;
-      PMap<SymbolicValue, ConstraintsByDomain> newConstraints = constraints;
+      HashTrieMap<Symbol, SymbolicValue> newValues = values;
+      HashTrieMap<SymbolicValue, Integer> newReferences = references;
+      HashTrieMap<SymbolicValue, ConstraintsByDomain> newConstraints = constraints;
 
       @Override
       public void accept(Symbol symbol, SymbolicValue symbolicValue) {
@@ -416,8 +476,8 @@ public class ProgramState {
   public ProgramState cleanupConstraints(Collection<SymbolicValue> protectedSymbolicValues) {
     class CleanAction implements BiConsumer<SymbolicValue, ConstraintsByDomain> {
       boolean newProgramState = false;
-      PMap<SymbolicValue, ConstraintsByDomain> newConstraints = constraints;
-      PMap<SymbolicValue, Integer> newReferences = references;
+      HashTrieMap<SymbolicValue, ConstraintsByDomain> newConstraints = constraints;
+      HashTrieMap<SymbolicValue, Integer> newReferences = references;
 
       @Override
       public void accept(SymbolicValue symbolicValue, ConstraintsByDomain constraintPMap) {
@@ -462,7 +522,7 @@ public class ProgramState {
     return symbol.isVariableSymbol() && !symbol.owner().isMethodSymbol();
   }
 
-  private static boolean isReachable(SymbolicValue symbolicValue, PMap<SymbolicValue, Integer> references) {
+  private static boolean isReachable(SymbolicValue symbolicValue, HashTrieMap<SymbolicValue, Integer> references) {
     Integer integer = references.get(symbolicValue);
     return integer != null && integer > 0;
   }
@@ -472,7 +532,9 @@ public class ProgramState {
   }
 
   public ProgramState visitedPoint(ProgramPoint programPoint, int nbOfVisit) {
-    return new ProgramState(values, valuesByIndex, references, constraints, visitedPoints.put(programPoint, nbOfVisit), stack, exitSymbolicValue);
+    ProgramState result = new ProgramState(values, valuesByIndex, references, constraints, visitedPoints.put(programPoint, nbOfVisit), stack, exitSymbolicValue);
+    result.knownRelations = knownRelations;
+    return result;
   }
 
   @Nullable
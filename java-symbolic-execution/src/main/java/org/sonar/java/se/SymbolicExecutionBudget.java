@@ -0,0 +1,237 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import org.sonar.java.annotations.VisibleForTesting;
+import org.sonar.plugins.java.api.tree.MethodTree;
+
+/**
+ * Steps and time given to the symbolic execution of each method, and of each file.
+ * <p>
+ * Each method gets the maximum number of steps of its {@link ExplodedGraphWalker}, and optionally a time limit. When
+ * reallocation is enabled, the steps and the time not used by the methods of a file are put in a reserve, and the next
+ * methods of the file can use this reserve, up to {@link #MAX_REALLOCATION_FACTOR} times their own budget. Limits of
+ * the file cap the budget of its methods: once they are reached, the execution of the remaining methods of the file
+ * stops immediately. The methods whose execution did not complete are recorded with the reason.
+ * <p>
+ * Steps of a method include neither the steps nor the time of the methods it triggers the execution of, but its time
+ * does.
+ */
+public final class SymbolicExecutionBudget {
+
+  public static final long NO_LIMIT = 0;
+  public static final int MAX_REALLOCATION_FACTOR = 4;
+
+  private final long methodTimeLimitNanos;
+  private final long fileStepLimit;
+  private final long fileTimeLimitNanos;
+  private final boolean reallocation;
+  private final LongSupplier clock;
+
+  private String file = "";
+  private long fileStart;
+  private long fileSteps;
+  private long stepReserve;
+  private long timeReserve;
+  private final List<AbortedMethod> abortedMethods = new ArrayList<>();
+
+  /**
+   * @param methodTimeLimitMillis time given to each method, {@link #NO_LIMIT} for none
+   * @param fileStepLimit steps given to the methods of a file altogether, {@link #NO_LIMIT} for none
+   * @param fileTimeLimitMillis time given to the methods of a file altogether, {@link #NO_LIMIT} for none
+   * @param reallocation when true, the steps and time not used by a method can be used by the next methods of the file
+   */
+  public SymbolicExecutionBudget(long methodTimeLimitMillis, long fileStepLimit, long fileTimeLimitMillis, boolean reallocation) {
+    this(methodTimeLimitMillis, fileStepLimit, fileTimeLimitMillis, reallocation, System::nanoTime);
+  }
+
+  @VisibleForTesting
+  SymbolicExecutionBudget(long methodTimeLimitMillis, long fileStepLimit, long fileTimeLimitMillis, boolean reallocation, LongSupplier clock) {
+    this.methodTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(NO_LIMIT, methodTimeLimitMillis));
+    this.fileStepLimit = Math.max(NO_LIMIT, fileStepLimit);
+    this.fileTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(NO_LIMIT, fileTimeLimitMillis));
+    this.reallocation = reallocation;
+    this.clock = clock;
+  }
+
+  /**
+   * @return a budget limiting only the number of steps of each method
+   */
+  public static SymbolicExecutionBudget defaultBudget() {
+    return new SymbolicExecutionBudget(NO_LIMIT, NO_LIMIT, NO_LIMIT, false);
+  }
+
+  /**
+   * @return true when a limit or the reallocation is configured, in addition to the steps of each method
+   */
+  public boolean isConfigured() {
+    return methodTimeLimitNanos > 0 || fileStepLimit > 0 || fileTimeLimitNanos > 0 || reallocation;
+  }
+
+  public void startFile(String fileKey) {
+    file = fileKey;
+    fileStart = clock.getAsLong();
+    fileSteps = 0;
+    stepReserve = 0;
+    timeReserve = 0;
+  }
+
+  MethodBudget startMethod(int methodSteps) {
+    long now = clock.getAsLong();
+    long stepLimit = methodSteps;
+    if (reallocation) {
+      stepLimit += Math.min(stepReserve, (long) MAX_REALLOCATION_FACTOR * methodSteps);
+    }
+    if (fileStepLimit > 0) {
+      stepLimit = Math.max(0, Math.min(stepLimit, fileStepLimit - fileSteps));
+    }
+    boolean hasDeadline = false;
+    long deadline = 0;
+    if (methodTimeLimitNanos > 0) {
+      long allowedTime = methodTimeLimitNanos;
+      if (reallocation) {
+        allowedTime += Math.min(timeReserve, MAX_REALLOCATION_FACTOR * methodTimeLimitNanos);
+      }
+      hasDeadline = true;
+      deadline = now + allowedTime;
+    }
+    if (fileTimeLimitNanos > 0) {
+      long fileDeadline = fileStart + fileTimeLimitNanos;
+      deadline = hasDeadline && deadline - fileDeadline < 0 ? deadline : fileDeadline;
+      hasDeadline = true;
+    }
+    return new MethodBudget(methodSteps, (int) Math.min(Integer.MAX_VALUE, stepLimit), now, hasDeadline, deadline, clock);
+  }
+
+  void endMethod(MethodBudget methodBudget, int steps) {
+    fileSteps += steps;
+    if (reallocation) {
+      stepReserve = Math.max(0, stepReserve + methodBudget.methodSteps - steps);
+      if (methodTimeLimitNanos > 0) {
+        long elapsed = clock.getAsLong() - methodBudget.start;
+        timeReserve = Math.max(0, timeReserve + methodTimeLimitNanos - elapsed);
+      }
+    }
+  }
+
+  void aborted(MethodBudget methodBudget, MethodTree methodTree, String reason, int steps) {
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(clock.getAsLong() - methodBudget.start);
+    String method = methodTree.symbol().owner().name() + "#" + methodTree.simpleName().name();
+    int line = methodTree.simpleName().firstToken().range().start().line();
+    abortedMethods.add(new AbortedMethod(file, method, line, reason, steps, elapsedMillis));
+  }
+
+  public List<AbortedMethod> abortedMethods() {
+    return Collections.unmodifiableList(abortedMethods);
+  }
+
+  /**
+   * Writes one line per method whose execution did not complete.
+   */
+  public void writeReport(Path reportFile) throws IOException {
+    Files.write(reportFile, abortedMethods.stream().map(AbortedMethod::toString).collect(Collectors.toList()), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Limits of the execution of a method, checked by its {@link ExplodedGraphWalker}.
+   */
+  static final class MethodBudget {
+    private final int methodSteps;
+    private final int stepLimit;
+    private final long start;
+    private final boolean hasDeadline;
+    private final long deadline;
+    private final LongSupplier clock;
+
+    private MethodBudget(int methodSteps, int stepLimit, long start, boolean hasDeadline, long deadline, LongSupplier clock) {
+      this.methodSteps = methodSteps;
+      this.stepLimit = stepLimit;
+      this.start = start;
+      this.hasDeadline = hasDeadline;
+      this.deadline = deadline;
+      this.clock = clock;
+    }
+
+    int stepLimit() {
+      return stepLimit;
+    }
+
+    boolean isOutOfTime() {
+      return hasDeadline && clock.getAsLong() - deadline >= 0;
+    }
+  }
+
+  public static final class AbortedMethod {
+    private final String file;
+    private final String method;
+    private final int line;
+    private final String reason;
+    private final int steps;
+    private final long elapsedMillis;
+
+    private AbortedMethod(String file, String method, int line, String reason, int steps, long elapsedMillis) {
+      this.file = file;
+      this.method = method;
+      this.line = line;
+      this.reason = reason;
+      this.steps = steps;
+      this.elapsedMillis = elapsedMillis;
+    }
+
+    public String file() {
+      return file;
+    }
+
+    public String method() {
+      return method;
+    }
+
+    public int line() {
+      return line;
+    }
+
+    public String reason() {
+      return reason;
+    }
+
+    public int steps() {
+      return steps;
+    }
+
+    public long elapsedMillis() {
+      return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s:%d %s: %s (%d steps, %d ms)", file, line, method, reason, steps, elapsedMillis);
+    }
+  }
+}
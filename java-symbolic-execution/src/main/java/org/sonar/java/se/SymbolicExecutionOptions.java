@@ -0,0 +1,95 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se;
+
+import java.util.Locale;
+import javax.annotation.CheckForNull;
+
+/**
+ * Settings of the exploration of the methods by the {@link ExplodedGraphWalker}. Instances are immutable.
+ */
+public final class SymbolicExecutionOptions {
+
+  public static final SymbolicExecutionOptions DEFAULT = new SymbolicExecutionOptions(false, ExplorationStrategy.DEPTH_FIRST);
+
+  /**
+   * Order in which the nodes of the exploded graph are explored. It matters when a method can not be explored entirely
+   * within the maximum number of steps.
+   */
+  public enum ExplorationStrategy {
+    /**
+     * Explores the most recently reached node first, following each path until its end before backtracking.
+     */
+    DEPTH_FIRST,
+    /**
+     * Explores the nodes in the order they are reached, advancing all the paths together.
+     */
+    BREADTH_FIRST,
+    /**
+     * Explores first the nodes whose program point has been explored the fewest times, so that the program points not
+     * reached yet are reached early.
+     */
+    COVERAGE_GUIDED;
+
+    /**
+     * @param value name of a strategy, case insensitive, with either dashes or underscores
+     * @return the strategy, null when there is no strategy of this name
+     */
+    @CheckForNull
+    public static ExplorationStrategy fromPropertyValue(String value) {
+      String name = value.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+      for (ExplorationStrategy strategy : values()) {
+        if (strategy.name().equals(name)) {
+          return strategy;
+        }
+      }
+      return null;
+    }
+  }
+
+  private final boolean stateSubsumption;
+  private final ExplorationStrategy explorationStrategy;
+
+  private SymbolicExecutionOptions(boolean stateSubsumption, ExplorationStrategy explorationStrategy) {
+    this.stateSubsumption = stateSubsumption;
+    this.explorationStrategy = explorationStrategy;
+  }
+
+  /**
+   * @param stateSubsumption when true, a state reaching a program point is not explored when a state already reached this
+   * program point with a subset of its constraints, see {@link ProgramState#subsumes(ProgramState)}. Fewer states are
+   * explored, at the price of the issues which would only be raised because of the additional constraints.
+   */
+  public SymbolicExecutionOptions withStateSubsumption(boolean stateSubsumption) {
+    return new SymbolicExecutionOptions(stateSubsumption, explorationStrategy);
+  }
+
+  public SymbolicExecutionOptions withExplorationStrategy(ExplorationStrategy explorationStrategy) {
+    return new SymbolicExecutionOptions(stateSubsumption, explorationStrategy);
+  }
+
+  public boolean stateSubsumption() {
+    return stateSubsumption;
+  }
+
+  public ExplorationStrategy explorationStrategy() {
+    return explorationStrategy;
+  }
+}
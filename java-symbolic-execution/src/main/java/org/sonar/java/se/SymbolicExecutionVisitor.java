@@ -21,18 +21,28 @@ package org.sonar.java.se;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.java.annotations.VisibleForTesting;
+import org.sonar.java.ast.visitors.AccessorsUtils;
 import org.sonar.java.ast.visitors.SubscriptionVisitor;
 import org.sonar.java.model.JUtils;
+import org.sonar.java.model.JavaTree;
 import org.sonar.java.se.checks.SECheck;
 import org.sonar.java.se.xproc.BehaviorCache;
 import org.sonar.java.se.xproc.MethodBehavior;
+import org.sonar.java.se.xproc.ProjectBehaviorStore;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.semantic.Symbol;
+import org.sonar.plugins.java.api.tree.ClassTree;
 import org.sonar.plugins.java.api.tree.MethodTree;
 import org.sonar.plugins.java.api.tree.Tree;
 
@@ -42,17 +52,64 @@ public class SymbolicExecutionVisitor extends SubscriptionVisitor {
   @VisibleForTesting
   public final BehaviorCache behaviorCache;
   private final ExplodedGraphWalker.ExplodedGraphWalkerFactory egwFactory;
+  @Nullable
+  private final ProjectBehaviorStore projectBehaviors;
+  private final SymbolicExecutionBudget budget;
+  /**
+   * Checks reacting to each kind of tree, null when some check reacts to any tree
+   */
+  @Nullable
+  private final Map<Tree.Kind, List<SECheck>> checksByRelevantTreeKind;
 
   public SymbolicExecutionVisitor(List<SECheck> seChecks) {
-    egwFactory = new ExplodedGraphWalker.ExplodedGraphWalkerFactory(seChecks);
-    this.behaviorCache = new BehaviorCache();
+    this(seChecks, null);
+  }
+
+  /**
+   * @param projectBehaviors when not null, the behaviors computed in each file are stored to be used when analyzing the other files
+   */
+  public SymbolicExecutionVisitor(List<SECheck> seChecks, @Nullable ProjectBehaviorStore projectBehaviors) {
+    this(seChecks, projectBehaviors, SymbolicExecutionOptions.DEFAULT);
+  }
+
+  /**
+   * @param options settings of the exploration of each method
+   */
+  public SymbolicExecutionVisitor(List<SECheck> seChecks, @Nullable ProjectBehaviorStore projectBehaviors, SymbolicExecutionOptions options) {
+    this(seChecks, projectBehaviors, options, SymbolicExecutionBudget.defaultBudget());
+  }
+
+  /**
+   * @param budget steps and time given to the execution of the methods of each file
+   */
+  public SymbolicExecutionVisitor(List<SECheck> seChecks, @Nullable ProjectBehaviorStore projectBehaviors,
+    SymbolicExecutionOptions options, SymbolicExecutionBudget budget) {
+    egwFactory = new ExplodedGraphWalker.ExplodedGraphWalkerFactory(seChecks, options);
+    this.behaviorCache = new BehaviorCache(projectBehaviors);
+    this.projectBehaviors = projectBehaviors;
+    this.budget = budget;
+    this.checksByRelevantTreeKind = checksByRelevantTreeKind(egwFactory.seChecks);
+  }
+
+  @Nullable
+  private static Map<Tree.Kind, List<SECheck>> checksByRelevantTreeKind(List<SECheck> seChecks) {
+    Map<Tree.Kind, List<SECheck>> checksByKind = new EnumMap<>(Tree.Kind.class);
+    seChecks.forEach(check -> check.relevantTreeKinds().forEach(kind -> checksByKind.computeIfAbsent(kind, k -> new ArrayList<>()).add(check)));
+    return checksByKind.size() == Tree.Kind.values().length ? null : checksByKind;
   }
 
   @Override
   public void scanFile(JavaFileScannerContext context) {
     behaviorCache.cleanup();
     behaviorCache.setFileContext(this);
+    budget.startFile(String.valueOf(context.getInputFile()));
+    if (projectBehaviors != null) {
+      projectBehaviors.startFile(context.getInputFile());
+    }
     super.scanFile(context);
+    if (projectBehaviors != null) {
+      projectBehaviors.endFile(context.getInputFile(), behaviorCache.behaviors.values());
+    }
   }
 
   @Override
@@ -62,11 +119,58 @@ public class SymbolicExecutionVisitor extends SubscriptionVisitor {
 
   @Override
   public void visitNode(Tree tree) {
-    execute((MethodTree) tree);
+    MethodTree methodTree = (MethodTree) tree;
+    if (isRelevant(methodTree)) {
+      execute(methodTree);
+    }
+  }
+
+  /**
+   * A method containing none of the trees the checks react to is not executed, unless its behavior may be needed by the
+   * other files of the project. Callers in this file execute the methods they invoke on demand.
+   */
+  private boolean isRelevant(MethodTree methodTree) {
+    return checksByRelevantTreeKind == null
+      || isBehaviorStored(methodTree)
+      || containsRelevantTree(methodTree, checksByRelevantTreeKind);
+  }
+
+  private boolean isBehaviorStored(MethodTree methodTree) {
+    Symbol.MethodSymbol methodSymbol = methodTree.symbol();
+    // accessors only yield unconstrained values
+    return projectBehaviors != null
+      && !methodSymbol.isPrivate()
+      && methodCanNotBeOverriden(methodSymbol)
+      && !AccessorsUtils.isAccessor((ClassTree) methodTree.parent(), methodTree);
+  }
+
+  private static boolean containsRelevantTree(MethodTree methodTree, Map<Tree.Kind, List<SECheck>> checksByKind) {
+    Deque<JavaTree> trees = new ArrayDeque<>();
+    trees.push((JavaTree) methodTree);
+    while (!trees.isEmpty()) {
+      JavaTree tree = trees.pop();
+      if (!tree.mayContainAnyOf(checksByKind.keySet())) {
+        continue;
+      }
+      List<SECheck> checks = checksByKind.get(tree.kind());
+      if (checks != null && checks.stream().anyMatch(check -> check.isRelevant(tree))) {
+        return true;
+      }
+      if (!tree.isLeaf()) {
+        for (Tree child : tree.getChildren()) {
+          if (child != null) {
+            trees.push((JavaTree) child);
+          }
+        }
+      }
+    }
+    return false;
   }
 
   public void execute(MethodTree methodTree) {
     ExplodedGraphWalker walker = getWalker();
+    SymbolicExecutionBudget.MethodBudget methodBudget = budget.startMethod(walker.maxSteps());
+    walker.setBudget(methodBudget);
     try {
       Symbol.MethodSymbol methodSymbol = methodTree.symbol();
       if (methodCanNotBeOverriden(methodSymbol)) {
@@ -90,6 +194,9 @@ public class SymbolicExecutionVisitor extends SubscriptionVisitor {
       if (walker.methodBehavior != null) {
         walker.methodBehavior.visited();
       }
+      budget.aborted(methodBudget, methodTree, exception.getMessage(), walker.steps);
+    } finally {
+      budget.endMethod(methodBudget, walker.steps);
     }
   }
 
@@ -0,0 +1,161 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import javax.annotation.CheckForNull;
+import org.sonar.java.se.SymbolicExecutionOptions.ExplorationStrategy;
+
+/**
+ * Nodes of the exploded graph waiting to be explored by the {@link ExplodedGraphWalker}, handed out in the order of an
+ * {@link ExplorationStrategy}.
+ */
+abstract class WorkList {
+
+  abstract void add(ExplodedGraph.Node node);
+
+  /**
+   * @return the next node to explore, which is removed from the work list
+   */
+  abstract ExplodedGraph.Node remove();
+
+  /**
+   * @return the node at the head of the work list, without removing it, null when the work list is empty
+   */
+  @CheckForNull
+  abstract ExplodedGraph.Node peek();
+
+  abstract int size();
+
+  boolean isEmpty() {
+    return size() == 0;
+  }
+
+  static WorkList create(ExplorationStrategy strategy) {
+    switch (strategy) {
+      case BREADTH_FIRST:
+        return new BreadthFirst();
+      case COVERAGE_GUIDED:
+        return new CoverageGuided();
+      case DEPTH_FIRST:
+      default:
+        return new DepthFirst();
+    }
+  }
+
+  private static class DepthFirst extends WorkList {
+
+    final ArrayDeque<ExplodedGraph.Node> nodes = new ArrayDeque<>();
+
+    @Override
+    void add(ExplodedGraph.Node node) {
+      nodes.addFirst(node);
+    }
+
+    @Override
+    ExplodedGraph.Node remove() {
+      return nodes.removeFirst();
+    }
+
+    @Override
+    ExplodedGraph.Node peek() {
+      return nodes.peekFirst();
+    }
+
+    @Override
+    int size() {
+      return nodes.size();
+    }
+  }
+
+  private static final class BreadthFirst extends DepthFirst {
+
+    @Override
+    void add(ExplodedGraph.Node node) {
+      nodes.addLast(node);
+    }
+  }
+
+  /**
+   * Explores first the nodes whose program point has been explored the fewest times, the most recently added node first
+   * between nodes of equal priority. The priority of a node is computed when it is added, and refreshed when it is about
+   * to be explored if its program point has been explored in the meantime.
+   */
+  private static final class CoverageGuided extends WorkList {
+
+    private static final Comparator<Entry> ORDER = (entry1, entry2) -> {
+      int result = Integer.compare(entry1.priority, entry2.priority);
+      return result != 0 ? result : Long.compare(entry2.sequence, entry1.sequence);
+    };
+
+    private final PriorityQueue<Entry> entries = new PriorityQueue<>(ORDER);
+    private final Map<ProgramPoint, Integer> explorations = new HashMap<>();
+    private long sequence;
+
+    @Override
+    void add(ExplodedGraph.Node node) {
+      entries.add(new Entry(node, explorations(node), sequence++));
+    }
+
+    @Override
+    ExplodedGraph.Node remove() {
+      Entry entry = entries.remove();
+      int explorationsOfNode = explorations(entry.node);
+      while (entry.priority < explorationsOfNode) {
+        entries.add(new Entry(entry.node, explorationsOfNode, entry.sequence));
+        entry = entries.remove();
+        explorationsOfNode = explorations(entry.node);
+      }
+      explorations.put(entry.node.programPoint, explorationsOfNode + 1);
+      return entry.node;
+    }
+
+    @Override
+    ExplodedGraph.Node peek() {
+      Entry entry = entries.peek();
+      return entry == null ? null : entry.node;
+    }
+
+    @Override
+    int size() {
+      return entries.size();
+    }
+
+    private int explorations(ExplodedGraph.Node node) {
+      return explorations.getOrDefault(node.programPoint, 0);
+    }
+
+    private static final class Entry {
+      private final ExplodedGraph.Node node;
+      private final int priority;
+      private final long sequence;
+
+      private Entry(ExplodedGraph.Node node, int priority, long sequence) {
+        this.node = node;
+        this.priority = priority;
+        this.sequence = sequence;
+      }
+    }
+  }
+}
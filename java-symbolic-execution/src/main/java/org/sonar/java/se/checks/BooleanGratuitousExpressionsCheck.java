@@ -31,6 +31,11 @@ import org.sonar.plugins.java.api.tree.Tree;
 @Rule(key = "S2589")
 public class BooleanGratuitousExpressionsCheck extends SECheck {
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    return AlwaysTrueOrFalseExpressionCollector.CONDITION_KINDS;
+  }
+
   @Override
   public void checkEndOfExecution(CheckerContext context) {
     AlwaysTrueOrFalseExpressionCollector atof = context.alwaysTrueOrFalseExpressions();
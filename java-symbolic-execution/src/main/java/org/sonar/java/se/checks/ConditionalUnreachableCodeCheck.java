@@ -34,6 +34,11 @@ public class ConditionalUnreachableCodeCheck extends SECheck {
 
   public static final String MESSAGE = "Change this condition so that it does not always evaluate to \"%s\"";
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    return AlwaysTrueOrFalseExpressionCollector.CONDITION_KINDS;
+  }
+
   @Override
   public void checkEndOfExecution(CheckerContext context) {
     AlwaysTrueOrFalseExpressionCollector atof = context.alwaysTrueOrFalseExpressions();
@@ -20,7 +20,9 @@
 package org.sonar.java.se.checks;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import javax.annotation.Nullable;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
@@ -93,6 +95,11 @@ public class CustomUnclosedResourcesCheck extends SECheck {
   private MethodMatchers openingList;
   private MethodMatchers closingList;
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    return EnumSet.of(Tree.Kind.METHOD_INVOCATION, Tree.Kind.NEW_CLASS);
+  }
+
   @Override
   public ProgramState checkPreStatement(CheckerContext context, Tree syntaxNode) {
     AbstractStatementVisitor visitor = new PreStatementVisitor(context);
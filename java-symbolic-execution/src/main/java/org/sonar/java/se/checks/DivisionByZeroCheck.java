@@ -20,6 +20,7 @@
 package org.sonar.java.se.checks;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -142,6 +143,11 @@ public class DivisionByZeroCheck extends SECheck {
     }
   }
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    return EnumSet.of(Tree.Kind.DIVIDE, Tree.Kind.REMAINDER, Tree.Kind.DIVIDE_ASSIGNMENT, Tree.Kind.REMAINDER_ASSIGNMENT);
+  }
+
   @Override
   public void init(MethodTree methodTree, CFG cfg) {
     zeroValuesCache.clear();
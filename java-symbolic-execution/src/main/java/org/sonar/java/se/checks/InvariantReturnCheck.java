@@ -24,6 +24,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -86,6 +87,21 @@ public class InvariantReturnCheck extends SECheck {
 
   private Deque<MethodInvariantContext> methodInvariantContexts = new LinkedList<>();
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    // a method can only have several return statements within these statements
+    return EnumSet.of(
+      Tree.Kind.IF_STATEMENT,
+      Tree.Kind.SWITCH_STATEMENT,
+      Tree.Kind.TRY_STATEMENT,
+      Tree.Kind.WHILE_STATEMENT,
+      Tree.Kind.DO_STATEMENT,
+      Tree.Kind.FOR_STATEMENT,
+      Tree.Kind.FOR_EACH_STATEMENT,
+      Tree.Kind.SYNCHRONIZED_STATEMENT,
+      Tree.Kind.LABELED_STATEMENT);
+  }
+
   @Override
   public void init(MethodTree methodTree, CFG cfg) {
     methodInvariantContexts.push(new MethodInvariantContext(methodTree));
@@ -38,7 +38,9 @@ import org.sonar.plugins.java.api.tree.MethodInvocationTree;
 import org.sonar.plugins.java.api.tree.Tree;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 @Rule(key = "S2222")
 public class LocksNotUnlockedCheck extends SECheck {
@@ -165,6 +167,28 @@ public class LocksNotUnlockedCheck extends SECheck {
     return ProgramState.isField(expression.symbol());
   }
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    return EnumSet.of(Tree.Kind.METHOD_INVOCATION);
+  }
+
+  @Override
+  public boolean isRelevant(Tree tree) {
+    MethodInvocationTree mit = (MethodInvocationTree) tree;
+    // locks given as arguments to methods of this file may be locked by their yields
+    return isLocking(mit) || (!mit.arguments().isEmpty() && mit.symbol().declaration() != null);
+  }
+
+  private static boolean isLocking(MethodInvocationTree mit) {
+    if (!mit.methodSelect().is(Tree.Kind.MEMBER_SELECT)) {
+      return false;
+    }
+    MemberSelectExpressionTree memberSelect = (MemberSelectExpressionTree) mit.methodSelect();
+    String methodName = memberSelect.identifier().name();
+    return (LOCK_METHOD_NAME.equals(methodName) || TRY_LOCK_METHOD_NAME.equals(methodName))
+      && memberSelect.expression().symbolType().isSubtypeOf(LOCK);
+  }
+
   @Override
   public ProgramState checkPreStatement(CheckerContext context, Tree syntaxNode) {
     final PreStatementVisitor visitor = new PreStatementVisitor(context);
@@ -21,6 +21,7 @@ package org.sonar.java.se.checks;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -69,6 +70,17 @@ public class MapComputeIfAbsentOrPresentCheck extends SECheck implements JavaVer
   private final List<CheckIssue> checkIssues = new ArrayList<>();
   private final Map<Tree, IfStatementTree> closestIfStatements = new HashMap<>();
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    return EnumSet.of(Tree.Kind.METHOD_INVOCATION);
+  }
+
+  @Override
+  public MethodMatchers relevantMethods() {
+    // issues are only raised when putting values
+    return MAP_PUT;
+  }
+
   @Override
   public boolean isCompatibleWithJavaVersion(JavaVersion version) {
     return version.isJava8Compatible();
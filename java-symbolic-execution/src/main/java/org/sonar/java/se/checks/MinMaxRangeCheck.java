@@ -20,6 +20,7 @@
 package org.sonar.java.se.checks;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -118,6 +119,16 @@ public class MinMaxRangeCheck extends SECheck {
     }
   }
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    return EnumSet.of(Tree.Kind.METHOD_INVOCATION);
+  }
+
+  @Override
+  public MethodMatchers relevantMethods() {
+    return MIN_MAX_MATCHER;
+  }
+
   @Override
   public ProgramState checkPreStatement(CheckerContext context, Tree syntaxNode) {
     ProgramState programState = context.getState();
@@ -21,10 +21,12 @@ package org.sonar.java.se.checks;
 
 import java.util.ArrayList;
 import java.util.Deque;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.annotation.CheckForNull;
 import org.sonar.check.Rule;
 import org.sonar.java.cfg.CFG;
@@ -58,6 +60,11 @@ public class NoWayOutLoopCheck extends SECheck {
 
   private final Deque<MethodContext> contexts = new LinkedList<>();
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    return EnumSet.of(Tree.Kind.WHILE_STATEMENT, Tree.Kind.DO_STATEMENT, Tree.Kind.FOR_STATEMENT);
+  }
+
   @Override
   public void init(MethodTree tree, CFG cfg) {
     MethodContext context = new MethodContext(tree, cfg);
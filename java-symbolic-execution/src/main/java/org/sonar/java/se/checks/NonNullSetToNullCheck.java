@@ -22,7 +22,9 @@ package org.sonar.java.se.checks;
 import java.text.MessageFormat;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import org.sonar.check.Rule;
@@ -66,6 +68,48 @@ public class NonNullSetToNullCheck extends SECheck {
 
   private Deque<MethodTree> methodTrees = new ArrayDeque<>();
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    // trees setting or returning values which must not be null
+    return EnumSet.of(
+      Tree.Kind.CONSTRUCTOR,
+      Tree.Kind.ASSIGNMENT,
+      Tree.Kind.NEW_CLASS,
+      Tree.Kind.METHOD_INVOCATION,
+      Tree.Kind.RETURN_STATEMENT);
+  }
+
+  @Override
+  public boolean isRelevant(Tree tree) {
+    switch (tree.kind()) {
+      case CONSTRUCTOR:
+        return fieldsToInitialize((ClassTree) tree.parent()).anyMatch(v -> nonNullAnnotationToInitialize(v.symbol()) != null);
+      case ASSIGNMENT:
+        AssignmentExpressionTree assignment = (AssignmentExpressionTree) tree;
+        return ExpressionUtils.isSimpleAssignment(assignment) && nonNullAnnotation(ExpressionUtils.extractIdentifier(assignment).symbol()) != null;
+      case NEW_CLASS:
+        return hasNonNullParameter(((NewClassTree) tree).constructorSymbol());
+      case METHOD_INVOCATION:
+        return hasNonNullParameter(((MethodInvocationTree) tree).symbol());
+      default:
+        MethodTree method = enclosingMethod(tree);
+        return method != null && nonNullAnnotation(method.symbol()) != null;
+    }
+  }
+
+  private static boolean hasNonNullParameter(Symbol symbol) {
+    if (!symbol.isMethodSymbol()) {
+      return false;
+    }
+    Symbol.MethodSymbol method = (Symbol.MethodSymbol) symbol;
+    for (int i = 0; i < method.parameterTypes().size(); i++) {
+      if (nonNullAnnotation(JUtils.parameterAnnotations(method, i)) != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   public void init(MethodTree tree, CFG cfg) {
     methodTrees.push(tree);
@@ -102,15 +146,18 @@ public class NonNullSetToNullCheck extends SECheck {
       && !isDefaultConstructorForJpa(methodTree)
       && !callsThisConstructor(methodTree)
       && !exitingWithException(context)) {
-      ClassTree classTree = (ClassTree) methodTree.parent();
-      classTree.members().stream()
-        .filter(m -> m.is(Tree.Kind.VARIABLE))
-        .map(VariableTree.class::cast)
-        .filter(v -> (v.initializer() == null) && !v.type().is(Tree.Kind.PRIMITIVE_TYPE))
+      fieldsToInitialize((ClassTree) methodTree.parent())
         .forEach(v -> checkVariable(context, methodTree, v.symbol()));
     }
   }
 
+  private static Stream<VariableTree> fieldsToInitialize(ClassTree classTree) {
+    return classTree.members().stream()
+      .filter(m -> m.is(Tree.Kind.VARIABLE))
+      .map(VariableTree.class::cast)
+      .filter(v -> (v.initializer() == null) && !v.type().is(Tree.Kind.PRIMITIVE_TYPE));
+  }
+
   private static boolean exitingWithException(CheckerContext context) {
     return context.getState().peekValue() instanceof SymbolicValue.ExceptionalSymbolicValue;
   }
@@ -143,21 +190,36 @@ public class NonNullSetToNullCheck extends SECheck {
   }
 
   private void checkVariable(CheckerContext context, MethodTree tree, final Symbol symbol) {
-    String nonNullAnnotation = nonNullAnnotation(symbol);
-    if (nonNullAnnotation == null || nonNullAnnotation.startsWith("javax.validation.constraints.") || symbol.isStatic()) {
-      return;
-    }
-    if (isUndefinedOrNull(context, symbol)) {
+    String nonNullAnnotation = nonNullAnnotationToInitialize(symbol);
+    if (nonNullAnnotation != null && isUndefinedOrNull(context, symbol)) {
       context.reportIssue(tree.simpleName(), this, MessageFormat.format("\"{0}\" is marked \"{1}\" but is not initialized in this constructor.", symbol.name(), nonNullAnnotation));
     }
   }
 
+  @Nullable
+  private static String nonNullAnnotationToInitialize(Symbol field) {
+    String nonNullAnnotation = nonNullAnnotation(field);
+    if (nonNullAnnotation == null || nonNullAnnotation.startsWith("javax.validation.constraints.") || field.isStatic()) {
+      return null;
+    }
+    return nonNullAnnotation;
+  }
+
   private static boolean isUndefinedOrNull(CheckerContext context, Symbol symbol) {
     ProgramState programState = context.getState();
     SymbolicValue value = programState.getValue(symbol);
     return value == null;
   }
 
+  @Nullable
+  private static MethodTree enclosingMethod(Tree tree) {
+    Tree parent = tree.parent();
+    while (parent != null && !parent.is(Tree.Kind.METHOD)) {
+      parent = parent.parent();
+    }
+    return (MethodTree) parent;
+  }
+
   private abstract class AbstractStatementVisitor extends CheckerTreeNodeVisitor {
 
     private final CheckerContext context;
@@ -251,15 +313,12 @@ public class NonNullSetToNullCheck extends SECheck {
 
     @Override
     public void visitReturnStatement(ReturnStatementTree tree) {
-      Tree parent = tree.parent();
-      while (!parent.is(Tree.Kind.METHOD)) {
-        parent = parent.parent();
-        if (parent == null) {
-          // This occurs when the return statement is within a constructor
-          return;
-        }
+      MethodTree method = enclosingMethod(tree);
+      if (method == null) {
+        // This occurs when the return statement is within a constructor
+        return;
       }
-      String nonNullAnnotation = nonNullAnnotation(((MethodTree) parent).symbol());
+      String nonNullAnnotation = nonNullAnnotation(method.symbol());
       if (nonNullAnnotation == null) {
         return;
       }
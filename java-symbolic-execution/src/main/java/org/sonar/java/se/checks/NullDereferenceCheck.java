@@ -23,6 +23,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
@@ -49,6 +50,7 @@ import org.sonar.plugins.java.api.tree.IdentifierTree;
 import org.sonar.plugins.java.api.tree.MemberSelectExpressionTree;
 import org.sonar.plugins.java.api.tree.MethodInvocationTree;
 import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.NewClassTree;
 import org.sonar.plugins.java.api.tree.SwitchStatementTree;
 import org.sonar.plugins.java.api.tree.Tree;
 
@@ -78,6 +80,49 @@ public class NullDereferenceCheck extends SECheck {
 
   private Deque<Set<NullDereferenceIssue>> detectedIssues = new ArrayDeque<>();
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    // dereferences, and invocations whose yields can throw a NullPointerException
+    return EnumSet.of(
+      Tree.Kind.METHOD_INVOCATION,
+      Tree.Kind.NEW_CLASS,
+      Tree.Kind.MEMBER_SELECT,
+      Tree.Kind.ARRAY_ACCESS_EXPRESSION,
+      Tree.Kind.SYNCHRONIZED_STATEMENT,
+      Tree.Kind.SWITCH_STATEMENT,
+      Tree.Kind.THROW_STATEMENT);
+  }
+
+  @Override
+  public boolean isRelevant(Tree tree) {
+    if (tree.is(Tree.Kind.MEMBER_SELECT)) {
+      return mayBeNull(((MemberSelectExpressionTree) tree).expression());
+    }
+    if (tree.is(Tree.Kind.METHOD_INVOCATION)) {
+      // the yields of a method can only throw a NullPointerException because of its arguments, its target being selected
+      return !((MethodInvocationTree) tree).arguments().isEmpty();
+    }
+    if (tree.is(Tree.Kind.NEW_CLASS)) {
+      NewClassTree newClassTree = (NewClassTree) tree;
+      return !newClassTree.arguments().isEmpty() || newClassTree.enclosingExpression() != null;
+    }
+    return true;
+  }
+
+  private static boolean mayBeNull(ExpressionTree expression) {
+    IdentifierTree identifier;
+    if (expression.is(Tree.Kind.IDENTIFIER)) {
+      identifier = (IdentifierTree) expression;
+    } else if (expression.is(Tree.Kind.MEMBER_SELECT)) {
+      identifier = ((MemberSelectExpressionTree) expression).identifier();
+    } else {
+      return true;
+    }
+    String name = identifier.name();
+    Symbol symbol = identifier.symbol();
+    return !"this".equals(name) && !"super".equals(name) && !symbol.isTypeSymbol() && !symbol.isPackageSymbol();
+  }
+
   @Override
   public void init(MethodTree methodTree, CFG cfg) {
     detectedIssues.push(new HashSet<>());
@@ -20,6 +20,8 @@
 package org.sonar.java.se.checks;
 
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 import org.sonar.check.Rule;
 import org.sonar.java.se.CheckerContext;
 import org.sonar.java.se.Flow;
@@ -51,6 +53,17 @@ public class ObjectOutputStreamCheck extends SECheck {
     }
   }
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    return EnumSet.of(Tree.Kind.NEW_CLASS);
+  }
+
+  @Override
+  public boolean isRelevant(Tree tree) {
+    // issues are only raised when creating object output streams
+    return ((NewClassTree) tree).symbolType().is("java.io.ObjectOutputStream");
+  }
+
   @Override
   public ProgramState checkPostStatement(CheckerContext context, Tree syntaxNode) {
     ProgramState programState = context.getState();
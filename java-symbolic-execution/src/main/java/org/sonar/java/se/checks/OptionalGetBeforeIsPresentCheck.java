@@ -21,8 +21,10 @@ package org.sonar.java.se.checks;
 
 import org.sonar.java.Preconditions;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import javax.annotation.Nullable;
 import org.sonar.check.Rule;
 import org.sonar.java.se.CheckerContext;
@@ -68,6 +70,17 @@ public class OptionalGetBeforeIsPresentCheck extends SECheck {
     }
   }
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    return EnumSet.of(Tree.Kind.METHOD_INVOCATION);
+  }
+
+  @Override
+  public MethodMatchers relevantMethods() {
+    // issues are only raised when getting values
+    return OPTIONAL_GET;
+  }
+
   @Override
   public ProgramState checkPreStatement(CheckerContext context, Tree syntaxNode) {
     PreStatementVisitor visitor = new PreStatementVisitor(this, context);
@@ -20,7 +20,9 @@
 package org.sonar.java.se.checks;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import org.apache.commons.lang3.StringUtils;
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.collections.ListUtils;
@@ -51,6 +53,11 @@ public class ParameterNullnessCheck extends SECheck {
   private static final MethodMatchers AUTHORIZED_METHODS = MethodMatchers
     .create().ofTypes("com.google.common.base.Preconditions").names("checkNotNull").withAnyParameters().build();
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    return EnumSet.of(Tree.Kind.METHOD_INVOCATION, Tree.Kind.NEW_CLASS);
+  }
+
   @Override
   public ProgramState checkPreStatement(CheckerContext context, Tree syntaxNode) {
     ProgramState state = context.getState();
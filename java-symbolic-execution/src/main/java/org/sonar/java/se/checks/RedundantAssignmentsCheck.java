@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -33,6 +34,8 @@ import javax.annotation.Nullable;
 import org.sonar.check.Rule;
 import org.sonar.java.cfg.CFG;
 import org.sonar.java.collections.CollectionUtils;
+import org.sonar.java.model.ExpressionUtils;
+import org.sonar.java.model.JUtils;
 import org.sonarsource.analyzer.commons.collections.SetUtils;
 import org.sonar.java.se.CheckerContext;
 import org.sonar.java.se.ExplodedGraph;
@@ -44,6 +47,8 @@ import org.sonar.java.se.symbolicvalues.SymbolicValue;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.semantic.Symbol;
 import org.sonar.plugins.java.api.tree.AssignmentExpressionTree;
+import org.sonar.plugins.java.api.tree.ExpressionTree;
+import org.sonar.plugins.java.api.tree.IdentifierTree;
 import org.sonar.plugins.java.api.tree.MethodTree;
 import org.sonar.plugins.java.api.tree.Tree;
 
@@ -57,6 +62,46 @@ public class RedundantAssignmentsCheck extends SECheck {
     "java.util.stream.DoubleStream");
   private final Deque<Map<AssignmentExpressionTree, List<AssignmentDataHolder>>> assignmentsByMethod = new LinkedList<>();
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    return EnumSet.of(Tree.Kind.ASSIGNMENT);
+  }
+
+  @Override
+  public boolean isRelevant(Tree tree) {
+    AssignmentExpressionTree assignment = (AssignmentExpressionTree) tree;
+    ExpressionTree value = ExpressionUtils.skipParentheses(assignment.expression());
+    if (!ExpressionUtils.isSimpleAssignment(assignment) || !value.is(Tree.Kind.IDENTIFIER)) {
+      return true;
+    }
+    // a field can only already hold the value of a parameter which is never reassigned if it was assigned before
+    Symbol valueSymbol = ((IdentifierTree) value).symbol();
+    IdentifierTree variable = ExpressionUtils.extractIdentifier(assignment);
+    Symbol variableSymbol = variable.symbol();
+    return !JUtils.isParameter(valueSymbol)
+      || !JUtils.isEffectivelyFinal((Symbol.VariableSymbol) valueSymbol)
+      || !variableSymbol.isVariableSymbol()
+      || !variableSymbol.owner().isTypeSymbol()
+      || isAssignedElsewhere(variableSymbol, variable);
+  }
+
+  private static boolean isAssignedElsewhere(Symbol field, IdentifierTree variable) {
+    MethodTree method = ExpressionUtils.getEnclosingMethod(variable);
+    return field.usages().stream()
+      .filter(usage -> usage != variable && isAssigned(usage))
+      .anyMatch(usage -> ExpressionUtils.getEnclosingMethod(usage) == method);
+  }
+
+  private static boolean isAssigned(IdentifierTree usage) {
+    Tree assigned = usage;
+    Tree parent = usage.parent();
+    while (parent != null && parent.is(Tree.Kind.PARENTHESIZED_EXPRESSION, Tree.Kind.MEMBER_SELECT)) {
+      assigned = parent;
+      parent = parent.parent();
+    }
+    return parent instanceof AssignmentExpressionTree && ((AssignmentExpressionTree) parent).variable() == assigned;
+  }
+
   @Override
   public void scanFile(JavaFileScannerContext context) {
     assignmentsByMethod.clear();
@@ -26,14 +26,20 @@ import org.sonar.java.se.ProgramState;
 import org.sonar.java.se.constraint.ConstraintManager;
 import org.sonar.plugins.java.api.JavaFileScanner;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.semantic.MethodMatchers;
+import org.sonar.plugins.java.api.tree.MethodInvocationTree;
+import org.sonar.plugins.java.api.tree.MethodReferenceTree;
 import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.NewClassTree;
 import org.sonar.plugins.java.api.tree.Tree;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
 
 public abstract class SECheck implements JavaFileScanner {
 
@@ -43,6 +49,45 @@ public abstract class SECheck implements JavaFileScanner {
 
   }
 
+  /**
+   * Kinds of the trees this check reacts to. A method containing no tree relevant to any of the checks (see
+   * {@link #isRelevant(Tree)}) can not raise issues, and is not executed when its behavior is not needed by other files.
+   * By default, a check reacts to any tree.
+   */
+  public Set<Tree.Kind> relevantTreeKinds() {
+    return EnumSet.allOf(Tree.Kind.class);
+  }
+
+  /**
+   * Methods whose invocations, instance creations or references this check reacts to, null for any method.
+   */
+  @CheckForNull
+  public MethodMatchers relevantMethods() {
+    return null;
+  }
+
+  /**
+   * @param tree a tree of one of the {@link #relevantTreeKinds()}, in a method about to be executed
+   * @return false when this check can not react to the given tree. By default, only the invocations, instance creations
+   * and references of methods other than the {@link #relevantMethods()} are not relevant.
+   */
+  public boolean isRelevant(Tree tree) {
+    MethodMatchers methods = relevantMethods();
+    if (methods == null) {
+      return true;
+    }
+    switch (tree.kind()) {
+      case METHOD_INVOCATION:
+        return methods.matches((MethodInvocationTree) tree);
+      case NEW_CLASS:
+        return methods.matches((NewClassTree) tree);
+      case METHOD_REFERENCE:
+        return methods.matches((MethodReferenceTree) tree);
+      default:
+        return true;
+    }
+  }
+
   public ProgramState checkPreStatement(CheckerContext context, Tree syntaxNode) {
     return context.getState();
   }
@@ -20,6 +20,7 @@
 package org.sonar.java.se.checks;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.sonar.check.Rule;
@@ -78,6 +79,24 @@ public class StreamConsumedCheck extends SECheck {
     JAVA_UTIL_STREAM_BASESTREAM.names("sequential", "parallel", "unordered").addWithoutParametersMatcher().build(),
     JAVA_UTIL_STREAM_BASESTREAM.names("onClose").withAnyParameters().build());
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    return EnumSet.of(Tree.Kind.METHOD_INVOCATION, Tree.Kind.METHOD_REFERENCE, Tree.Kind.NEW_CLASS);
+  }
+
+  @Override
+  public boolean isRelevant(Tree tree) {
+    // issues are only raised on the operations of pipelines
+    if (tree.is(Tree.Kind.METHOD_INVOCATION)) {
+      MethodInvocationTree mit = (MethodInvocationTree) tree;
+      return isIntermediateOperation(mit) || isTerminalOperation(mit);
+    }
+    if (tree.is(Tree.Kind.METHOD_REFERENCE)) {
+      return TERMINAL_OPERATIONS.matches(((MethodReferenceTree) tree).method().symbol());
+    }
+    return false;
+  }
+
   @Override
   public ProgramState checkPreStatement(CheckerContext context, Tree syntaxNode) {
     if (syntaxNode.is(Tree.Kind.METHOD_REFERENCE)) {
@@ -27,8 +27,10 @@ import org.sonar.java.se.ProgramState;
 import org.sonar.java.se.constraint.ConstraintManager;
 import org.sonar.java.se.symbolicvalues.SymbolicValue;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.tree.Tree;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 
@@ -40,6 +42,11 @@ import static org.sonar.java.se.checks.StreamConsumedCheck.StreamPipelineConstra
 @Rule(key = "S3958")
 public class StreamNotConsumedCheck extends SECheck {
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    return EnumSet.of(Tree.Kind.METHOD_INVOCATION);
+  }
+
   @Override
   public void checkEndOfExecutionPath(CheckerContext context, ConstraintManager constraintManager) {
     if (context.getState().exitValue() instanceof SymbolicValue.ExceptionalSymbolicValue) {
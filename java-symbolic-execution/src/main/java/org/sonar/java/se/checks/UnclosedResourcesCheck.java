@@ -21,6 +21,7 @@ package org.sonar.java.se.checks;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -163,6 +164,18 @@ public class UnclosedResourcesCheck extends SECheck {
       .build()
   );
 
+  @Override
+  public Set<Tree.Kind> relevantTreeKinds() {
+    return EnumSet.of(Tree.Kind.METHOD_INVOCATION, Tree.Kind.NEW_CLASS);
+  }
+
+  @Override
+  public boolean isRelevant(Tree tree) {
+    // resources are closeable, unless returned by methods of this file whose yields may have opened them
+    return isCloseable((ExpressionTree) tree)
+      || (tree.is(Tree.Kind.METHOD_INVOCATION) && ((MethodInvocationTree) tree).symbol().declaration() != null);
+  }
+
   @Override
   public void scanFile(JavaFileScannerContext context) {
     this.visitedTryWithResourcesTrees.clear();
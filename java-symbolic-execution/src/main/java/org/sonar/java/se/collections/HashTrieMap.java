@@ -0,0 +1,453 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se.collections;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Persistent map implemented as a hash array mapped trie: each level of the trie consumes 5 bits of the hash of the keys,
+ * starting from the lowest ones. Keys whose hash is derived from a dense id, as symbolic values, are spread over the
+ * first levels without collision, so that an update only copies a couple of small nodes.
+ * <p>
+ * Size and structural hash code are maintained on update: {@link #hashCode()} is constant time, and {@link #equals(Object)}
+ * only walks the entries of maps having the same size and hash code.
+ */
+public final class HashTrieMap<K, V> {
+
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  private static final Object[] NO_OBJECTS = new Object[0];
+  private static final int[] NO_HASHES = new int[0];
+
+  private static final HashTrieMap<Object, Object> EMPTY = new HashTrieMap<>(BitmapNode.emptyNode(), 0, 0);
+
+  private final Node<K, V> root;
+  private final int size;
+  private final int hash;
+
+  private HashTrieMap(Node<K, V> root, int size, int hash) {
+    this.root = root;
+    this.size = size;
+    this.hash = hash;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <K, V> HashTrieMap<K, V> empty() {
+    return (HashTrieMap<K, V>) EMPTY;
+  }
+
+  @CheckForNull
+  public V get(K key) {
+    return root.get(key, key.hashCode(), 0);
+  }
+
+  public boolean containsKey(K key) {
+    return get(key) != null;
+  }
+
+  /**
+   * @return a map associating the given value to the given key, or this map when the key is already associated to an
+   * equal value
+   */
+  public HashTrieMap<K, V> put(K key, V value) {
+    int keyHash = key.hashCode();
+    V oldValue = root.get(key, keyHash, 0);
+    if (value.equals(oldValue)) {
+      return this;
+    }
+    Node<K, V> newRoot = root.put(key, keyHash, value, 0);
+    if (oldValue == null) {
+      return new HashTrieMap<>(newRoot, size + 1, hash + entryHash(keyHash, value));
+    }
+    return new HashTrieMap<>(newRoot, size, hash - entryHash(keyHash, oldValue) + entryHash(keyHash, value));
+  }
+
+  /**
+   * @return a map without the given key, or this map when the key is not present
+   */
+  public HashTrieMap<K, V> remove(K key) {
+    int keyHash = key.hashCode();
+    V oldValue = root.get(key, keyHash, 0);
+    if (oldValue == null) {
+      return this;
+    }
+    if (size == 1) {
+      return empty();
+    }
+    return new HashTrieMap<>(root.remove(key, keyHash, 0), size - 1, hash - entryHash(keyHash, oldValue));
+  }
+
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    root.allMatch((key, value) -> {
+      action.accept(key, value);
+      return true;
+    });
+  }
+
+  public boolean anyMatch(BiPredicate<? super K, ? super V> predicate) {
+    return !root.allMatch((key, value) -> !predicate.test(key, value));
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  private static int entryHash(int keyHash, Object value) {
+    // same combination as java.util.Map.Entry
+    return keyHash ^ value.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof HashTrieMap)) {
+      return false;
+    }
+    @SuppressWarnings("unchecked")
+    HashTrieMap<K, V> other = (HashTrieMap<K, V>) o;
+    if (size != other.size || hash != other.hash) {
+      return false;
+    }
+    return root.allMatch((key, value) -> value.equals(other.get(key)));
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    forEach((key, value) -> {
+      if (sb.length() > 1) {
+        sb.append(", ");
+      }
+      sb.append(key).append('=').append(value);
+    });
+    return sb.append('}').toString();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <K, V> Node<K, V>[] nodeArray(Node<?, ?>... nodes) {
+    return (Node<K, V>[]) nodes;
+  }
+
+  private static int bit(int keyHash, int shift) {
+    return 1 << ((keyHash >>> shift) & MASK);
+  }
+
+  private abstract static class Node<K, V> {
+
+    @CheckForNull
+    abstract V get(K key, int keyHash, int shift);
+
+    /**
+     * Called only when the key is absent or associated to a different value.
+     */
+    abstract Node<K, V> put(K key, int keyHash, V value, int shift);
+
+    /**
+     * Called only when the key is present.
+     */
+    abstract Node<K, V> remove(K key, int keyHash, int shift);
+
+    abstract boolean allMatch(BiPredicate<? super K, ? super V> predicate);
+
+    /**
+     * @return true when the node holds one entry and no sub-node: its entry can then be moved to the parent node
+     */
+    abstract boolean hasSingleEntry();
+
+    static <K, V> Node<K, V> merge(K key1, int hash1, V value1, K key2, int hash2, V value2, int shift) {
+      if (hash1 == hash2) {
+        return new CollisionNode<>(hash1, new Object[] {key1, key2}, new Object[] {value1, value2});
+      }
+      int bit1 = bit(hash1, shift);
+      int bit2 = bit(hash2, shift);
+      if (bit1 == bit2) {
+        // distinct hashes always differ in one of the bits consumed by the levels up to the last one
+        return new BitmapNode<>(0, bit1, NO_OBJECTS, NO_OBJECTS, NO_HASHES,
+          nodeArray(merge(key1, hash1, value1, key2, hash2, value2, shift + BITS)));
+      }
+      boolean firstIsLower = Integer.compareUnsigned(bit1, bit2) < 0;
+      return new BitmapNode<>(bit1 | bit2, 0,
+        firstIsLower ? new Object[] {key1, key2} : new Object[] {key2, key1},
+        firstIsLower ? new Object[] {value1, value2} : new Object[] {value2, value1},
+        firstIsLower ? new int[] {hash1, hash2} : new int[] {hash2, hash1},
+        nodeArray());
+    }
+  }
+
+  /**
+   * Node indexing its entries and sub-nodes by the 5 bits of the hash consumed at its level. Entries and sub-nodes are
+   * stored in compact arrays, in the order of their bit in the bitmaps.
+   */
+  private static final class BitmapNode<K, V> extends Node<K, V> {
+
+    private static final BitmapNode<Object, Object> EMPTY_NODE = new BitmapNode<>(0, 0, NO_OBJECTS, NO_OBJECTS, NO_HASHES, nodeArray());
+
+    private final int dataMap;
+    private final int nodeMap;
+    private final Object[] keys;
+    private final Object[] values;
+    private final int[] hashes;
+    private final Node<K, V>[] nodes;
+
+    private BitmapNode(int dataMap, int nodeMap, Object[] keys, Object[] values, int[] hashes, Node<K, V>[] nodes) {
+      this.dataMap = dataMap;
+      this.nodeMap = nodeMap;
+      this.keys = keys;
+      this.values = values;
+      this.hashes = hashes;
+      this.nodes = nodes;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> BitmapNode<K, V> emptyNode() {
+      return (BitmapNode<K, V>) EMPTY_NODE;
+    }
+
+    private static int index(int bitmap, int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    V get(K key, int keyHash, int shift) {
+      int bit = bit(keyHash, shift);
+      if ((dataMap & bit) != 0) {
+        int i = index(dataMap, bit);
+        return hashes[i] == keyHash && key.equals(keys[i]) ? (V) values[i] : null;
+      }
+      if ((nodeMap & bit) != 0) {
+        return nodes[index(nodeMap, bit)].get(key, keyHash, shift + BITS);
+      }
+      return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    Node<K, V> put(K key, int keyHash, V value, int shift) {
+      int bit = bit(keyHash, shift);
+      if ((dataMap & bit) != 0) {
+        int i = index(dataMap, bit);
+        if (hashes[i] == keyHash && key.equals(keys[i])) {
+          Object[] newValues = values.clone();
+          newValues[i] = value;
+          return new BitmapNode<>(dataMap, nodeMap, keys, newValues, hashes, nodes);
+        }
+        Node<K, V> subNode = merge((K) keys[i], hashes[i], (V) values[i], key, keyHash, value, shift + BITS);
+        return new BitmapNode<>(dataMap ^ bit, nodeMap | bit, without(keys, i), without(values, i), without(hashes, i),
+          with(nodes, index(nodeMap, bit), subNode));
+      }
+      if ((nodeMap & bit) != 0) {
+        int j = index(nodeMap, bit);
+        Node<K, V>[] newNodes = nodes.clone();
+        newNodes[j] = nodes[j].put(key, keyHash, value, shift + BITS);
+        return new BitmapNode<>(dataMap, nodeMap, keys, values, hashes, newNodes);
+      }
+      int i = index(dataMap, bit);
+      return new BitmapNode<>(dataMap | bit, nodeMap, with(keys, i, key), with(values, i, value), with(hashes, i, keyHash), nodes);
+    }
+
+    @Override
+    Node<K, V> remove(K key, int keyHash, int shift) {
+      int bit = bit(keyHash, shift);
+      if ((dataMap & bit) != 0) {
+        int i = index(dataMap, bit);
+        return new BitmapNode<>(dataMap ^ bit, nodeMap, without(keys, i), without(values, i), without(hashes, i), nodes);
+      }
+      int j = index(nodeMap, bit);
+      Node<K, V> subNode = nodes[j].remove(key, keyHash, shift + BITS);
+      if (subNode.hasSingleEntry()) {
+        // keep the trie compact: the remaining entry of the sub-node moves up to this node
+        BitmapNode<K, V> single = (BitmapNode<K, V>) subNode;
+        int i = index(dataMap, bit);
+        return new BitmapNode<>(dataMap | bit, nodeMap ^ bit, with(keys, i, single.keys[0]), with(values, i, single.values[0]),
+          with(hashes, i, single.hashes[0]), without(nodes, j));
+      }
+      Node<K, V>[] newNodes = nodes.clone();
+      newNodes[j] = subNode;
+      return new BitmapNode<>(dataMap, nodeMap, keys, values, hashes, newNodes);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    boolean allMatch(BiPredicate<? super K, ? super V> predicate) {
+      for (int i = 0; i < keys.length; i++) {
+        if (!predicate.test((K) keys[i], (V) values[i])) {
+          return false;
+        }
+      }
+      for (Node<K, V> node : nodes) {
+        if (!node.allMatch(predicate)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    boolean hasSingleEntry() {
+      return nodeMap == 0 && keys.length == 1;
+    }
+
+    private static Object[] with(Object[] array, int index, @Nullable Object element) {
+      Object[] result = new Object[array.length + 1];
+      System.arraycopy(array, 0, result, 0, index);
+      result[index] = element;
+      System.arraycopy(array, index, result, index + 1, array.length - index);
+      return result;
+    }
+
+    private static int[] with(int[] array, int index, int element) {
+      int[] result = new int[array.length + 1];
+      System.arraycopy(array, 0, result, 0, index);
+      result[index] = element;
+      System.arraycopy(array, index, result, index + 1, array.length - index);
+      return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V>[] with(Node<K, V>[] array, int index, Node<K, V> element) {
+      Node<K, V>[] result = new Node[array.length + 1];
+      System.arraycopy(array, 0, result, 0, index);
+      result[index] = element;
+      System.arraycopy(array, index, result, index + 1, array.length - index);
+      return result;
+    }
+
+    private static Object[] without(Object[] array, int index) {
+      Object[] result = new Object[array.length - 1];
+      System.arraycopy(array, 0, result, 0, index);
+      System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+      return result;
+    }
+
+    private static int[] without(int[] array, int index) {
+      int[] result = new int[array.length - 1];
+      System.arraycopy(array, 0, result, 0, index);
+      System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+      return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V>[] without(Node<K, V>[] array, int index) {
+      Node<K, V>[] result = new Node[array.length - 1];
+      System.arraycopy(array, 0, result, 0, index);
+      System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+      return result;
+    }
+  }
+
+  /**
+   * Node holding the entries of distinct keys having the same hash.
+   */
+  private static final class CollisionNode<K, V> extends Node<K, V> {
+
+    private final int keyHash;
+    private final Object[] keys;
+    private final Object[] values;
+
+    private CollisionNode(int keyHash, Object[] keys, Object[] values) {
+      this.keyHash = keyHash;
+      this.keys = keys;
+      this.values = values;
+    }
+
+    private int indexOf(Object key) {
+      for (int i = 0; i < keys.length; i++) {
+        if (key.equals(keys[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    V get(K key, int keyHash, int shift) {
+      if (this.keyHash != keyHash) {
+        return null;
+      }
+      int i = indexOf(key);
+      return i < 0 ? null : (V) values[i];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    Node<K, V> put(K key, int keyHash, V value, int shift) {
+      if (this.keyHash != keyHash) {
+        // the collision node is pushed down, next to the new entry
+        BitmapNode<K, V> node = new BitmapNode<>(0, bit(this.keyHash, shift), NO_OBJECTS, NO_OBJECTS, NO_HASHES, nodeArray(this));
+        return node.put(key, keyHash, value, shift);
+      }
+      int i = indexOf(key);
+      if (i >= 0) {
+        Object[] newValues = values.clone();
+        newValues[i] = value;
+        return new CollisionNode<>(keyHash, keys, newValues);
+      }
+      Object[] newKeys = Arrays.copyOf(keys, keys.length + 1);
+      Object[] newValues = Arrays.copyOf(values, values.length + 1);
+      newKeys[keys.length] = key;
+      newValues[values.length] = value;
+      return new CollisionNode<>(keyHash, newKeys, newValues);
+    }
+
+    @Override
+    Node<K, V> remove(K key, int keyHash, int shift) {
+      int i = indexOf(key);
+      if (keys.length == 2) {
+        int remaining = 1 - i;
+        return new BitmapNode<>(bit(keyHash, shift), 0, new Object[] {keys[remaining]}, new Object[] {values[remaining]}, new int[] {keyHash}, nodeArray());
+      }
+      return new CollisionNode<>(keyHash, BitmapNode.without(keys, i), BitmapNode.without(values, i));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    boolean allMatch(BiPredicate<? super K, ? super V> predicate) {
+      for (int i = 0; i < keys.length; i++) {
+        if (!predicate.test((K) keys[i], (V) values[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    boolean hasSingleEntry() {
+      return false;
+    }
+  }
+}
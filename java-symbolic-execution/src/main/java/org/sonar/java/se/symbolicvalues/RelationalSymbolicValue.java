@@ -24,6 +24,7 @@ import java.util.stream.Stream;
 import org.sonar.java.annotations.VisibleForTesting;
 import org.sonar.java.Preconditions;
 
+import org.sonar.java.se.KnownRelations;
 import org.sonar.java.se.ProgramState;
 import org.sonar.java.se.constraint.BooleanConstraint;
 import org.sonar.java.se.constraint.Constraint;
@@ -40,6 +41,7 @@ import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.sonar.java.se.symbolicvalues.RelationalSymbolicValue.Kind.EQUAL;
@@ -103,11 +105,11 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
 
   @Override
   public List<ProgramState> setConstraint(ProgramState initialProgramState, BooleanConstraint booleanConstraint) {
-    return setConstraint(initialProgramState, booleanConstraint, new HashSet<>(initialProgramState.knownRelations()));
+    return setConstraint(initialProgramState, booleanConstraint, new RelationsInProgress(initialProgramState.knownRelations()));
   }
 
   @Override
-  protected List<ProgramState> setConstraint(ProgramState initialProgramState, Constraint constraint, Set<RelationalSymbolicValue> knownRelations) {
+  protected List<ProgramState> setConstraint(ProgramState initialProgramState, Constraint constraint, RelationsInProgress knownRelations) {
     if (constraint == BooleanConstraint.FALSE) {
       return inverse().setConstraint(initialProgramState, BooleanConstraint.TRUE, knownRelations);
     }
@@ -120,10 +122,10 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
     }
     Set<RelationalSymbolicValue> newRelations = new HashSet<>();
     newRelations.add(this);
-    newRelations.addAll(transitiveRelations(knownRelations));
+    newRelations.addAll(transitiveRelations(knownRelations.relations()));
 
     boolean unfulfilled = newRelations.stream()
-      .map(r -> r.resolveRelationState(knownRelations))
+      .map(r -> r.resolveRelationState(knownRelations.relations()))
       .anyMatch(RelationState.UNFULFILLED::equals);
 
     if (unfulfilled) {
@@ -134,7 +136,7 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
   }
 
   private static List<ProgramState> getNewProgramStates(ProgramState initialProgramState, Set<RelationalSymbolicValue> newRelations,
-                                                        Set<RelationalSymbolicValue> knownRelations) {
+                                                        RelationsInProgress knownRelations) {
     List<ProgramState> programStates = new ArrayList<>();
     programStates.add(initialProgramState);
     for (RelationalSymbolicValue relationalSymbolicValue : newRelations) {
@@ -151,7 +153,7 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
     return new RelationalSymbolicValue(kind.inverse(), leftOp, rightOp);
   }
 
-  private List<ProgramState> copyAllConstraints(ProgramState initialState, Set<RelationalSymbolicValue> knownRelations) {
+  private List<ProgramState> copyAllConstraints(ProgramState initialState, RelationsInProgress knownRelations) {
     ProgramState programState = initialState;
     if (programState.canReach(leftOp) || programState.canReach(rightOp)) {
       programState = programState.addConstraint(this, BooleanConstraint.TRUE);
@@ -206,7 +208,7 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
     return Stream.of(copiedConstraints, nullConstraints).flatMap(List::stream).collect(Collectors.toList());
   }
 
-  private List<ProgramState> copyConstraintFromTo(SymbolicValue from, SymbolicValue to, ProgramState programState, Set<RelationalSymbolicValue> knownRelations) {
+  private List<ProgramState> copyConstraintFromTo(SymbolicValue from, SymbolicValue to, ProgramState programState, RelationsInProgress knownRelations) {
     List<ProgramState> states = new ArrayList<>();
     states.add(programState);
     ConstraintsByDomain leftConstraints = programState.getConstraints(from);
@@ -221,7 +223,7 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
     return states;
   }
 
-  private void applyConstraints(SymbolicValue symbolicValue, Set<RelationalSymbolicValue> knownRelations, List<ProgramState> states, ConstraintsByDomain constraints) {
+  private void applyConstraints(SymbolicValue symbolicValue, RelationsInProgress knownRelations, List<ProgramState> states, ConstraintsByDomain constraints) {
     constraints.forEach((d, c) -> {
       Constraint constraint = c.copyOver(kind);
       if (constraint != null) {
@@ -232,7 +234,7 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
     });
   }
 
-  private static List<ProgramState> applyConstraint(Constraint constraint, SymbolicValue to, List<ProgramState> states, Set<RelationalSymbolicValue> knownRelations) {
+  private static List<ProgramState> applyConstraint(Constraint constraint, SymbolicValue to, List<ProgramState> states, RelationsInProgress knownRelations) {
     List<ProgramState> newStates = new ArrayList<>();
     states.forEach(state -> newStates.addAll(to.setConstraint(state, constraint, knownRelations)));
     return newStates;
@@ -240,14 +242,21 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
 
   @VisibleForTesting
   RelationState resolveRelationState(Set<RelationalSymbolicValue> knownRelations) {
+    return resolveRelationState(KnownRelations.of(knownRelations));
+  }
+
+  private RelationState resolveRelationState(KnownRelations knownRelations) {
     if (hasSameOperand()) {
       return relationStateForSameOperand();
     }
-
-    return knownRelations.stream()
-      .map(r -> r.implies(this))
-      .filter(RelationState::isDetermined)
-      .findAny().orElse(RelationState.UNDETERMINED);
+    // only relations on the same operands can determine this relation
+    RelationState[] result = {RelationState.UNDETERMINED};
+    knownRelations.forEachRelationOf(leftOp, r -> {
+      if (!result[0].isDetermined()) {
+        result[0] = r.implies(this);
+      }
+    });
+    return result[0];
   }
 
   private RelationState relationStateForSameOperand() {
@@ -280,6 +289,10 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
 
   @VisibleForTesting
   Set<RelationalSymbolicValue> transitiveRelations(Set<RelationalSymbolicValue> knownRelations) {
+    return transitiveRelations(KnownRelations.of(knownRelations));
+  }
+
+  private Set<RelationalSymbolicValue> transitiveRelations(KnownRelations knownRelations) {
     Set<RelationalSymbolicValue> newRelations = new HashSet<>();
     Deque<RelationalSymbolicValue> workList = new ArrayDeque<>();
     int iterations = 0;
@@ -292,11 +305,20 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
       }
       iterations++;
       RelationalSymbolicValue relation = workList.pop();
-      for (RelationalSymbolicValue knownRelation : knownRelations) {
+      // a relation can only be simplified or combined with relations sharing one of its operands
+      Consumer<RelationalSymbolicValue> deduce = knownRelation -> {
         RelationalSymbolicValue r = relation.deduceTransitiveOrSimplified(knownRelation);
         if (r != null && !knownRelations.contains(r) && newRelations.add(r)) {
           workList.add(r);
         }
+      };
+      knownRelations.forEachRelationOf(relation.leftOp, deduce);
+      if (!relation.rightOp.equals(relation.leftOp)) {
+        knownRelations.forEachRelationOf(relation.rightOp, knownRelation -> {
+          if (!knownRelation.hasOperand(relation.leftOp)) {
+            deduce.accept(knownRelation);
+          }
+        });
       }
     }
     return newRelations;
@@ -0,0 +1,47 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se.symbolicvalues;
+
+import org.sonar.java.se.KnownRelations;
+
+/**
+ * Relations known while a relation is being added to a program state: the relations of the initial program state, and the
+ * relations already added by the nested calls. Being persistent, the relations of the program state are not copied.
+ */
+final class RelationsInProgress {
+
+  private KnownRelations relations;
+
+  RelationsInProgress(KnownRelations relations) {
+    this.relations = relations;
+  }
+
+  KnownRelations relations() {
+    return relations;
+  }
+
+  boolean contains(RelationalSymbolicValue relation) {
+    return relations.contains(relation);
+  }
+
+  void add(RelationalSymbolicValue relation) {
+    relations = relations.add(relation);
+  }
+}
@@ -24,7 +24,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.java.model.Symbols;
@@ -181,7 +180,7 @@ public class SymbolicValue {
     return states.get(0);
   }
 
-  protected List<ProgramState> setConstraint(ProgramState state, Constraint constraint, Set<RelationalSymbolicValue> knownRelations) {
+  protected List<ProgramState> setConstraint(ProgramState state, Constraint constraint, RelationsInProgress knownRelations) {
     return setConstraint(state, constraint);
   }
 
@@ -22,6 +22,7 @@ package org.sonar.java.se.xproc;
 import org.sonar.java.annotations.VisibleForTesting;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -51,7 +52,20 @@ public class BehaviorCache {
 
   @VisibleForTesting
   public final Map<String, MethodBehavior> behaviors = new LinkedHashMap<>();
-  private Map<String, MethodBehavior> hardcodedBehaviors = null;
+  private HardcodedMethodBehaviors hardcodedBehaviors = null;
+  @Nullable
+  private final ProjectBehaviorStore projectBehaviors;
+
+  public BehaviorCache() {
+    this(null);
+  }
+
+  /**
+   * @param projectBehaviors behaviors of the methods declared in the other files of the project, preferred to hardcoded behaviors
+   */
+  public BehaviorCache(@Nullable ProjectBehaviorStore projectBehaviors) {
+    this.projectBehaviors = projectBehaviors;
+  }
 
   public void setFileContext(@Nullable SymbolicExecutionVisitor sev) {
     this.sev = sev;
@@ -62,7 +76,7 @@ public class BehaviorCache {
   }
 
   @VisibleForTesting
-  Map<String, MethodBehavior> hardcodedBehaviors() {
+  HardcodedMethodBehaviors hardcodedBehaviors() {
     if (hardcodedBehaviors == null) {
       hardcodedBehaviors = HardcodedMethodBehaviors.load();
       LOG.debug(String.format("[SE] Loaded %d hardcoded method behaviors.", hardcodedBehaviors.size()));
@@ -100,7 +114,7 @@ public class BehaviorCache {
       }
     }
 
-    return hardcodedBehaviors().get(signature);
+    return projectOrHardcodedBehavior(signature);
   }
 
   /**
@@ -116,7 +130,16 @@ public class BehaviorCache {
     if (mb != null) {
       return mb;
     }
-    // check for hardcoded signatures
+    // check for behaviors computed in other files, or hardcoded signatures
+    return projectOrHardcodedBehavior(signature);
+  }
+
+  @CheckForNull
+  private MethodBehavior projectOrHardcodedBehavior(String signature) {
+    MethodBehavior mb = projectBehaviors != null ? projectBehaviors.get(signature) : null;
+    if (mb != null) {
+      return mb;
+    }
     return hardcodedBehaviors().get(signature);
   }
 
@@ -137,10 +160,17 @@ public class BehaviorCache {
 
     private static final Type LIST_OF_METHOD_BEHAVIORS_TYPE = new TypeToken<List<MethodBehavior>>() {}.getType();
 
+    /**
+     * Index compiled from the JSON resources when building the module, from which behaviors are decoded on demand.
+     * Behaviors are read from the JSON resources when it is not available.
+     */
+    @Nullable
+    private final MethodBehaviorIndex index;
     private final Map<String, MethodBehavior> storedHardcodedMethodBehaviors;
 
     private HardcodedMethodBehaviors() {
-      this.storedHardcodedMethodBehaviors = loadHardcodedBehaviors();
+      this.index = loadIndex();
+      this.storedHardcodedMethodBehaviors = index == null ? loadHardcodedBehaviors(false) : Collections.emptyMap();
     }
 
     private static HardcodedMethodBehaviors uniqueInstance = null;
@@ -152,23 +182,50 @@ public class BehaviorCache {
       return uniqueInstance;
     }
 
-    public static Map<String, MethodBehavior> load() {
-      return uniqueInstance().storedHardcodedMethodBehaviors;
+    public static HardcodedMethodBehaviors load() {
+      return uniqueInstance();
+    }
+
+    @CheckForNull
+    MethodBehavior get(String signature) {
+      return index != null ? index.get(signature) : storedHardcodedMethodBehaviors.get(signature);
+    }
+
+    int size() {
+      return index != null ? index.size() : storedHardcodedMethodBehaviors.size();
+    }
+
+    @CheckForNull
+    private static MethodBehaviorIndex loadIndex() {
+      try {
+        return MethodBehaviorIndex.load();
+      } catch (IOException | RuntimeException e) {
+        LOG.debug("[SE] Unable to load index of hardcoded method behaviors, reading them from JSON resources: {}", e.getMessage());
+        return null;
+      }
     }
 
-    private static Map<String, MethodBehavior> loadHardcodedBehaviors() {
+    /**
+     * @param failFast when true, fails if a resource can not be read instead of defaulting to no hardcoded behaviors.
+     *                 Used to build the index, where a missing resource is an error.
+     */
+    static Map<String, MethodBehavior> loadHardcodedBehaviors(boolean failFast) {
       return loadHardcodedBehaviors(
         () -> Arrays.stream(BEHAVIORS_RESOURCES)
           .map(BehaviorCache.class::getResourceAsStream)
-          .collect(Collectors.toList()));
+          .collect(Collectors.toList()),
+        failFast);
     }
 
     @VisibleForTesting
-    static Map<String, MethodBehavior> loadHardcodedBehaviors(Supplier<List<InputStream>> methodBehaviorStreamsSupplier) {
+    static Map<String, MethodBehavior> loadHardcodedBehaviors(Supplier<List<InputStream>> methodBehaviorStreamsSupplier, boolean failFast) {
       Map<String, MethodBehavior> result = new LinkedHashMap<>();
       Gson gson = MethodBehaviorJsonAdapter.gson();
       for (InputStream serializedStream : methodBehaviorStreamsSupplier.get()) {
         if (serializedStream == null) {
+          if (failFast) {
+            throw new IllegalStateException("Missing hardcoded method behaviors");
+          }
           LOG.debug(UNABLE_LOAD_MSG);
           return Collections.emptyMap();
         }
@@ -176,6 +233,9 @@ public class BehaviorCache {
           List<MethodBehavior> deserialized = gson.fromJson(reader, LIST_OF_METHOD_BEHAVIORS_TYPE);
           deserialized.forEach(methodBehavior -> result.put(methodBehavior.signature(), methodBehavior));
         } catch (Exception e) {
+          if (failFast) {
+            throw new IllegalStateException("Unable to load hardcoded method behaviors", e);
+          }
           LOG.error(UNABLE_LOAD_MSG, e);
           return Collections.emptyMap();
         }
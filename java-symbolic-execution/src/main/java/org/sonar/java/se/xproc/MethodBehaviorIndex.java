@@ -0,0 +1,360 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se.xproc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.java.se.constraint.BooleanConstraint;
+import org.sonar.java.se.constraint.Constraint;
+import org.sonar.java.se.constraint.ConstraintsByDomain;
+import org.sonar.java.se.constraint.ObjectConstraint;
+
+/**
+ * Compact binary form of the hardcoded method behaviors, compiled from the JSON resources when the module is built (see
+ * {@link #main(String[])}). At runtime, a behavior is decoded only when its signature is requested.
+ * <p>
+ * Layout of the index, big-endian:
+ * <pre>
+ *   int magic, int version, int count
+ *   count x (int signature offset, int behavior offset), ordered by the UTF-8 bytes of the signatures
+ *   signatures and behaviors
+ * </pre>
+ * Strings are stored as an unsigned short length followed by their UTF-8 bytes. Constraints of a parameter or of a result
+ * are stored as a single byte, see {@link #encode(ConstraintsByDomain)}.
+ */
+public final class MethodBehaviorIndex {
+
+  static final String RESOURCE = "hardcoded-behaviors.idx";
+
+  private static final int MAGIC = 0x534A4D42;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 12;
+  private static final int ENTRY_SIZE = 8;
+
+  private static final byte HAPPY_PATH_YIELD = 0;
+  private static final byte EXCEPTIONAL_YIELD = 1;
+
+  private static final byte NO_CONSTRAINTS = -1;
+  private static final int NULL = 1;
+  private static final int NOT_NULL = 1 << 1;
+  private static final int TRUE = 1 << 2;
+  private static final int FALSE = 1 << 3;
+
+  private final ByteBuffer buffer;
+  private final int size;
+  private final Map<String, MethodBehavior> decoded = new ConcurrentHashMap<>();
+
+  private MethodBehaviorIndex(ByteBuffer buffer) {
+    this.buffer = buffer;
+    if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+      throw new IllegalStateException("Not an index of method behaviors, or built by another version of the analyzer.");
+    }
+    this.size = buffer.getInt(8);
+  }
+
+  static MethodBehaviorIndex of(ByteBuffer buffer) {
+    return new MethodBehaviorIndex(buffer);
+  }
+
+  /**
+   * @return the index bundled with the analyzer, mapped in memory when it is not packaged in an archive, null when the
+   * module has been built without it
+   */
+  @CheckForNull
+  static MethodBehaviorIndex load() throws IOException {
+    URL url = MethodBehaviorIndex.class.getResource(RESOURCE);
+    if (url == null) {
+      return null;
+    }
+    if ("file".equals(url.getProtocol())) {
+      try (FileChannel channel = FileChannel.open(Paths.get(url.toURI()), StandardOpenOption.READ)) {
+        return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+      } catch (URISyntaxException e) {
+        throw new IOException(e);
+      }
+    }
+    try (InputStream in = url.openStream()) {
+      return of(ByteBuffer.wrap(in.readAllBytes()));
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  @CheckForNull
+  public MethodBehavior get(String signature) {
+    MethodBehavior behavior = decoded.get(signature);
+    if (behavior != null) {
+      return behavior;
+    }
+    int offset = behaviorOffset(signature.getBytes(StandardCharsets.UTF_8));
+    if (offset < 0) {
+      return null;
+    }
+    // decoded behaviors are kept, so that a signature always gets the same instance
+    return decoded.computeIfAbsent(signature, k -> decodeBehavior(signature, offset));
+  }
+
+  private int behaviorOffset(byte[] signature) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int entry = HEADER_SIZE + middle * ENTRY_SIZE;
+      int comparison = compareSignature(buffer.getInt(entry), signature);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return buffer.getInt(entry + 4);
+      }
+    }
+    return -1;
+  }
+
+  private int compareSignature(int offset, byte[] signature) {
+    int length = buffer.getShort(offset) & 0xFFFF;
+    int start = offset + 2;
+    for (int i = 0; i < Math.min(length, signature.length); i++) {
+      int comparison = Integer.compare(buffer.get(start + i) & 0xFF, signature[i] & 0xFF);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return Integer.compare(length, signature.length);
+  }
+
+  private MethodBehavior decodeBehavior(String signature, int offset) {
+    // each decoding works on its own view of the buffer, which may be shared by several analyses
+    ByteBuffer in = buffer.duplicate();
+    in.position(offset);
+    try {
+      MethodBehavior behavior = new MethodBehavior(signature, in.get() != 0);
+      int declaredExceptionsCount = in.getShort() & 0xFFFF;
+      List<String> declaredExceptions = new ArrayList<>(declaredExceptionsCount);
+      for (int i = 0; i < declaredExceptionsCount; i++) {
+        declaredExceptions.add(readString(in));
+      }
+      behavior.setDeclaredExceptions(declaredExceptions);
+      int yieldsCount = in.getShort() & 0xFFFF;
+      for (int i = 0; i < yieldsCount; i++) {
+        behavior.addYield(decodeYield(behavior, in));
+      }
+      behavior.completed();
+      return behavior;
+    } catch (BufferUnderflowException e) {
+      throw new IllegalStateException("Corrupted index of method behaviors, unable to read behavior of " + signature, e);
+    }
+  }
+
+  private static MethodYield decodeYield(MethodBehavior behavior, ByteBuffer in) {
+    MethodYield result;
+    byte kind = in.get();
+    if (kind == EXCEPTIONAL_YIELD) {
+      ExceptionalYield exceptionalYield = new ExceptionalYield(behavior);
+      exceptionalYield.setExceptionType(in.get() != 0 ? readString(in) : null);
+      result = exceptionalYield;
+    } else {
+      HappyPathYield happyPathYield = new HappyPathYield(behavior);
+      int resultIndex = in.getShort();
+      happyPathYield.setResult(resultIndex, decode(in.get()));
+      result = happyPathYield;
+    }
+    int parametersCount = in.get() & 0xFF;
+    for (int i = 0; i < parametersCount; i++) {
+      result.parametersConstraints.add(decode(in.get()));
+    }
+    return result;
+  }
+
+  @CheckForNull
+  private static ConstraintsByDomain decode(byte constraints) {
+    if (constraints == NO_CONSTRAINTS) {
+      return null;
+    }
+    ConstraintsByDomain result = ConstraintsByDomain.empty();
+    if ((constraints & NULL) != 0) {
+      result = result.put(ObjectConstraint.NULL);
+    }
+    if ((constraints & NOT_NULL) != 0) {
+      result = result.put(ObjectConstraint.NOT_NULL);
+    }
+    if ((constraints & TRUE) != 0) {
+      result = result.put(BooleanConstraint.TRUE);
+    }
+    if ((constraints & FALSE) != 0) {
+      result = result.put(BooleanConstraint.FALSE);
+    }
+    return result;
+  }
+
+  private static String readString(ByteBuffer in) {
+    byte[] bytes = new byte[in.getShort() & 0xFFFF];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes the index of the given complete behaviors. Like their JSON form, only nullness and boolean constraints are kept.
+   */
+  static void write(Collection<MethodBehavior> behaviors, OutputStream out) throws IOException {
+    List<MethodBehavior> sortedBehaviors = new ArrayList<>(behaviors);
+    sortedBehaviors.sort((b1, b2) -> compare(b1.signature().getBytes(StandardCharsets.UTF_8), b2.signature().getBytes(StandardCharsets.UTF_8)));
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    DataOutputStream dataOut = new DataOutputStream(data);
+    int dataStart = HEADER_SIZE + sortedBehaviors.size() * ENTRY_SIZE;
+    int[] signatureOffsets = new int[sortedBehaviors.size()];
+    int[] behaviorOffsets = new int[sortedBehaviors.size()];
+    for (int i = 0; i < sortedBehaviors.size(); i++) {
+      MethodBehavior behavior = sortedBehaviors.get(i);
+      if (i > 0 && behavior.signature().equals(sortedBehaviors.get(i - 1).signature())) {
+        throw new IllegalArgumentException("Duplicated behavior of " + behavior.signature());
+      }
+      signatureOffsets[i] = dataStart + dataOut.size();
+      writeString(dataOut, behavior.signature());
+      behaviorOffsets[i] = dataStart + dataOut.size();
+      encode(behavior, dataOut);
+    }
+    DataOutputStream indexOut = new DataOutputStream(out);
+    indexOut.writeInt(MAGIC);
+    indexOut.writeInt(VERSION);
+    indexOut.writeInt(sortedBehaviors.size());
+    for (int i = 0; i < sortedBehaviors.size(); i++) {
+      indexOut.writeInt(signatureOffsets[i]);
+      indexOut.writeInt(behaviorOffsets[i]);
+    }
+    dataOut.flush();
+    data.writeTo(indexOut);
+    indexOut.flush();
+  }
+
+  private static void encode(MethodBehavior behavior, DataOutputStream out) throws IOException {
+    out.writeBoolean(behavior.isMethodVarArgs());
+    List<String> declaredExceptions = behavior.getDeclaredExceptions();
+    out.writeShort(declaredExceptions.size());
+    for (String declaredException : declaredExceptions) {
+      writeString(out, declaredException);
+    }
+    List<MethodYield> yields = behavior.yields();
+    out.writeShort(yields.size());
+    for (MethodYield methodYield : yields) {
+      if (methodYield instanceof HappyPathYield) {
+        HappyPathYield happyPathYield = (HappyPathYield) methodYield;
+        out.writeByte(HAPPY_PATH_YIELD);
+        out.writeShort(happyPathYield.resultIndex());
+        out.writeByte(encode(happyPathYield.resultConstraint()));
+      } else if (methodYield instanceof ExceptionalYield) {
+        String exceptionType = ((ExceptionalYield) methodYield).getExceptionType();
+        out.writeByte(EXCEPTIONAL_YIELD);
+        out.writeBoolean(exceptionType != null);
+        if (exceptionType != null) {
+          writeString(out, exceptionType);
+        }
+      } else {
+        throw new IllegalStateException("Hardcoded yields should only be HappyPathYield or ExceptionalYield.");
+      }
+      int arity = behavior.methodArity();
+      out.writeByte(arity);
+      for (int i = 0; i < arity; i++) {
+        out.writeByte(encode(methodYield.parametersConstraints.get(i)));
+      }
+    }
+  }
+
+  /**
+   * @return a byte with one bit per supported constraint, or {@link #NO_CONSTRAINTS} when constraints are unknown
+   */
+  private static byte encode(@Nullable ConstraintsByDomain constraints) {
+    if (constraints == null) {
+      return NO_CONSTRAINTS;
+    }
+    int[] result = {0};
+    constraints.forEach((domain, constraint) -> result[0] |= bit(constraint));
+    return (byte) result[0];
+  }
+
+  private static int bit(Constraint constraint) {
+    if (constraint == ObjectConstraint.NULL) {
+      return NULL;
+    } else if (constraint == ObjectConstraint.NOT_NULL) {
+      return NOT_NULL;
+    } else if (constraint == BooleanConstraint.TRUE) {
+      return TRUE;
+    } else if (constraint == BooleanConstraint.FALSE) {
+      return FALSE;
+    }
+    return 0;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > 0xFFFF) {
+      throw new IllegalArgumentException("String too long to be indexed: " + value);
+    }
+    out.writeShort(bytes.length);
+    out.write(bytes);
+  }
+
+  private static int compare(byte[] a, byte[] b) {
+    for (int i = 0; i < Math.min(a.length, b.length); i++) {
+      int comparison = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return Integer.compare(a.length, b.length);
+  }
+
+  /**
+   * Compiles the JSON resources of the hardcoded behaviors into an index, executed when building the module.
+   *
+   * @param args the directory of the compiled classes
+   */
+  public static void main(String[] args) throws IOException {
+    Path target = Paths.get(args[0]).resolve(MethodBehaviorIndex.class.getPackage().getName().replace('.', '/')).resolve(RESOURCE);
+    Map<String, MethodBehavior> behaviors = BehaviorCache.HardcodedMethodBehaviors.loadHardcodedBehaviors(true);
+    Files.createDirectories(target.getParent());
+    try (OutputStream out = Files.newOutputStream(target)) {
+      write(behaviors.values(), out);
+    }
+  }
+}
@@ -88,7 +88,8 @@ public class MethodBehaviorJsonAdapter implements JsonSerializer<MethodBehavior>
     MethodYield result;
     if (methodYield.has(JSON_THROWN_EXCEPTION)) {
       ExceptionalYield exceptionalYield = new ExceptionalYield(behavior);
-      exceptionalYield.setExceptionType(methodYield.get(JSON_THROWN_EXCEPTION).getAsString());
+      JsonElement exceptionType = methodYield.get(JSON_THROWN_EXCEPTION);
+      exceptionalYield.setExceptionType(exceptionType.isJsonNull() ? null : exceptionType.getAsString());
       result = exceptionalYield;
     } else {
       HappyPathYield happyPathYield = new HappyPathYield(behavior);
@@ -0,0 +1,334 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se.xproc;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.java.caching.AnalysisFingerprint;
+import org.sonar.java.se.constraint.BooleanConstraint;
+import org.sonar.java.se.constraint.ConstraintsByDomain;
+import org.sonar.java.se.constraint.ObjectConstraint;
+
+/**
+ * Behaviors of the methods which can not be overridden, computed by the symbolic execution of the files of the project,
+ * and used by the symbolic execution of the other files, which otherwise only know the hardcoded behaviors.
+ * <p>
+ * Stored behaviors are detached from the exploded graph they were computed from: like hardcoded behaviors, they only keep
+ * nullness and boolean constraints, and their yields have no flow. Behaviors with yields depending on constraints of other
+ * domains are not stored, as dropping these constraints would merge yields which are distinct.
+ * <p>
+ * When loaded from a work directory, the behaviors are persisted from one analysis to the next. The behaviors of a file
+ * computed by a previous analysis are used as long as this file did not change, nor the files whose behaviors were used
+ * to compute them, and as long as the fingerprint of the analysis is the same.
+ */
+public final class ProjectBehaviorStore {
+
+  private static final Logger LOG = Loggers.get(ProjectBehaviorStore.class);
+
+  private static final Gson GSON = MethodBehaviorJsonAdapter.gson();
+
+  private static final String JSON_FINGERPRINT = "fingerprint";
+  private static final String JSON_FILES = "files";
+  private static final String JSON_FILE = "file";
+  private static final String JSON_HASH = "hash";
+  private static final String JSON_DEPENDENCIES = "dependencies";
+  private static final String JSON_BEHAVIORS = "behaviors";
+
+  @Nullable
+  private final Path storeFile;
+  private final String fingerprint;
+  private final Map<String, InputFile> inputFiles;
+  private final Map<String, FileBehaviors> previousFiles;
+  private final Map<String, String> previousFileBySignature = new HashMap<>();
+  private final Map<String, Boolean> validPreviousFiles = new HashMap<>();
+  private final Map<String, String> contentHashes = new HashMap<>();
+
+  private final Map<String, FileBehaviors> files = new LinkedHashMap<>();
+  private final Map<String, String> fileBySignature = new HashMap<>();
+  @Nullable
+  private String currentFile;
+  private Set<String> currentDependencies = new HashSet<>();
+
+  private ProjectBehaviorStore(@Nullable Path storeFile, String fingerprint, Map<String, InputFile> inputFiles, Map<String, FileBehaviors> previousFiles) {
+    this.storeFile = storeFile;
+    this.fingerprint = fingerprint;
+    this.inputFiles = inputFiles;
+    this.previousFiles = previousFiles;
+    previousFiles.forEach((file, fileBehaviors) -> fileBehaviors.behaviors.keySet().forEach(signature -> previousFileBySignature.put(signature, file)));
+  }
+
+  /**
+   * Store limited to the current analysis.
+   */
+  public static ProjectBehaviorStore inMemory() {
+    return new ProjectBehaviorStore(null, "", new HashMap<>(), new HashMap<>());
+  }
+
+  /**
+   * @param fingerprint everything, other than the content of the files, which can change the behaviors of the methods
+   * @param projectFiles files of the analysis, to check whether the files analyzed by the previous analysis changed
+   */
+  public static ProjectBehaviorStore load(File workDir, String fingerprint, Iterable<InputFile> projectFiles) {
+    Path storeFile = workDir.toPath().resolve("java-se-behaviors.json");
+    Map<String, InputFile> inputFiles = new HashMap<>();
+    projectFiles.forEach(inputFile -> inputFiles.put(key(inputFile), inputFile));
+    Map<String, FileBehaviors> previousFiles = new HashMap<>();
+    if (Files.isRegularFile(storeFile)) {
+      try (Reader reader = Files.newBufferedReader(storeFile, StandardCharsets.UTF_8)) {
+        read(GSON.fromJson(reader, JsonObject.class), fingerprint, previousFiles);
+      } catch (IOException | RuntimeException e) {
+        LOG.debug("Unable to read method behaviors '{}', they will be computed again: {}", storeFile, e.getMessage());
+        previousFiles.clear();
+      }
+    }
+    return new ProjectBehaviorStore(storeFile, fingerprint, inputFiles, previousFiles);
+  }
+
+  /**
+   * Starts the symbolic execution of a file: behaviors previously stored for this file are discarded.
+   */
+  public void startFile(InputFile inputFile) {
+    currentFile = key(inputFile);
+    currentDependencies = new HashSet<>();
+    FileBehaviors previous = files.put(currentFile, new FileBehaviors(null, currentDependencies));
+    if (previous != null) {
+      previous.behaviors.keySet().forEach(fileBySignature::remove);
+    }
+  }
+
+  /**
+   * Stores the complete behaviors computed by the symbolic execution of the file.
+   */
+  public void endFile(InputFile inputFile, Collection<MethodBehavior> behaviors) {
+    String file = key(inputFile);
+    FileBehaviors fileBehaviors = new FileBehaviors(contentHash(inputFile), currentDependencies);
+    for (MethodBehavior behavior : behaviors) {
+      MethodBehavior detached = behavior.isComplete() && hasOnlyStorableConstraints(behavior) ? detach(behavior) : null;
+      if (detached != null) {
+        fileBehaviors.behaviors.put(detached.signature(), detached);
+        fileBySignature.put(detached.signature(), file);
+      }
+    }
+    files.put(file, fileBehaviors);
+    currentFile = null;
+  }
+
+  /**
+   * @return the behavior of a method declared in another file of the project, if known
+   */
+  @CheckForNull
+  public MethodBehavior get(String signature) {
+    String file = fileBySignature.get(signature);
+    FileBehaviors fileBehaviors;
+    if (file != null) {
+      fileBehaviors = files.get(file);
+    } else {
+      file = previousFileBySignature.get(signature);
+      if (file == null || files.containsKey(file) || !isValidPreviousFile(file)) {
+        return null;
+      }
+      fileBehaviors = previousFiles.get(file);
+    }
+    if (file.equals(currentFile)) {
+      return null;
+    }
+    currentDependencies.add(file);
+    return fileBehaviors.behaviors.get(signature);
+  }
+
+  /**
+   * Writes the behaviors of the files analyzed by the current analysis, and the ones of the previous analysis which are
+   * still valid. Does nothing for a store limited to the current analysis.
+   */
+  public void save() {
+    if (storeFile == null) {
+      return;
+    }
+    JsonArray jsonFiles = new JsonArray();
+    files.forEach((file, fileBehaviors) -> {
+      if (fileBehaviors.hash != null) {
+        jsonFiles.add(toJson(file, fileBehaviors));
+      }
+    });
+    previousFiles.forEach((file, fileBehaviors) -> {
+      if (!files.containsKey(file) && isValidPreviousFile(file)) {
+        jsonFiles.add(toJson(file, fileBehaviors));
+      }
+    });
+    JsonObject json = new JsonObject();
+    json.addProperty(JSON_FINGERPRINT, fingerprint);
+    json.add(JSON_FILES, jsonFiles);
+    Path tmpFile = null;
+    try {
+      Files.createDirectories(storeFile.getParent());
+      tmpFile = Files.createTempFile(storeFile.getParent(), storeFile.getFileName().toString(), ".tmp");
+      try (Writer writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+        writer.write(json.toString());
+      }
+      try {
+        Files.move(tmpFile, storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmpFile, storeFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      LOG.debug("Unable to write method behaviors '{}': {}", storeFile, e.getMessage());
+    } finally {
+      // the temporary file only remains when it could not be moved to the store file
+      deleteIfExists(tmpFile);
+    }
+  }
+
+  private static void deleteIfExists(@Nullable Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOG.debug("Unable to delete temporary file '{}': {}", file, e.getMessage());
+    }
+  }
+
+  /**
+   * A file of the previous analysis is valid when neither its content nor the content of the files it depends on changed.
+   * Files depending on each other are considered valid when none of them changed.
+   */
+  private boolean isValidPreviousFile(String file) {
+    Boolean valid = validPreviousFiles.get(file);
+    if (valid != null) {
+      return valid;
+    }
+    validPreviousFiles.put(file, Boolean.TRUE);
+    FileBehaviors fileBehaviors = previousFiles.get(file);
+    InputFile inputFile = inputFiles.get(file);
+    boolean result = fileBehaviors != null
+      && inputFile != null
+      && fileBehaviors.hash != null
+      && fileBehaviors.hash.equals(contentHash(inputFile))
+      && fileBehaviors.dependencies.stream().allMatch(this::isValidPreviousFile);
+    validPreviousFiles.put(file, result);
+    return result;
+  }
+
+  @CheckForNull
+  private String contentHash(InputFile inputFile) {
+    return contentHashes.computeIfAbsent(key(inputFile), k -> {
+      try {
+        return new AnalysisFingerprint().add(inputFile.contents()).value();
+      } catch (IOException e) {
+        return null;
+      }
+    });
+  }
+
+  private static String key(InputFile inputFile) {
+    return inputFile.uri().toString();
+  }
+
+  private static boolean hasOnlyStorableConstraints(MethodBehavior behavior) {
+    return behavior.yields().stream().allMatch(methodYield -> {
+      Stream<ConstraintsByDomain> constraints = methodYield.parametersConstraints.stream();
+      if (methodYield instanceof HappyPathYield) {
+        constraints = Stream.concat(constraints, Stream.of(((HappyPathYield) methodYield).resultConstraint()));
+      }
+      return constraints
+        .filter(Objects::nonNull)
+        .flatMap(ConstraintsByDomain::stream)
+        .allMatch(constraint -> constraint instanceof ObjectConstraint || constraint instanceof BooleanConstraint);
+    });
+  }
+
+  @CheckForNull
+  private static MethodBehavior detach(MethodBehavior behavior) {
+    try {
+      return GSON.fromJson(GSON.toJsonTree(behavior, MethodBehavior.class), MethodBehavior.class);
+    } catch (RuntimeException e) {
+      LOG.debug("Unable to store behavior of '{}': {}", behavior.signature(), e.getMessage());
+      return null;
+    }
+  }
+
+  private static void read(@Nullable JsonObject json, String fingerprint, Map<String, FileBehaviors> previousFiles) {
+    if (json == null || !json.has(JSON_FINGERPRINT) || !fingerprint.equals(json.get(JSON_FINGERPRINT).getAsString())) {
+      // different analysis settings
+      return;
+    }
+    for (JsonElement element : json.getAsJsonArray(JSON_FILES)) {
+      JsonObject jsonFile = element.getAsJsonObject();
+      Set<String> dependencies = new HashSet<>();
+      jsonFile.getAsJsonArray(JSON_DEPENDENCIES).forEach(dependency -> dependencies.add(dependency.getAsString()));
+      FileBehaviors fileBehaviors = new FileBehaviors(jsonFile.get(JSON_HASH).getAsString(), dependencies);
+      for (JsonElement jsonBehavior : jsonFile.getAsJsonArray(JSON_BEHAVIORS)) {
+        MethodBehavior behavior = GSON.fromJson(jsonBehavior, MethodBehavior.class);
+        fileBehaviors.behaviors.put(behavior.signature(), behavior);
+      }
+      previousFiles.put(jsonFile.get(JSON_FILE).getAsString(), fileBehaviors);
+    }
+  }
+
+  private static JsonObject toJson(String file, FileBehaviors fileBehaviors) {
+    JsonObject jsonFile = new JsonObject();
+    jsonFile.addProperty(JSON_FILE, file);
+    jsonFile.addProperty(JSON_HASH, fileBehaviors.hash);
+    JsonArray dependencies = new JsonArray();
+    fileBehaviors.dependencies.forEach(dependencies::add);
+    jsonFile.add(JSON_DEPENDENCIES, dependencies);
+    JsonArray behaviors = new JsonArray();
+    fileBehaviors.behaviors.values().forEach(behavior -> behaviors.add(GSON.toJsonTree(behavior, MethodBehavior.class)));
+    jsonFile.add(JSON_BEHAVIORS, behaviors);
+    return jsonFile;
+  }
+
+  private static class FileBehaviors {
+    @Nullable
+    private final String hash;
+    private final Set<String> dependencies;
+    private final Map<String, MethodBehavior> behaviors = new LinkedHashMap<>();
+
+    FileBehaviors(@Nullable String hash, Set<String> dependencies) {
+      this.hash = hash;
+      this.dependencies = dependencies;
+    }
+  }
+}
@@ -0,0 +1,47 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+abstract class A {
+
+  private Object field;
+  private int count;
+
+  public Object getField() {
+    return field;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public void setField(Object field) {
+    this.field = field;
+  }
+
+  public Object thisField() {
+    return this.field;
+  }
+
+  public int half() {
+    return count / 2;
+  }
+
+  private Object privateField() {
+    return field;
+  }
+
+  public static Object identity(Object o) {
+    return o;
+  }
+
+  public List<Object> newList() {
+    return new ArrayList<>();
+  }
+
+  public Optional<Object> emptyOptional() {
+    return Optional.empty();
+  }
+
+  public abstract void abstractMethod();
+}
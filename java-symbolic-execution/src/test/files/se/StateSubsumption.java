@@ -0,0 +1,31 @@
+class A {
+
+  boolean boolMethod() {
+    return new java.util.Random().nextBoolean();
+  }
+
+  Object unknown() {
+    return new java.util.Random().nextBoolean() ? null : new Object();
+  }
+
+  void constrained_states_reach_the_same_point_as_a_general_state() {
+    Object o = unknown();
+    if (boolMethod()) {
+      if (boolMethod()) {
+        if (o == null) {
+          return;
+        }
+      }
+    } else {
+      if (boolMethod()) {
+        if (o != null) {
+          return;
+        }
+      }
+    }
+    // whichever order the paths are explored in, a constrained state reaches this point after the general one
+    o.hashCode();
+    o.toString();
+    o.getClass();
+  }
+}
@@ -20,6 +20,8 @@
 package org.sonar.java.se;
 
 import org.junit.jupiter.api.Test;
+import org.sonar.java.se.constraint.ObjectConstraint;
+import org.sonar.java.se.symbolicvalues.SymbolicValue;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -54,6 +56,22 @@ class ExplodedGraphTest {
     assertThat(child.parents()).hasSize(2);
   }
 
+  @Test
+  void test_subsuming_node() {
+    ExplodedGraph eg = new ExplodedGraph();
+    ProgramPoint programPoint = mockProgramPoint("programPoint");
+    SymbolicValue sv = new SymbolicValue();
+    ProgramState general = ProgramState.EMPTY_STATE.stackValue(sv);
+    ProgramState specific = general.addConstraint(sv, ObjectConstraint.NOT_NULL);
+
+    assertThat(eg.subsumingNode(programPoint, specific, false)).isNull();
+    ExplodedGraph.Node node = eg.node(programPoint, general);
+    assertThat(eg.subsumingNode(programPoint, specific, false)).isSameAs(node);
+    assertThat(eg.subsumingNode(programPoint, specific, true)).isNull();
+    assertThat(eg.subsumingNode(mockProgramPoint("other"), specific, false)).isNull();
+    assertThat(eg.subsumingNode(programPoint, general.addConstraint(sv, ObjectConstraint.NULL).stackValue(sv), false)).isNull();
+  }
+
   private ProgramPoint mockProgramPoint(String toString) {
     ProgramPoint mock = mock(ProgramPoint.class);
     when(mock.toString()).thenReturn(toString);
@@ -193,10 +193,10 @@ class ExplodedGraphWalkerTest {
 
               if (getNode) {
                 if (firstExceptionalNode == null) {
-                  firstExceptionalNode = workList.peekFirst();
+                  firstExceptionalNode = workList.peek();
                 }
                 assertThat(workList.size()).as("Should have created a new node in the graph for each of the exceptions").isEqualTo(workListSize + 1);
-                assertThat(workList.peekFirst().programState.peekValue()).as("Exceptional Symbolic Value should stay on the stack").isEqualTo(exceptionSV);
+                assertThat(workList.peek().programState.peekValue()).as("Exceptional Symbolic Value should stay on the stack").isEqualTo(exceptionSV);
                 tested[0]++;
               }
             }
@@ -252,7 +252,7 @@ class ExplodedGraphWalkerTest {
               assertThat(workList.size()).isEqualTo(workListSize + 1);
               if (shouldEnqueueFalseBranch) {
                 assertThat(programPoints[1]).isNull();
-                programPoints[1] = workList.peekFirst().programPoint;
+                programPoints[1] = workList.peek().programPoint;
               }
             }
           };
@@ -341,6 +341,59 @@ class ExplodedGraphWalkerTest {
       .verifyNoIssues();
   }
 
+  @Test
+  void state_subsumption_explores_fewer_states() {
+    final int[] steps = new int[2];
+    SymbolicExecutionOptions[] options = {SymbolicExecutionOptions.DEFAULT, SymbolicExecutionOptions.DEFAULT.withStateSubsumption(true)};
+    for (int i = 0; i < options.length; i++) {
+      int run = i;
+      SECheckVerifier.newVerifier()
+        .onFile("src/test/files/se/StateSubsumption.java")
+        .withChecks(new SymbolicExecutionVisitor(Collections.emptyList()) {
+          @Override
+          public void visitNode(Tree tree) {
+            ExplodedGraphWalker explodedGraphWalker = new ExplodedGraphWalker.ExplodedGraphWalkerFactory(Collections.emptyList(), options[run])
+              .createWalker(this.behaviorCache, context);
+            MethodTree methodTree = (MethodTree) tree;
+            explodedGraphWalker.visitMethod(methodTree, methodBehaviorForSymbol(methodTree.symbol()));
+            steps[run] += explodedGraphWalker.steps;
+          }
+        })
+        .withClassPath(SETestUtils.CLASS_PATH)
+        .verifyNoIssues();
+    }
+    assertThat(steps[1])
+      .isPositive()
+      .isLessThan(steps[0]);
+  }
+
+  @Test
+  void exploration_strategies_explore_whole_methods() {
+    SymbolicExecutionOptions.ExplorationStrategy[] strategies = SymbolicExecutionOptions.ExplorationStrategy.values();
+    final int[] steps = new int[strategies.length];
+    for (int i = 0; i < strategies.length; i++) {
+      int run = i;
+      SymbolicExecutionOptions options = SymbolicExecutionOptions.DEFAULT.withExplorationStrategy(strategies[run]);
+      SECheckVerifier.newVerifier()
+        .onFile("src/test/files/se/SeEngineTestCleanupState.java")
+        .withChecks(new SymbolicExecutionVisitor(Collections.emptyList()) {
+          @Override
+          public void visitNode(Tree tree) {
+            ExplodedGraphWalker explodedGraphWalker = new ExplodedGraphWalker.ExplodedGraphWalkerFactory(Collections.emptyList(), options)
+              .createWalker(this.behaviorCache, context);
+            MethodTree methodTree = (MethodTree) tree;
+            explodedGraphWalker.visitMethod(methodTree, methodBehaviorForSymbol(methodTree.symbol()));
+            steps[run] += explodedGraphWalker.steps;
+          }
+        })
+        .withClassPath(SETestUtils.CLASS_PATH)
+        .verifyNoIssues();
+    }
+    // the same states are explored whatever their order
+    assertThat(steps[0]).isPositive();
+    assertThat(steps).containsOnly(steps[0]);
+  }
+
   @Test
   void test_maximum_steps_reached() throws Exception {
     SECheckVerifier.newVerifier()
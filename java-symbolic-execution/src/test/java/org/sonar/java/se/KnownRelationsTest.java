@@ -0,0 +1,107 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.sonar.java.se.constraint.BooleanConstraint;
+import org.sonar.java.se.constraint.ObjectConstraint;
+import org.sonar.java.se.symbolicvalues.RelationalSymbolicValue;
+import org.sonar.java.se.symbolicvalues.SymbolicValue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.java.se.symbolicvalues.RelationalSymbolicValue.Kind.EQUAL;
+import static org.sonar.java.se.symbolicvalues.RelationalSymbolicValue.Kind.LESS_THAN;
+import static org.sonar.java.se.symbolicvalues.RelationalSymbolicValue.Kind.METHOD_EQUALS;
+
+class KnownRelationsTest {
+
+  private final SymbolicValue a = new SymbolicValue();
+  private final SymbolicValue b = new SymbolicValue();
+  private final SymbolicValue c = new SymbolicValue();
+  private final SymbolicValue d = new SymbolicValue();
+
+  @Test
+  void relations_are_indexed_by_operand() {
+    RelationalSymbolicValue ab = relation(EQUAL, a, b);
+    RelationalSymbolicValue bc = relation(LESS_THAN, b, c);
+    KnownRelations relations = KnownRelations.EMPTY.add(ab).add(bc);
+
+    assertThat(relations.size()).isEqualTo(2);
+    assertThat(relations.contains(ab)).isTrue();
+    assertThat(relations.contains(relation(EQUAL, b, a))).isTrue();
+    assertThat(relations.add(ab)).isSameAs(relations);
+    assertThat(relations.toSet()).containsOnly(ab, bc);
+
+    StringBuilder visited = new StringBuilder();
+    relations.forEachRelationOf(b, r -> visited.append(r == ab ? "ab" : "bc"));
+    assertThat(visited).hasSize(4);
+    relations.forEachRelationOf(d, r -> visited.append("unexpected"));
+    assertThat(visited).hasSize(4);
+
+    KnownRelations removed = relations.remove(bc);
+    assertThat(removed.size()).isEqualTo(1);
+    assertThat(removed.toSet()).containsOnly(ab);
+    assertThat(removed.remove(bc)).isSameAs(removed);
+    // original instance is unchanged
+    assertThat(relations.toSet()).containsOnly(ab, bc);
+  }
+
+  @Test
+  void equal_values_are_the_direct_neighbours_by_equality() {
+    KnownRelations relations = KnownRelations.of(Arrays.asList(relation(EQUAL, a, b), relation(METHOD_EQUALS, c, b), relation(LESS_THAN, c, d)));
+
+    assertThat(relations.equalValues(a)).containsOnly(b);
+    assertThat(relations.equalValues(b)).containsOnly(a, c);
+    assertThat(relations.equalValues(c)).containsOnly(b);
+    assertThat(relations.equalValues(d)).isEmpty();
+
+    KnownRelations removed = relations.remove(relation(EQUAL, a, b));
+    assertThat(removed.equalValues(a)).isEmpty();
+    assertThat(removed.equalValues(b)).containsOnly(c);
+    assertThat(relations.equalValues(a)).containsOnly(b);
+  }
+
+  @Test
+  void program_state_maintains_its_relations() {
+    RelationalSymbolicValue ab = relation(EQUAL, a, b);
+    ProgramState ps = ProgramState.EMPTY_STATE;
+    assertThat(ps.knownRelations().isEmpty()).isTrue();
+
+    ProgramState withRelation = ps.addConstraint(ab, BooleanConstraint.TRUE).stackValue(a);
+    assertThat(withRelation.knownRelations().toSet()).containsOnly(ab);
+    assertThat(withRelation.knownRelations().equalValues(a)).containsOnly(b);
+
+    ProgramState withoutRelation = withRelation.removeConstraintsOnDomain(ab, BooleanConstraint.class);
+    assertThat(withoutRelation.knownRelations().isEmpty()).isTrue();
+    assertThat(withRelation.knownRelations().toSet()).containsOnly(ab);
+
+    assertThat(withRelation.addConstraintTransitively(a, ObjectConstraint.NOT_NULL)
+      .getConstraint(b, ObjectConstraint.class)).isEqualTo(ObjectConstraint.NOT_NULL);
+    assertThat(KnownRelations.of(Collections.emptyList())).isSameAs(KnownRelations.EMPTY);
+  }
+
+  private static RelationalSymbolicValue relation(RelationalSymbolicValue.Kind kind, SymbolicValue leftOp, SymbolicValue rightOp) {
+    RelationalSymbolicValue relation = new RelationalSymbolicValue(kind);
+    relation.computedFrom(Arrays.asList(new ProgramState.SymbolicValueSymbol(rightOp, null), new ProgramState.SymbolicValueSymbol(leftOp, null)));
+    return relation;
+  }
+}
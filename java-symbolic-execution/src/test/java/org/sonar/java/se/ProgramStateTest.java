@@ -241,4 +241,23 @@ class ProgramStateTest {
     assertThat(ps.getConstraint(sv2, constraint.getClass())).isEqualTo(constraint);
   }
 
+
+  @Test
+  void test_subsumption() {
+    SymbolicValue sv1 = new SymbolicValue();
+    SymbolicValue sv2 = new SymbolicValue();
+    Symbol x = variable("x");
+    ProgramState general = ProgramState.EMPTY_STATE.put(x, sv1).addConstraint(sv1, ObjectConstraint.NOT_NULL);
+    ProgramState specific = general.addConstraint(sv2, BooleanConstraint.TRUE);
+
+    assertThat(general.subsumes(general)).isTrue();
+    assertThat(general.subsumes(specific)).isTrue();
+    assertThat(specific.subsumes(general)).isFalse();
+    // different constraint on the same symbolic value
+    assertThat(general.subsumes(ProgramState.EMPTY_STATE.put(x, sv1).addConstraint(sv1, ObjectConstraint.NULL))).isFalse();
+    // different values
+    assertThat(general.subsumes(specific.put(x, sv2))).isFalse();
+    // different stacks
+    assertThat(general.subsumes(specific.stackValue(sv2))).isFalse();
+  }
 }
@@ -0,0 +1,164 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.java.model.DefaultJavaFileScannerContext;
+import org.sonar.java.model.JavaTree;
+import org.sonar.java.model.JavaVersionImpl;
+import org.sonar.java.se.utils.JParserTestUtils;
+import org.sonar.java.se.utils.SETestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.java.se.SymbolicExecutionBudget.NO_LIMIT;
+
+class SymbolicExecutionBudgetTest {
+
+  private final long[] now = {0};
+
+  @Test
+  void default_budget() {
+    SymbolicExecutionBudget budget = SymbolicExecutionBudget.defaultBudget();
+    assertThat(budget.isConfigured()).isFalse();
+    budget.startFile("A.java");
+    SymbolicExecutionBudget.MethodBudget methodBudget = budget.startMethod(100);
+    assertThat(methodBudget.stepLimit()).isEqualTo(100);
+    assertThat(methodBudget.isOutOfTime()).isFalse();
+    budget.endMethod(methodBudget, 10);
+    assertThat(budget.startMethod(100).stepLimit()).isEqualTo(100);
+    assertThat(budget.abortedMethods()).isEmpty();
+  }
+
+  @Test
+  void unused_steps_are_reallocated() {
+    SymbolicExecutionBudget budget = budget(NO_LIMIT, NO_LIMIT, NO_LIMIT, true);
+    assertThat(budget.isConfigured()).isTrue();
+    budget.startFile("A.java");
+    budget.endMethod(budget.startMethod(100), 10);
+
+    SymbolicExecutionBudget.MethodBudget expensive = budget.startMethod(100);
+    assertThat(expensive.stepLimit()).isEqualTo(190);
+    budget.endMethod(expensive, 150);
+    assertThat(budget.startMethod(100).stepLimit()).isEqualTo(140);
+
+    for (int i = 0; i < 10; i++) {
+      budget.endMethod(budget.startMethod(100), 0);
+    }
+    assertThat(budget.startMethod(100).stepLimit()).isEqualTo(100 + SymbolicExecutionBudget.MAX_REALLOCATION_FACTOR * 100);
+
+    // the reserve is not shared between files
+    budget.startFile("B.java");
+    assertThat(budget.startMethod(100).stepLimit()).isEqualTo(100);
+  }
+
+  @Test
+  void file_step_limit() {
+    SymbolicExecutionBudget budget = budget(NO_LIMIT, 250, NO_LIMIT, false);
+    budget.startFile("A.java");
+    budget.endMethod(budget.startMethod(100), 100);
+    budget.endMethod(budget.startMethod(100), 100);
+    SymbolicExecutionBudget.MethodBudget third = budget.startMethod(100);
+    assertThat(third.stepLimit()).isEqualTo(50);
+    budget.endMethod(third, 51);
+    assertThat(budget.startMethod(100).stepLimit()).isZero();
+
+    budget.startFile("B.java");
+    assertThat(budget.startMethod(100).stepLimit()).isEqualTo(100);
+  }
+
+  @Test
+  void method_time_limit() {
+    SymbolicExecutionBudget budget = budget(10, NO_LIMIT, NO_LIMIT, true);
+    budget.startFile("A.java");
+    SymbolicExecutionBudget.MethodBudget slow = budget.startMethod(100);
+    now[0] = millis(9);
+    assertThat(slow.isOutOfTime()).isFalse();
+    now[0] = millis(10);
+    assertThat(slow.isOutOfTime()).isTrue();
+    budget.endMethod(slow, 100);
+
+    SymbolicExecutionBudget.MethodBudget fast = budget.startMethod(100);
+    now[0] = millis(12);
+    budget.endMethod(fast, 10);
+
+    // 8 ms not used by the fast method are given to the next one
+    SymbolicExecutionBudget.MethodBudget next = budget.startMethod(100);
+    now[0] = millis(12 + 17);
+    assertThat(next.isOutOfTime()).isFalse();
+    now[0] = millis(12 + 18);
+    assertThat(next.isOutOfTime()).isTrue();
+  }
+
+  @Test
+  void file_time_limit() {
+    SymbolicExecutionBudget budget = budget(10, NO_LIMIT, 20, false);
+    budget.startFile("A.java");
+    now[0] = millis(15);
+    SymbolicExecutionBudget.MethodBudget methodBudget = budget.startMethod(100);
+    now[0] = millis(19);
+    assertThat(methodBudget.isOutOfTime()).isFalse();
+    now[0] = millis(20);
+    assertThat(methodBudget.isOutOfTime()).isTrue();
+  }
+
+  @Test
+  void aborted_methods_are_reported(@TempDir Path tempDir) throws IOException {
+    SymbolicExecutionBudget budget = new SymbolicExecutionBudget(NO_LIMIT, 1, NO_LIMIT, false);
+    InputFile inputFile = SETestUtils.inputFile("src/test/files/se/SeEngineTestCleanupState.java");
+    JavaTree.CompilationUnitTreeImpl cut = (JavaTree.CompilationUnitTreeImpl) JParserTestUtils.parse(inputFile.file(), SETestUtils.CLASS_PATH);
+    SymbolicExecutionVisitor sev = new SymbolicExecutionVisitor(Collections.emptyList(), null, SymbolicExecutionOptions.DEFAULT, budget);
+    sev.scanFile(new DefaultJavaFileScannerContext(cut, inputFile, cut.sema, null, new JavaVersionImpl(8), true, false));
+
+    assertThat(budget.abortedMethods()).hasSize(2);
+    SymbolicExecutionBudget.AbortedMethod first = budget.abortedMethods().get(0);
+    assertThat(first.file()).contains("SeEngineTestCleanupState.java");
+    assertThat(first.method()).isEqualTo("A0#boolMethod");
+    assertThat(first.line()).isEqualTo(3);
+    assertThat(first.reason()).isEqualTo("reached limit of 1 steps for method boolMethod#3 in class A0");
+    assertThat(first.steps()).isEqualTo(2);
+    assertThat(first.elapsedMillis()).isNotNegative();
+    SymbolicExecutionBudget.AbortedMethod second = budget.abortedMethods().get(1);
+    assertThat(second.method()).isEqualTo("A0#test_reduced_steps");
+    assertThat(second.reason()).startsWith("reached limit of 0 steps");
+
+    Path report = tempDir.resolve("report.txt");
+    budget.writeReport(report);
+    assertThat(Files.readAllLines(report, StandardCharsets.UTF_8))
+      .hasSize(2)
+      .allMatch(line -> line.contains("SeEngineTestCleanupState.java:"))
+      .anyMatch(line -> line.endsWith("A0#boolMethod: reached limit of 1 steps for method boolMethod#3 in class A0 (2 steps, " + first.elapsedMillis() + " ms)"));
+  }
+
+  private SymbolicExecutionBudget budget(long methodTimeLimitMillis, long fileStepLimit, long fileTimeLimitMillis, boolean reallocation) {
+    return new SymbolicExecutionBudget(methodTimeLimitMillis, fileStepLimit, fileTimeLimitMillis, reallocation, () -> now[0]);
+  }
+
+  private static long millis(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.java.model.DefaultJavaFileScannerContext;
+import org.sonar.java.model.JavaTree;
+import org.sonar.java.model.JavaVersionImpl;
+import org.sonar.java.se.checks.SECheck;
+import org.sonar.java.se.utils.JParserTestUtils;
+import org.sonar.java.se.utils.SETestUtils;
+import org.sonar.java.se.xproc.ProjectBehaviorStore;
+import org.sonar.plugins.java.api.tree.MethodTree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SymbolicExecutionVisitorTest {
+
+  private static final String FILE = "src/test/files/se/IrrelevantMethods.java";
+
+  @Test
+  void methods_without_relevant_trees_are_not_executed() {
+    // getters and setters neither dereference nor set anything which can not be null, and no check reacts to the other invocations
+    assertThat(executedMethods(Collections.emptyList(), null))
+      .containsExactly("half");
+  }
+
+  @Test
+  void methods_whose_behavior_is_stored_are_executed() {
+    assertThat(executedMethods(Collections.emptyList(), ProjectBehaviorStore.inMemory()))
+      .containsExactly("half", "identity");
+  }
+
+  @Test
+  void all_methods_are_executed_when_a_check_reacts_to_any_tree() {
+    assertThat(executedMethods(Collections.singletonList(new SECheck() {
+    }), null))
+      .containsExactly("getField", "getCount", "setField", "thisField", "half", "privateField", "identity", "newList", "emptyOptional", "abstractMethod");
+  }
+
+  private static List<String> executedMethods(List<SECheck> checks, @Nullable ProjectBehaviorStore projectBehaviors) {
+    InputFile inputFile = SETestUtils.inputFile(FILE);
+    JavaTree.CompilationUnitTreeImpl cut = (JavaTree.CompilationUnitTreeImpl) JParserTestUtils.parse(inputFile.file(), SETestUtils.CLASS_PATH);
+    List<String> executedMethods = new ArrayList<>();
+    SymbolicExecutionVisitor sev = new SymbolicExecutionVisitor(checks, projectBehaviors) {
+      @Override
+      public void execute(MethodTree methodTree) {
+        executedMethods.add(methodTree.simpleName().name());
+        super.execute(methodTree);
+      }
+    };
+    sev.scanFile(new DefaultJavaFileScannerContext(cut, inputFile, cut.sema, null, new JavaVersionImpl(8), true, false));
+    return executedMethods;
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se;
+
+import org.junit.jupiter.api.Test;
+import org.sonar.java.se.SymbolicExecutionOptions.ExplorationStrategy;
+import org.sonar.java.se.symbolicvalues.SymbolicValue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class WorkListTest {
+
+  private final ExplodedGraph explodedGraph = new ExplodedGraph();
+  private final ProgramPoint programPoint1 = mock(ProgramPoint.class);
+  private final ProgramPoint programPoint2 = mock(ProgramPoint.class);
+
+  @Test
+  void depth_first() {
+    WorkList workList = WorkList.create(ExplorationStrategy.DEPTH_FIRST);
+    assertThat(workList.isEmpty()).isTrue();
+    assertThat(workList.peek()).isNull();
+    ExplodedGraph.Node a = node(programPoint1);
+    ExplodedGraph.Node b = node(programPoint2);
+    workList.add(a);
+    workList.add(b);
+    assertThat(workList.size()).isEqualTo(2);
+    assertThat(workList.peek()).isSameAs(b);
+    assertThat(workList.remove()).isSameAs(b);
+    assertThat(workList.remove()).isSameAs(a);
+    assertThat(workList.isEmpty()).isTrue();
+  }
+
+  @Test
+  void breadth_first() {
+    WorkList workList = WorkList.create(ExplorationStrategy.BREADTH_FIRST);
+    ExplodedGraph.Node a = node(programPoint1);
+    ExplodedGraph.Node b = node(programPoint2);
+    workList.add(a);
+    workList.add(b);
+    assertThat(workList.peek()).isSameAs(a);
+    assertThat(workList.remove()).isSameAs(a);
+    assertThat(workList.remove()).isSameAs(b);
+  }
+
+  @Test
+  void coverage_guided() {
+    WorkList workList = WorkList.create(ExplorationStrategy.COVERAGE_GUIDED);
+    assertThat(workList.peek()).isNull();
+    ExplodedGraph.Node a1 = node(programPoint1);
+    workList.add(a1);
+    assertThat(workList.remove()).isSameAs(a1);
+
+    // program point 1 has been explored once: nodes of program point 2 come first, the most recent one first
+    ExplodedGraph.Node a2 = node(programPoint1);
+    ExplodedGraph.Node b1 = node(programPoint2);
+    ExplodedGraph.Node b2 = node(programPoint2);
+    workList.add(a2);
+    workList.add(b1);
+    workList.add(b2);
+    assertThat(workList.size()).isEqualTo(3);
+    assertThat(workList.peek()).isSameAs(b2);
+    assertThat(workList.remove()).isSameAs(b2);
+    // b1 was added before program point 2 was explored: it is now ranked with a2, and was added after it
+    assertThat(workList.remove()).isSameAs(b1);
+    assertThat(workList.remove()).isSameAs(a2);
+    assertThat(workList.isEmpty()).isTrue();
+  }
+
+  @Test
+  void strategy_from_property_value() {
+    assertThat(ExplorationStrategy.fromPropertyValue("depth_first")).isEqualTo(ExplorationStrategy.DEPTH_FIRST);
+    assertThat(ExplorationStrategy.fromPropertyValue(" Breadth-First ")).isEqualTo(ExplorationStrategy.BREADTH_FIRST);
+    assertThat(ExplorationStrategy.fromPropertyValue("COVERAGE_GUIDED")).isEqualTo(ExplorationStrategy.COVERAGE_GUIDED);
+    assertThat(ExplorationStrategy.fromPropertyValue("random")).isNull();
+  }
+
+  private ExplodedGraph.Node node(ProgramPoint programPoint) {
+    return explodedGraph.node(programPoint, ProgramState.EMPTY_STATE.stackValue(new SymbolicValue()));
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se.collections;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashTrieMapTest {
+
+  @Test
+  void put_get_remove() {
+    HashTrieMap<Integer, String> empty = HashTrieMap.empty();
+    assertThat(empty.isEmpty()).isTrue();
+    assertThat(empty.get(1)).isNull();
+    assertThat(empty.remove(1)).isSameAs(empty);
+
+    HashTrieMap<Integer, String> map = empty.put(1, "a").put(33, "b").put(2, "c");
+    assertThat(map.size()).isEqualTo(3);
+    assertThat(map.get(1)).isEqualTo("a");
+    assertThat(map.get(33)).isEqualTo("b");
+    assertThat(map.get(2)).isEqualTo("c");
+    assertThat(map.get(65)).isNull();
+    assertThat(map.containsKey(33)).isTrue();
+    assertThat(map.put(33, "b")).isSameAs(map);
+
+    HashTrieMap<Integer, String> replaced = map.put(33, "d");
+    assertThat(replaced.size()).isEqualTo(3);
+    assertThat(replaced.get(33)).isEqualTo("d");
+    assertThat(map.get(33)).isEqualTo("b");
+
+    HashTrieMap<Integer, String> removed = map.remove(1);
+    assertThat(removed.size()).isEqualTo(2);
+    assertThat(removed.get(1)).isNull();
+    assertThat(removed.get(33)).isEqualTo("b");
+    assertThat(removed.remove(2).remove(33)).isSameAs(HashTrieMap.empty());
+  }
+
+  @Test
+  void colliding_keys() {
+    Key k1 = new Key(1, 42);
+    Key k2 = new Key(2, 42);
+    Key k3 = new Key(3, 42);
+    Key k4 = new Key(4, 42 + (1 << 30));
+    HashTrieMap<Key, String> map = HashTrieMap.<Key, String>empty().put(k1, "a").put(k2, "b").put(k3, "c").put(k4, "d");
+    assertThat(map.size()).isEqualTo(4);
+    assertThat(map.get(k1)).isEqualTo("a");
+    assertThat(map.get(k2)).isEqualTo("b");
+    assertThat(map.get(k3)).isEqualTo("c");
+    assertThat(map.get(k4)).isEqualTo("d");
+    assertThat(map.get(new Key(5, 42))).isNull();
+    assertThat(map.put(k2, "e").get(k2)).isEqualTo("e");
+
+    HashTrieMap<Key, String> removed = map.remove(k1).remove(k3);
+    assertThat(removed.size()).isEqualTo(2);
+    assertThat(removed.get(k2)).isEqualTo("b");
+    assertThat(removed.get(k4)).isEqualTo("d");
+    assertThat(removed).isEqualTo(HashTrieMap.<Key, String>empty().put(k4, "d").put(k2, "b"));
+  }
+
+  @Test
+  void equals_and_hashCode_do_not_depend_on_history() {
+    HashTrieMap<Integer, String> map1 = HashTrieMap.<Integer, String>empty().put(1, "a").put(2, "b").put(3, "c").remove(2);
+    HashTrieMap<Integer, String> map2 = HashTrieMap.<Integer, String>empty().put(3, "c").put(1, "x").put(1, "a");
+    assertThat(map1)
+      .isEqualTo(map2)
+      .hasSameHashCodeAs(map2)
+      .isNotEqualTo(map2.put(3, "d"))
+      .isNotEqualTo(map2.put(4, "d"))
+      .isNotEqualTo(null)
+      .isNotEqualTo(new HashMap<>());
+    assertThat(map1.hashCode()).isEqualTo(Map.of(1, "a", 3, "c").hashCode());
+    assertThat(map1.toString()).isIn("{1=a, 3=c}", "{3=c, 1=a}");
+    assertThat(map1.anyMatch((k, v) -> v.equals("c"))).isTrue();
+    assertThat(map1.anyMatch((k, v) -> v.equals("b"))).isFalse();
+  }
+
+  @Test
+  void behaves_as_a_hash_map() {
+    Random random = new Random(1);
+    HashTrieMap<Key, Integer> map = HashTrieMap.empty();
+    Map<Key, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 10_000; i++) {
+      int id = random.nextInt(500);
+      // a few hashes are shared by several keys
+      Key key = new Key(id, id % 50 == 0 ? 7 : 31 * id);
+      if (random.nextInt(3) == 0) {
+        map = map.remove(key);
+        expected.remove(key);
+      } else {
+        int value = random.nextInt(4);
+        map = map.put(key, value);
+        expected.put(key, value);
+      }
+      assertThat(map.size()).isEqualTo(expected.size());
+      assertThat(map.hashCode()).isEqualTo(expected.hashCode());
+    }
+    Map<Key, Integer> actual = new HashMap<>();
+    map.forEach(actual::put);
+    assertThat(actual).isEqualTo(expected);
+  }
+
+  private static final class Key {
+    private final int id;
+    private final int hash;
+
+    private Key(int id, int hash) {
+      this.id = id;
+      this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && ((Key) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return "K" + id;
+    }
+  }
+}
@@ -27,6 +27,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -53,6 +54,7 @@ import org.sonar.plugins.java.api.tree.MethodInvocationTree;
 import org.sonar.plugins.java.api.tree.Tree;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -172,7 +174,7 @@ class BehaviorCacheTest {
     }
 
     assertThat(behaviorCache.behaviors).isEmpty();
-    assertThat(behaviorCache.hardcodedBehaviors()).hasSize(179);
+    assertThat(behaviorCache.hardcodedBehaviors().size()).isEqualTo(179);
     assertThat(logTester.logs(LoggerLevel.DEBUG)).containsOnly("[SE] Loaded 179 hardcoded method behaviors.");
   }
 
@@ -301,7 +303,7 @@ class BehaviorCacheTest {
   @Test
   void log_when_unable_to_load_resources_with_method_behavior() throws Exception {
     Map<String, MethodBehavior> result = BehaviorCache.HardcodedMethodBehaviors
-      .loadHardcodedBehaviors(() -> Collections.singletonList((InputStream) null));
+      .loadHardcodedBehaviors(() -> Collections.singletonList((InputStream) null), false);
     assertThat(result).isEmpty();
     assertThat(logTester.logs(LoggerLevel.DEBUG)).containsOnlyOnce("[SE] Unable to load hardcoded method behaviors. Defaulting to no hardcoded method behaviors.");
   }
@@ -309,11 +311,25 @@ class BehaviorCacheTest {
   @Test
   void log_when_unable_to_load_resources_with_invalid_method_behaviors() throws Exception {
     Map<String, MethodBehavior> result = BehaviorCache.HardcodedMethodBehaviors
-      .loadHardcodedBehaviors(() -> Collections.singletonList(BehaviorCacheTest.class.getResourceAsStream("invalid.json")));
+      .loadHardcodedBehaviors(() -> Collections.singletonList(BehaviorCacheTest.class.getResourceAsStream("invalid.json")), false);
     assertThat(result).isEmpty();
     assertThat(logTester.logs(LoggerLevel.ERROR)).containsOnlyOnce("[SE] Unable to load hardcoded method behaviors. Defaulting to no hardcoded method behaviors.");
   }
 
+  @Test
+  void fail_when_unable_to_load_resources_in_fail_fast_mode() {
+    Supplier<List<InputStream>> missing = () -> Collections.singletonList(null);
+    assertThatThrownBy(() -> BehaviorCache.HardcodedMethodBehaviors.loadHardcodedBehaviors(missing, true))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Missing hardcoded method behaviors");
+
+    Supplier<List<InputStream>> invalid = () -> Collections.singletonList(BehaviorCacheTest.class.getResourceAsStream("invalid.json"));
+    assertThatThrownBy(() -> BehaviorCache.HardcodedMethodBehaviors.loadHardcodedBehaviors(invalid, true))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Unable to load hardcoded method behaviors");
+    assertThat(logTester.logs()).isEmpty();
+  }
+
   private static void verifyNoIssueOnFile(String fileName) {
     SECheck nullDereferenceCheck = new NullDereferenceCheck();
     createSymbolicExecutionVisitorAndSemantic(fileName, nullDereferenceCheck);
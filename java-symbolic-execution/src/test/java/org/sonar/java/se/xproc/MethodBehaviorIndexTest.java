@@ -0,0 +1,104 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se.xproc;
+
+import com.google.gson.Gson;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MethodBehaviorIndexTest {
+
+  @Test
+  void index_contains_all_hardcoded_behaviors() throws Exception {
+    Map<String, MethodBehavior> behaviors = BehaviorCache.HardcodedMethodBehaviors.loadHardcodedBehaviors(true);
+    Gson gson = MethodBehaviorJsonAdapter.gson();
+    MethodBehaviorIndex index = MethodBehaviorIndex.of(ByteBuffer.wrap(write(behaviors.values().toArray(new MethodBehavior[0]))));
+
+    assertThat(index.size()).isEqualTo(behaviors.size());
+    behaviors.forEach((signature, behavior) -> {
+      MethodBehavior indexed = index.get(signature);
+      assertThat(indexed).isEqualTo(behavior);
+      // yields only compare their parameters constraints, while the JSON form has all the content of the behavior
+      assertThat(gson.toJson(indexed, MethodBehavior.class)).isEqualTo(gson.toJson(behavior, MethodBehavior.class));
+    });
+  }
+
+  @Test
+  void behaviors_are_decoded_once() throws Exception {
+    MethodBehavior foo = completeBehavior("org.foo.A#foo()V");
+    MethodBehavior bar = completeBehavior("org.foo.A#bar(Ljava/lang/Object;)Z");
+    MethodBehaviorIndex index = MethodBehaviorIndex.of(ByteBuffer.wrap(write(foo, bar)));
+
+    assertThat(index.size()).isEqualTo(2);
+    assertThat(index.get("org.foo.A#foo()V")).isEqualTo(foo).isSameAs(index.get("org.foo.A#foo()V"));
+    assertThat(index.get("org.foo.A#bar(Ljava/lang/Object;)Z")).isEqualTo(bar);
+    assertThat(index.get("org.foo.A#baz()V")).isNull();
+    assertThat(index.get("")).isNull();
+    assertThat(index.get("org.foo.A#foo()V0")).isNull();
+  }
+
+  @Test
+  void empty_index() throws Exception {
+    MethodBehaviorIndex index = MethodBehaviorIndex.of(ByteBuffer.wrap(write()));
+    assertThat(index.size()).isZero();
+    assertThat(index.get("org.foo.A#foo()V")).isNull();
+  }
+
+  @Test
+  void duplicated_behaviors_are_rejected() {
+    MethodBehavior foo = completeBehavior("org.foo.A#foo()V");
+    assertThatThrownBy(() -> write(foo, completeBehavior("org.foo.A#foo()V")))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Duplicated behavior of org.foo.A#foo()V");
+  }
+
+  @Test
+  void invalid_index_is_rejected() {
+    ByteBuffer buffer = ByteBuffer.wrap(new byte[] {1, 2, 3});
+    assertThatThrownBy(() -> MethodBehaviorIndex.of(buffer))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Not an index of method behaviors, or built by another version of the analyzer.");
+  }
+
+  @Test
+  void index_is_bundled_with_the_module() throws Exception {
+    MethodBehaviorIndex index = MethodBehaviorIndex.load();
+    assertThat(index).isNotNull();
+    assertThat(index.size()).isEqualTo(BehaviorCache.HardcodedMethodBehaviors.loadHardcodedBehaviors(true).size());
+  }
+
+  private static byte[] write(MethodBehavior... behaviors) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MethodBehaviorIndex.write(Arrays.asList(behaviors), out);
+    return out.toByteArray();
+  }
+
+  private static MethodBehavior completeBehavior(String signature) {
+    MethodBehavior behavior = new MethodBehavior(signature, false);
+    behavior.completed();
+    return behavior;
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se.xproc;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.java.model.DefaultJavaFileScannerContext;
+import org.sonar.java.model.JavaTree;
+import org.sonar.java.model.JavaVersionImpl;
+import org.sonar.java.se.SymbolicExecutionVisitor;
+import org.sonar.java.se.checks.DivisionByZeroCheck;
+import org.sonar.java.se.checks.NullDereferenceCheck;
+import org.sonar.java.se.utils.JParserTestUtils;
+import org.sonar.java.se.utils.SETestUtils;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class ProjectBehaviorStoreTest {
+
+  private static final String FOO = "org.foo.A#foo()V";
+  private static final String BAR = "org.foo.B#bar()V";
+
+  @TempDir
+  File workDir;
+
+  @Test
+  void behaviors_of_other_files_are_shared() {
+    InputFile a = inputFile("A.java", "class A {}");
+    InputFile b = inputFile("B.java", "class B {}");
+    ProjectBehaviorStore store = ProjectBehaviorStore.inMemory();
+
+    store.startFile(a);
+    assertThat(store.get(BAR)).isNull();
+    store.endFile(a, Arrays.asList(completeBehavior(FOO), new MethodBehavior("org.foo.A#incomplete()V", false)));
+
+    store.startFile(b);
+    assertThat(store.get(FOO)).isNotNull();
+    assertThat(store.get(FOO).signature()).isEqualTo(FOO);
+    assertThat(store.get(FOO).isComplete()).isTrue();
+    assertThat(store.get("org.foo.A#incomplete()V")).isNull();
+    store.endFile(b, Collections.singletonList(completeBehavior(BAR)));
+
+    // behaviors of the file being executed are never taken from the store
+    store.startFile(a);
+    assertThat(store.get(BAR)).isNotNull();
+    assertThat(store.get(FOO)).isNull();
+    store.endFile(a, Collections.emptyList());
+    assertThat(store.get(FOO)).isNull();
+
+    // nothing to save
+    store.save();
+    assertThat(workDir).isEmptyDirectory();
+  }
+
+  @Test
+  void behaviors_are_reused_by_next_analysis_while_files_do_not_change() {
+    InputFile a = inputFile("A.java", "class A {}");
+    InputFile b = inputFile("B.java", "class B {}");
+    InputFile c = inputFile("C.java", "class C {}");
+    ProjectBehaviorStore store = ProjectBehaviorStore.load(workDir, "fingerprint", Arrays.asList(a, b, c));
+    store.startFile(a);
+    store.endFile(a, Collections.singletonList(completeBehavior(FOO)));
+    store.startFile(b);
+    // behavior of B depends on A
+    assertThat(store.get(FOO)).isNotNull();
+    store.endFile(b, Collections.singletonList(completeBehavior(BAR)));
+    store.save();
+    assertThat(new File(workDir, "java-se-behaviors.json")).isFile();
+
+    store = ProjectBehaviorStore.load(workDir, "fingerprint", Arrays.asList(a, b, c));
+    store.startFile(c);
+    assertThat(store.get(FOO)).isNotNull();
+    assertThat(store.get(BAR)).isNotNull();
+    store.endFile(c, Collections.emptyList());
+
+    InputFile changedA = inputFile("A.java", "class A { void foo() {} }");
+    store = ProjectBehaviorStore.load(workDir, "fingerprint", Arrays.asList(changedA, b, c));
+    store.startFile(c);
+    assertThat(store.get(FOO)).isNull();
+    assertThat(store.get(BAR)).isNull();
+    store.endFile(c, Collections.emptyList());
+  }
+
+  @Test
+  void behaviors_of_analysis_with_other_fingerprint_are_ignored() {
+    InputFile a = inputFile("A.java", "class A {}");
+    InputFile b = inputFile("B.java", "class B {}");
+    ProjectBehaviorStore store = ProjectBehaviorStore.load(workDir, "fingerprint", Arrays.asList(a, b));
+    store.startFile(a);
+    store.endFile(a, Collections.singletonList(completeBehavior(FOO)));
+    store.save();
+
+    store = ProjectBehaviorStore.load(workDir, "other fingerprint", Arrays.asList(a, b));
+    store.startFile(b);
+    assertThat(store.get(FOO)).isNull();
+  }
+
+  @Test
+  void corrupted_store_is_ignored() throws Exception {
+    InputFile a = inputFile("A.java", "class A {}");
+    Files.write(new File(workDir, "java-se-behaviors.json").toPath(), "{\"fingerprint\":\"fingerprint\",\"files\":[{".getBytes(StandardCharsets.UTF_8));
+    ProjectBehaviorStore store = ProjectBehaviorStore.load(workDir, "fingerprint", Collections.singletonList(a));
+    store.startFile(a);
+    assertThat(store.get(FOO)).isNull();
+  }
+
+  @Test
+  void temporary_file_is_deleted_when_store_can_not_be_written() throws Exception {
+    InputFile a = inputFile("A.java", "class A {}");
+    // a non-empty directory can not be replaced by the store file
+    File storeFile = new File(workDir, "java-se-behaviors.json");
+    Files.createDirectories(storeFile.toPath().resolve("child"));
+    ProjectBehaviorStore store = ProjectBehaviorStore.load(workDir, "fingerprint", Collections.singletonList(a));
+    store.startFile(a);
+    store.endFile(a, Collections.singletonList(completeBehavior(FOO)));
+    store.save();
+    assertThat(workDir.list()).containsExactly("java-se-behaviors.json");
+  }
+
+  @Test
+  void behaviors_depending_on_other_constraints_than_nullness_are_not_shared() {
+    ProjectBehaviorStore store = ProjectBehaviorStore.inMemory();
+    NullDereferenceCheck nullDereferenceCheck = new NullDereferenceCheck();
+    SymbolicExecutionVisitor sev = new SymbolicExecutionVisitor(Arrays.asList(nullDereferenceCheck, new DivisionByZeroCheck()), store);
+
+    scan(sev, "src/test/java/org/sonar/java/resolve/targets/se/ProjectBehaviorsProvider.java");
+    assertThat(store.get("org.sonar.java.resolve.targets.se.ProjectBehaviorsProvider#nullIfNull(Ljava/lang/Object;)Ljava/lang/Object;")).isNotNull();
+    // yields of nullIfZero only differ by the zero constraint of the parameter, which can not be stored
+    assertThat(store.get("org.sonar.java.resolve.targets.se.ProjectBehaviorsProvider#nullIfZero(I)Ljava/lang/Object;")).isNull();
+
+    scan(sev, "src/test/java/org/sonar/java/resolve/targets/se/ProjectBehaviorsUser.java");
+    JavaFileScannerContext context = mock(JavaFileScannerContext.class);
+    nullDereferenceCheck.scanFile(context);
+    ArgumentCaptor<Tree> trees = ArgumentCaptor.forClass(Tree.class);
+    verify(context).reportIssueWithFlow(eq(nullDereferenceCheck), trees.capture(), anyString(), anySet(), nullable(Integer.class));
+    assertThat(trees.getValue().firstToken().line()).isEqualTo(25);
+  }
+
+  private static void scan(SymbolicExecutionVisitor sev, String fileName) {
+    InputFile inputFile = SETestUtils.inputFile(fileName);
+    JavaTree.CompilationUnitTreeImpl cut = (JavaTree.CompilationUnitTreeImpl) JParserTestUtils.parse(inputFile.file(), SETestUtils.CLASS_PATH);
+    sev.scanFile(new DefaultJavaFileScannerContext(cut, inputFile, cut.sema, null, new JavaVersionImpl(8), true, false));
+  }
+
+  private static MethodBehavior completeBehavior(String signature) {
+    MethodBehavior behavior = new MethodBehavior(signature, false);
+    behavior.completed();
+    return behavior;
+  }
+
+  private static InputFile inputFile(String name, String contents) {
+    return new TestInputFileBuilder("module", name)
+      .setContents(contents)
+      .setCharset(StandardCharsets.UTF_8)
+      .setLanguage("java")
+      .build();
+  }
+}
@@ -20,6 +20,8 @@
 package org.sonar.plugins.java;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -41,13 +43,19 @@ import org.sonar.java.JavaFrontend;
 import org.sonar.java.Measurer;
 import org.sonar.java.SonarComponents;
 import org.sonar.java.annotations.VisibleForTesting;
+import org.sonar.java.caching.AnalysisFingerprint;
 import org.sonar.java.checks.CheckList;
+import org.sonar.java.classpath.ClasspathIndex;
 import org.sonar.java.filters.PostAnalysisIssueFilter;
 import org.sonar.java.jsp.Jasper;
 import org.sonar.java.model.GeneratedFile;
 import org.sonar.java.model.JavaVersionImpl;
+import org.sonar.java.se.SymbolicExecutionBudget;
+import org.sonar.java.se.SymbolicExecutionOptions;
+import org.sonar.java.se.SymbolicExecutionOptions.ExplorationStrategy;
 import org.sonar.java.se.SymbolicExecutionVisitor;
 import org.sonar.java.se.checks.SECheck;
+import org.sonar.java.se.xproc.ProjectBehaviorStore;
 import org.sonar.plugins.java.api.JavaCheck;
 import org.sonar.plugins.java.api.JavaResourceLocator;
 import org.sonar.plugins.java.api.JavaVersion;
@@ -58,9 +66,10 @@ public class JavaSensor implements Sensor {
 
   private static final Logger LOG = Loggers.get(JavaSensor.class);
 
-  private static final String PERFORMANCE_MEASURE_ACTIVATION_PROPERTY = "sonar.java.performance.measure";
+  private static final String PERFORMANCE_MEASURE_ACTIVATION_PROPERTY = SonarComponents.PERFORMANCE_MEASURE_KEY;
   private static final String PERFORMANCE_MEASURE_FILE_PATH_PROPERTY = "sonar.java.performance.measure.path";
   private static final String PERFORMANCE_MEASURE_DESTINATION_FILE = "sonar.java.performance.measure.json";
+  private static final String SE_ABORTED_METHODS_REPORT_FILE = "sonar.java.symbolicExecution.abortedMethods.txt";
 
   private final SonarComponents sonarComponents;
   private final FileSystem fs;
@@ -98,19 +107,97 @@ public class JavaSensor implements Sensor {
     PerformanceMeasure.Duration sensorDuration = createPerformanceMeasureReport(context);
 
     sonarComponents.setSensorContext(context);
+    sonarComponents.setClasspathIndex(loadClasspathIndex(context));
 
     sonarComponents.registerMainCheckClasses(CheckList.REPOSITORY_KEY, CheckList.getJavaChecks());
     sonarComponents.registerTestCheckClasses(CheckList.REPOSITORY_KEY, CheckList.getJavaTestChecks());
 
     Measurer measurer = new Measurer(context, noSonarFilter);
 
-    JavaFrontend frontend = new JavaFrontend(getJavaVersion(), sonarComponents, measurer, javaResourceLocator, postAnalysisIssueFilter,
-      insertSymbolicExecutionVisitor(sonarComponents.mainChecks()));
+    JavaVersion javaVersion = getJavaVersion();
+    List<JavaCheck> mainChecks = sonarComponents.mainChecks();
+    ProjectBehaviorStore projectBehaviors = createProjectBehaviorStore(context, javaVersion, mainChecks);
+    SymbolicExecutionBudget budget = symbolicExecutionBudget();
+    JavaFrontend frontend = new JavaFrontend(javaVersion, sonarComponents, measurer, javaResourceLocator, postAnalysisIssueFilter,
+      insertSymbolicExecutionVisitor(mainChecks, projectBehaviors, symbolicExecutionOptions(), budget));
     frontend.scan(getSourceFiles(), getTestFiles(), runJasper(context));
+    if (projectBehaviors != null) {
+      projectBehaviors.save();
+    }
+    reportAbortedMethods(context, budget);
 
     sensorDuration.stop();
   }
 
+  /**
+   * Behaviors are persisted only when a work directory is available, and never in SonarLint. They depend on the
+   * version of the analyzer, the java version, the libraries and the symbolic execution checks.
+   */
+  @Nullable
+  private ProjectBehaviorStore createProjectBehaviorStore(SensorContext context, JavaVersion javaVersion, List<JavaCheck> checks) {
+    if (!sonarComponents.isSymbolicExecutionProjectBehaviorsEnabled()) {
+      return null;
+    }
+    File workDir = context.fileSystem().workDir();
+    if (sonarComponents.isSonarLintContext() || workDir == null) {
+      return ProjectBehaviorStore.inMemory();
+    }
+    AnalysisFingerprint fingerprint = new AnalysisFingerprint()
+      .add(String.valueOf(JavaSensor.class.getPackage().getImplementationVersion()))
+      .add(javaVersion.toString())
+      .addLibraries(sonarComponents.getJavaClasspath());
+    checks.stream()
+      .filter(SECheck.class::isInstance)
+      .forEach(check -> fingerprint.add(check.getClass().getName()));
+    return ProjectBehaviorStore.load(workDir, fingerprint.value(), getSourceFiles());
+  }
+
+  private SymbolicExecutionOptions symbolicExecutionOptions() {
+    return SymbolicExecutionOptions.DEFAULT
+      .withStateSubsumption(sonarComponents.isSymbolicExecutionStateSubsumptionEnabled())
+      .withExplorationStrategy(explorationStrategy());
+  }
+
+  private SymbolicExecutionBudget symbolicExecutionBudget() {
+    return new SymbolicExecutionBudget(sonarComponents.symbolicExecutionMethodTimeLimit(), sonarComponents.symbolicExecutionFileStepLimit(),
+      sonarComponents.symbolicExecutionFileTimeLimit(), sonarComponents.isSymbolicExecutionBudgetReallocationEnabled());
+  }
+
+  /**
+   * When a budget is configured, the methods whose symbolic execution did not complete are listed in the work directory.
+   */
+  private void reportAbortedMethods(SensorContext context, SymbolicExecutionBudget budget) {
+    List<SymbolicExecutionBudget.AbortedMethod> abortedMethods = budget.abortedMethods();
+    if (!budget.isConfigured() || abortedMethods.isEmpty()) {
+      return;
+    }
+    LOG.info("Symbolic execution did not complete for {} method(s)", abortedMethods.size());
+    File workDir = context.fileSystem().workDir();
+    if (sonarComponents.isSonarLintContext() || workDir == null || !workDir.isDirectory()) {
+      return;
+    }
+    Path reportFile = workDir.toPath().resolve(SE_ABORTED_METHODS_REPORT_FILE);
+    try {
+      budget.writeReport(reportFile);
+      LOG.info("Methods whose symbolic execution did not complete are listed in {}", reportFile);
+    } catch (IOException e) {
+      LOG.warn("Unable to write the report of the symbolic execution in {}: {}", reportFile, e.getMessage());
+    }
+  }
+
+  private ExplorationStrategy explorationStrategy() {
+    Optional<String> value = sonarComponents.symbolicExecutionExplorationStrategy();
+    if (!value.isPresent()) {
+      return SymbolicExecutionOptions.DEFAULT.explorationStrategy();
+    }
+    ExplorationStrategy strategy = ExplorationStrategy.fromPropertyValue(value.get());
+    if (strategy == null) {
+      LOG.warn("Unknown symbolic execution exploration strategy \"{}\", using the default one.", value.get());
+      return SymbolicExecutionOptions.DEFAULT.explorationStrategy();
+    }
+    return strategy;
+  }
+
   private static PerformanceMeasure.Duration createPerformanceMeasureReport(SensorContext context) {
     return PerformanceMeasure.reportBuilder()
       .activate(context.config().get(PERFORMANCE_MEASURE_ACTIVATION_PROPERTY).filter("true"::equals).isPresent())
@@ -124,8 +211,21 @@ public class JavaSensor implements Sensor {
       .start("JavaSensor");
   }
 
+  @Nullable
+  private static ClasspathIndex loadClasspathIndex(SensorContext context) {
+    return Optional.ofNullable(context.fileSystem().workDir())
+      .filter(File::isDirectory)
+      .map(ClasspathIndex::load)
+      .orElse(null);
+  }
+
   @VisibleForTesting
   static JavaCheck[] insertSymbolicExecutionVisitor(List<JavaCheck> checks) {
+    return insertSymbolicExecutionVisitor(checks, null, SymbolicExecutionOptions.DEFAULT, SymbolicExecutionBudget.defaultBudget());
+  }
+
+  private static JavaCheck[] insertSymbolicExecutionVisitor(List<JavaCheck> checks, @Nullable ProjectBehaviorStore projectBehaviors,
+    SymbolicExecutionOptions options, SymbolicExecutionBudget budget) {
     List<SECheck> seChecks = checks.stream()
       .filter(SECheck.class::isInstance)
       .map(SECheck.class::cast)
@@ -135,7 +235,7 @@ public class JavaSensor implements Sensor {
     }
     List<JavaCheck> newList = new ArrayList<>(checks);
     // insert an instance of SymbolicExecutionVisitor before the first SECheck
-    newList.add(newList.indexOf(seChecks.get(0)), new SymbolicExecutionVisitor(seChecks));
+    newList.add(newList.indexOf(seChecks.get(0)), new SymbolicExecutionVisitor(seChecks, projectBehaviors, options, budget));
     return newList.toArray(new JavaCheck[0]);
   }
 
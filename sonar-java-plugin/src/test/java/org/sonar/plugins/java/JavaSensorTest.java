@@ -125,6 +125,7 @@ class JavaSensorTest {
     JavaSensor jss = new JavaSensor(sonarComponents, fs, javaResourceLocator, settings.asConfig(), noSonarFilter, null);
 
     jss.execute(context);
+    assertThat(sonarComponents.classpathIndex()).isNotNull();
     // argument 103 refers to the comment on line #103 in this file
     verify(noSonarFilter, times(1)).noSonarInFile(fs.inputFiles().iterator().next(), Collections.singleton(113));
     verify(sonarComponents, times(expectedIssues)).reportIssue(any(AnalyzerMessage.class));